@@ -11,6 +11,7 @@ import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionAdapter;
 import java.awt.event.MouseMotionListener;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -445,8 +446,8 @@ public class SelectionController {
         for (GraphicalElement el : selectedElements) {
             logger.finer(() -> "Element " + el + " " + el.getX() + ", " + el.getY() + " - " + el.getWidth() + ", "
                     + el.getHeight());
-            model.selectGraphicalElement(el);
         }
+        model.selectGraphicalElements(selectedElements);
 
         setUndoCoordinates();
 
@@ -506,9 +507,7 @@ public class SelectionController {
             contained.forEach(this::addElementToSelection);
 
             model.clearSelected();
-            for (GraphicalElement el : selectedElements) {
-                model.selectGraphicalElement(el);
-            }
+            model.selectGraphicalElements(selectedElements);
         }
     }
 
@@ -724,6 +723,15 @@ public class SelectionController {
         selectedElements.forEach(e -> CompositeDeleteEditLoader.loadCompositeDeleteEdit(e, edit, model));
         parentComponent.getUndoSupport().postEdit(edit);
 
+        model.beginUpdate();
+        try {
+            removeSelectedElements();
+        } finally {
+            model.endUpdate();
+        }
+    }
+
+    private void removeSelectedElements() {
         for (GraphicalElement selectedElement : selectedElements) {
             // check if element was not already deleted by a link to another element
             if (inModel(selectedElement)) {
@@ -815,10 +823,8 @@ public class SelectionController {
         selectedElements.clear();
         model.clearSelected();
 
-        for (GraphicalElement el : model.getGraphicalElements()) {
-            selectedElements.add(el);
-            model.selectGraphicalElement(el);
-        }
+        selectedElements.addAll(model.getGraphicalElements());
+        model.selectAll();
     }
 
     protected void addElementToSelection(GraphicalElement e) {
@@ -906,6 +912,16 @@ public class SelectionController {
 
         logger.fine("Pasting " + clipboardElements.size() + " elements from clipboard");
 
+        model.beginUpdate();
+        try {
+            pasteElements(clipboardElements);
+        } finally {
+            model.endUpdate();
+        }
+    }
+
+    private void pasteElements(List<GraphicalElement> clipboardElements) {
+
         // Calculate the bounding box of the original elements (find top-left corner)
         int minX = Integer.MAX_VALUE;
         int minY = Integer.MAX_VALUE;
@@ -1210,10 +1226,8 @@ public class SelectionController {
         // Clear current selection and select all pasted elements
         selectedElements.clear();
         model.clearSelected();
-        for (GraphicalElement pastedElement : pastedElements) {
-            pastedElement.setSelected(true);
-            selectedElements.add(pastedElement);
-        }
+        selectedElements.addAll(pastedElements);
+        model.selectGraphicalElements(pastedElements);
 
         logger.fine("Successfully pasted " + pastedElements.size() + " elements");
 
@@ -1528,6 +1542,16 @@ public class SelectionController {
             return;
         }
 
+        // The area of the feedback before the drag step
+        Rectangle2D area = draggingLink.getPaintBounds()
+                .createUnion(new Rectangle2D.Double(dragPoint.getX(), dragPoint.getY(), 0, 0));
+        List<GraphicalElement> changed = new ArrayList<>();
+        changed.add(draggingLink);
+        if (potentialTarget != null) {
+            changed.add(potentialTarget);
+            area.add(potentialTarget.getPaintBounds());
+        }
+
         // Update drag point
         dragPoint.setLocation(x, y);
 
@@ -1536,8 +1560,14 @@ public class SelectionController {
 
         // TODO: Validate if reconnection is allowed (Phase 3)
 
-        // Repaint to show visual feedback
-        model.modelChanged();
+        // Repaint to show visual feedback; nothing has moved, so the old and the
+        // new bounds are the same and the model keeps its index for hit-testing
+        area.add(dragPoint);
+        if (potentialTarget != null) {
+            changed.add(potentialTarget);
+            area.add(potentialTarget.getPaintBounds());
+        }
+        model.modelChanged(changed, area, area);
     }
 
     /**
@@ -1957,7 +1987,7 @@ public class SelectionController {
                     // Mouse is over an endpoint - show hand cursor
                     parentComponent.getView().setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
                     overEndpoint = true;
-                    model.modelChanged(); // Trigger repaint for hover feedback
+                    model.modelChanged(message); // Trigger repaint for hover feedback
                     break;
                 }
             }
@@ -1970,7 +2000,7 @@ public class SelectionController {
                     SDMessageGR message = (SDMessageGR) element;
                     if (message.getHoveredEndpoint() != EndpointType.NONE) {
                         message.setHoveredEndpoint(EndpointType.NONE);
-                        model.modelChanged(); // Trigger repaint
+                        model.modelChanged(message); // Trigger repaint
                     }
                 }
             }
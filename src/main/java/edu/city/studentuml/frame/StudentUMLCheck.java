@@ -0,0 +1,141 @@
+package edu.city.studentuml.frame;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.LogManager;
+
+import edu.city.studentuml.util.Constants;
+import edu.city.studentuml.util.validation.BatchConsistencyChecker;
+import edu.city.studentuml.util.validation.BatchConsistencyChecker.Report;
+
+/**
+ * Checks the consistency of project files from the command line, without
+ * opening the GUI, and writes a JSON report for each file:
+ *
+ * <pre>
+ * java -cp studentuml.jar edu.city.studentuml.frame.StudentUMLCheck [options] files or directories...
+ *   -r, --rules simple|advanced|FILE   the rules to check (default: advanced)
+ *   -o, --output DIR                   where the reports are written (default: the current directory)
+ *   -t, --threads N                    the number of files checked at the same time (default: processors)
+ * </pre>
+ *
+ * The .xml files of the given directories are checked. The exit status is 0
+ * if every file was checked, 1 for wrong arguments and 2 if a file could not
+ * be loaded.
+ */
+public class StudentUMLCheck {
+
+    static final int OK = 0;
+    static final int USAGE = 1;
+    static final int NOT_CHECKED = 2;
+
+    static {
+        InputStream stream = StudentUMLCheck.class.getClassLoader().getResourceAsStream("logging.properties");
+        try {
+            LogManager.getLogManager().readConfiguration(stream);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private StudentUMLCheck() {
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        System.exit(run(args, System.out, System.err));
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        String rules = "advanced";
+        File output = new File(".");
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<File> files = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                case "-r":
+                case "--rules":
+                    rules = args[++i];
+                    break;
+                case "-o":
+                case "--output":
+                    output = new File(args[++i]);
+                    break;
+                case "-t":
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    addFiles(new File(args[i]), files);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            return usage(err, "Missing or wrong value of " + args[args.length - 1]);
+        }
+        if (files.isEmpty()) {
+            return usage(err, "No project files given");
+        }
+        if (threads < 1) {
+            return usage(err, "At least one thread is needed");
+        }
+        String ruleFile = ruleFile(rules);
+        if (ruleFile == null) {
+            return usage(err, "No such rule file: " + rules);
+        }
+
+        List<Report> reports;
+        try {
+            reports = new BatchConsistencyChecker(ruleFile, threads).checkAll(files, output);
+        } catch (IOException e) {
+            err.println("Cannot write the reports: " + e.getMessage());
+            return NOT_CHECKED;
+        }
+
+        int status = OK;
+        for (Report report : reports) {
+            if (report.getError() != null) {
+                out.println(report.getFile() + ": " + report.getError());
+                status = NOT_CHECKED;
+            } else {
+                out.println(report.getFile() + ": " + report.getMessages().size() + " messages "
+                        + report.getSummary());
+            }
+        }
+        return status;
+    }
+
+    private static void addFiles(File file, List<File> files) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles((dir, name) -> name.toLowerCase().endsWith(".xml"));
+            if (children != null) {
+                Arrays.sort(children);
+                files.addAll(Arrays.asList(children));
+            }
+        } else {
+            files.add(file);
+        }
+    }
+
+    private static String ruleFile(String rules) {
+        if (rules.equals("simple")) {
+            return StudentUMLCheck.class.getResource(Constants.RULES_SIMPLE).toString();
+        } else if (rules.equals("advanced")) {
+            return StudentUMLCheck.class.getResource(Constants.RULES_ADVANCED).toString();
+        }
+        File file = new File(rules);
+        return file.isFile() ? file.toURI().toString() : null;
+    }
+
+    private static int usage(PrintStream err, String problem) {
+        err.println(problem);
+        err.println("Usage: StudentUMLCheck [-r simple|advanced|FILE] [-o DIR] [-t THREADS] files or directories...");
+        return USAGE;
+    }
+}
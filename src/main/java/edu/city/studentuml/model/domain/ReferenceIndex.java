@@ -0,0 +1,189 @@
+package edu.city.studentuml.model.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.city.studentuml.model.graphical.ActorInstanceGR;
+import edu.city.studentuml.model.graphical.ClassGR;
+import edu.city.studentuml.model.graphical.ConceptualClassGR;
+import edu.city.studentuml.model.graphical.DiagramModel;
+import edu.city.studentuml.model.graphical.GraphicalElement;
+import edu.city.studentuml.model.graphical.MultiObjectGR;
+import edu.city.studentuml.model.graphical.SDObjectGR;
+import edu.city.studentuml.model.graphical.SystemInstanceGR;
+
+/**
+ * The graphical elements of a project showing each class, actor and system, so
+ * that finding whether one is still shown does not go through every diagram.
+ * Elements are indexed when they are added to and removed from a diagram.
+ * Editing an object, actor or system instance can change the class, actor or
+ * system it shows, also in the other diagrams sharing it, so after an edit the
+ * elements showing an instance are indexed again at the next query if what they
+ * show has changed. The index is only built again from the diagrams after they
+ * are cleared or loaded.
+ */
+final class ReferenceIndex {
+
+    private static final class Reference {
+        final Object shown;
+        final DiagramModel model;
+
+        Reference(Object shown, DiagramModel model) {
+            this.shown = shown;
+            this.model = model;
+        }
+    }
+
+    private final Map<Object, List<GraphicalElement>> elements = new IdentityHashMap<>();
+    private final Map<GraphicalElement, Reference> references = new IdentityHashMap<>();
+    private final Set<GraphicalElement> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<DiagramModel> diagramModels;
+    private boolean stale = true;
+    private boolean edited = false;
+    private int builds = 0;
+
+    ReferenceIndex(List<DiagramModel> diagramModels) {
+        this.diagramModels = diagramModels;
+    }
+
+    void elementAdded(DiagramModel model, GraphicalElement e) {
+        if (!stale && diagramModels.contains(model)) {
+            add(model, e);
+        }
+    }
+
+    void elementRemoved(GraphicalElement e) {
+        if (!stale) {
+            remove(e);
+        }
+    }
+
+    void diagramAdded(DiagramModel model) {
+        if (!stale) {
+            model.getGraphicalElements().forEach(e -> add(model, e));
+        }
+    }
+
+    void diagramRemoved(DiagramModel model) {
+        if (!stale) {
+            model.getGraphicalElements().forEach(this::remove);
+        }
+    }
+
+    /**
+     * Called after elements of a diagram were edited.
+     */
+    void elementsEdited() {
+        edited = true;
+    }
+
+    void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * @return the elements showing the domain object
+     */
+    List<GraphicalElement> getElements(Object shown) {
+        if (stale) {
+            rebuild();
+        } else if (edited) {
+            reindexInstances();
+        }
+        return new ArrayList<>(elements.getOrDefault(shown, Collections.emptyList()));
+    }
+
+    /**
+     * @return how many times the index was built from the diagrams
+     */
+    int getBuilds() {
+        return builds;
+    }
+
+    DiagramModel getModel(GraphicalElement e) {
+        Reference reference = references.get(e);
+        return reference == null ? null : reference.model;
+    }
+
+    /**
+     * @return the class, actor or system shown by the element, or null if it does
+     *         not show one
+     */
+    static Object getShown(GraphicalElement e) {
+        if (e instanceof ClassGR) {
+            return ((ClassGR) e).getDesignClass();
+        } else if (e instanceof ConceptualClassGR) {
+            return ((ConceptualClassGR) e).getConceptualClass();
+        } else if (e instanceof SDObjectGR) {
+            return ((SDObjectGR) e).getSDObject().getDesignClass();
+        } else if (e instanceof MultiObjectGR) {
+            return ((MultiObjectGR) e).getMultiObject().getDesignClass();
+        } else if (e instanceof ActorInstanceGR) {
+            return ((ActorInstanceGR) e).getActorInstance().getActor();
+        } else if (e instanceof SystemInstanceGR) {
+            return ((SystemInstanceGR) e).getSystemInstance().getSystem();
+        }
+        return null;
+    }
+
+    private void add(DiagramModel model, GraphicalElement e) {
+        Object shown = getShown(e);
+        if (shown != null) {
+            elements.computeIfAbsent(shown, s -> new ArrayList<>(1)).add(e);
+            references.put(e, new Reference(shown, model));
+            if (!(e instanceof ClassGR) && !(e instanceof ConceptualClassGR)) {
+                instances.add(e);
+            }
+        }
+    }
+
+    private void remove(GraphicalElement e) {
+        Reference reference = references.remove(e);
+        instances.remove(e);
+        if (reference != null) {
+            List<GraphicalElement> shownBy = elements.get(reference.shown);
+            shownBy.removeIf(element -> element == e);
+            if (shownBy.isEmpty()) {
+                elements.remove(reference.shown);
+            }
+        }
+    }
+
+    /**
+     * Indexes again the elements showing an instance whose class, actor or system
+     * has changed since they were indexed. Class elements keep showing the class
+     * they were created with.
+     */
+    private void reindexInstances() {
+        List<GraphicalElement> changed = new ArrayList<>();
+        for (GraphicalElement e : instances) {
+            if (getShown(e) != references.get(e).shown) {
+                changed.add(e);
+            }
+        }
+        for (GraphicalElement e : changed) {
+            DiagramModel model = references.get(e).model;
+            remove(e);
+            add(model, e);
+        }
+        edited = false;
+    }
+
+    private void rebuild() {
+        elements.clear();
+        references.clear();
+        instances.clear();
+        for (DiagramModel model : diagramModels) {
+            for (GraphicalElement e : model.getGraphicalElements()) {
+                add(model, e);
+            }
+        }
+        stale = false;
+        edited = false;
+        builds++;
+    }
+}
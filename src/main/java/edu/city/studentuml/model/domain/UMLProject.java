@@ -3,33 +3,35 @@ package edu.city.studentuml.model.domain;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeSupport;
 import java.util.Vector;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import org.w3c.dom.Element;
 
 import com.fasterxml.jackson.annotation.JsonIncludeProperties;
 
 import edu.city.studentuml.model.graphical.AbstractSDModel;
-import edu.city.studentuml.model.graphical.ActorInstanceGR;
-import edu.city.studentuml.model.graphical.ClassGR;
-import edu.city.studentuml.model.graphical.ConceptualClassGR;
 import edu.city.studentuml.model.graphical.DiagramModel;
 import edu.city.studentuml.model.graphical.GraphicalElement;
-import edu.city.studentuml.model.graphical.MultiObjectGR;
-import edu.city.studentuml.model.graphical.SDObjectGR;
 import edu.city.studentuml.model.graphical.SSDModel;
-import edu.city.studentuml.model.graphical.SystemInstanceGR;
 import edu.city.studentuml.model.repository.CentralRepository;
 import edu.city.studentuml.util.IXMLCustomStreamable;
 import edu.city.studentuml.util.Mode;
 import edu.city.studentuml.util.NotStreamable;
 import edu.city.studentuml.util.NotifierVector;
+import edu.city.studentuml.util.ObjectFactory;
+import edu.city.studentuml.util.ProjectContext;
+import edu.city.studentuml.util.StreamingXMLWriter;
 import edu.city.studentuml.util.SystemWideObjectNamePool;
+import edu.city.studentuml.util.XMLStreamReaderStreamer;
 import edu.city.studentuml.util.XMLStreamer;
 import edu.city.studentuml.util.XMLSyntax;
 
@@ -38,10 +40,10 @@ public class UMLProject implements Serializable, PropertyChangeListener, IXMLCus
 
     private static final Logger logger = Logger.getLogger(UMLProject.class.getName());
 
-    private static UMLProject instance = null;
     private NotifierVector<DiagramModel> diagramModels;
     private final PropertyChangeSupport pcs = new PropertyChangeSupport(this);
     private CentralRepository repository;
+    private transient ReferenceIndex references;
     private boolean projectSaved = true;
     private String user;
     // for applet
@@ -57,13 +59,18 @@ public class UMLProject implements Serializable, PropertyChangeListener, IXMLCus
     private String projectFilepath = "";
     private String projectName = "";
 
-    protected UMLProject() {
+    /**
+     * Creates an empty project. The project of the desktop application and of
+     * the other {@link ProjectContext}s is returned by {@link #getInstance()}.
+     */
+    public UMLProject() {
         projectInit();
     }
 
     private void projectInit() {
         repository = new CentralRepository();
         diagramModels = new NotifierVector<>();
+        references = new ReferenceIndex(diagramModels);
         // applet
         title = "";
         comment = "";
@@ -74,15 +81,16 @@ public class UMLProject implements Serializable, PropertyChangeListener, IXMLCus
         projectName = "New Project";
     }
 
+    /**
+     * @return the project of the current {@link ProjectContext}
+     */
     public static UMLProject getInstance() {
-        if (instance == null) {
-            instance = new UMLProject();
-        }
-        return instance;
+        return ProjectContext.current().getProject();
     }
 
     public void clear() {
         diagramModels.clear();
+        references.invalidate();
         repository.clear();
         setFilename("");
         setFilepath("");
@@ -126,6 +134,7 @@ public class UMLProject implements Serializable, PropertyChangeListener, IXMLCus
 
     public void addDiagram(DiagramModel dm) {
         diagramModels.add(dm);
+        references.diagramAdded(dm);
         dm.addPropertyChangeListener(this);
         projectChanged();
     }
@@ -133,6 +142,7 @@ public class UMLProject implements Serializable, PropertyChangeListener, IXMLCus
     public void removeDiagram(DiagramModel dm) {
         dm.removePropertyChangeListener(this);
         diagramModels.remove(dm);
+        references.diagramRemoved(dm);
         projectChanged();
     }
 
@@ -145,11 +155,22 @@ public class UMLProject implements Serializable, PropertyChangeListener, IXMLCus
 
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
+        // moving or selecting elements changes nothing that the listeners of the project show
+        if (DiagramModel.isLayoutChange(evt)) {
+            setSaved(false);
+            return;
+        }
+        // elements may have been edited to show other classes, actors or systems
+        if (DiagramModel.DIAGRAM_CHANGED.equals(evt.getPropertyName())) {
+            references.elementsEdited();
+        }
         projectChanged();
     }
 
     /**
-     * Loads an XML document from the filename.
+     * Loads an XML document from the filename. The file is read in a single
+     * streaming pass unless the DOM loader is forced, see
+     * {@link XMLStreamReaderStreamer#open(String)}.
      * 
      * @param filename
      * @return a list of the errors (strings) collected during loading the file
@@ -160,13 +181,17 @@ public class UMLProject implements Serializable, PropertyChangeListener, IXMLCus
         logger.fine(() -> "Loading from XML: " + filename);
 
         SystemWideObjectNamePool.getInstance().loading();
+        ObjectFactory.getInstance().resetStatistics();
+
+        XMLStreamer streamer = XMLStreamReaderStreamer.open(filename);
+        try {
+            Element e = streamer.getNodeById(null, XMLSyntax.PROJECT);
+            streamFromXML(e, streamer, this);
+        } finally {
+            streamer.close();
+        }
 
-        XMLStreamer streamer = new XMLStreamer();
-        streamer.loadFile(filename);
-
-        Element e = streamer.getNodeById(null, XMLSyntax.PROJECT);
-        streamFromXML(e, streamer, this);
-
+        ObjectFactory.getInstance().logStatistics();
         SystemWideObjectNamePool.getInstance().done();
 
         logger.fine(() -> ".......end from XML: " + filename);
@@ -213,7 +238,13 @@ public class UMLProject implements Serializable, PropertyChangeListener, IXMLCus
         projectChanged();
     }
 
-    public void streamToXML() {
+    /**
+     * Saves the project to its file and marks it as saved.
+     * 
+     * @throws IOException if the project cannot be written; it is not marked as
+     *                     saved and the file is left as it was
+     */
+    public void streamToXML() throws IOException {
         if (projectFilepath == null || projectFilepath.length() == 0) {
             logger.severe("Empty or NULL projectFilepath");
             return;
@@ -222,10 +253,23 @@ public class UMLProject implements Serializable, PropertyChangeListener, IXMLCus
         setSaved(true);
     }
 
-    public void streamToXML(String path) {
-        XMLStreamer streamer = new XMLStreamer();
-        streamer.streamObject(null, XMLSyntax.PROJECT, this);
-        streamer.saveToFile(path);
+    /**
+     * Saves the project to path. The project is streamed into a temporary file,
+     * unless the DOM writer is forced, see {@link StreamingXMLWriter#open(String)},
+     * which replaces the file only once it has been written completely.
+     * 
+     * @param path
+     * @throws IOException if the project cannot be written; the file is left as
+     *                     it was
+     */
+    public void streamToXML(String path) throws IOException {
+        XMLStreamer streamer = StreamingXMLWriter.open(path);
+        try {
+            streamer.streamObject(null, XMLSyntax.PROJECT, this);
+            streamer.save(path);
+        } finally {
+            streamer.close();
+        }
     }
 
     /**
@@ -242,6 +286,7 @@ public class UMLProject implements Serializable, PropertyChangeListener, IXMLCus
     @Override
     public void streamFromXML(Element element, XMLStreamer streamer, Object instance) throws NotStreamable {
         diagramModels.clear();
+        references.invalidate();
         streamer.streamChildrenFrom(element, instance);
     }
 
@@ -262,29 +307,7 @@ public class UMLProject implements Serializable, PropertyChangeListener, IXMLCus
      *         otherwise
      */
     public boolean isClassReferenced(GraphicalElement el, AbstractClass abstractClass) {
-        for (DiagramModel model : diagramModels) {
-            for (GraphicalElement element : model.getGraphicalElements()) {
-                if (element == el) {
-                    continue;
-                }
-                if (element instanceof ConceptualClassGR
-                        && ((ConceptualClassGR) element).getConceptualClass() == abstractClass) {
-                    return true;
-                }
-                if (element instanceof ClassGR && ((ClassGR) element).getDesignClass() == abstractClass) {
-                    return true;
-                }
-                if (element instanceof SDObjectGR
-                        && ((SDObjectGR) element).getSDObject().getDesignClass() == abstractClass) {
-                    return true;
-                }
-                if (element instanceof MultiObjectGR
-                        && ((MultiObjectGR) element).getMultiObject().getDesignClass() == abstractClass) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return isReferenced(el, abstractClass, DiagramModel.class);
     }
 
     /**
@@ -299,20 +322,7 @@ public class UMLProject implements Serializable, PropertyChangeListener, IXMLCus
      *         false otherwise
      */
     public boolean isActorReferenced(GraphicalElement el, Actor actor) {
-        for (DiagramModel model : diagramModels) {
-            if (!(model instanceof AbstractSDModel)) {
-                continue;
-            }
-            for (GraphicalElement element : model.getGraphicalElements()) {
-                if (element == el || !(element instanceof ActorInstanceGR)) {
-                    continue;
-                }
-                if (((ActorInstanceGR) element).getActorInstance().getActor() == actor) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return isReferenced(el, actor, AbstractSDModel.class);
     }
 
     /**
@@ -327,22 +337,81 @@ public class UMLProject implements Serializable, PropertyChangeListener, IXMLCus
      *         false otherwise
      */
     public boolean isSystemReferenced(GraphicalElement el, System system) {
-        for (DiagramModel model : diagramModels) {
-            if (!(model instanceof SSDModel)) {
-                continue;
-            }
-            for (GraphicalElement element : model.getGraphicalElements()) {
-                if (element == el || !(element instanceof SystemInstanceGR)) {
-                    continue;
-                }
-                if (((SystemInstanceGR) element).getSystemInstance().getSystem() == system) {
-                    return true;
-                }
+        return isReferenced(el, system, SSDModel.class);
+    }
+
+    private boolean isReferenced(GraphicalElement el, Object referenced, Class<? extends DiagramModel> modelType) {
+        for (GraphicalElement element : references.getElements(referenced)) {
+            if (element != el && modelType.isInstance(references.getModel(element))) {
+                return true;
             }
         }
         return false;
     }
 
+    /**
+     * Returns the graphical elements showing a class (design or conceptual), an
+     * actor or a system: the classes, objects and multiobjects of the class, the
+     * instances of the actor and the instances of the system.
+     *
+     * @param referenced the class, actor or system
+     * @return the elements, in the order they were added, followed by those
+     *         edited to show it
+     */
+    public List<GraphicalElement> getReferencingElements(Object referenced) {
+        return references.getElements(referenced);
+    }
+
+    /**
+     * Returns the diagrams showing a class, an actor or a system, see
+     * {@link #getReferencingElements(Object)}.
+     *
+     * @param referenced the class, actor or system
+     * @return the diagrams, in the order of the project
+     */
+    public List<DiagramModel> getReferencingDiagrams(Object referenced) {
+        Set<DiagramModel> referencing = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (GraphicalElement element : references.getElements(referenced)) {
+            referencing.add(references.getModel(element));
+        }
+        return diagramModels.stream().filter(referencing::contains).collect(Collectors.toList());
+    }
+
+    /**
+     * Called by the diagrams after adding an element.
+     *
+     * @param model
+     * @param e
+     */
+    public void elementAdded(DiagramModel model, GraphicalElement e) {
+        references.elementAdded(model, e);
+    }
+
+    /**
+     * Called by the diagrams after removing an element.
+     *
+     * @param e
+     */
+    public void elementRemoved(GraphicalElement e) {
+        references.elementRemoved(e);
+    }
+
+    /**
+     * Called by the diagrams after removing all their elements at once, e.g.
+     * before loading them.
+     */
+    public void elementsCleared() {
+        references.invalidate();
+    }
+
+    /**
+     * @return how many times the index of the referencing elements was built
+     *         from the diagrams
+     */
+    int getReferenceIndexBuilds() {
+        return references.getBuilds();
+    }
+
     public void setTitle(String title) {
         this.title = title;
     }
@@ -1,6 +1,7 @@
 package edu.city.studentuml.model.graphical;
 
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.logging.Logger;
@@ -177,11 +178,16 @@ public class ADModel extends DiagramModel {
         return null;
     }
 
+    // Override: contained elements are selected, although they are not in the diagram
     @Override
-    public void selectGraphicalElement(GraphicalElement el) {
-        selected.add(el);
-        el.setSelected(true);
-        modelChanged();
+    public void selectGraphicalElements(List<? extends GraphicalElement> elements) {
+        for (GraphicalElement el : elements) {
+            selected.add(el);
+            el.setSelected(true);
+        }
+        if (!elements.isEmpty()) {
+            modelChanged();
+        }
     }
 
     // Override: needed because of the composite structure
@@ -208,12 +214,16 @@ public class ADModel extends DiagramModel {
      */
     @Override
     public void moveGraphicalElement(GraphicalElement e, int x, int y) {
+        boolean contextChanged = false;
+        Rectangle2D oldBounds = e.getBounds();
         e.move(x, y);
+        updateExtent(oldBounds, e.getBounds());
         if (e instanceof NodeComponentGR) {
             NodeComponentGR node = (NodeComponentGR) e;
             NodeComponentGR oldContext = node.getContext();
             NodeComponentGR newContext = findContext(node);
             if (oldContext != newContext) {
+                contextChanged = true;
                 if (oldContext == NodeComponentGR.DEFAULT_CONTEXT) {
                     graphicalElements.remove(node);
                     newContext.add(node);
@@ -235,7 +245,11 @@ public class ADModel extends DiagramModel {
 
         changeViewSize();
 
-        modelChanged();
+        if (contextChanged) {
+            modelChanged();
+        } else {
+            layoutChanged();
+        }
     }
 
     private int getFirstEdgeIndex() {
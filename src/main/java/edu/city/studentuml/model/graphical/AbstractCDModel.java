@@ -1,16 +1,106 @@
 package edu.city.studentuml.model.graphical;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 import edu.city.studentuml.model.domain.Generalization;
 import edu.city.studentuml.model.domain.UMLProject;
 
 public abstract class AbstractCDModel extends DiagramModel {
 
+    /*
+     * the links showing each domain relationship; a link's relationship can be
+     * replaced while it is in the diagram (e.g. when reconnecting a realization),
+     * so the relationship each link was indexed under is kept as well
+     */
+    private transient Map<Object, List<GraphicalElement>> relationshipLinks;
+    private transient Map<GraphicalElement, Object> indexedRelationships;
+
     protected AbstractCDModel(String title, UMLProject umlp) {
         super(title, umlp);
     }
 
+    @Override
+    protected void addToIndexes(GraphicalElement e) {
+        super.addToIndexes(e);
+        Object relationship = getRelationship(e);
+        if (relationship != null) {
+            getRelationshipLinks().computeIfAbsent(relationship, r -> new ArrayList<>(1)).add(e);
+            getIndexedRelationships().put(e, relationship);
+        }
+    }
+
+    @Override
+    protected void removeFromIndexes(GraphicalElement e) {
+        super.removeFromIndexes(e);
+        Object relationship = getIndexedRelationships().remove(e);
+        if (relationship != null) {
+            List<GraphicalElement> links = getRelationshipLinks().get(relationship);
+            links.remove(e);
+            if (links.isEmpty()) {
+                getRelationshipLinks().remove(relationship);
+            }
+        }
+    }
+
+    @Override
+    protected void clearIndexes() {
+        super.clearIndexes();
+        getRelationshipLinks().clear();
+        getIndexedRelationships().clear();
+    }
+
+    /**
+     * Returns whether the domain relationship of a link is also shown by another
+     * link of this diagram, e.g. after pasting it, in which case it has to stay
+     * in the repository when the link is removed.
+     * 
+     * @param link
+     */
+    protected boolean isShownByOtherLinks(GraphicalElement link) {
+        Object relationship = getRelationship(link);
+        List<GraphicalElement> links = getRelationshipLinks().get(relationship);
+        if (links != null) {
+            for (GraphicalElement other : links) {
+                if (other != link && getRelationship(other) == relationship) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Object getRelationship(GraphicalElement e) {
+        if (e instanceof AssociationGR) {
+            return ((AssociationGR) e).getAssociation();
+        } else if (e instanceof AssociationClassGR) {
+            return ((AssociationClassGR) e).getAssociationClass();
+        } else if (e instanceof DependencyGR) {
+            return ((DependencyGR) e).getDependency();
+        } else if (e instanceof GeneralizationGR) {
+            return ((GeneralizationGR) e).getGeneralization();
+        } else if (e instanceof RealizationGR) {
+            return ((RealizationGR) e).getRealization();
+        }
+        return null;
+    }
+
+    private Map<Object, List<GraphicalElement>> getRelationshipLinks() {
+        if (relationshipLinks == null) {
+            relationshipLinks = new IdentityHashMap<>();
+        }
+        return relationshipLinks;
+    }
+
+    private Map<GraphicalElement, Object> getIndexedRelationships() {
+        if (indexedRelationships == null) {
+            indexedRelationships = new IdentityHashMap<>();
+        }
+        return indexedRelationships;
+    }
+
     /*
      * shared methods in subclasses
      */
@@ -41,19 +131,13 @@ public abstract class AbstractCDModel extends DiagramModel {
      * @param g
      */
     protected void addGeneralization(GeneralizationGR g) {
-        Optional<GraphicalElement> alreadyExistingGen = getGraphicalElements().stream().filter(e -> {
-            if (e instanceof GeneralizationGR) {
-                GeneralizationGR generalizationGR = (GeneralizationGR) e;
-                if (generalizationGR.getBaseClass() == g.getBaseClass()
-                        && generalizationGR.getSuperClass() == g.getSuperClass()) {
-                    return true;
-                }
-            }
-            return false;
-        }).findFirst();
+        boolean alreadyExistingGen = getLinks(g.getBaseClass()).stream().anyMatch(
+                link -> link instanceof GeneralizationGR
+                        && ((GeneralizationGR) link).getBaseClass() == g.getBaseClass()
+                        && ((GeneralizationGR) link).getSuperClass() == g.getSuperClass());
 
         // do not add in the same diagram if the relationship already exists
-        if (alreadyExistingGen.isPresent()) {
+        if (alreadyExistingGen) {
             return;
         }
 
@@ -84,38 +168,22 @@ public abstract class AbstractCDModel extends DiagramModel {
     // HOWEVER, when pasting, multiple graphical elements can reference the same domain object,
     // so only remove from repository if this is the LAST graphical reference to it
     protected void removeAssociation(AssociationGR a) {
-        // Count how many other AssociationGRs reference the same domain Association
-        long count = graphicalElements.stream()
-            .filter(e -> e instanceof AssociationGR && e != a)
-            .filter(e -> ((AssociationGR) e).getAssociation() == a.getAssociation())
-            .count();
-        
         // Only remove from repository if this is the last graphical reference
-        if (count == 0 && repository.getAssociations().contains(a.getAssociation())) {
+        if (!isShownByOtherLinks(a) && repository.getAssociations().contains(a.getAssociation())) {
             repository.removeAssociation(a.getAssociation());
         }
         super.removeGraphicalElement(a);
     }
 
     protected void removeGeneralization(GeneralizationGR g) {
-        long count = graphicalElements.stream()
-            .filter(e -> e instanceof GeneralizationGR && e != g)
-            .filter(e -> ((GeneralizationGR) e).getGeneralization() == g.getGeneralization())
-            .count();
-        
-        if (count == 0 && repository.getGeneralizations().contains(g.getGeneralization())) {
+        if (!isShownByOtherLinks(g) && repository.getGeneralizations().contains(g.getGeneralization())) {
             repository.removeGeneralization(g.getGeneralization());
         }
         super.removeGraphicalElement(g);
     }
 
     protected void removeAssociationClass(AssociationClassGR a) {
-        long count = graphicalElements.stream()
-            .filter(e -> e instanceof AssociationClassGR && e != a)
-            .filter(e -> ((AssociationClassGR) e).getAssociationClass() == a.getAssociationClass())
-            .count();
-        
-        if (count == 0 && (repository.getConceptualAssociationClasses().contains(a.getAssociationClass()) ||
+        if (!isShownByOtherLinks(a) && (repository.getConceptualAssociationClasses().contains(a.getAssociationClass()) ||
             repository.getDesignAssociationClasses().contains(a.getAssociationClass()))) {
             repository.removeAssociationClass(a.getAssociationClass());
         }
@@ -123,12 +191,7 @@ public abstract class AbstractCDModel extends DiagramModel {
     }
 
     protected void removeAggregation(AggregationGR a) {
-        long count = graphicalElements.stream()
-            .filter(e -> e instanceof AggregationGR && e != a)
-            .filter(e -> ((AggregationGR) e).getAggregation() == a.getAggregation())
-            .count();
-        
-        if (count == 0 && repository.getAggregations().contains(a.getAggregation())) {
+        if (!isShownByOtherLinks(a) && repository.getAggregations().contains(a.getAggregation())) {
             repository.removeAggregation(a.getAggregation());
         }
         super.removeGraphicalElement(a);
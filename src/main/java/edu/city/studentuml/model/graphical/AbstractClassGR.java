@@ -8,6 +8,8 @@ import java.awt.Stroke;
 import java.awt.font.FontRenderContext;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.w3c.dom.Element;
 
@@ -47,6 +49,13 @@ public abstract class AbstractClassGR extends GraphicalElement implements Classi
     @JsonProperty("class")
     protected AbstractClass abstractClass;
 
+    /*
+     * the texts and the drawing context the width and height were last
+     * calculated for
+     */
+    private transient List<String> measuredTexts;
+    private transient FontRenderContext measuredContext;
+
     protected AbstractClassGR(AbstractClass c, Point start) {
         abstractClass = c;
         startingPoint = start;
@@ -147,9 +156,37 @@ public abstract class AbstractClassGR extends GraphicalElement implements Classi
         return rect.contains(p);
     }
 
+    /**
+     * Calculates the width and height of the box, unless the texts in it and the
+     * drawing context are the same as the last time.
+     */
     public void refreshDimensions(Graphics2D g) {
+        List<String> texts = getMeasuredTexts();
+        FontRenderContext frc = g.getFontRenderContext();
+        if (TextMetricsCache.isEnabled() && texts.equals(measuredTexts) && frc.equals(measuredContext)) {
+            return;
+        }
+
         calculateWidth(g);
         calculateHeight(g);
+        measuredTexts = texts;
+        measuredContext = frc;
+    }
+
+    /**
+     * The texts the size of the box depends on; subclasses that draw more texts
+     * add them. Each compartment starts with the number of its texts.
+     * 
+     * @return the texts
+     */
+    protected List<String> getMeasuredTexts() {
+        List<String> texts = new ArrayList<>();
+        texts.add(abstractClass.getName());
+        texts.add(Integer.toString(abstractClass.getAttributes().size()));
+        for (Attribute a : abstractClass.getAttributes()) {
+            texts.add(a.toString());
+        }
+        return texts;
     }
 
     // default implementation for calculating width; ClassGR needs to override hooks
@@ -10,6 +10,10 @@ import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.util.Vector;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import edu.city.studentuml.util.ProjectContext;
+
 /**
  * @author draganbisercic
  */
@@ -24,7 +28,12 @@ public abstract class AbstractLinkGR extends GraphicalElement {
      */
     public static final int ENDPOINT_HIT_RADIUS = 8;
 
-    protected static Vector<AbstractLinkGR> linkInstances = new Vector<>();
+    /**
+     * @return the links of the current project
+     */
+    protected static Vector<AbstractLinkGR> linkInstances() {
+        return ProjectContext.current().getState(AbstractLinkGR.class, Vector::new);
+    }
 
     public abstract int getTopLeftXA();
 
@@ -54,6 +63,7 @@ public abstract class AbstractLinkGR extends GraphicalElement {
     }
 
     protected int getNumberOfLinks() {
+        Vector<AbstractLinkGR> linkInstances = linkInstances();
         int cnt = 0;
         for (int x = 0; x < linkInstances.size(); x++) {
             if (this.isSameLink(linkInstances.get(x))) {
@@ -64,6 +74,7 @@ public abstract class AbstractLinkGR extends GraphicalElement {
     }
 
     protected int getIndexOfLink() {
+        Vector<AbstractLinkGR> linkInstances = linkInstances();
         int cnt = 0;
         for (int x = 0; x < linkInstances.size(); x++) {
             if (this.isSameLink(linkInstances.get(x))) {
@@ -78,6 +89,7 @@ public abstract class AbstractLinkGR extends GraphicalElement {
 
     @Override
     public void objectAdded(GraphicalElement obj) {
+        Vector<AbstractLinkGR> linkInstances = linkInstances();
         if (!linkInstances.contains(obj) && obj instanceof AbstractLinkGR) {
             linkInstances.add((AbstractLinkGR) obj);
         }
@@ -85,9 +97,7 @@ public abstract class AbstractLinkGR extends GraphicalElement {
 
     @Override
     public void objectRemoved(GraphicalElement obj) {
-        if (linkInstances.contains(obj)) {
-            linkInstances.remove(obj);
-        }
+        linkInstances().remove(obj);
     }
 
     /**
@@ -198,22 +208,68 @@ public abstract class AbstractLinkGR extends GraphicalElement {
             return distanceFromLine < 7;
         } else // reflective
         {
-            int step = getReflectiveStep();
-            Rectangle2D definingRect1 = new Rectangle2D.Double(getXA() + step / 2.0, getYB(), REFLECTIVE_RIGHT * step,
-                    step);
-            Rectangle2D definingRect2 = new Rectangle2D.Double(getXA() - step / 2.0, getYA() - REFLECTIVE_UP * step,
-                    step, REFLECTIVE_UP * step);
-            Rectangle2D definingRect3 = new Rectangle2D.Double(getXA(), getYA() - REFLECTIVE_UP * step - step / 2.0,
-                    REFLECTIVE_RIGHT * step, step);
-            Rectangle2D definingRect4 = new Rectangle2D.Double(getXA() + REFLECTIVE_RIGHT * step,
-                    getYA() - REFLECTIVE_UP * step - step / 2.0, step, step * REFLECTIVE_UP + getYB() - getYA());
-
-            return definingRect1.contains(p) || definingRect2.contains(p) || definingRect3.contains(p)
-                    || definingRect4.contains(p);
+            for (Rectangle2D definingRect : getReflectiveRectangles()) {
+                if (definingRect.contains(p)) {
+                    return true;
+                }
+            }
+            return false;
         }
 
     }
 
+    /**
+     * Includes the loop of a reflective link, which is drawn above and to the
+     * right of the classifier.
+     */
+    @Override
+    @JsonIgnore
+    public Rectangle2D getPaintBounds() {
+        Rectangle2D bounds = getBounds();
+        if (isReflective()) {
+            for (Rectangle2D definingRect : getReflectiveRectangles()) {
+                bounds.add(definingRect);
+            }
+        }
+        return bounds;
+    }
+
+    /*
+     * the four sides of the loop of a reflective link
+     */
+    private Rectangle2D[] getReflectiveRectangles() {
+        int step = getReflectiveStep();
+        return new Rectangle2D[] {
+                new Rectangle2D.Double(getXA() + step / 2.0, getYB(), REFLECTIVE_RIGHT * step, step),
+                new Rectangle2D.Double(getXA() - step / 2.0, getYA() - REFLECTIVE_UP * step, step,
+                        REFLECTIVE_UP * step),
+                new Rectangle2D.Double(getXA(), getYA() - REFLECTIVE_UP * step - step / 2.0,
+                        REFLECTIVE_RIGHT * step, step),
+                new Rectangle2D.Double(getXA() + REFLECTIVE_RIGHT * step,
+                        getYA() - REFLECTIVE_UP * step - step / 2.0, step, step * REFLECTIVE_UP + getYB() - getYA()) };
+    }
+
+    /**
+     * The line between the endpoints, or the loop of a reflective link, without
+     * arrow heads or text.
+     */
+    @Override
+    public void drawOutline(Graphics2D g) {
+        if (isReflective()) {
+            for (Rectangle2D side : getReflectiveRectangles()) {
+                strokeOutline(side, g);
+            }
+        } else {
+            strokeOutline(new Line2D.Double(getEndPointRoleA(), getEndPointRoleB()), g);
+        }
+    }
+
+    @Override
+    @JsonIgnore
+    public double getDetailSize() {
+        return LINE_DETAIL_SIZE;
+    }
+
     // do not respond to drag-and-drop events
     // the links' positions depend on the classes that are connected
     public void move(int x, int y) {
@@ -1,9 +1,14 @@
 package edu.city.studentuml.model.graphical;
 
+import java.awt.Color;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -37,6 +42,55 @@ public abstract class AbstractSDModel extends DiagramModel {
     private boolean automove = false;
     private CompoundEdit compoundEdit;
 
+    // more messages out of order than this are sorted instead of moved one by one
+    private static final int MAXIMUM_MESSAGES_TO_INSERT = 8;
+
+    /*
+     * the messages as they were the last time they were validated, with the
+     * states of their role classifiers before each of them; validation restarts
+     * from the first message that is not the same
+     */
+    private final transient List<ValidatedMessage> validatedMessages = new ArrayList<>();
+    private transient Color validatedColor;
+    private transient boolean roleClassifiersValidated = false;
+
+    // the return message of each call message; built again after the messages change
+    private transient Map<CallMessageGR, ReturnMessageGR> returnMessages;
+
+    // the combined fragments by their top y, sorted again when they are looked up
+    // as they are moved and resized in place
+    private final transient List<CombinedFragmentGR> fragments = new ArrayList<>();
+
+    private static final class ValidatedMessage {
+        final SDMessageGR message;
+        final RoleClassifierGR source;
+        final RoleClassifierGR target;
+        final int sourceY;
+        final int targetY;
+        final RoleClassifierGR.ValidationState sourceState;
+        final RoleClassifierGR.ValidationState targetState;
+
+        ValidatedMessage(SDMessageGR message) {
+            this.message = message;
+            source = message.source;
+            target = message.target;
+            sourceY = getSourceActivationY(message);
+            targetY = getTargetActivationY(message);
+            sourceState = source.getValidationState();
+            targetState = target.getValidationState();
+        }
+
+        boolean isSameAs(SDMessageGR m) {
+            return message == m && source == m.source && target == m.target && sourceY == getSourceActivationY(m)
+                    && targetY == getTargetActivationY(m);
+        }
+
+        void restoreStates() {
+            target.restoreValidationState(targetState);
+            source.restoreValidationState(sourceState);
+        }
+    }
+
     protected AbstractSDModel(String title, UMLProject umlp) {
         super(title, umlp);
         roleClassifiers = new NotifierVector<>();
@@ -76,6 +130,7 @@ public abstract class AbstractSDModel extends DiagramModel {
         addToRepository(rc); //subclasses can add other role classifiers to repository
 
         roleClassifiers.add(rc);
+        roleClassifiersValidated = false;
         roleClassifiersChanged();
         restoreRoleClassifiersDistances();
         super.addGraphicalElement(rc);
@@ -132,6 +187,37 @@ public abstract class AbstractSDModel extends DiagramModel {
         }
     }
 
+    /**
+     * Moving an object or a message may change the lifelines, the ranks of the
+     * messages and the activations of every object.
+     */
+    @Override
+    protected List<GraphicalElement> getElementsMovedWith(GraphicalElement e) {
+        if (e instanceof RoleClassifierGR || e instanceof SDMessageGR) {
+            return null;
+        }
+        return super.getElementsMovedWith(e);
+    }
+
+    /**
+     * The lifelines are not part of the bounds of the objects, so moving an
+     * object changes only its bounds and those of its messages, and moving a
+     * message only its own.
+     */
+    @Override
+    protected List<GraphicalElement> getElementsResizedByMoving(GraphicalElement e) {
+        List<GraphicalElement> resized = new ArrayList<>();
+        resized.add(e);
+        if (e instanceof RoleClassifierGR) {
+            for (SDMessageGR m : messages) {
+                if (m.getSource() == e || m.getTarget() == e) {
+                    resized.add(m);
+                }
+            }
+        }
+        return resized;
+    }
+
     private void moveRoleClassifier(RoleClassifierGR rc, int x, int y) {
         super.moveGraphicalElement(rc, x, y);
         roleClassifiersChanged();
@@ -165,6 +251,7 @@ public abstract class AbstractSDModel extends DiagramModel {
             // Handle other elements (e.g., UMLNoteGR)
             super.settleGraphicalElement(e, x, y);
         }
+        settleExtent();
     }
 
     private void settleRoleClassifier(RoleClassifierGR rc, int x, int y) {
@@ -212,14 +299,59 @@ public abstract class AbstractSDModel extends DiagramModel {
 
     // sort the messages list according to their y position
     private void sortMessagesAndUpdateRanks() {
-        Collections.sort(messages, (m1, m2) -> m1.getY() - m2.getY());
-
-        // reset the messages numbering according to their rank
-        for (int i = 0; i < messages.size(); i++) {
+        sortMessages();
+
+        // reset the numbering of the messages whose rank changed, i.e. those from
+        // the first to the last one that is not at the same position as before
+        int first = 0;
+        int last = messages.size() - 1;
+        if (roleClassifiersValidated) {
+            while (first < messages.size() && first < validatedMessages.size()
+                    && validatedMessages.get(first).message == messages.get(first)) {
+                first++;
+            }
+            if (messages.size() == validatedMessages.size()) {
+                while (last >= first && validatedMessages.get(last).message == messages.get(last)) {
+                    last--;
+                }
+            }
+        }
+        for (int i = first; i <= last; i++) {
             messages.elementAt(i).getMessage().setRank(i + 1);
         }
     }
 
+    // the messages are usually sorted apart from the one that was added or moved,
+    // which is moved to its place; the order of messages at the same y is kept
+    private void sortMessages() {
+        int outOfOrder = 0;
+        for (int i = 1; i < messages.size(); i++) {
+            if (messages.get(i - 1).getY() > messages.get(i).getY()) {
+                outOfOrder++;
+            }
+        }
+        if (outOfOrder == 0) {
+            return;
+        }
+        if (outOfOrder > MAXIMUM_MESSAGES_TO_INSERT) {
+            Collections.sort(messages, (m1, m2) -> m1.getY() - m2.getY());
+            return;
+        }
+
+        // insertion sort, shifting with set to not notify the name pool
+        for (int i = 1; i < messages.size(); i++) {
+            SDMessageGR m = messages.get(i);
+            int j = i;
+            while (j > 0 && messages.get(j - 1).getY() > m.getY()) {
+                messages.set(j, messages.get(j - 1));
+                j--;
+            }
+            if (j < i) {
+                messages.set(j, m);
+            }
+        }
+    }
+
     // keeps the same ordering of role classifiers, but may change their x positions
     // in order to keep the minimum distance between them
     private void restoreRoleClassifiersDistances() {
@@ -232,6 +364,7 @@ public abstract class AbstractSDModel extends DiagramModel {
 
             if (object2.getX() - object1.getX() < MINIMUM_RC_DISTANCE) {
                 object2.move(object1.getX() + MINIMUM_RC_DISTANCE, 0);
+                invalidateExtent();
             }
         }
     }
@@ -239,6 +372,7 @@ public abstract class AbstractSDModel extends DiagramModel {
     // keeps the same ordering of messages, but may change their y positions
     // in order to keep the minimum distances between them
     private void restoreMessagesDistances() {
+        returnMessages = null;
         SDMessageGR message1;
         SDMessageGR message2;
 
@@ -254,6 +388,7 @@ public abstract class AbstractSDModel extends DiagramModel {
                 redoCoordinates.setLocation(0, message1.getY() + (double) MINIMUM_MESSAGE_DISTANCE);
 
                 message2.move(0, message1.getY() + MINIMUM_MESSAGE_DISTANCE);
+                invalidateExtent();
 
                 UndoableEdit edit = new MoveEdit(movedElements, this, undoCoordinates, redoCoordinates);
                 this.compoundEdit.addEdit(edit);
@@ -300,10 +435,15 @@ public abstract class AbstractSDModel extends DiagramModel {
     // this changes the lifeline lengths of all the role classifiers,
     // except those that have been destroyed (i.e. have a determined lifeline length
     private void setEndingY(int y) {
-        Vector<RoleClassifierGR> objects = getRoleClassifiers();
+        Set<RoleClassifierGR> destroyed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (SDMessageGR message : messages) {
+            if (message instanceof DestroyMessageGR) {
+                destroyed.add(message.getTarget());
+            }
+        }
 
-        for (RoleClassifierGR object : objects) {
-            if (!isDestroyed(object)) {
+        for (RoleClassifierGR object : getRoleClassifiers()) {
+            if (!destroyed.contains(object)) {
                 object.setEndingY(y);
             }
         }
@@ -341,6 +481,7 @@ public abstract class AbstractSDModel extends DiagramModel {
         removeFromRepository(rc);
 
         roleClassifiers.remove(rc);
+        roleClassifiersValidated = false;
         roleClassifiersChanged();
         restoreRoleClassifiersDistances();
         super.removeGraphicalElement(rc);
@@ -392,14 +533,38 @@ public abstract class AbstractSDModel extends DiagramModel {
     }
 
     private void validateInOut() {
+        // the outline colors of the messages change with the theme
+        Color outlineColor = Colors.getOutlineColor();
+        int from = 0;
+        if (roleClassifiersValidated && outlineColor.equals(validatedColor)) {
+            while (from < messages.size() && from < validatedMessages.size()
+                    && validatedMessages.get(from).isSameAs(messages.get(from))) {
+                from++;
+            }
+            if (from == messages.size() && from == validatedMessages.size()) {
+                return;
+            }
+        }
 
-        roleClassifiers.forEach(RoleClassifierGR::clearInOutStacks);
+        if (from == 0) {
+            roleClassifiers.forEach(RoleClassifierGR::clearInOutStacks);
+            validatedMessages.clear();
 
-        if (!messages.isEmpty()) {
-            messages.get(0).source.setActiveIn();
+            if (!messages.isEmpty()) {
+                messages.get(0).source.setActiveIn();
+            }
+        } else {
+            // undo the validation of the messages that changed, last first
+            for (int i = validatedMessages.size() - 1; i >= from; i--) {
+                validatedMessages.remove(i).restoreStates();
+            }
         }
+        roleClassifiersValidated = true;
+        validatedColor = outlineColor;
+        returnMessages = null;
 
-        for (SDMessageGR message : messages) {
+        for (SDMessageGR message : messages.subList(from, messages.size())) {
+            validatedMessages.add(new ValidatedMessage(message));
             message.setOutlineColor(Colors.getOutlineColor());
             message.setErrorMsg("");
             logger.finer(() -> message.message + ": " + message.source + " -> " + message.target);
@@ -419,19 +584,27 @@ public abstract class AbstractSDModel extends DiagramModel {
                     message.setErrorMsg(validatedStr);
                 }
             }
-            if (message.source == message.target)
-                message.source.addActivationHeight(message.getY() + 5);
-            else
-                message.source.addActivationHeight(message.getY());
-
-            if (message instanceof CreateMessageGR)
-                message.target.addActivationHeight(message.getY() + ((CreateMessageGR) message).target.getHeight() / 2);
-            else
-                message.target.addActivationHeight(message.getY());
+            message.source.addActivationHeight(getSourceActivationY(message));
+            message.target.addActivationHeight(getTargetActivationY(message));
         }
     }
 
+    private static int getSourceActivationY(SDMessageGR message) {
+        if (message.source == message.target)
+            return message.getY() + 5;
+        else
+            return message.getY();
+    }
+
+    private static int getTargetActivationY(SDMessageGR message) {
+        if (message instanceof CreateMessageGR)
+            return message.getY() + ((CreateMessageGR) message).target.getHeight() / 2;
+        else
+            return message.getY();
+    }
+
     private void moveMessagesBelowBy(SDMessageGR m, int dis) {
+        returnMessages = null;
 
         List<GraphicalElement> movedElements = new ArrayList<>();
         Point2D.Double undoCoordinates = new Point2D.Double(0, 0);
@@ -451,6 +624,7 @@ public abstract class AbstractSDModel extends DiagramModel {
                         int y = messages.get(j).getY();
                         messages.get(j).move(0, y + moveDis);
                     }
+                    invalidateExtent();
                 }
                 break;
             }
@@ -459,6 +633,132 @@ public abstract class AbstractSDModel extends DiagramModel {
         this.compoundEdit.addEdit(edit);
     }
 
+    /**
+     * Returns the messages from one y to another, inclusive, finding the first one
+     * by a binary search of the sorted messages.
+     * 
+     * @param fromY
+     * @param toY
+     * @return the messages, sorted by y
+     */
+    public List<SDMessageGR> getMessagesBetween(int fromY, int toY) {
+        int low = 0;
+        int high = messages.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (messages.get(middle).getY() < fromY) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        List<SDMessageGR> between = new ArrayList<>();
+        for (int i = low; i < messages.size() && messages.get(i).getY() <= toY; i++) {
+            between.add(messages.get(i));
+        }
+        return between;
+    }
+
+    /**
+     * Returns the return message of a call message: the first return message
+     * below the call with the reversed endpoints (call: A -> B, return: B -> A).
+     * The pairs are found for all calls at once after the messages change.
+     * 
+     * @param callMessage
+     * @return the return message, or null if there is none
+     */
+    public ReturnMessageGR getReturnMessage(CallMessageGR callMessage) {
+        if (returnMessages == null) {
+            returnMessages = pairCallsWithReturns();
+        }
+        return returnMessages.get(callMessage);
+    }
+
+    private Map<CallMessageGR, ReturnMessageGR> pairCallsWithReturns() {
+        // the returns from each source to each target, sorted by y as the messages
+        Map<RoleClassifierGR, Map<RoleClassifierGR, List<ReturnMessageGR>>> returns = new IdentityHashMap<>();
+        for (SDMessageGR message : messages) {
+            if (message instanceof ReturnMessageGR) {
+                returns.computeIfAbsent(message.getSource(), s -> new IdentityHashMap<>())
+                        .computeIfAbsent(message.getTarget(), t -> new ArrayList<>()).add((ReturnMessageGR) message);
+            }
+        }
+
+        Map<CallMessageGR, ReturnMessageGR> pairs = new IdentityHashMap<>();
+        for (SDMessageGR message : messages) {
+            if (message instanceof CallMessageGR) {
+                List<ReturnMessageGR> candidates = returns
+                        .getOrDefault(message.getTarget(), Collections.emptyMap())
+                        .getOrDefault(message.getSource(), Collections.emptyList());
+                int low = 0;
+                int high = candidates.size();
+                while (low < high) {
+                    int middle = (low + high) >>> 1;
+                    if (candidates.get(middle).getY() <= message.getY()) {
+                        low = middle + 1;
+                    } else {
+                        high = middle;
+                    }
+                }
+                if (low < candidates.size()) {
+                    pairs.put((CallMessageGR) message, candidates.get(low));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Returns the combined fragments whose y range is within another one.
+     * 
+     * @param top
+     * @param bottom
+     * @return the fragments, sorted by their top y
+     */
+    public List<CombinedFragmentGR> getCombinedFragmentsWithin(int top, int bottom) {
+        fragments.sort(Comparator.comparingInt(CombinedFragmentGR::getY));
+        int low = 0;
+        int high = fragments.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (fragments.get(middle).getY() < top) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        List<CombinedFragmentGR> within = new ArrayList<>();
+        for (int i = low; i < fragments.size() && fragments.get(i).getY() <= bottom; i++) {
+            CombinedFragmentGR fragment = fragments.get(i);
+            if (fragment.getY() + fragment.getHeight() <= bottom) {
+                within.add(fragment);
+            }
+        }
+        return within;
+    }
+
+    @Override
+    protected void addToIndexes(GraphicalElement e) {
+        super.addToIndexes(e);
+        if (e instanceof CombinedFragmentGR) {
+            fragments.add((CombinedFragmentGR) e);
+        }
+    }
+
+    @Override
+    protected void removeFromIndexes(GraphicalElement e) {
+        super.removeFromIndexes(e);
+        if (e instanceof CombinedFragmentGR) {
+            fragments.remove(e);
+        }
+    }
+
+    @Override
+    protected void clearIndexes() {
+        super.clearIndexes();
+        fragments.clear();
+    }
+
     public List<SDMessageGR> getMessagesBelow(SDMessageGR m) {
         List<SDMessageGR> messagesBelow = new ArrayList<>();
         for (int i = 0; i < messages.size() - 1; i++) {
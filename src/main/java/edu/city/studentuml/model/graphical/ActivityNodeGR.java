@@ -50,6 +50,14 @@ public class ActivityNodeGR extends CompositeNodeGR implements Resizable {
         resizeHandles.add(new RightResizeHandle(this));
     }
 
+    /**
+     * Only the border, as the activity node is drawn transparent over the elements in it.
+     */
+    @Override
+    public void drawOutline(Graphics2D g) {
+        strokeOutline(getBounds(), g);
+    }
+
     @Override
     public void draw(Graphics2D g) {
 
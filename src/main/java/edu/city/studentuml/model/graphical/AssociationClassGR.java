@@ -5,6 +5,7 @@ import java.awt.Point;
 import java.awt.Stroke;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.util.Vector;
 import java.util.logging.Logger;
 
 import javax.swing.undo.UndoableEdit;
@@ -63,6 +64,7 @@ public class AssociationClassGR extends LinkGR {
 
     @Override
     public void objectAdded(GraphicalElement obj) {
+        Vector<AbstractLinkGR> linkInstances = linkInstances();
         if (!linkInstances.contains(obj) && obj instanceof AssociationClassGR) {
             linkInstances.add(((AssociationClassGR) obj).getAssociationElement());
         }
@@ -71,9 +73,7 @@ public class AssociationClassGR extends LinkGR {
 
     @Override
     public void objectRemoved(GraphicalElement obj) {
-        if (linkInstances.contains(obj)) {
-            linkInstances.remove(obj);
-        }
+        linkInstances().remove(obj);
         associationElement.objectRemoved(associationElement);
     }
 
@@ -109,6 +109,18 @@ public class AssociationClassGR extends LinkGR {
         drawClassAndDashedLine(g);
     }
 
+    /**
+     * The association and the class box where it was last drawn.
+     */
+    @Override
+    public void drawOutline(Graphics2D g) {
+        associationElement.setSelected(isSelected());
+        classElement.setSelected(isSelected());
+
+        associationElement.drawOutline(g);
+        classElement.drawOutline(g);
+    }
+
     private Point getAssociationCenterPoint() {
         int x = (associationElement.getXA() + associationElement.getXB()) / 2;
         int y = (associationElement.getYA() + associationElement.getYB()) / 2;
@@ -293,6 +305,16 @@ public class AssociationClassGR extends LinkGR {
         return classElement.getBounds();
     }
 
+    /**
+     * The class box together with the association, which are both drawn and
+     * respond to clicks.
+     */
+    @Override
+    @JsonIgnore
+    public Rectangle2D getPaintBounds() {
+        return classElement.getPaintBounds().createUnion(associationElement.getPaintBounds());
+    }
+
     @Override
     public String toString() {
         return "" + a + " ---associationClass---> " + b;
@@ -5,6 +5,7 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.font.FontRenderContext;
 import java.awt.geom.Rectangle2D;
+import java.util.List;
 
 import org.w3c.dom.Element;
 
@@ -78,6 +79,18 @@ public class ClassGR extends AbstractClassGR {
         return currentY;
     }
 
+    @Override
+    protected List<String> getMeasuredTexts() {
+        DesignClass designClass = (DesignClass) abstractClass;
+        List<String> texts = super.getMeasuredTexts();
+        texts.add(designClass.getStereotype());
+        texts.add(Integer.toString(designClass.getMethods().size()));
+        for (Method m : designClass.getMethods()) {
+            texts.add(m.toString());
+        }
+        return texts;
+    }
+
     @Override
     protected int calculateStereotypeWidth(Graphics2D g, int currentWidth) {
         int newWidth = currentWidth;
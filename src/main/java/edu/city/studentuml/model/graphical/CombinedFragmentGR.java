@@ -5,7 +5,6 @@ import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.Paint;
 import java.awt.Point;
-import java.awt.RenderingHints;
 import java.awt.Stroke;
 import java.awt.geom.Point2D;
 import java.awt.geom.RoundRectangle2D;
@@ -181,10 +180,16 @@ public class CombinedFragmentGR extends GraphicalElement implements Resizable {
         return new CombinedFragmentGR(clonedFragment, new Point(startingPoint), width);
     }
 
+    /**
+     * Only the border, as the fragment is drawn transparent over the elements in it.
+     */
     @Override
-    public void draw(Graphics2D g) {
-        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    public void drawOutline(Graphics2D g) {
+        strokeOutline(getBounds(), g);
+    }
 
+    @Override
+    public void draw(Graphics2D g) {
         // Draw the main rounded rectangle
         RoundRectangle2D fragmentBox = new RoundRectangle2D.Double(
                 getX(), getY(), getWidth(), getHeight(), ARC_SIZE, ARC_SIZE);
@@ -216,8 +221,6 @@ public class CombinedFragmentGR extends GraphicalElement implements Resizable {
         if (isSelected()) {
             resizeHandles.forEach(handle -> handle.draw(g));
         }
-
-        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
     }
 
     /**
@@ -696,20 +699,14 @@ public class CombinedFragmentGR extends GraphicalElement implements Resizable {
         int fragmentBottom = getY() + getHeight();
 
         // Find all messages within the fragment's Y range
-        List<SDMessageGR> containedMessages = new ArrayList<>();
-        for (SDMessageGR message : model.getMessages()) {
-            int messageY = message.getY();
-            if (messageY >= fragmentTop && messageY <= fragmentBottom) {
-                containedMessages.add(message);
-            }
-        }
+        List<SDMessageGR> containedMessages = model.getMessagesBetween(fragmentTop, fragmentBottom);
 
         // If fragment contains a call message, also include its return message
         // This ensures logical message pairs stay together
         Set<SDMessageGR> additionalMessages = new HashSet<>();
         for (SDMessageGR message : containedMessages) {
             if (message instanceof CallMessageGR) {
-                ReturnMessageGR returnMsg = findReturnMessageFor((CallMessageGR) message, model);
+                ReturnMessageGR returnMsg = model.getReturnMessage((CallMessageGR) message);
                 if (returnMsg != null) {
                     additionalMessages.add(returnMsg);
                 }
@@ -724,20 +721,9 @@ public class CombinedFragmentGR extends GraphicalElement implements Resizable {
 
         // Check if this fragment contains other fragments (nested fragments)
         // If so, we'll add extra horizontal padding
-        boolean containsNestedFragments = false;
-        for (GraphicalElement element : model.getGraphicalElements()) {
-            if (element instanceof CombinedFragmentGR && element != this) {
-                CombinedFragmentGR otherFragment = (CombinedFragmentGR) element;
-                // Check if the other fragment is within this fragment's Y range
-                int otherTop = otherFragment.getY();
-                int otherBottom = otherFragment.getY() + otherFragment.getHeight();
-
-                if (otherTop >= fragmentTop && otherBottom <= fragmentBottom) {
-                    containsNestedFragments = true;
-                    break;
-                }
-            }
-        }
+        List<CombinedFragmentGR> nestedFragments = model.getCombinedFragmentsWithin(fragmentTop, fragmentBottom);
+        nestedFragments.remove(this);
+        boolean containsNestedFragments = !nestedFragments.isEmpty();
 
         // Use larger padding for nested fragments to show visual hierarchy
         final int NESTED_FRAGMENT_PADDING = 30;
@@ -772,25 +758,14 @@ public class CombinedFragmentGR extends GraphicalElement implements Resizable {
         }
 
         // Also include nested fragments in the bounds calculation
-        if (containsNestedFragments) {
-            for (GraphicalElement element : model.getGraphicalElements()) {
-                if (element instanceof CombinedFragmentGR && element != this) {
-                    CombinedFragmentGR otherFragment = (CombinedFragmentGR) element;
-                    int otherTop = otherFragment.getY();
-                    int otherBottom = otherFragment.getY() + otherFragment.getHeight();
-
-                    // If nested within this fragment's Y range
-                    if (otherTop >= fragmentTop && otherBottom <= fragmentBottom) {
-                        int nestedLeft = otherFragment.getX();
-                        int nestedRight = otherFragment.getX() + otherFragment.getWidth();
-                        int nestedBottom = otherFragment.getY() + otherFragment.getHeight();
-
-                        leftmostX = Math.min(leftmostX, nestedLeft);
-                        rightmostX = Math.max(rightmostX, nestedRight);
-                        bottommostY = Math.max(bottommostY, nestedBottom);
-                    }
-                }
-            }
+        for (CombinedFragmentGR otherFragment : nestedFragments) {
+            int nestedLeft = otherFragment.getX();
+            int nestedRight = otherFragment.getX() + otherFragment.getWidth();
+            int nestedBottom = otherFragment.getY() + otherFragment.getHeight();
+
+            leftmostX = Math.min(leftmostX, nestedLeft);
+            rightmostX = Math.max(rightmostX, nestedRight);
+            bottommostY = Math.max(bottommostY, nestedBottom);
         }
 
         // Calculate required bounds with padding (use larger padding for nested fragments)
@@ -854,52 +829,4 @@ public class CombinedFragmentGR extends GraphicalElement implements Resizable {
             }
         }
     }
-
-    /**
-     * Finds the return message that corresponds to a given call message. The return
-     * message should have reversed endpoints (call: A->B, return: B->A) and be the
-     * first return message after the call (to handle multiple calls between same
-     * objects).
-     * 
-     * @param callMessage the call message to find the return for
-     * @param model       the sequence diagram model
-     * @return the corresponding return message, or null if not found
-     */
-    private ReturnMessageGR findReturnMessageFor(CallMessageGR callMessage, AbstractSDModel model) {
-        for (SDMessageGR message : model.getMessages()) {
-            if (message instanceof ReturnMessageGR) {
-                ReturnMessageGR returnMsg = (ReturnMessageGR) message;
-
-                // Check if this return message corresponds to the call message
-                // Return message should have reversed endpoints:
-                // Call: A -> B, Return: B -> A
-                if (returnMsg.getSource() == callMessage.getTarget() &&
-                        returnMsg.getTarget() == callMessage.getSource() &&
-                        returnMsg.getY() > callMessage.getY()) {
-
-                    // Also check that it's the first return message after this call
-                    // (to handle multiple calls between same objects)
-                    boolean isImmediate = true;
-                    for (SDMessageGR other : model.getMessages()) {
-                        if (other instanceof ReturnMessageGR && other != returnMsg) {
-                            ReturnMessageGR otherReturn = (ReturnMessageGR) other;
-                            if (otherReturn.getY() > callMessage.getY() &&
-                                    otherReturn.getY() < returnMsg.getY() &&
-                                    otherReturn.getSource() == returnMsg.getSource() &&
-                                    otherReturn.getTarget() == returnMsg.getTarget()) {
-                                isImmediate = false;
-                                break;
-                            }
-                        }
-                    }
-
-                    if (isImmediate) {
-                        return returnMsg;
-                    }
-                }
-            }
-        }
-
-        return null;
-    }
 }
@@ -2,7 +2,6 @@ package edu.city.studentuml.model.graphical;
 
 import java.awt.Point;
 import java.util.List;
-import java.util.Optional;
 import java.util.Random;
 import java.util.stream.Collectors;
 
@@ -76,18 +75,12 @@ public class DCDModel extends AbstractCDModel {
      */
     private void addRealization(RealizationGR r) {
 
-        Optional<GraphicalElement> alreadyExistingGen = getGraphicalElements().stream().filter(e -> {
-            if (e instanceof RealizationGR) {
-                RealizationGR realizationGR = (RealizationGR) e;
-                if (realizationGR.getTheClass() == r.getTheClass()
-                        && realizationGR.getTheInterface() == r.getTheInterface()) {
-                    return true;
-                }
-            }
-            return false;
-        }).findFirst();
-
-        if (alreadyExistingGen.isPresent()) {
+        boolean alreadyExistingGen = getLinks(r.getTheClass()).stream()
+                .anyMatch(link -> link instanceof RealizationGR
+                        && ((RealizationGR) link).getTheClass() == r.getTheClass()
+                        && ((RealizationGR) link).getTheInterface() == r.getTheInterface());
+
+        if (alreadyExistingGen) {
             return;
         }
 
@@ -154,92 +147,72 @@ public class DCDModel extends AbstractCDModel {
     }
 
     public List<GraphicalElement> getClassGRDependencyGRs(ClassGR c) {
-        return graphicalElements.stream()
-                .filter(grElement -> grElement instanceof DependencyGR
-                        // Check graphical endpoints, not domain classifiers
-                        && (((DependencyGR) grElement).getClassA() == c
-                                || ((DependencyGR) grElement).getClassB() == c))
+        // the links are indexed by their graphical endpoints, not domain classifiers
+        return getLinks(c).stream()
+                .filter(link -> link instanceof DependencyGR
+                        && (((DependencyGR) link).getClassA() == c || ((DependencyGR) link).getClassB() == c))
                 .collect(Collectors.toList());
     }
 
     public List<GraphicalElement> getClassGRAssociationGRs(ClassGR c) {
-        return graphicalElements.stream()
-                .filter(grElement -> grElement instanceof AssociationGR
-                        // Check graphical endpoints, not domain classifiers
-                        // This ensures we only remove associations graphically connected to this specific ClassGR
-                        && (((AssociationGR) grElement).getA() == c
-                                || ((AssociationGR) grElement).getB() == c))
+        // This ensures we only remove associations graphically connected to this specific ClassGR
+        return getLinks(c).stream()
+                .filter(link -> link instanceof AssociationGR
+                        && (((AssociationGR) link).getA() == c || ((AssociationGR) link).getB() == c))
                 .collect(Collectors.toList());
     }
 
     public List<GraphicalElement> getClassGRAssociationClassGRs(ClassGR c) {
-        return graphicalElements.stream()
-                .filter(grElement -> grElement instanceof AssociationClassGR
-                        // Check graphical endpoints, not domain classifiers
-                        && (((AssociationClassGR) grElement).getClassB() == c
-                                || ((AssociationClassGR) grElement).getClassA() == c))
+        return getLinks(c).stream()
+                .filter(link -> link instanceof AssociationClassGR
+                        && (((AssociationClassGR) link).getClassB() == c
+                                || ((AssociationClassGR) link).getClassA() == c))
                 .collect(Collectors.toList());
     }
 
     public List<GraphicalElement> getClassGRRealizationGRs(ClassGR c) {
-        return graphicalElements.stream()
-                .filter(grElement -> grElement instanceof RealizationGR
-                        // Check graphical endpoints, not domain classifiers
-                        && ((RealizationGR) grElement).getTheClass() == c)
+        return getLinks(c).stream()
+                .filter(link -> link instanceof RealizationGR && ((RealizationGR) link).getTheClass() == c)
                 .collect(Collectors.toList());
     }
 
     public List<GraphicalElement> getClassGRGeneralizationGRs(ClassGR c) {
-        return graphicalElements.stream().filter(grElement -> grElement instanceof GeneralizationGR
-                // Check graphical endpoints, not domain classifiers
-                && (((GeneralizationGR) grElement).getClassifierA() == c
-                        || ((GeneralizationGR) grElement).getClassifierB() == c))
+        return getLinks(c).stream()
+                .filter(link -> link instanceof GeneralizationGR
+                        && (((GeneralizationGR) link).getClassifierA() == c
+                                || ((GeneralizationGR) link).getClassifierB() == c))
                 .collect(Collectors.toList());
     }
 
     public List<GraphicalElement> getInterfaceGRRealizationGRs(InterfaceGR interf) {
-        return graphicalElements.stream()
-                .filter(grElement -> grElement instanceof RealizationGR
-                        // Check graphical endpoints, not domain classifiers
-                        && ((RealizationGR) grElement).getTheInterface() == interf)
+        return getLinks(interf).stream()
+                .filter(link -> link instanceof RealizationGR && ((RealizationGR) link).getTheInterface() == interf)
                 .collect(Collectors.toList());
     }
 
     public List<GraphicalElement> getInterfaceGRAssociationGRs(InterfaceGR interf) {
-        return graphicalElements.stream()
-                .filter(grElement -> grElement instanceof AssociationGR
-                        // Check graphical endpoints, not domain classifiers
-                        && ((AssociationGR) grElement).getB() == interf)
+        return getLinks(interf).stream()
+                .filter(link -> link instanceof AssociationGR && ((AssociationGR) link).getB() == interf)
                 .collect(Collectors.toList());
     }
 
     public List<GraphicalElement> getInterfaceGRGeneralizationGRs(InterfaceGR interf) {
-        return graphicalElements.stream().filter(grElement -> grElement instanceof GeneralizationGR
-                // Check graphical endpoints, not domain classifiers
-                && (((GeneralizationGR) grElement).getClassifierA() == interf
-                        || ((GeneralizationGR) grElement).getClassifierB() == interf))
+        return getLinks(interf).stream()
+                .filter(link -> link instanceof GeneralizationGR
+                        && (((GeneralizationGR) link).getClassifierA() == interf
+                                || ((GeneralizationGR) link).getClassifierB() == interf))
                 .collect(Collectors.toList());
     }
 
     private void removeDependency(DependencyGR d) {
-        long count = graphicalElements.stream()
-                .filter(e -> e instanceof DependencyGR && e != d)
-                .filter(e -> ((DependencyGR) e).getDependency() == d.getDependency())
-                .count();
-
-        if (count == 0 && repository.getDependencies().contains(d.getDependency())) {
+        if (!isShownByOtherLinks(d) && repository.getDependencies().contains(d.getDependency())) {
             repository.removeDependency(d.getDependency());
         }
         super.removeGraphicalElement(d);
     }
 
     private void removeRealization(RealizationGR r) {
-        long count = graphicalElements.stream()
-                .filter(e -> e instanceof RealizationGR && e != r)
-                .filter(e -> ((RealizationGR) e).getRealization() == r.getRealization())
-                .count();
-
-        if (count == 0 && repository.getRealizations().contains(r.getRealization())) {
+        if (!isShownByOtherLinks(r) && repository.getRealizations().contains(r.getRealization())) {
             repository.removeRealization(r.getRealization());
         }
         super.removeGraphicalElement(r);
@@ -0,0 +1,62 @@
+package edu.city.studentuml.model.graphical;
+
+import java.awt.geom.Rectangle2D;
+import java.beans.PropertyChangeEvent;
+import java.util.List;
+
+/**
+ * A "diagramChanged" event for a change that affects only some elements of a
+ * diagram, e.g. moving or selecting an element. It carries the paint bounds of
+ * the elements before and after the change, so that views only repaint that
+ * area. Other changes are notified with a plain PropertyChangeEvent, after
+ * which the whole diagram has to be repainted.
+ */
+public class DiagramChangeEvent extends PropertyChangeEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<GraphicalElement> elements;
+    private final Rectangle2D oldBounds;
+    private final Rectangle2D newBounds;
+
+    /**
+     * The old and new values of the event are null, as listeners are not
+     * notified of events whose old and new values are equal.
+     */
+    public DiagramChangeEvent(DiagramModel source, List<GraphicalElement> elements, Rectangle2D oldBounds,
+            Rectangle2D newBounds) {
+        super(source, DiagramModel.DIAGRAM_CHANGED, null, null);
+        this.elements = elements;
+        this.oldBounds = oldBounds;
+        this.newBounds = newBounds;
+    }
+
+    /**
+     * @return the elements that changed, including those that moved along
+     */
+    public List<GraphicalElement> getElements() {
+        return elements;
+    }
+
+    /**
+     * @return the union of the paint bounds of the elements before the change
+     */
+    public Rectangle2D getOldBounds() {
+        return oldBounds;
+    }
+
+    /**
+     * @return the union of the paint bounds of the elements after the change
+     */
+    public Rectangle2D getNewBounds() {
+        return newBounds;
+    }
+
+    /**
+     * @return the area to repaint, without the strokes, arrow heads and labels
+     *         drawn close to the paint bounds
+     */
+    public Rectangle2D getDamagedArea() {
+        return oldBounds.createUnion(newBounds);
+    }
+}
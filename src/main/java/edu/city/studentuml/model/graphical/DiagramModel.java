@@ -5,8 +5,12 @@ import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.logging.Logger;
@@ -40,12 +44,62 @@ public abstract class DiagramModel implements Serializable, IXMLCustomStreamable
 
     private static final Logger logger = Logger.getLogger(DiagramModel.class.getName());
 
+    /**
+     * The name of the property change events fired when the diagram changes.
+     */
+    public static final String DIAGRAM_CHANGED = "diagramChanged";
+
+    /**
+     * The name of the property change events fired when elements are added to or
+     * removed from the diagram, which change nothing else.
+     */
+    public static final String ELEMENTS_CHANGED = "elementsChanged";
+
+    /**
+     * The name of the property change events fired when elements are moved in a
+     * way that changes only the layout of the diagram, not what it shows.
+     */
+    public static final String LAYOUT_CHANGED = "layoutChanged";
+
     @JsonProperty("name")
     protected String name;
     protected DiagramInternalFrame frame;
     protected NotifierVector<GraphicalElement> graphicalElements;
     protected List<GraphicalElement> selected;
 
+    /*
+     * built on the first hit test after a change, as links follow the elements
+     * they connect and elements size themselves when drawn
+     */
+    private transient SpatialIndex spatialIndex;
+    private transient int spatialIndexBuilds;
+
+    /*
+     * the nesting level of the current batch of changes, and what is left to do
+     * when it ends
+     */
+    private transient int updateLevel;
+    private transient boolean viewSizeChanged;
+    private transient PropertyChangeEvent pendingEvent;
+
+    /*
+     * the links from and to each classifier, in the order they were added; a
+     * link is never reconnected in place but replaced by a new one
+     */
+    private transient Map<ClassifierGR, List<LinkGR>> links;
+    private transient List<UMLNoteGR> notes;
+
+    /*
+     * the largest x and y of the bounds of the elements, grown as elements are
+     * added and moved; computed again after a change that may shrink it, except
+     * while elements are being dragged, when it is computed again once they
+     * settle
+     */
+    private transient double extentX;
+    private transient double extentY;
+    private transient boolean extentKnown;
+    private transient boolean extentMayShrink;
+
     // every diagram has to have a reference to the central repository of UML
     // elements
     protected CentralRepository repository;
@@ -86,10 +140,12 @@ public abstract class DiagramModel implements Serializable, IXMLCustomStreamable
         logger.fine(() -> "Adding Element e: " + e.toString() + " " + e.getClass().getSimpleName());
         e.objectAdded(e);
         graphicalElements.add(e);
+        addToIndexes(e);
+        updateExtent(null, e.getBounds());
 
         changeViewSize();
 
-        modelChanged();
+        elementsChanged();
     }
 
     public void insertGraphicalElementAt(GraphicalElement e, int index) {
@@ -97,10 +153,12 @@ public abstract class DiagramModel implements Serializable, IXMLCustomStreamable
                 + index);
         e.objectAdded(e);
         graphicalElements.insertElementAt(e, index);
+        addToIndexes(e);
+        updateExtent(null, e.getBounds());
 
         changeViewSize();
 
-        modelChanged();
+        elementsChanged();
     }
 
     /**
@@ -115,11 +173,78 @@ public abstract class DiagramModel implements Serializable, IXMLCustomStreamable
      */
     public void removeGraphicalElement(GraphicalElement e) {
         e.objectRemoved(e);
-        graphicalElements.remove(e);
+        if (graphicalElements.remove(e)) {
+            removeFromIndexes(e);
+            if (isAtExtent(e.getBounds())) {
+                extentKnown = false;
+            }
+        }
 
         changeViewSize();
 
-        modelChanged();
+        elementsChanged();
+    }
+
+    /**
+     * Adds the elements, in their order, notifying the listeners once.
+     * 
+     * @param elements
+     */
+    public void addGraphicalElements(List<? extends GraphicalElement> elements) {
+        beginUpdate();
+        try {
+            elements.forEach(this::addGraphicalElement);
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Removes the elements, and those removed along with them, notifying the
+     * listeners once.
+     * 
+     * @param elements
+     */
+    public void removeGraphicalElements(List<? extends GraphicalElement> elements) {
+        beginUpdate();
+        try {
+            elements.forEach(this::removeGraphicalElement);
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Starts a batch of changes. Until the matching {@link #endUpdate()}, the
+     * listeners are not notified, the view is not resized and the consistency of
+     * the project is not checked. Batches may be nested.
+     */
+    public void beginUpdate() {
+        if (updateLevel++ == 0) {
+            SystemWideObjectNamePool.getInstance().loading();
+        }
+    }
+
+    /**
+     * Ends a batch of changes started with {@link #beginUpdate()}. When the
+     * outermost batch ends, the view is resized if elements were added or
+     * removed, the listeners are notified once of all the changes, and the
+     * consistency of the project is checked.
+     */
+    public void endUpdate() {
+        if (--updateLevel > 0) {
+            return;
+        }
+        if (viewSizeChanged) {
+            viewSizeChanged = false;
+            changeViewSize();
+        }
+        PropertyChangeEvent event = pendingEvent;
+        pendingEvent = null;
+        if (event != null) {
+            pcs.firePropertyChange(event);
+        }
+        SystemWideObjectNamePool.getInstance().done();
     }
 
     /**
@@ -135,11 +260,85 @@ public abstract class DiagramModel implements Serializable, IXMLCustomStreamable
      * @param y
      */
     public void moveGraphicalElement(GraphicalElement e, int x, int y) {
+        List<GraphicalElement> moved = getElementsMovedWith(e);
+        Rectangle2D oldBounds = moved == null ? null : getPaintBounds(moved);
+        List<GraphicalElement> resized = moved == null ? getElementsResizedByMoving(e) : moved;
+        Rectangle2D oldExtent = resized == null ? null : getBounds(resized);
         e.move(x, y);
 
+        if (resized == null) {
+            extentKnown = false;
+        } else {
+            updateExtent(oldExtent, getBounds(resized));
+        }
         changeViewSize();
 
-        modelChanged();
+        if (moved == null) {
+            layoutChanged();
+        } else {
+            modelChanged(moved, oldBounds, getPaintBounds(moved));
+        }
+    }
+
+    /**
+     * Returns the elements whose paint bounds change when an element is moved:
+     * the element itself, the links from and to it, and the notes attached to
+     * them. Subclasses return null for elements whose movement may affect the
+     * rest of the diagram, which is then repainted as a whole.
+     * 
+     * @param e
+     * @return the elements, or null
+     */
+    protected List<GraphicalElement> getElementsMovedWith(GraphicalElement e) {
+        List<GraphicalElement> moved = new ArrayList<>();
+        moved.add(e);
+        if (e instanceof ClassifierGR) {
+            moved.addAll(getLinks((ClassifierGR) e));
+        } else if (e instanceof AssociationClassGR) {
+            moved.addAll(getLinks(((AssociationClassGR) e).getClassElement()));
+        }
+        for (UMLNoteGR note : getNotes()) {
+            if (moved.contains(note.getTo())) {
+                moved.add(note);
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Returns the elements whose bounds may change when an element is moved, for
+     * the elements for which {@link #getElementsMovedWith(GraphicalElement)}
+     * returns null.
+     * 
+     * @param e
+     * @return the elements, or null if they may be any element
+     */
+    protected List<GraphicalElement> getElementsResizedByMoving(GraphicalElement e) {
+        return null;
+    }
+
+    private static Rectangle2D getBounds(List<GraphicalElement> elements) {
+        Rectangle2D bounds = null;
+        for (GraphicalElement element : elements) {
+            if (bounds == null) {
+                bounds = element.getBounds();
+            } else {
+                bounds.add(element.getBounds());
+            }
+        }
+        return bounds;
+    }
+
+    private static Rectangle2D getPaintBounds(List<GraphicalElement> elements) {
+        Rectangle2D bounds = null;
+        for (GraphicalElement element : elements) {
+            if (bounds == null) {
+                bounds = element.getPaintBounds();
+            } else {
+                bounds.add(element.getPaintBounds());
+            }
+        }
+        return bounds;
     }
 
     /**
@@ -155,29 +354,62 @@ public abstract class DiagramModel implements Serializable, IXMLCustomStreamable
      */
     public void settleGraphicalElement(GraphicalElement e, int x, int y) {
         moveGraphicalElement(e, x, y);
+        settleExtent();
     }
 
     // This method causes the selection of a single element at a time in the diagram
     public void selectGraphicalElement(GraphicalElement el) {
+        selectGraphicalElements(Collections.singletonList(el));
+    }
 
-        int i = graphicalElements.indexOf(el);
+    /**
+     * Selects the elements that are in the diagram, notifying the listeners once.
+     * 
+     * @param elements
+     */
+    public void selectGraphicalElements(List<? extends GraphicalElement> elements) {
+        Set<GraphicalElement> inDiagram = Collections.newSetFromMap(new IdentityHashMap<>());
+        inDiagram.addAll(graphicalElements);
+
+        List<GraphicalElement> newlySelected = new ArrayList<>();
+        for (GraphicalElement e : elements) {
+            if (inDiagram.contains(e)) {
+                selected.add(e);
+                e.setSelected(true);
+                newlySelected.add(e);
+            }
+        }
 
-        if (i != -1) {
-            GraphicalElement e = graphicalElements.get(i);
-            selected.add(e);
-            e.setSelected(true);
-            modelChanged();
+        if (!newlySelected.isEmpty()) {
+            Rectangle2D bounds = getPaintBounds(newlySelected);
+            modelChanged(newlySelected, bounds, bounds);
         }
     }
 
+    /**
+     * Selects all the elements of the diagram, notifying the listeners once.
+     */
+    public void selectAll() {
+        selectGraphicalElements(new ArrayList<>(graphicalElements));
+    }
+
     public void clearSelected() {
+        List<GraphicalElement> deselected = new ArrayList<>();
         for (GraphicalElement element : graphicalElements) {
+            if (element.isSelected()) {
+                deselected.add(element);
+            }
             element.setSelected(false);
         }
 
         if (!selected.isEmpty()) {
             selected.clear();
-            modelChanged();
+            if (deselected.isEmpty()) {
+                modelChanged();
+            } else {
+                Rectangle2D bounds = getPaintBounds(deselected);
+                modelChanged(deselected, bounds, bounds);
+            }
         }
     }
 
@@ -212,43 +444,26 @@ public abstract class DiagramModel implements Serializable, IXMLCustomStreamable
      * Usually triggered by a select, drag-and-drop, and addition event. Get the
      * first element that contains the point, starting from the end of the list,
      * i.e. from the most recently drawn grapical element, so that the uppermost is
-     * returned in case elements are overlayed one on top of the other.
+     * returned in case elements are overlayed one on top of the other. Only the
+     * elements near the point are tested, using a spatial index.
      * 
      * @param point
      * @return
      */
     public GraphicalElement getContainingGraphicalElement(Point2D point) {
-
-        ListIterator<GraphicalElement> listIterator = graphicalElements.listIterator(graphicalElements.size());
-
-        while (listIterator.hasPrevious()) {
-            GraphicalElement element = listIterator.previous();
-
-            if (element.contains(point)) {
-                return element;
-            }
-        }
-
-        // if no element was found, return null
-        return null;
+        return getSpatialIndex().getContainingElement(point);
     }
 
     public GraphicalElement getContainingGraphicalElement(int x, int y) {
         return this.getContainingGraphicalElement(new Point2D.Double(x, y));
     }
 
+    /**
+     * Retrieves the graphical elements inside an area, usually selected with a
+     * rubber band, the uppermost first.
+     */
     public List<GraphicalElement> getContainedGraphicalElements(int x, int y, int toX, int toY) {
-        List<GraphicalElement> contained = new ArrayList<>();
-        ListIterator<GraphicalElement> listIterator = graphicalElements.listIterator(graphicalElements.size());
-
-        while (listIterator.hasPrevious()) {
-            GraphicalElement element = listIterator.previous();
-            if (element.containedInArea(x, y, toX, toY)) {
-                contained.add(element);
-            }
-        }
-
-        return contained;
+        return getSpatialIndex().getContainedElements(x, y, toX, toY);
     }
 
     public List<GraphicalElement> getContainedGraphicalElements(Rectangle2D r) {
@@ -259,11 +474,17 @@ public abstract class DiagramModel implements Serializable, IXMLCustomStreamable
     // clears the drawing area of a diagram by setting all graphical elements to
     // empty
     public void clear() {
-        while (!graphicalElements.isEmpty()) {
-            removeGraphicalElement(graphicalElements.get(0));
+        beginUpdate();
+        try {
+            while (!graphicalElements.isEmpty()) {
+                removeGraphicalElement(graphicalElements.get(0));
+            }
+        } finally {
+            endUpdate();
         }
         graphicalElements.clear();
         graphicalElements = new NotifierVector<>();
+        clearIndexes();
     }
 
     public void setName(String name) {
@@ -291,7 +512,270 @@ public abstract class DiagramModel implements Serializable, IXMLCustomStreamable
     // notify listeners
     public void modelChanged() {
         // logger.fine(() -> "Notifying listeners");
-        pcs.firePropertyChange("diagramChanged", null, null);
+        spatialIndex = null;
+        extentKnown = false;
+        fireChange(new PropertyChangeEvent(this, DIAGRAM_CHANGED, null, null));
+    }
+
+    private void elementsChanged() {
+        spatialIndex = null;
+        fireChange(new PropertyChangeEvent(this, ELEMENTS_CHANGED, null, null));
+    }
+
+    /**
+     * Notifies the listeners that elements have moved, so that views repaint the
+     * whole diagram, but nothing shown outside of it has changed.
+     */
+    protected void layoutChanged() {
+        spatialIndex = null;
+        fireChange(new PropertyChangeEvent(this, LAYOUT_CHANGED, null, null));
+    }
+
+    private void fireChange(PropertyChangeEvent event) {
+        if (updateLevel > 0) {
+            pendingEvent = pendingEvent == null ? event : coalesce(pendingEvent, event);
+        } else {
+            pcs.firePropertyChange(event);
+        }
+    }
+
+    /**
+     * @return a single event for both changes: a diagram change event for the
+     *         elements of both if both affect only some elements, otherwise the
+     *         event requiring the most work from the listeners, a plain
+     *         diagramChanged before elementsChanged before layoutChanged
+     */
+    private PropertyChangeEvent coalesce(PropertyChangeEvent first, PropertyChangeEvent second) {
+        if (first instanceof DiagramChangeEvent && second instanceof DiagramChangeEvent) {
+            DiagramChangeEvent a = (DiagramChangeEvent) first;
+            DiagramChangeEvent b = (DiagramChangeEvent) second;
+            List<GraphicalElement> elements = new ArrayList<>(a.getElements());
+            elements.addAll(b.getElements());
+            return new DiagramChangeEvent(this, elements, a.getOldBounds().createUnion(b.getOldBounds()),
+                    a.getNewBounds().createUnion(b.getNewBounds()));
+        }
+        return getCoalescingRank(first) >= getCoalescingRank(second) ? first : second;
+    }
+
+    private static int getCoalescingRank(PropertyChangeEvent event) {
+        if (event instanceof DiagramChangeEvent) {
+            return 0;
+        } else if (LAYOUT_CHANGED.equals(event.getPropertyName())) {
+            return 1;
+        } else if (ELEMENTS_CHANGED.equals(event.getPropertyName())) {
+            return 2;
+        }
+        return 3;
+    }
+
+    /**
+     * @param evt an event fired by a diagram
+     * @return true if the event reports only moved or selected elements
+     */
+    public static boolean isLayoutChange(PropertyChangeEvent evt) {
+        return evt instanceof DiagramChangeEvent || LAYOUT_CHANGED.equals(evt.getPropertyName());
+    }
+
+    /**
+     * Notifies the listeners that only some elements have changed, so that views
+     * only repaint the area they were and are drawn in.
+     * 
+     * @param elements  the elements that changed
+     * @param oldBounds the union of their paint bounds before the change
+     * @param newBounds the union of their paint bounds after the change
+     */
+    public void modelChanged(List<GraphicalElement> elements, Rectangle2D oldBounds, Rectangle2D newBounds) {
+        if (!oldBounds.equals(newBounds)) {
+            spatialIndex = null;
+        }
+        fireChange(new DiagramChangeEvent(this, elements, oldBounds, newBounds));
+    }
+
+    /**
+     * Notifies the listeners that the appearance of an element has changed, but
+     * not its bounds, e.g. when it is selected.
+     * 
+     * @param e
+     */
+    public void modelChanged(GraphicalElement e) {
+        Rectangle2D bounds = e.getPaintBounds();
+        modelChanged(Collections.singletonList(e), bounds, bounds);
+    }
+
+    /**
+     * Tells the model that the bounds of its elements may have changed without a
+     * change in the model, e.g. when a view has drawn them for the first time.
+     */
+    public void boundsChanged() {
+        spatialIndex = null;
+        extentKnown = false;
+    }
+
+    /**
+     * Returns the largest x and y of the bounds of the elements. The extent is
+     * kept as elements are added and moved, and the elements are only measured
+     * again after a change that may have shrunk it.
+     * 
+     * @return the bottom right corner of the area the elements are in
+     */
+    public Point2D.Double getExtent() {
+        if (!extentKnown) {
+            extentX = 0;
+            extentY = 0;
+            for (GraphicalElement e : graphicalElements) {
+                Rectangle2D bounds = e.getBounds();
+                extentX = Math.max(extentX, bounds.getMaxX());
+                extentY = Math.max(extentY, bounds.getMaxY());
+            }
+            extentKnown = true;
+            extentMayShrink = false;
+        }
+        return new Point2D.Double(extentX, extentY);
+    }
+
+    /**
+     * Grows the extent to the new bounds of elements that were moved or added.
+     * If their old bounds reached the edge of the extent it may have shrunk,
+     * which is only found when they settle, so that the view does not change
+     * its size while they are dragged.
+     * 
+     * @param oldBounds the bounds of the elements before, or null if added
+     * @param newBounds the bounds of the elements after
+     */
+    protected void updateExtent(Rectangle2D oldBounds, Rectangle2D newBounds) {
+        if (!extentKnown) {
+            return;
+        }
+        if (oldBounds != null && isAtExtent(oldBounds)) {
+            extentMayShrink = true;
+        }
+        extentX = Math.max(extentX, newBounds.getMaxX());
+        extentY = Math.max(extentY, newBounds.getMaxY());
+    }
+
+    /**
+     * Marks the extent to be computed again, after elements were moved in a way
+     * that {@link #updateExtent(Rectangle2D, Rectangle2D)} does not follow.
+     */
+    protected void invalidateExtent() {
+        extentKnown = false;
+    }
+
+    /**
+     * Shrinks the view to the extent, if it may have shrunk while elements were
+     * dragged. Called after an element settles.
+     */
+    protected void settleExtent() {
+        if (extentMayShrink || !extentKnown) {
+            extentKnown = false;
+            changeViewSize();
+        }
+    }
+
+    private boolean isAtExtent(Rectangle2D bounds) {
+        return extentKnown && (bounds.getMaxX() >= extentX || bounds.getMaxY() >= extentY);
+    }
+
+    /**
+     * Returns the links from and to a classifier in this diagram, without going
+     * through the other elements.
+     * 
+     * @param c
+     * @return the links, in the order they were added
+     */
+    public List<LinkGR> getLinks(ClassifierGR c) {
+        List<LinkGR> classifierLinks = getLinkIndex().get(c);
+        return classifierLinks == null ? new ArrayList<>() : new ArrayList<>(classifierLinks);
+    }
+
+    /**
+     * Called after an element has been added to the list of graphical elements.
+     * Subclasses that keep more indexes of the elements override it and call it.
+     * 
+     * @param e
+     */
+    protected void addToIndexes(GraphicalElement e) {
+        umlProject.elementAdded(this, e);
+        if (e instanceof UMLNoteGR) {
+            getNotes().add((UMLNoteGR) e);
+        }
+        if (e instanceof LinkGR) {
+            LinkGR link = (LinkGR) e;
+            getLinkIndex().computeIfAbsent(link.getA(), c -> new ArrayList<>(2)).add(link);
+            if (link.getB() != link.getA()) {
+                getLinkIndex().computeIfAbsent(link.getB(), c -> new ArrayList<>(2)).add(link);
+            }
+        }
+    }
+
+    /**
+     * Called after an element has been removed from the list of graphical
+     * elements.
+     * 
+     * @param e
+     */
+    protected void removeFromIndexes(GraphicalElement e) {
+        umlProject.elementRemoved(e);
+        if (e instanceof UMLNoteGR) {
+            getNotes().remove(e);
+        }
+        if (e instanceof LinkGR) {
+            LinkGR link = (LinkGR) e;
+            removeLink(link.getA(), link);
+            removeLink(link.getB(), link);
+        }
+    }
+
+    /**
+     * Called when the list of graphical elements is emptied.
+     */
+    protected void clearIndexes() {
+        umlProject.elementsCleared();
+        getLinkIndex().clear();
+        getNotes().clear();
+        extentKnown = false;
+    }
+
+    private void removeLink(ClassifierGR c, LinkGR link) {
+        List<LinkGR> classifierLinks = getLinkIndex().get(c);
+        if (classifierLinks != null) {
+            classifierLinks.remove(link);
+            if (classifierLinks.isEmpty()) {
+                getLinkIndex().remove(c);
+            }
+        }
+    }
+
+    private Map<ClassifierGR, List<LinkGR>> getLinkIndex() {
+        if (links == null) {
+            links = new IdentityHashMap<>();
+        }
+        return links;
+    }
+
+    private List<UMLNoteGR> getNotes() {
+        if (notes == null) {
+            notes = new ArrayList<>();
+        }
+        return notes;
+    }
+
+    private SpatialIndex getSpatialIndex() {
+        // elements may also have been added or removed through
+        // getGraphicalElements()
+        if (spatialIndex == null || spatialIndex.size() != graphicalElements.size()) {
+            spatialIndex = new SpatialIndex(graphicalElements);
+            spatialIndexBuilds++;
+        }
+        return spatialIndex;
+    }
+
+    /**
+     * @return how many times the index for hit-testing has been built, which
+     *         repaint-only notifications must not cause
+     */
+    public int getSpatialIndexBuilds() {
+        return spatialIndexBuilds;
     }
 
     public void setRect(String rect) {
@@ -326,7 +810,13 @@ public abstract class DiagramModel implements Serializable, IXMLCustomStreamable
         setName(node.getAttribute("name"));
 
         graphicalElements.clear();
-        streamer.streamChildrenFrom(node, instance);
+        clearIndexes();
+        beginUpdate();
+        try {
+            streamer.streamChildrenFrom(node, instance);
+        } finally {
+            endUpdate();
+        }
     }
 
     public UMLProject getUmlProject() {
@@ -334,6 +824,10 @@ public abstract class DiagramModel implements Serializable, IXMLCustomStreamable
     }
 
     protected void changeViewSize() {
+        if (updateLevel > 0) {
+            viewSizeChanged = true;
+            return;
+        }
         // frame might be null in tests with only models
         if (frame != null) {
             frame.getView().changeSizeToFitAllElements();
@@ -15,6 +15,8 @@ import java.util.logging.Logger;
 
 import org.w3c.dom.Element;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import edu.city.studentuml.model.domain.Edge;
 import edu.city.studentuml.util.Geometry;
 import edu.city.studentuml.util.NotStreamable;
@@ -216,6 +218,19 @@ public abstract class EdgeGR extends GraphicalElement {
         // empty on purpose; cannot be moved
     }
 
+    /**
+     * The bounding box of the points of the edge.
+     */
+    @Override
+    @JsonIgnore
+    public Rectangle2D getPaintBounds() {
+        Rectangle2D bounds = getBounds();
+        for (AbstractPointGR point : points) {
+            bounds.add(point.getX(), point.getY());
+        }
+        return bounds;
+    }
+
     @Override
     public boolean contains(Point2D p) {
         AbstractPointGR start;
@@ -319,6 +334,25 @@ public abstract class EdgeGR extends GraphicalElement {
         drawEdgeString(x, y, 0, edge.toString(), g);
     }
 
+    /**
+     * The segments of the edge, without the arrow head and the guard.
+     */
+    @Override
+    public void drawOutline(Graphics2D g) {
+        setStartPoint();
+        setEndPoint();
+
+        for (int i = 0; i < points.size() - 1; i++) {
+            strokeOutline(new Line2D.Double(points.get(i).getMyPoint(), points.get(i + 1).getMyPoint()), g);
+        }
+    }
+
+    @Override
+    @JsonIgnore
+    public double getDetailSize() {
+        return LINE_DETAIL_SIZE;
+    }
+
     private void drawEdgeArrowHead(int x, int y, double angle, Graphics2D g) {
         g.translate(x, y);
         g.rotate(angle);
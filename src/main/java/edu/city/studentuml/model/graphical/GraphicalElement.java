@@ -3,6 +3,7 @@ package edu.city.studentuml.model.graphical;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Shape;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.io.Serializable;
@@ -55,6 +56,18 @@ public abstract class GraphicalElement implements Serializable, IXMLCustomStream
         return new Rectangle2D.Double(this.getX(), this.getY(), this.getWidth(), this.getHeight());
     }
 
+    /**
+     * The area the element draws in, apart from strokes, arrow heads and labels
+     * close to it. Views skip the elements whose paint bounds are outside the
+     * area being repainted.
+     * 
+     * @return the bounds, unless overridden
+     */
+    @JsonIgnore
+    public Rectangle2D getPaintBounds() {
+        return getBounds();
+    }
+
     private String getMyUid() {
         if (myUid == null) {
             myUid = SystemWideObjectNamePool.getInstance().getUid();
@@ -127,6 +140,49 @@ public abstract class GraphicalElement implements Serializable, IXMLCustomStream
 
     public abstract void draw(Graphics2D g);
 
+    /**
+     * Draws the element as a filled outline of its bounds, without text, for
+     * views that show it too small to be read.
+     * 
+     * @param g
+     */
+    public void drawOutline(Graphics2D g) {
+        Rectangle2D bounds = getBounds();
+        g.setPaint(getFillColor());
+        g.fill(bounds);
+        strokeOutline(bounds, g);
+    }
+
+    /**
+     * Draws the shape with the stroke and color of an outline, highlighted if
+     * the element is selected.
+     */
+    protected void strokeOutline(Shape shape, Graphics2D g) {
+        g.setStroke(GraphicsHelper.makeSolidStroke());
+        g.setPaint(isSelected() ? getHighlightColor() : getOutlineColor());
+        g.draw(shape);
+    }
+
+    /**
+     * The detail size of links, edges and messages, about the height of their
+     * labels with an arrow head, as the size of their bounds does not tell how
+     * legible they are.
+     */
+    protected static final double LINE_DETAIL_SIZE = 30;
+
+    /**
+     * The size below which the details of the element cannot be read; views draw
+     * the elements shown smaller than that as outlines.
+     * 
+     * @return the smaller side of the bounds, unless overridden, or 0 if the
+     *         element has not been laid out yet
+     */
+    @JsonIgnore
+    public double getDetailSize() {
+        Rectangle2D bounds = getBounds();
+        return Math.min(bounds.getWidth(), bounds.getHeight());
+    }
+
     public abstract void move(int x, int y);
 
     public abstract boolean contains(Point2D p);
@@ -9,7 +9,6 @@ import java.awt.Shape;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.font.FontRenderContext;
-import java.awt.font.TextLayout;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.Rectangle2D;
@@ -266,7 +265,8 @@ public class GraphicsHelper {
     /**
      * Gets the bounding rectangle for text rendered with the specified font. This
      * is a convenience method that encapsulates the common pattern of creating a
-     * TextLayout and getting its bounds.
+     * TextLayout and getting its bounds. The bounds are cached, see
+     * {@link TextMetricsCache}.
      * 
      * @param text The text to measure
      * @param font The font to use
@@ -274,8 +274,7 @@ public class GraphicsHelper {
      * @return The bounds of the rendered text
      */
     public static Rectangle2D getTextBounds(String text, Font font, FontRenderContext frc) {
-        TextLayout layout = new TextLayout(text, font, frc);
-        return layout.getBounds();
+        return TextMetricsCache.getTextBounds(text, font, frc);
     }
 
 }
@@ -8,6 +8,8 @@ import java.awt.Stroke;
 import java.awt.font.FontRenderContext;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.w3c.dom.Element;
 
@@ -42,6 +44,13 @@ public class InterfaceGR extends GraphicalElement implements ClassifierGR {
     private static final Font METHOD_FONT = FontRegistry.INTERFACE_METHOD_FONT;
     private static final Font NAME_FONT = FontRegistry.INTERFACE_NAME_FONT;
 
+    /*
+     * the texts and the drawing context the width and height were last
+     * calculated for
+     */
+    private transient List<String> measuredTexts;
+    private transient FontRenderContext measuredContext;
+
     public InterfaceGR(Interface i, Point start) {
         coreInterface = i;
         startingPoint = start;
@@ -159,9 +168,25 @@ public class InterfaceGR extends GraphicalElement implements ClassifierGR {
         return Math.max(height, minimumMethodFieldHeight);
     }
 
+    /**
+     * Calculates the width and height of the box, unless the name, the methods
+     * and the drawing context are the same as the last time.
+     */
     public void refreshDimensions(Graphics2D g) {
+        List<String> texts = new ArrayList<>();
+        texts.add(coreInterface.getName());
+        for (Method m : coreInterface.getMethods()) {
+            texts.add(m.toString());
+        }
+        FontRenderContext frc = g.getFontRenderContext();
+        if (TextMetricsCache.isEnabled() && texts.equals(measuredTexts) && frc.equals(measuredContext)) {
+            return;
+        }
+
         calculateWidth(g);
         calculateHeight(g);
+        measuredTexts = texts;
+        measuredContext = frc;
     }
 
     protected int calculateWidth(Graphics2D g) {
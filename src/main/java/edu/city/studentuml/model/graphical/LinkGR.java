@@ -14,6 +14,7 @@ import java.util.logging.Logger;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import edu.city.studentuml.util.Geometry;
+import edu.city.studentuml.util.ProjectContext;
 import edu.city.studentuml.util.Rotate;
 
 /**
@@ -30,9 +31,11 @@ public abstract class LinkGR extends AbstractLinkGR {
     /**
      * links stores the pairs of classifiers that are connected. For each pair A, B
      * of classifiers the number of their relationships is stored Note that only one
-     * of the pairs A,B or B,A is stored.
+     * of the pairs A,B or B,A is stored. The links are kept per project.
      */
-    private static Map<Link, Integer> links = new HashMap<>();
+    private static Map<Link, Integer> links() {
+        return ProjectContext.current().getState(LinkGR.class, HashMap::new);
+    }
 
     protected final ClassifierGR a;
     protected final ClassifierGR b;
@@ -79,7 +82,12 @@ public abstract class LinkGR extends AbstractLinkGR {
 
         @Override
         public String toString() {
-            return a.getClassifier().getName() + "-->" + b.getClassifier().getName();
+            return name(a) + "-->" + name(b);
+        }
+
+        // links read from corrupted files may miss an end
+        private String name(ClassifierGR c) {
+            return c != null ? c.getClassifier().getName() : "null";
         }
 
     }
@@ -167,6 +175,7 @@ public abstract class LinkGR extends AbstractLinkGR {
     }
 
     public int getNumberOfLinks(ClassifierGR a, ClassifierGR b) {
+        Map<Link, Integer> links = links();
         Link linkAB = new Link(a, b);
         Link linkBA = new Link(b, a);
         if (links.containsKey(linkAB)) {
@@ -182,6 +191,7 @@ public abstract class LinkGR extends AbstractLinkGR {
     public void objectAdded(GraphicalElement obj) {
         LinkGR link = (LinkGR) obj;
         logger.finest("Object added " + obj.getClass().getName());
+        Map<Link, Integer> links = links();
         Link linkAB = new Link(link.a, link.b);
         Link linkBA = new Link(link.b, link.a);
         if (!links.containsKey(linkAB)) {
@@ -198,6 +208,7 @@ public abstract class LinkGR extends AbstractLinkGR {
     }
 
     private boolean removeLink(Link linkAB) {
+        Map<Link, Integer> links = links();
         if (links.containsKey(linkAB)) {
             if (links.get(linkAB) > 1) {
                 links.put(linkAB, links.get(linkAB) - 1);
@@ -212,6 +223,7 @@ public abstract class LinkGR extends AbstractLinkGR {
     @Override
     public void objectRemoved(GraphicalElement obj) {
         LinkGR link = (LinkGR) obj;
+        Map<Link, Integer> links = links();
         logger.finest(() -> "objectRemoved (before): links " + links);
         logger.finest(() -> "Link to remove: link " + link);
         if (!removeLink(new Link(link.a, link.b)) && !removeLink(new Link(link.b, link.a))) {
@@ -240,7 +252,7 @@ public abstract class LinkGR extends AbstractLinkGR {
         double xB = getCentreRoleB().getX();
         double yB = getCentreRoleB().getY();
         double angle;
-        if (links.get(new Link(a, b)) != null) {
+        if (links().get(new Link(a, b)) != null) {
             angle = Math.atan2(yB - yA, xB - xA);
         } else {
             angle = Math.atan2(yA - yB, xA - xB);
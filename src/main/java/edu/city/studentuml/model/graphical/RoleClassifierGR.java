@@ -1,14 +1,17 @@
 package edu.city.studentuml.model.graphical;
 
+import java.awt.Graphics2D;
 import java.awt.Point;
-import java.util.ArrayDeque;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import edu.city.studentuml.model.domain.DesignClass;
 import edu.city.studentuml.model.domain.RoleClassifier;
 import edu.city.studentuml.model.domain.SDObject;
@@ -42,8 +45,8 @@ public abstract class RoleClassifierGR extends GraphicalElement {
     /**
      * stacks keeping ingoing and outgoing messages for SD validation
      */
-    private Deque<RoleClassifierGR> in = new ArrayDeque<>();
-    private Deque<RoleClassifierGR> out = new ArrayDeque<>();
+    private Stack in = Stack.EMPTY;
+    private Stack out = Stack.EMPTY;
 
     /**
      * store all the Ys of messages
@@ -55,6 +58,49 @@ public abstract class RoleClassifierGR extends GraphicalElement {
      */
     protected Map<Integer, Integer> activationAt = new HashMap<>();
 
+    /**
+     * the depths replaced in activationAt by each of messageYs, to restore them
+     */
+    private final List<Integer> replacedActivations = new ArrayList<>();
+
+    /**
+     * An immutable stack, so that the stacks before a message can be kept and
+     * restored when the messages after it change.
+     */
+    private static final class Stack {
+        static final Stack EMPTY = new Stack(null, null);
+
+        final RoleClassifierGR top;
+        final Stack below;
+        final int size;
+
+        Stack(RoleClassifierGR top, Stack below) {
+            this.top = top;
+            this.below = below;
+            size = below == null ? 0 : below.size + 1;
+        }
+
+        Stack push(RoleClassifierGR rc) {
+            return new Stack(rc, this);
+        }
+    }
+
+    /**
+     * The stacks and the activations of a role classifier before a message is
+     * validated.
+     */
+    static final class ValidationState {
+        private final Stack in;
+        private final Stack out;
+        private final int messages;
+
+        private ValidationState(Stack in, Stack out, int messages) {
+            this.in = in;
+            this.out = out;
+            this.messages = messages;
+        }
+    }
+
     /**
      * of the x and y coordinates, x is significant
      * 
@@ -83,6 +129,28 @@ public abstract class RoleClassifierGR extends GraphicalElement {
         endingY = y;
     }
 
+    /**
+     * The name box and the lifeline below it, without the name and the
+     * activation bars.
+     */
+    @Override
+    public void drawOutline(Graphics2D g) {
+        super.drawOutline(g);
+        Rectangle2D bounds = getBounds();
+        strokeOutline(new Line2D.Double(bounds.getCenterX(), bounds.getMaxY(), bounds.getCenterX(), endingY), g);
+    }
+
+    /**
+     * The name box and the lifeline below it.
+     */
+    @Override
+    @JsonIgnore
+    public Rectangle2D getPaintBounds() {
+        Rectangle2D bounds = getBounds();
+        bounds.add(bounds.getCenterX(), endingY);
+        return bounds;
+    }
+
     /**
      * used only to move the name box down when a create message is added
      * 
@@ -102,8 +170,8 @@ public abstract class RoleClassifierGR extends GraphicalElement {
     }
 
     public String validateOut(RoleClassifierGR target) {
-        if (in.size() > out.size()) {
-            out.push(target);
+        if (in.size > out.size) {
+            out = out.push(target);
             return "";
         } else {
             logger.finer(this::stacksToString);
@@ -112,8 +180,8 @@ public abstract class RoleClassifierGR extends GraphicalElement {
     }
 
     public String validateIn(RoleClassifierGR source) {
-        if (in.size() == out.size()) {
-            in.push(source);
+        if (in.size == out.size) {
+            in = in.push(source);
             return "";
         } else {
             logger.finer(this::stacksToString);
@@ -122,10 +190,10 @@ public abstract class RoleClassifierGR extends GraphicalElement {
     }
 
     public String validateOutReturn(RoleClassifierGR target) {
-        if (in.size() > out.size()) {
-            RoleClassifierGR origFrom = in.peek();
+        if (in.size > out.size) {
+            RoleClassifierGR origFrom = in.top;
             if (origFrom == target) {
-                in.pop();
+                in = in.below;
                 return "";
             } else {
                 logger.finer(this::stacksToString);
@@ -139,14 +207,14 @@ public abstract class RoleClassifierGR extends GraphicalElement {
     }
 
     String validateInReturn(RoleClassifierGR source) {
-        if (out.isEmpty()) {
+        if (out.size == 0) {
             logger.finer(this::stacksToString);
             return this.getRoleClassifier().getName() + " Cannot accept return messages. Did not send any messages";
         }
-        if (in.size() == out.size()) {
-            RoleClassifierGR origTo = out.peek();
+        if (in.size == out.size) {
+            RoleClassifierGR origTo = out.top;
             if (origTo == source) {
-                out.pop();
+                out = out.below;
                 return "";
             } else {
                 logger.finer(this::stacksToString);
@@ -163,22 +231,47 @@ public abstract class RoleClassifierGR extends GraphicalElement {
     private String stacksToString() {
         StringBuilder sb = new StringBuilder();
         sb.append("Stack: [");
-        for (RoleClassifierGR m : in) {
-            sb.append(m.getRoleClassifier().getName());
+        for (Stack s = in; s.size > 0; s = s.below) {
+            sb.append(s.top.getRoleClassifier().getName());
         }
         sb.append("] - [");
-        for (RoleClassifierGR m : out) {
-            sb.append(m.getRoleClassifier().getName());
+        for (Stack s = out; s.size > 0; s = s.below) {
+            sb.append(s.top.getRoleClassifier().getName());
         }
         sb.append("]\n");
         return sb.toString();
     }
 
     void clearInOutStacks() {
-        in.clear();
-        out.clear();
+        in = Stack.EMPTY;
+        out = Stack.EMPTY;
         messageYs.clear();
         activationAt.clear();
+        replacedActivations.clear();
+    }
+
+    ValidationState getValidationState() {
+        return new ValidationState(in, out, messageYs.size());
+    }
+
+    /**
+     * Restores the stacks and the activations to what they were before a message
+     * was validated, undoing the activations added since.
+     * 
+     * @param state
+     */
+    void restoreValidationState(ValidationState state) {
+        in = state.in;
+        out = state.out;
+        for (int i = messageYs.size() - 1; i >= state.messages; i--) {
+            Integer y = messageYs.remove(i);
+            Integer replaced = replacedActivations.remove(i);
+            if (replaced == null) {
+                activationAt.remove(y);
+            } else {
+                activationAt.put(y, replaced);
+            }
+        }
     }
 
     /**
@@ -186,7 +279,7 @@ public abstract class RoleClassifierGR extends GraphicalElement {
      * avoid error in the validation
      */
     void setActiveIn() {
-        in.push(new SDObjectGR(new SDObject("void", new DesignClass("Void")), 0));
+        in = in.push(new SDObjectGR(new SDObject("void", new DesignClass("Void")), 0));
     }
 
     void addActivationHeight(int y) {
@@ -194,7 +287,7 @@ public abstract class RoleClassifierGR extends GraphicalElement {
         /*
         store size of in stack at the specific time
         */
-        activationAt.put(y, in.size());
+        replacedActivations.add(activationAt.put(y, in.size));
     }
 
     int acticationAtY(int y) {
@@ -7,6 +7,7 @@ import java.awt.Point;
 import java.awt.Stroke;
 import java.awt.font.FontRenderContext;
 import java.awt.geom.GeneralPath;
+import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 
@@ -109,6 +110,26 @@ public abstract class SDMessageGR extends GraphicalElement {
         g.setStroke(originalStroke);
     }
 
+    /**
+     * The line of the message, or the loop of a reflective one, without the
+     * arrow head and the text.
+     */
+    @Override
+    public void drawOutline(Graphics2D g) {
+        int startingX = getStartingX();
+        if (!message.isReflective()) {
+            strokeOutline(new Line2D.Double(startingX, getY(), getEndingX(), getY()), g);
+        } else {
+            strokeOutline(new Rectangle2D.Double(startingX, getY(), 40, 15), g);
+        }
+    }
+
+    @Override
+    @JsonIgnore
+    public double getDetailSize() {
+        return LINE_DETAIL_SIZE;
+    }
+
     private void drawMessage(Graphics2D g, int startingX, int endingX) {
         int messageDY = ConstantsGR.getInstance().get("SDMessageGR", "messageDY");
 
@@ -315,6 +336,19 @@ public abstract class SDMessageGR extends GraphicalElement {
                 Math.abs(getStartingX() - getEndingX()) + 10.0, 10.0);
     }
 
+    /**
+     * The whole width of the diagram at the height of the message, as the
+     * message text and the loop of a reflective message may extend beyond the
+     * arrow.
+     */
+    @Override
+    @JsonIgnore
+    public Rectangle2D getPaintBounds() {
+        Rectangle2D bounds = getBounds();
+        return new Rectangle2D.Double(-Integer.MAX_VALUE / 2.0, bounds.getY(), Integer.MAX_VALUE,
+                bounds.getHeight());
+    }
+
     // all messages respond to drag and drop by moving only vertically
     @Override
     public void move(int x, int y) {
@@ -0,0 +1,183 @@
+package edu.city.studentuml.model.graphical;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A uniform grid over the elements of a diagram, for finding the elements at a
+ * point or inside an area without testing every element.
+ * <p>
+ * Each cell lists, in z-order, the elements whose paint bounds, grown by
+ * {@link #MARGIN}, overlap it; the area in which an element responds to clicks
+ * must lie within these. The grid covers the bounds of all the elements, and
+ * points outside it are tested against every element. The index is a snapshot:
+ * it has to be built again when an element is added, removed, moved or resized.
+ */
+final class SpatialIndex {
+
+    /**
+     * How far beyond its paint bounds an element may respond to clicks, e.g. the
+     * tolerance around a link or the name above a message.
+     */
+    static final int MARGIN = 40;
+
+    private static final int MIN_CELL_SIZE = 64;
+
+    private final GraphicalElement[] elements;
+
+    private final double minX;
+    private final double minY;
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+
+    /**
+     * The indexes of the elements of each cell, in ascending z-order.
+     */
+    private final int[][] cells;
+
+    SpatialIndex(List<GraphicalElement> graphicalElements) {
+        elements = graphicalElements.toArray(new GraphicalElement[0]);
+
+        Rectangle2D[] boxes = new Rectangle2D[elements.length];
+        Rectangle2D extent = null;
+        for (int i = 0; i < elements.length; i++) {
+            Rectangle2D bounds = elements[i].getBounds();
+            Rectangle2D box = bounds.createUnion(elements[i].getPaintBounds());
+            box.setRect(box.getX() - MARGIN, box.getY() - MARGIN, box.getWidth() + 2.0 * MARGIN,
+                    box.getHeight() + 2.0 * MARGIN);
+            boxes[i] = box;
+            if (extent == null) {
+                extent = (Rectangle2D) bounds.clone();
+            } else {
+                extent.add(bounds);
+            }
+        }
+        if (extent == null) {
+            extent = new Rectangle2D.Double();
+        }
+
+        minX = extent.getX() - MARGIN;
+        minY = extent.getY() - MARGIN;
+        double width = extent.getWidth() + 2.0 * MARGIN;
+        double height = extent.getHeight() + 2.0 * MARGIN;
+        // about one cell per element
+        cellSize = (int) Math.max(MIN_CELL_SIZE, Math.ceil(Math.sqrt(width * height / Math.max(1, elements.length))));
+        columns = (int) (width / cellSize) + 1;
+        rows = (int) (height / cellSize) + 1;
+
+        int[] counts = new int[columns * rows];
+        int[][] ranges = new int[elements.length][];
+        for (int i = 0; i < elements.length; i++) {
+            int[] range = cellRange(boxes[i].getMinX(), boxes[i].getMinY(), boxes[i].getMaxX(), boxes[i].getMaxY());
+            ranges[i] = range;
+            if (range == null) {
+                continue;
+            }
+            for (int row = range[1]; row <= range[3]; row++) {
+                for (int column = range[0]; column <= range[2]; column++) {
+                    counts[row * columns + column]++;
+                }
+            }
+        }
+
+        cells = new int[counts.length][];
+        for (int c = 0; c < counts.length; c++) {
+            cells[c] = new int[counts[c]];
+            counts[c] = 0;
+        }
+        for (int i = 0; i < elements.length; i++) {
+            int[] range = ranges[i];
+            if (range == null) {
+                continue;
+            }
+            for (int row = range[1]; row <= range[3]; row++) {
+                for (int column = range[0]; column <= range[2]; column++) {
+                    int c = row * columns + column;
+                    cells[c][counts[c]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of elements when the index was built
+     */
+    int size() {
+        return elements.length;
+    }
+
+    /**
+     * @param point
+     * @return the topmost element that contains the point, or null
+     */
+    GraphicalElement getContainingElement(Point2D point) {
+        int column = (int) Math.floor((point.getX() - minX) / cellSize);
+        int row = (int) Math.floor((point.getY() - minY) / cellSize);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            for (int i = elements.length - 1; i >= 0; i--) {
+                if (elements[i].contains(point)) {
+                    return elements[i];
+                }
+            }
+            return null;
+        }
+
+        int[] cell = cells[row * columns + column];
+        for (int i = cell.length - 1; i >= 0; i--) {
+            GraphicalElement element = elements[cell[i]];
+            if (element.contains(point)) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the elements inside the area, topmost first
+     * @see GraphicalElement#containedInArea(int, int, int, int)
+     */
+    List<GraphicalElement> getContainedElements(int x, int y, int toX, int toY) {
+        List<GraphicalElement> contained = new ArrayList<>();
+        int[] range = cellRange(x, y, toX, toY);
+        if (range == null) {
+            return contained;
+        }
+
+        BitSet candidates = new BitSet(elements.length);
+        for (int row = range[1]; row <= range[3]; row++) {
+            for (int column = range[0]; column <= range[2]; column++) {
+                for (int i : cells[row * columns + column]) {
+                    candidates.set(i);
+                }
+            }
+        }
+        for (int i = candidates.previousSetBit(elements.length - 1); i >= 0; i = candidates.previousSetBit(i - 1)) {
+            if (elements[i].containedInArea(x, y, toX, toY)) {
+                contained.add(elements[i]);
+            }
+        }
+        return contained;
+    }
+
+    /**
+     * @return the first column, first row, last column and last row of the cells
+     *         that overlap the rectangle, or null if none does
+     */
+    private int[] cellRange(double fromX, double fromY, double toX, double toY) {
+        if (Double.isNaN(fromX) || Double.isNaN(fromY) || Double.isNaN(toX) || Double.isNaN(toY)) {
+            return null;
+        }
+        int firstColumn = (int) Math.max(0, Math.floor((fromX - minX) / cellSize));
+        int firstRow = (int) Math.max(0, Math.floor((fromY - minY) / cellSize));
+        int lastColumn = (int) Math.min(columns - 1.0, Math.floor((toX - minX) / cellSize));
+        int lastRow = (int) Math.min(rows - 1.0, Math.floor((toY - minY) / cellSize));
+        if (firstColumn > lastColumn || firstRow > lastRow) {
+            return null;
+        }
+        return new int[] { firstColumn, firstRow, lastColumn, lastRow };
+    }
+}
@@ -52,6 +52,14 @@ public class SystemGR extends CompositeUCDElementGR implements Resizable {
         resizeHandles.add(new RightResizeHandle(this));
     }
 
+    /**
+     * Only the border, as the system is drawn transparent over the elements in it.
+     */
+    @Override
+    public void drawOutline(Graphics2D g) {
+        strokeOutline(getBounds(), g);
+    }
+
     @Override
     public void draw(Graphics2D g) {
 
@@ -0,0 +1,131 @@
+package edu.city.studentuml.model.graphical;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.awt.geom.Rectangle2D;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The bounds of the texts measured with {@link GraphicsHelper#getTextBounds},
+ * by font, text and font render context. Laying out a text is much slower than
+ * looking it up, and the same names, attributes and methods are measured every
+ * time a diagram is drawn. The least recently used texts are evicted once the
+ * cache is full.
+ */
+final class TextMetricsCache {
+
+    static final int MAX_ENTRIES = 8192;
+
+    private static final class Key {
+        final Font font;
+        final String text;
+        final FontRenderContext frc;
+        final int hash;
+
+        Key(Font font, String text, FontRenderContext frc) {
+            this.font = font;
+            this.text = text;
+            this.frc = frc;
+            hash = Objects.hash(font, text, frc);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return hash == k.hash && text.equals(k.text) && font.equals(k.font) && frc.equals(k.frc);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final Map<Key, Rectangle2D> cache = new LinkedHashMap<Key, Rectangle2D>(256, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Rectangle2D> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static long hits = 0;
+    private static long misses = 0;
+
+    private static volatile boolean enabled = true;
+
+    private TextMetricsCache() {
+    }
+
+    /**
+     * @return a copy of the bounds of the text, as returned by
+     *         {@link TextLayout#getBounds()}
+     */
+    static Rectangle2D getTextBounds(String text, Font font, FontRenderContext frc) {
+        if (!enabled) {
+            return new TextLayout(text, font, frc).getBounds();
+        }
+        Key key = new Key(font, text, frc);
+        Rectangle2D bounds;
+        synchronized (cache) {
+            bounds = cache.get(key);
+            if (bounds != null) {
+                hits++;
+                return (Rectangle2D) bounds.clone();
+            }
+            misses++;
+        }
+
+        bounds = new TextLayout(text, font, frc).getBounds();
+        synchronized (cache) {
+            cache.put(key, bounds);
+        }
+        return (Rectangle2D) bounds.clone();
+    }
+
+    /**
+     * @return whether the bounds are cached; if not, class and interface boxes
+     *         also calculate their size every time they are drawn
+     */
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns caching off, e.g. to compare drawing times with and without it.
+     */
+    static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    static int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * @return the number of texts found in the cache and the number of texts laid
+     *         out since the cache was last cleared
+     */
+    static long[] getHitsAndMisses() {
+        synchronized (cache) {
+            return new long[] { hits, misses };
+        }
+    }
+
+    static void clear() {
+        synchronized (cache) {
+            cache.clear();
+            hits = 0;
+            misses = 0;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package edu.city.studentuml.model.graphical;
 import edu.city.studentuml.model.domain.UMLProject;
 import edu.city.studentuml.util.SystemWideObjectNamePool;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.List;
 import java.util.ListIterator;
 
@@ -167,11 +168,16 @@ public class UCDModel extends DiagramModel {
         return null;
     }
 
+    // Override: contained elements are selected, although they are not in the diagram
     @Override
-    public void selectGraphicalElement(GraphicalElement el) {
-        selected.add(el);
-        el.setSelected(true);
-        modelChanged();
+    public void selectGraphicalElements(List<? extends GraphicalElement> elements) {
+        for (GraphicalElement el : elements) {
+            selected.add(el);
+            el.setSelected(true);
+        }
+        if (!elements.isEmpty()) {
+            modelChanged();
+        }
     }
 
     // Override: needed because of the composite structure
@@ -197,12 +203,16 @@ public class UCDModel extends DiagramModel {
      */
     @Override
     public void moveGraphicalElement(GraphicalElement e, int x, int y) {
+        boolean contextChanged = false;
+        Rectangle2D oldBounds = e.getBounds();
         e.move(x, y);
+        updateExtent(oldBounds, e.getBounds());
         if (e instanceof UCDComponentGR) {
             UCDComponentGR comp = (UCDComponentGR) e;
             UCDComponentGR oldContext = comp.getContext();
             UCDComponentGR newContext = findContext(comp);
             if (oldContext != newContext) {
+                contextChanged = true;
                 if (oldContext == UCDComponentGR.DEFAULT_CONTEXT) {
                     graphicalElements.remove(comp);
                     newContext.add(comp);
@@ -224,7 +234,11 @@ public class UCDModel extends DiagramModel {
 
         changeViewSize();
 
-        modelChanged();
+        if (contextChanged) {
+            modelChanged();
+        } else {
+            layoutChanged();
+        }
     }
 
     private int getFirstLinkIndex() {
@@ -1,6 +1,7 @@
 package edu.city.studentuml.model.graphical;
 
 import java.util.List;
+import java.util.Vector;
 import java.util.logging.Logger;
 
 import org.w3c.dom.Element;
@@ -25,6 +26,7 @@ public abstract class UCLinkGR extends LinkGR {
     }
 
     protected boolean canAddLink() {
+        Vector<AbstractLinkGR> linkInstances = linkInstances();
         for (int x = 0; x < linkInstances.size(); x++) {
             if (this.isSameLink(linkInstances.get(x))) {
                 return false;
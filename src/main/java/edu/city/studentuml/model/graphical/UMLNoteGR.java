@@ -18,6 +18,8 @@ import java.util.logging.Logger;
 
 import org.w3c.dom.Element;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import edu.city.studentuml.editing.EditContext;
 import edu.city.studentuml.util.NotStreamable;
 import edu.city.studentuml.util.SystemWideObjectNamePool;
@@ -229,6 +231,20 @@ public class UMLNoteGR extends GraphicalElement {
         this.to = to;
     }
 
+    /**
+     * Includes the line to the centre of the element the note is attached to.
+     */
+    @Override
+    @JsonIgnore
+    public Rectangle2D getPaintBounds() {
+        Rectangle2D bounds = getBounds();
+        if (to != null) {
+            Rectangle2D toBounds = to.getBounds();
+            bounds.add(toBounds.getCenterX(), toBounds.getCenterY());
+        }
+        return bounds;
+    }
+
     @Override
     public void streamFromXML(Element node, XMLStreamer streamer, Object instance) throws NotStreamable {
         super.streamFromXML(node, streamer, instance);
@@ -4,10 +4,11 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.w3c.dom.Element;
@@ -121,12 +122,11 @@ import edu.city.studentuml.model.graphical.UseCaseGR;
 /**
  * ObjectFactory is a singleton responsible for dynamic instantiation of UML
  * model, graphical, and view objects during XML deserialization and diagram
- * loading. It uses Java reflection to locate and invoke appropriate
- * constructors or factory methods for classes in the model, graphical, and view
- * packages, based on class names found in XML. Responsibilities:
+ * loading. It maps the class names found in XML to factory methods that
+ * construct the classes of the model, graphical, and view packages.
+ * Responsibilities:
  * <ul>
- * <li>Dynamically create instances of domain, graphical, and view classes from
- * XML using reflection.</li>
+ * <li>Create instances of domain, graphical, and view classes from XML.</li>
  * <li>Fire property change events to notify listeners (e.g., ApplicationGUI)
  * about diagram/frame properties during loading.</li>
  * <li>Maintain a central point for all object creation logic, supporting
@@ -146,26 +146,151 @@ import edu.city.studentuml.model.graphical.UseCaseGR;
  * <li>Receives XMLStreamer and org.w3c.dom.Element for XML-based
  * instantiation.</li>
  * </ul>
- * Reflection:
+ * Factory methods:
  * <ul>
- * <li>Uses Class.forName to locate classes in known packages.</li>
- * <li>Uses reflection to invoke factory methods (e.g., newucdmodel,
- * newccdmodel) for custom instantiation logic.</li>
+ * <li>Each class name that can appear in XML is mapped once, at construction,
+ * to its factory method (e.g., newucdmodel, newccdmodel); unknown class names
+ * fail with NotStreamable.</li>
+ * <li>The number of objects created per class and the time spent creating them
+ * are collected and logged after loading.</li>
  * </ul>
- * Note: Many methods are called by reflection and must not be renamed.
+ * Note: The factory methods are registered in registerCreators().
  */
 public final class ObjectFactory {
     private final PropertyChangeSupport pcs = new PropertyChangeSupport(this);
 
     private static final Logger logger = Logger.getLogger(ObjectFactory.class.getName());
 
-    private static ObjectFactory instance = new ObjectFactory();
+    /**
+     * Creates an object for an XML element.
+     */
+    @FunctionalInterface
+    private interface Creator {
+        IXMLCustomStreamable create(Object parent, Element stream, XMLStreamer streamer) throws NotStreamable;
+    }
 
-    protected ObjectFactory() {
+    private static final class Statistics {
+        private int count;
+        private long nanos;
+
+        void add(long elapsed) {
+            count++;
+            nanos += elapsed;
+        }
     }
 
+    /**
+     * The factory method for each class name that can appear in the class
+     * attribute of an XML element.
+     */
+    private final Map<String, Creator> creators = new HashMap<>();
+
+    private final Map<String, Statistics> statistics = new HashMap<>();
+
+    protected ObjectFactory() {
+        registerCreators();
+    }
+
+    private void registerCreators() {
+        creators.put("UCDModel", this::newucdmodel);
+        creators.put("CCDModel", this::newccdmodel);
+        creators.put("SSDModel", this::newssdmodel);
+        creators.put("DCDModel", this::newdcdmodel);
+        creators.put("SDModel", this::newsdmodel);
+        creators.put("ADModel", this::newadmodel);
+        creators.put("UCActorGR", this::newucactorgr);
+        creators.put("SystemGR", this::newsystemgr);
+        creators.put("UseCaseGR", this::newusecasegr);
+        creators.put("UseCase", this::newusecase);
+        creators.put("UCAssociationGR", this::newucassociationgr);
+        creators.put("UCAssociation", this::newucassociation);
+        creators.put("UCIncludeGR", this::newucincludegr);
+        creators.put("UCInclude", this::newucinclude);
+        creators.put("UCGeneralizationGR", this::newucgeneralizationgr);
+        creators.put("UCGeneralization", this::newucgeneralization);
+        creators.put("UCExtendGR", this::newucextendgr);
+        creators.put("UCExtend", this::newucextend);
+        creators.put("ExtensionPoint", this::newextensionpoint);
+        creators.put("SDObjectGR", this::newsdobjectgr);
+        creators.put("ActorInstanceGR", this::newactorinstancegr);
+        creators.put("SystemInstanceGR", this::newsysteminstancegr);
+        creators.put("MultiObjectGR", this::newmultiobjectgr);
+        creators.put("CombinedFragment", this::newcombinedfragment);
+        creators.put("CombinedFragmentGR", this::newcombinedfragmentgr);
+        creators.put("CallMessageGR", this::newcallmessagegr);
+        creators.put("ReturnMessageGR", this::newreturnmessagegr);
+        creators.put("CreateMessageGR", this::newcreatemessagegr);
+        creators.put("DestroyMessageGR", this::newdestroymessagegr);
+        creators.put("DestroyMessage", this::newdestroymessage);
+        creators.put("CreateMessage", this::newcreatemessage);
+        creators.put("ReturnMessage", this::newreturnmessage);
+        creators.put("CallMessage", this::newcallmessage);
+        creators.put("GenericOperation", this::newgenericoperation);
+        creators.put("ActorInstance", this::newactorinstance);
+        creators.put("SystemInstance", this::newsysteminstance);
+        creators.put("Actor", this::newactor);
+        creators.put("System", this::newsystem);
+        creators.put("SDObject", this::newsdobject);
+        creators.put("MultiObject", this::newmultiobject);
+        creators.put("InterfaceGR", this::newinterfacegr);
+        creators.put("ClassGR", this::newclassgr);
+        creators.put("ConceptualClassGR", this::newconceptualclassgr);
+        creators.put("UMLNoteGR", this::newumlnotegr);
+        creators.put("DependencyGR", this::newdependencygr);
+        creators.put("AssociationGR", this::newassociationgr);
+        creators.put("AssociationClassGR", this::newassociationclassgr);
+        creators.put("AggregationGR", this::newaggregationgr);
+        creators.put("RealizationGR", this::newrealizationgr);
+        creators.put("GeneralizationGR", this::newgeneralizationgr);
+        creators.put("Generalization", this::newgeneralization);
+        creators.put("Aggregation", this::newaggregation);
+        creators.put("Association", this::newassociation);
+        creators.put("DesignAssociationClass", this::newdesignassociationclass);
+        creators.put("ConceptualAssociationClass", this::newconceptualassociationclass);
+        creators.put("Dependency", this::newdependency);
+        creators.put("Realization", this::newrealization);
+        creators.put("Role", this::newrole);
+        creators.put("DesignClass", this::newdesignclass);
+        creators.put("ConceptualClass", this::newconceptualclass);
+        creators.put("Interface", this::newinterface);
+        creators.put("GenericClass", this::newgenericclass);
+        creators.put("Attribute", this::newattribute);
+        creators.put("Method", this::newmethod);
+        creators.put("MethodParameter", this::newmethodparameter);
+        creators.put("InitialNodeGR", this::newinitialnodegr);
+        creators.put("InitialNode", this::newinitialnode);
+        creators.put("ActivityFinalNodeGR", this::newactivityfinalnodegr);
+        creators.put("ActivityFinalNode", this::newactivityfinalnode);
+        creators.put("FlowFinalNodeGR", this::newflowfinalnodegr);
+        creators.put("FlowFinalNode", this::newflowfinalnode);
+        creators.put("ActionNodeGR", this::newactionnodegr);
+        creators.put("ActionNode", this::newactionnode);
+        creators.put("MergeNodeGR", this::newmergenodegr);
+        creators.put("MergeNode", this::newmergenode);
+        creators.put("DecisionNodeGR", this::newdecisionnodegr);
+        creators.put("DecisionNode", this::newdecisionnode);
+        creators.put("ForkNodeGR", this::newforknodegr);
+        creators.put("ForkNode", this::newforknode);
+        creators.put("JoinNodeGR", this::newjoinnodegr);
+        creators.put("JoinNode", this::newjoinnode);
+        creators.put("ObjectNodeGR", this::newobjectnodegr);
+        creators.put("ObjectNode", this::newobjectnode);
+        creators.put("State", this::newstate);
+        creators.put("ActivityNodeGR", this::newactivitynodegr);
+        creators.put("ActivityNode", this::newactivitynode);
+        creators.put("ControlFlowGR", this::newcontrolflowgr);
+        creators.put("ControlFlow", this::newcontrolflow);
+        creators.put("ObjectFlowGR", this::newobjectflowgr);
+        creators.put("ObjectFlow", this::newobjectflow);
+        creators.put("EndPointGR", this::newendpointgr);
+        creators.put("PointGR", this::newpointgr);
+    }
+
+    /**
+     * @return the object factory of the current {@link ProjectContext}
+     */
     public static ObjectFactory getInstance() {
-        return instance;
+        return ProjectContext.current().getObjectFactory();
     }
 
     public void addPropertyChangeListener(PropertyChangeListener l) {
@@ -173,87 +298,109 @@ public final class ObjectFactory {
         pcs.addPropertyChangeListener(l);
     }
 
+    /**
+     * Creates the object for an XML element with the factory method registered
+     * for its class name, and names it with the internalid of the element.
+     * 
+     * @param className the class attribute of the element
+     * @param parent    the object the new object belongs to
+     * @param child     the element
+     * @param streamer  the streamer reading the element
+     * @return the new object, or null if its factory method failed
+     * @throws NotStreamable if no factory method is registered for className or
+     *                       the factory method cannot read the element
+     */
     public IXMLCustomStreamable newInstance(String className, Object parent, Element child, XMLStreamer streamer)
             throws NotStreamable {
-        String modelGraphicalPackageName = "edu.city.studentuml.model.graphical.";
-        String modelDomainPackageName = "edu.city.studentuml.model.domain.";
-        String viewPackageName = "edu.city.studentuml.view.";
-        String viewGUIPackageName = "edu.city.studentuml.view.gui.";
-
-        String[] packages = {
-                modelGraphicalPackageName,
-                modelDomainPackageName,
-                viewPackageName,
-                viewGUIPackageName };
-
-        for (String packageName : packages) {
-            Class<?> m;
-            try {
-                m = Class.forName(packageName + className);
-                return newInstance(m, parent, child, streamer);
-            } catch (ClassNotFoundException e) {
-                logger.finest(() -> "Not found in package: " + packageName + " Trying next package");
-            } catch (NotStreamable e) {
-                logger.severe("Not streamable: " + className);
-                throw e;
-            }
+        Creator creator = creators.get(className);
+        if (creator == null) {
+            logger.severe(() -> "ERROR in ObjectFactory: no factory method for class: " + className);
+            throw new NotStreamable("No factory method for class: " + className);
         }
 
-        logger.severe("ERROR in ObjectFactory in newInstance(className, parent, stream, streamer)");
-        logger.severe(() -> "Class not Found in the packages: " + className);
-        throw new NotStreamable();
+        long start = java.lang.System.nanoTime();
+        try {
+            return newInstance(creator, className, parent, child, streamer);
+        } catch (NotStreamable e) {
+            logger.severe("Not streamable: " + className);
+            throw e;
+        } finally {
+            statistics.computeIfAbsent(className, k -> new Statistics())
+                    .add(java.lang.System.nanoTime() - start);
+        }
     }
 
-    private IXMLCustomStreamable newInstance(Class<?> c, Object parent, Element stream, XMLStreamer streamer)
-            throws NotStreamable {
-        if (c == null) {
-            return null;
-        }
-        Object result;
-        String methodName = "new" + c.getSimpleName().toLowerCase();
+    private IXMLCustomStreamable newInstance(Creator creator, String className, Object parent, Element stream,
+            XMLStreamer streamer) throws NotStreamable {
+        IXMLCustomStreamable result;
         try {
-            Method m = ObjectFactory.class.getMethod(methodName, Object.class, Element.class, XMLStreamer.class);
-            result = m.invoke(this, parent, stream, streamer);
-
-        } catch (SecurityException | IllegalArgumentException | IllegalAccessException e) {
-            return null;
-        } catch (NoSuchMethodException e) {
-            logger.severe("---> ObjectFactory: No Such Method Defined : " + methodName);
-            return null;
-        } catch (InvocationTargetException e) {
-            if (e.getTargetException() instanceof NotStreamable) {
-                e.getTargetException().printStackTrace();
-                throw (NotStreamable) e.getTargetException();
-            }
-
-            logger.severe(() -> "---> " + methodName);
+            result = creator.create(parent, stream, streamer);
+        } catch (NotStreamable e) {
+            e.printStackTrace();
+            throw e;
+        } catch (RuntimeException e) {
+            logger.severe(() -> "---> new" + className.toLowerCase());
             logger.severe(() -> "internalid:" + stream.getAttribute(XMLSyntax.INTERNALID) + " class: "
-                    + c.getSimpleName() + ", Parent:"
+                    + className + ", Parent:"
                     + parent + ", stream: \n" + streamer.elementToString(stream) + "\n XMLStreamer: " + streamer);
             logger.severe(" TargetExceptionStackTrace");
             StringWriter sw = new StringWriter();
             PrintWriter pw = new PrintWriter(sw);
-            e.getTargetException().printStackTrace(pw);
+            e.printStackTrace(pw);
             logger.severe(sw.toString());
             return null;
         }
 
-        if (result instanceof IXMLCustomStreamable) {
-
+        if (result != null) {
             String thisID = stream.getAttribute(XMLSyntax.INTERNALID);
             if (thisID != null && !thisID.equals("")) {
                 SystemWideObjectNamePool.getInstance().renameObject(result, thisID);
             }
-            return (IXMLCustomStreamable) result;
+            return result;
         } else {
-            logger.severe(() -> "---> " + methodName);
+            logger.severe(() -> "---> new" + className.toLowerCase());
             logger.severe(() -> "internalid:" + stream.getAttribute(XMLSyntax.INTERNALID) + " class: "
-                    + c.getSimpleName() + ", Parent:"
+                    + className + ", Parent:"
                     + parent + ", stream: \n" + streamer.elementToString(stream) + "\n XMLStreamer: " + streamer);
 
             throw new NotStreamable();
         }
+    }
+
+    /**
+     * Clears the instantiation counters and timers, see
+     * {@link #logStatistics()}.
+     */
+    public void resetStatistics() {
+        statistics.clear();
+    }
 
+    /**
+     * Logs, per class name, how many objects were created since the last
+     * {@link #resetStatistics()} and the time spent in their factory methods,
+     * most expensive first. The time of an object includes the time of the
+     * objects its factory method reads, e.g. a ClassGR includes its DesignClass.
+     */
+    public void logStatistics() {
+        if (!logger.isLoggable(Level.FINE)) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder("Objects created while loading:");
+        statistics.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().nanos, a.getValue().nanos))
+                .forEach(e -> sb.append(String.format("%n  %-28s %7d %10.2f ms", e.getKey(), e.getValue().count,
+                        e.getValue().nanos / 1_000_000.0)));
+        logger.fine(sb::toString);
+    }
+
+    /**
+     * @param className
+     * @return the number of objects of the class created since the last
+     *         {@link #resetStatistics()}
+     */
+    public int getInstantiationCount(String className) {
+        Statistics s = statistics.get(className);
+        return s != null ? s.count : 0;
     }
 
     private Rectangle readRect(String val) {
@@ -303,7 +450,8 @@ public final class ObjectFactory {
     }
 
     /********************************************************************
-     * ALL THE METHODS BELOW ARE CALLED BY JAVA REFLECTION!!!! DO NOT REMOVE!!!
+     * ALL THE METHODS BELOW ARE REGISTERED IN registerCreators()!!!! DO NOT
+     * REMOVE!!!
      */
     public IXMLCustomStreamable newucdmodel(Object parent, Element stream, XMLStreamer streamer) {
         UMLProject u = (UMLProject) parent;
@@ -0,0 +1,118 @@
+package edu.city.studentuml.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import edu.city.studentuml.model.domain.UMLProject;
+import edu.city.studentuml.model.repository.CentralRepository;
+
+/**
+ * The state of one open project: the project with its central repository, the
+ * name pool, which names the objects and checks their consistency, and the
+ * object factory that loads the project from XML.
+ * <p>
+ * {@link UMLProject#getInstance()}, {@link SystemWideObjectNamePool#getInstance()}
+ * and {@link ObjectFactory#getInstance()} return those of the current context:
+ * the one the calling thread runs in with {@link #run(Runnable)} or
+ * {@link #call(Supplier)}, or else the default context of the desktop
+ * application. Projects of different contexts can thus be loaded, checked and
+ * exported at the same time on different threads; the objects of a project
+ * must only be used while its context is current.
+ */
+public final class ProjectContext {
+
+    private static volatile ProjectContext defaultContext = null;
+    private static final ThreadLocal<ProjectContext> threadContext = new ThreadLocal<>();
+
+    private final SystemWideObjectNamePool namePool;
+    private final ObjectFactory objectFactory;
+    private final UMLProject project;
+    private final Map<Object, Object> state = new ConcurrentHashMap<>();
+
+    public ProjectContext() {
+        namePool = new SystemWideObjectNamePool();
+        objectFactory = new ObjectFactory();
+        project = call(UMLProject::new);
+    }
+
+    /**
+     * @return the context of the desktop application, current on every thread
+     *         that does not run in another context
+     */
+    public static ProjectContext getDefault() {
+        ProjectContext context = defaultContext;
+        if (context == null) {
+            synchronized (ProjectContext.class) {
+                if (defaultContext == null) {
+                    defaultContext = new ProjectContext();
+                }
+                context = defaultContext;
+            }
+        }
+        return context;
+    }
+
+    public static ProjectContext current() {
+        ProjectContext context = threadContext.get();
+        return context != null ? context : getDefault();
+    }
+
+    /**
+     * Runs the task with this context current on the calling thread.
+     */
+    public void run(Runnable task) {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Calls the task with this context current on the calling thread and
+     * returns its result.
+     */
+    public <T> T call(Supplier<T> task) {
+        ProjectContext previous = threadContext.get();
+        threadContext.set(this);
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                threadContext.set(previous);
+            } else {
+                threadContext.remove();
+            }
+        }
+    }
+
+    public UMLProject getProject() {
+        return project;
+    }
+
+    public CentralRepository getCentralRepository() {
+        return project.getCentralRepository();
+    }
+
+    public SystemWideObjectNamePool getNamePool() {
+        return namePool;
+    }
+
+    public ObjectFactory getObjectFactory() {
+        return objectFactory;
+    }
+
+    /**
+     * Returns the state the key's owner keeps for the project of this context,
+     * e.g. the links between the classifiers of the project, creating it the
+     * first time.
+     *
+     * @param key     identifies the state, usually the class that owns it
+     * @param factory creates the initial state
+     * @return the state
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getState(Object key, Supplier<T> factory) {
+        return (T) state.computeIfAbsent(key, k -> factory.get());
+    }
+}
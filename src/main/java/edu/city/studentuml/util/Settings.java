@@ -16,8 +16,12 @@ public class Settings {
     private static final String DEFAULT_PATH = "DEFAULT_PATH";
     private static final String SELECT_LAST = "SELECT_LAST";
     private static final String CONSISTENCY_CHECK = "CONSISTENCY_CHECK";
+    private static final String PARALLEL_CONSISTENCY_CHECK = "PARALLEL_CONSISTENCY_CHECK";
+    private static final String CONSISTENCY_CHECK_DELAY = "CONSISTENCY_CHECK_DELAY";
+    private static final String LEVEL_OF_DETAIL_SIZE = "LEVEL_OF_DETAIL_SIZE";
     private static final String SHOW_RULES = "SHOW_RULES";
     private static final String SHOW_FACTS = "SHOW_FACTS";
+    private static final String SHOW_RULE_PROFILER = "SHOW_RULE_PROFILER";
     private static final String SHOW_TYPES_SD = "SHOW_TYPES_SD";
     private static final String SHOW_RETURN_SD = "SHOW_RETURN_SD";
     private static final String LOOK_AND_FEEL = "LOOK_AND_FEEL";
@@ -29,6 +33,9 @@ public class Settings {
 
     private static final String DARK_FILL_COLOR = "FILL_COLOR_DARK";
 
+    private static final int DEFAULT_CONSISTENCY_CHECK_DELAY = 300;
+    private static final int DEFAULT_LEVEL_OF_DETAIL_SIZE = 16;
+
     private static Preferences pref = Preferences.userNodeForPackage(Settings.class);
 
     private Settings() {
@@ -42,6 +49,38 @@ public class Settings {
         pref.put(CONSISTENCY_CHECK, enabled ? TRUE : FALSE);
     }
 
+    public static boolean isParallelConsistencyCheck() {
+        return pref.get(PARALLEL_CONSISTENCY_CHECK, FALSE).equals(TRUE);
+    }
+
+    public static void setParallelConsistencyCheck(boolean parallel) {
+        pref.put(PARALLEL_CONSISTENCY_CHECK, parallel ? TRUE : FALSE);
+    }
+
+    /**
+     * @return the time in milliseconds without changes after which the project is
+     *         checked
+     */
+    public static int getConsistencyCheckDelay() {
+        return pref.getInt(CONSISTENCY_CHECK_DELAY, DEFAULT_CONSISTENCY_CHECK_DELAY);
+    }
+
+    public static void setConsistencyCheckDelay(int millis) {
+        pref.putInt(CONSISTENCY_CHECK_DELAY, millis);
+    }
+
+    /**
+     * @return the size in pixels below which the elements of a diagram are drawn
+     *         as outlines, 0 to always draw their details
+     */
+    public static int getLevelOfDetailSize() {
+        return pref.getInt(LEVEL_OF_DETAIL_SIZE, DEFAULT_LEVEL_OF_DETAIL_SIZE);
+    }
+
+    public static void setLevelOfDetailSize(int pixels) {
+        pref.putInt(LEVEL_OF_DETAIL_SIZE, pixels);
+    }
+
     public static boolean showTypes() {
         return pref.get(SHOW_TYPES_SD, "").equals(TRUE);
     }
@@ -66,6 +105,14 @@ public class Settings {
         pref.put(SHOW_FACTS, show ? TRUE : FALSE);
     }
 
+    public static boolean showRuleProfiler() {
+        return pref.get(SHOW_RULE_PROFILER, "").equals(TRUE);
+    }
+
+    public static void setShowRuleProfiler(boolean show) {
+        pref.put(SHOW_RULE_PROFILER, show ? TRUE : FALSE);
+    }
+
     public static boolean showReturnArrows() {
         return pref.get(SHOW_RETURN_SD, "").equals(TRUE);
     }
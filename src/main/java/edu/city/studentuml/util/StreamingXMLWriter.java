@@ -0,0 +1,339 @@
+package edu.city.studentuml.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * An XMLStreamer that writes a project straight to a buffered file channel
+ * instead of building the whole document in memory and serializing it at the
+ * end.
+ * <p>
+ * The {@link IXMLCustomStreamable#streamToXML} contracts still fill in
+ * {@link Element}s, so the output is produced element by element:
+ * <ul>
+ * <li>the root, the project and the diagram models are <em>open</em> elements:
+ * their start tag is written before their first child and their end tag when
+ * their object has been streamed;</li>
+ * <li>every other object (a graphical element with its domain objects) is
+ * streamed into a detached element tree, which is written and dropped as soon
+ * as its streamToXML returns.</li>
+ * </ul>
+ * The output is the same, byte for byte, as the indented output of
+ * {@link XMLStreamer#saveToFile(String)}, character references in attribute
+ * values included (a javax.xml.stream writer always escapes attribute values
+ * itself and cannot write them). The DOM streamer remains the fallback, see
+ * {@link #open(String)}.
+ * <p>
+ * Like {@link XMLStreamer#save(String)}, the writer writes to a temporary file
+ * and replaces the target with it only when {@link #save(String)} has written
+ * the whole document; a failure leaves the target as it was.
+ */
+public class StreamingXMLWriter extends XMLStreamer {
+
+    private static final Logger logger = Logger.getLogger(StreamingXMLWriter.class.getName());
+
+    /**
+     * System property that forces the DOM writer when set to true.
+     */
+    public static final String DOM_WRITER_PROPERTY = "studentuml.xml.dom";
+
+    private static final String DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>";
+    private static final String INDENT = "  ";
+
+    private final Path target;
+    private final Path temp;
+    private final Writer out;
+
+    /**
+     * The elements whose children are being written; the innermost is on top.
+     */
+    private final Deque<Element> open = new ArrayDeque<>();
+
+    /**
+     * The open elements whose start tag has been written, with the number of
+     * attributes written.
+     */
+    private final Map<Element, Integer> started = new HashMap<>();
+
+    private boolean finished = false;
+
+    /**
+     * The first error writing the temporary file, reported by
+     * {@link #save(String)}.
+     */
+    private IOException failure = null;
+
+    /**
+     * Opens a temporary file next to the file and writes the XML declaration.
+     *
+     * @param filename
+     * @throws IOException if the temporary file cannot be created
+     */
+    public StreamingXMLWriter(String filename) throws IOException {
+        super();
+        target = resolveTarget(filename);
+        temp = createTempFile(target);
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(Channels.newWriter(
+                    FileChannel.open(temp, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE),
+                    StandardCharsets.UTF_8.newEncoder(), -1));
+            writer.write(DECLARATION);
+        } catch (IOException e) {
+            if (writer != null) {
+                writer.close();
+            }
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        out = writer;
+        open.push(doc.getDocumentElement());
+    }
+
+    /**
+     * Returns a streamer for saving to the file: a streaming writer if possible,
+     * or a DOM streamer if the streaming writer is disabled with the
+     * {@value #DOM_WRITER_PROPERTY} system property or cannot be created.
+     *
+     * @param filename
+     * @return a streamer that writes the file on {@link #save(String)}
+     */
+    public static XMLStreamer open(String filename) {
+        if (!Boolean.getBoolean(DOM_WRITER_PROPERTY)) {
+            try {
+                return new StreamingXMLWriter(filename);
+            } catch (IOException e) {
+                logger.warning(() -> "Cannot stream to " + filename + ", falling back to DOM: " + e.getMessage());
+            }
+        }
+        return new XMLStreamer();
+    }
+
+    @Override
+    public void streamObject(Element node, String id, Object o) {
+        if (node == null) {
+            node = doc.getDocumentElement();
+        }
+        if (open.peek() != node || !(o instanceof IXMLCustomStreamable)) {
+            super.streamObject(node, id, o);
+            return;
+        }
+
+        Element child = doc.createElement("object");
+        child.setAttribute("id", id);
+        try {
+            start(node);
+            if (CONTAINER_CLASSES.contains(o.getClass().getSimpleName())) {
+                open.push(child);
+                streamObjectTo(child, (IXMLCustomStreamable) o);
+                end(child);
+                open.pop();
+            } else {
+                streamObjectTo(child, (IXMLCustomStreamable) o);
+                writeElement(child, open.size());
+            }
+        } catch (IOException e) {
+            logger.severe(() -> "Error writing XML: " + e.getMessage());
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Writes the end of the document and replaces the file given to the
+     * constructor with it.
+     *
+     * @param path ignored, the file is the one given to the constructor
+     * @throws IOException if any part of the document could not be written, in
+     *                     which case the file is left as it was
+     */
+    @Override
+    public void save(String path) throws IOException {
+        finish();
+        out.close();
+        if (failure != null) {
+            throw failure;
+        }
+        replace(temp, target);
+    }
+
+    @Override
+    public void saveToFile(String xml) {
+        try {
+            save(xml);
+        } catch (IOException e) {
+            logger.severe(() -> "Error writing XML: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Closes the temporary file and deletes it unless it has replaced the file.
+     */
+    @Override
+    public void close() {
+        try {
+            out.close();
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            logger.warning(() -> "Error closing XML stream: " + e.getMessage());
+        }
+    }
+
+    private void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        while (!open.isEmpty()) {
+            end(open.peek());
+            open.pop();
+        }
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Writes the start tag of the open element if it has not been written yet.
+     */
+    private void start(Element element) throws IOException {
+        if (!started.containsKey(element)) {
+            started.put(element, element.getAttributes().getLength());
+            indent(open.size() - 1);
+            out.write('<');
+            out.write(element.getTagName());
+            writeAttributes(element);
+            out.write('>');
+        }
+    }
+
+    /**
+     * Writes the end of an open element: any children that were added to it as
+     * DOM nodes and its end tag, or the whole element if it had no children.
+     */
+    private void end(Element element) throws IOException {
+        int depth = open.size() - 1;
+        Integer attributes = started.remove(element);
+        if (attributes == null) {
+            writeElement(element, depth);
+            return;
+        }
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            writeNode(child, depth + 1);
+        }
+        if (element.getAttributes().getLength() != attributes) {
+            logger.severe(() -> "Attributes set after the children of " + element.getAttribute(XMLSyntax.CLASS)
+                    + " were written are lost");
+        }
+        indent(depth);
+        writeEndTag(element);
+    }
+
+    private void writeNode(Node node, int depth) throws IOException {
+        if (node instanceof Element) {
+            writeElement((Element) node, depth);
+        } else if (node.getNodeType() == Node.TEXT_NODE) {
+            out.write(escape(node.getNodeValue(), false));
+        }
+    }
+
+    private void writeElement(Element element, int depth) throws IOException {
+        indent(depth);
+        out.write('<');
+        out.write(element.getTagName());
+        writeAttributes(element);
+        if (!element.hasChildNodes()) {
+            out.write("/>");
+            return;
+        }
+        out.write('>');
+        boolean elementChildren = false;
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            writeNode(child, depth + 1);
+            elementChildren |= child instanceof Element;
+        }
+        if (elementChildren) {
+            indent(depth);
+        }
+        writeEndTag(element);
+    }
+
+    private void writeEndTag(Element element) throws IOException {
+        out.write("</");
+        out.write(element.getTagName());
+        out.write('>');
+    }
+
+    private void writeAttributes(Element element) throws IOException {
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Attr attribute = (Attr) attributes.item(i);
+            out.write(' ');
+            out.write(attribute.getName());
+            out.write("=\"");
+            out.write(escape(attribute.getValue(), true));
+            out.write('"');
+        }
+    }
+
+    private void indent(int depth) throws IOException {
+        StringBuilder sb = new StringBuilder("\n");
+        for (int i = 0; i < depth; i++) {
+            sb.append(INDENT);
+        }
+        out.write(sb.toString());
+    }
+
+    /**
+     * Escapes text the way the DOM serializer does: markup characters as entity
+     * references, control characters and characters outside the basic
+     * multilingual plane as character references.
+     */
+    private static String escape(String value, boolean attribute) {
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = null;
+            if (c == '&') {
+                replacement = "&amp;";
+            } else if (c == '<') {
+                replacement = "&lt;";
+            } else if (c == '>') {
+                replacement = "&gt;";
+            } else if (c == '"' && attribute) {
+                replacement = "&quot;";
+            } else if (c < 0x20 && (attribute || (c != '\n' && c != '\t'))) {
+                replacement = "&#" + (int) c + ";";
+            } else if (Character.isSurrogatePair(c, i + 1 < value.length() ? value.charAt(i + 1) : c)) {
+                replacement = "&#" + value.codePointAt(i) + ";";
+            }
+            if (replacement != null) {
+                if (sb == null) {
+                    sb = new StringBuilder(value.length() + 16).append(value, 0, i);
+                }
+                sb.append(replacement);
+                i += Character.charCount(value.codePointAt(i)) - 1;
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null ? value : sb.toString();
+    }
+}
@@ -1,13 +1,19 @@
 package edu.city.studentuml.util;
 
 import java.awt.Color;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.logging.Logger;
 
+import edu.city.studentuml.util.validation.CheckProfile;
+import edu.city.studentuml.util.validation.ConsistencyCheckScheduler;
+import edu.city.studentuml.util.validation.ConsistencyCheckWorker;
 import edu.city.studentuml.util.validation.ConsistencyChecker;
 import edu.city.studentuml.util.validation.Rule;
 import edu.city.studentuml.view.gui.CollectionTreeModel;
@@ -25,29 +31,35 @@ public class SystemWideObjectNamePool {
 
     private static final Logger logger = Logger.getLogger(SystemWideObjectNamePool.class.getName());
 
-    private static SystemWideObjectNamePool instance = null;
-
     private String ruleFile = null;
     private String selectedRule = null;
     private ConsistencyChecker consistencyChecker = null;
     private boolean runtimeChecking = false;
+    private boolean backgroundChecking = false;
+    private boolean parallelChecking = false;
+    private boolean profiling = false;
+    private final ConsistencyCheckWorker checkWorker = new ConsistencyCheckWorker();
+    private final ConsistencyCheckScheduler checkScheduler = new ConsistencyCheckScheduler(0, this::regenarateRuleSet);
+    private boolean checking = false;
+    private long lastCheckMillis = -1;
     private HashSet<String> messageTypes = new HashSet<>();
     private CollectionTreeModel messages = null;
     private CollectionTreeModel facts = null;
     private HashMap<Object, String> objectMap = new HashMap<>();
     private HashMap<String, Object> namedMap = new HashMap<>();
+    private HashMap<String, Integer> nextIndex = new HashMap<>();
     private String uid;
     private HashMap<String, Color> userColorMap = new HashMap<>();
     private int loading = 0;
 
-    private SystemWideObjectNamePool() {
+    SystemWideObjectNamePool() {
     }
 
+    /**
+     * @return the name pool of the current {@link ProjectContext}
+     */
     public static SystemWideObjectNamePool getInstance() {
-        if (instance == null) {
-            instance = new SystemWideObjectNamePool();
-        }
-        return instance;
+        return ProjectContext.current().getNamePool();
     }
 
     public void setRuleFileAndCreateConsistencyChecker(String ruleFile) {
@@ -59,6 +71,10 @@ public class SystemWideObjectNamePool {
         pcs.addPropertyChangeListener(l);
     }
 
+    public void removePropertyChangeListener(PropertyChangeListener l) {
+        pcs.removePropertyChangeListener(l);
+    }
+
     // Get runtime consistency checking
     public boolean isRuntimeChecking() {
         return runtimeChecking;
@@ -66,9 +82,139 @@ public class SystemWideObjectNamePool {
 
     // Set runtime consistency checking
     public void setRuntimeChecking(boolean runtimeChecking) {
+        if (!runtimeChecking) {
+            checkScheduler.cancel();
+        }
         this.runtimeChecking = runtimeChecking;
     }
 
+    /**
+     * When set, runtime checks run on a worker thread and the messages and facts
+     * are published on the event dispatch thread when the check completes,
+     * instead of when done() returns. Checks that execute a selected rule still
+     * run synchronously.
+     * 
+     * @param backgroundChecking
+     */
+    public void setBackgroundChecking(boolean backgroundChecking) {
+        this.backgroundChecking = backgroundChecking;
+    }
+
+    public boolean isBackgroundChecking() {
+        return backgroundChecking;
+    }
+
+    /**
+     * When set, the consistency checker evaluates the rules in parallel on one
+     * engine per available processor.
+     * 
+     * @param parallelChecking
+     */
+    public void setParallelChecking(boolean parallelChecking) {
+        this.parallelChecking = parallelChecking;
+        if (consistencyChecker != null) {
+            consistencyChecker.setEngines(checkEngines());
+        }
+    }
+
+    public boolean isParallelChecking() {
+        return parallelChecking;
+    }
+
+    /**
+     * Changes made within the delay of each other are checked once, after the
+     * last one. Checks that execute a selected rule are never delayed.
+     *
+     * @param millis the delay, 0 to check after every change
+     */
+    public void setCheckDelay(int millis) {
+        checkScheduler.setQuietMillis(millis);
+    }
+
+    public int getCheckDelay() {
+        return checkScheduler.getQuietMillis();
+    }
+
+    /**
+     * Runs the delayed check, if any, at once.
+     */
+    public void flushCheck() {
+        checkScheduler.flush();
+    }
+
+    /**
+     * Checks the project at once, whether or not it changed.
+     */
+    public void checkNow() {
+        if (runtimeChecking) {
+            checkScheduler.checkNow();
+        }
+    }
+
+    /**
+     * @return the number of checks requested by changes and explicit requests
+     */
+    public long getRequestedCheckCount() {
+        return checkScheduler.getRequestedCount();
+    }
+
+    /**
+     * @return the number of checks run; bursts of changes within the check delay
+     *         run one
+     */
+    public long getRunCheckCount() {
+        return checkScheduler.getRunCount();
+    }
+
+    /**
+     * When set, the checks record the time spent on every rule and fact
+     * template.
+     *
+     * @param profiling
+     */
+    public void setProfiling(boolean profiling) {
+        this.profiling = profiling;
+        if (consistencyChecker != null) {
+            consistencyChecker.setProfiling(profiling);
+        }
+    }
+
+    public boolean isProfiling() {
+        return profiling;
+    }
+
+    /**
+     * @return the profiles of the rules and fact templates of the current rule
+     *         file, empty before it is loaded
+     */
+    public List<CheckProfile> getCheckProfiles() {
+        return consistencyChecker == null ? new ArrayList<>() : consistencyChecker.getProfiles();
+    }
+
+    public void resetCheckProfiles() {
+        if (consistencyChecker != null) {
+            consistencyChecker.resetProfiles();
+        }
+    }
+
+    private int checkEngines() {
+        return parallelChecking ? Runtime.getRuntime().availableProcessors() : 1;
+    }
+
+    /**
+     * @return true while a background check is scheduled or running
+     */
+    public boolean isChecking() {
+        return checking;
+    }
+
+    /**
+     * @return the time in milliseconds the last completed check took, or -1
+     */
+    public long getLastCheckMillis() {
+        return lastCheckMillis;
+    }
+
     public CollectionTreeModel getMessages() {
         return messages;
     }
@@ -92,8 +238,12 @@ public class SystemWideObjectNamePool {
     public void done() {
         logger.finest("DONE");
         loading--;
-        if (loading == 0) {
-            regenarateRuleSet();
+        if (loading == 0 && runtimeChecking) {
+            if (selectedRule != null) {
+                checkScheduler.checkNow();
+            } else {
+                checkScheduler.request();
+            }
         }
     }
 
@@ -118,6 +268,10 @@ public class SystemWideObjectNamePool {
     }
 
     private synchronized void generateRuleSet(HashMap<Object, String> map) {
+        checkWorker.cancel();
+        setChecking(false);
+
+        long start = System.nanoTime();
         messages = new CollectionTreeModel();
         facts = new CollectionTreeModel();
 
@@ -126,6 +280,21 @@ public class SystemWideObjectNamePool {
             return;
         }
 
+        publishRuleSet((System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void checkCompleted(ConsistencyCheckWorker.Result result) {
+        messageTypes.addAll(result.getMessageTypes());
+        messages = result.getMessages();
+        facts = result.getFacts();
+        setChecking(false);
+        publishRuleSet(result.getMillis());
+    }
+
+    private void publishRuleSet(long millis) {
+        lastCheckMillis = millis;
+        logger.fine(() -> "Consistency check took " + millis + " ms");
+
         messages.setName("<html><b>Messages</b></html>");
         messageTypes.forEach(messageType -> {
             int countMessages = messages.getChildCount(messageType);
@@ -138,15 +307,24 @@ public class SystemWideObjectNamePool {
         pcs.firePropertyChange("objectNamePoolChanged", null, this);
     }
 
+    private void setChecking(boolean checking) {
+        boolean old = this.checking;
+        this.checking = checking;
+        pcs.firePropertyChange("consistencyCheckRunning", old, checking);
+    }
+
     public void reload() {
         loading();
         done();
+        flushCheck();
     }
 
     public void createNewConsistencyCheckerAndReloadRules() {
         consistencyChecker = new ConsistencyChecker(ruleFile);
 
         consistencyChecker.setPrologAPI(false);
+        consistencyChecker.setEngines(checkEngines());
+        consistencyChecker.setProfiling(profiling);
 
         reload();
 
@@ -155,7 +333,10 @@ public class SystemWideObjectNamePool {
 
     @SuppressWarnings("unchecked")
     private synchronized void regenarateRuleSet() {
-        if (runtimeChecking) {
+        if (runtimeChecking && backgroundChecking && selectedRule == null) {
+            setChecking(true);
+            checkWorker.submit(consistencyChecker, new HashSet<>(objectMap.keySet()), this::checkCompleted);
+        } else if (runtimeChecking) {
             synchronized (this) {
                 HashMap<Object, String> h = (HashMap<Object, String>) objectMap.clone();
                 generateRuleSet(h);
@@ -165,26 +346,41 @@ public class SystemWideObjectNamePool {
 
     /**
      * Generates a unique name with lowercase class name + the next available
-     * integer index
+     * integer index. The next index of each prefix is kept in nextIndex, so only
+     * names taken by renameObject since are probed again.
      * 
      * @param o the object to be named
      * @return the unique name
      */
     private String generateUniqueName(Object o) {
         String objName = o.getClass().getSimpleName().toLowerCase();
-        String tempName = "";
-        int index = 0;
-        while (true) {
+        int index = nextIndex.getOrDefault(objName, 0);
+        String tempName = objName + index;
+        while (namedMap.containsKey(tempName)) {
+            index++;
             tempName = objName + index;
-            if (objectMap.containsValue(tempName)) {
-                index++;
-            } else {
-                break;
-            }
         }
+        nextIndex.put(objName, index + 1);
         return tempName;
     }
 
+    /**
+     * Moves the next index of the prefix of name past the index of name, so that
+     * names read from XML are not probed again by generateUniqueName.
+     * 
+     * @param name a name of the form prefix + index
+     */
+    private void reserveName(String name) {
+        int i = name.length();
+        while (i > 0 && Character.isDigit(name.charAt(i - 1))) {
+            i--;
+        }
+        if (i == name.length() || name.length() - i > 9) {
+            return;
+        }
+        nextIndex.merge(name.substring(0, i), Integer.parseInt(name.substring(i)) + 1, Math::max);
+    }
+
     // returns object by name
     public Object getObjectByName(String name) {
         return namedMap.get(name);
@@ -195,6 +391,14 @@ public class SystemWideObjectNamePool {
         return objectMap.size();
     }
 
+    /**
+     * @return a copy of the set of named objects, the objects the consistency
+     *         checker generates facts from
+     */
+    public Set<Object> getObjects() {
+        return new HashSet<>(objectMap.keySet());
+    }
+
     private void objectCountChanged() {
         pushToUndoStack();
     }
@@ -253,6 +457,7 @@ public class SystemWideObjectNamePool {
 
         objectMap.put(object, name);
         namedMap.put(name, object);
+        reserveName(name);
         logger.finest(() -> "RENAMED object: " + object.getClass() + " from oldname: " + oldName + " to: " + name
                 + " toString: " + object.toString());
     }
@@ -260,8 +465,12 @@ public class SystemWideObjectNamePool {
     public void clear() {
         objectMap = new HashMap<>();
         namedMap = new HashMap<>();
+        nextIndex = new HashMap<>();
         loading = 0; // Reset loading counter for test isolation
         messageTypes.clear(); // Clear message types for test isolation
+        checkScheduler.cancel();
+        checkWorker.cancel();
+        setChecking(false);
     }
 
     public void setRuleFile(String ruleFile) {
@@ -0,0 +1,259 @@
+package edu.city.studentuml.util;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.logging.Logger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * An XMLStreamer that reads a project file in a single forward pass with StAX
+ * instead of parsing it into a complete DOM first.
+ * <p>
+ * The existing {@link IXMLCustomStreamable#streamFromXML} contracts work on
+ * {@link Element}s, so the streamer still hands out elements, but it only keeps
+ * the part of the document that is currently being read:
+ * <ul>
+ * <li>the root, the project and the diagram models are <em>open</em>
+ * elements: only their start tag (with the attributes) has been read and
+ * their children are pulled from the reader on demand by
+ * {@link #streamChildrenFrom(Element, Object)} and
+ * {@link #getNodeById(Element, String)};</li>
+ * <li>every other element (a graphical element with its domain objects) is
+ * read completely into a small element tree when it is reached, handed to the
+ * factory and then dropped.</li>
+ * </ul>
+ * Whitespace between elements is not kept, so lookups by id only visit element
+ * children. The plain DOM {@link XMLStreamer} remains the fallback, see
+ * {@link #open(String)}.
+ */
+public class XMLStreamReaderStreamer extends XMLStreamer {
+
+    private static final Logger logger = Logger.getLogger(XMLStreamReaderStreamer.class.getName());
+
+    /**
+     * System property that forces the DOM loader when set to true.
+     */
+    public static final String DOM_LOADER_PROPERTY = "studentuml.xml.dom";
+
+    private final InputStream in;
+    private final XMLStreamReader reader;
+
+    /**
+     * The elements whose start tag has been read but not their end tag; the
+     * innermost is on top.
+     */
+    private final Deque<Element> open = new ArrayDeque<>();
+
+    /**
+     * Opens the file for streaming and reads the start tag of the root element.
+     *
+     * @param filename
+     * @throws IOException        if the file cannot be opened
+     * @throws XMLStreamException if the file does not start with an XML element
+     */
+    public XMLStreamReaderStreamer(String filename) throws IOException, XMLStreamException {
+        super();
+        in = new BufferedInputStream(new FileInputStream(filename));
+        try {
+            reader = getInputFactory().createXMLStreamReader(in);
+            if (reader.nextTag() != XMLStreamConstants.START_ELEMENT) {
+                throw new XMLStreamException("No root element in " + filename);
+            }
+            Element root = doc.getDocumentElement();
+            if (!root.getTagName().equals(reader.getLocalName())) {
+                root = (Element) doc.renameNode(root, null, reader.getLocalName());
+            }
+            copyAttributes(root);
+            open.push(root);
+        } catch (XMLStreamException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a streamer for the file: a StAX streamer if possible, or a DOM
+     * streamer with the file loaded if the streaming loader is disabled with the
+     * {@value #DOM_LOADER_PROPERTY} system property or cannot read the file.
+     *
+     * @param filename
+     * @return a streamer ready to read the project
+     * @throws IOException
+     */
+    public static XMLStreamer open(String filename) throws IOException {
+        if (!Boolean.getBoolean(DOM_LOADER_PROPERTY)) {
+            try {
+                return new XMLStreamReaderStreamer(filename);
+            } catch (XMLStreamException e) {
+                logger.warning(() -> "Cannot stream " + filename + ", falling back to DOM: " + e.getMessage());
+            }
+        }
+        XMLStreamer streamer = new XMLStreamer();
+        streamer.loadFile(filename);
+        return streamer;
+    }
+
+    @Override
+    public Element getNodeById(Element parent, String id) {
+        if (parent == null) {
+            parent = doc.getDocumentElement();
+        }
+
+        Element child = super.getNodeById(parent, id);
+        if (child != null || !open.contains(parent)) {
+            return child;
+        }
+
+        try {
+            while ((child = readNextChild(parent)) != null) {
+                parent.appendChild(child);
+                if (id.equals(child.getAttribute("id"))) {
+                    return child;
+                }
+            }
+        } catch (XMLStreamException e) {
+            logger.severe(() -> "Error reading XML: " + e.getMessage());
+        }
+        return null;
+    }
+
+    @Override
+    public void streamChildrenFrom(Element element, Object parent) throws NotStreamable {
+        if (element == null || !open.contains(element)) {
+            super.streamChildrenFrom(element, parent);
+            return;
+        }
+
+        /*
+         * children already read by getNodeById come first, as in the DOM
+         */
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element) {
+                createAndReadObject((Element) child, parent);
+            }
+        }
+
+        try {
+            Element child;
+            while ((child = readNextChild(element)) != null) {
+                createAndReadObject(child, parent);
+            }
+        } catch (XMLStreamException e) {
+            throw new NotStreamable("Error reading XML: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+            in.close();
+        } catch (XMLStreamException | IOException e) {
+            logger.warning(() -> "Error closing XML stream: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the next element child of the open element parent. Any content of
+     * open elements nested deeper than parent that has not been read yet is
+     * skipped first.
+     *
+     * @param parent an open element
+     * @return the child, open if it is a container, complete otherwise; null when
+     *         the end tag of parent has been reached
+     * @throws XMLStreamException
+     */
+    private Element readNextChild(Element parent) throws XMLStreamException {
+        while (open.peek() != parent) {
+            skipRest(open.pop());
+        }
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                Element child = doc.createElement(reader.getLocalName());
+                copyAttributes(child);
+                if (CONTAINER_CLASSES.contains(child.getAttribute(XMLSyntax.CLASS))) {
+                    open.push(child);
+                } else {
+                    readContent(child);
+                }
+                return child;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                open.pop();
+                return null;
+            }
+        }
+        open.pop();
+        return null;
+    }
+
+    /**
+     * Reads the remaining content of element up to and including its end tag.
+     */
+    private void readContent(Element element) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            switch (event) {
+            case XMLStreamConstants.START_ELEMENT:
+                Element child = doc.createElement(reader.getLocalName());
+                copyAttributes(child);
+                element.appendChild(child);
+                readContent(child);
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+                if (!reader.isWhiteSpace()) {
+                    element.appendChild(doc.createTextNode(reader.getText()));
+                }
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                return;
+            default:
+                break;
+            }
+        }
+    }
+
+    /**
+     * Skips the unread content of an open element up to and including its end
+     * tag.
+     */
+    private void skipRest(Element element) throws XMLStreamException {
+        logger.finest(() -> "Skipping unread content of " + element.getAttribute(XMLSyntax.CLASS));
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private void copyAttributes(Element element) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            element.setAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+        }
+    }
+
+    private static XMLInputFactory getInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
@@ -10,9 +10,17 @@ import java.io.StringWriter;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import javax.swing.JOptionPane;
@@ -40,7 +48,14 @@ public class XMLStreamer {
 
     private static final Logger logger = Logger.getLogger(XMLStreamer.class.getName());
 
-    private Document doc = null;
+    /**
+     * The classes of the elements that hold the bulk of a project. The streaming
+     * reader and writer process their children one at a time.
+     */
+    protected static final Set<String> CONTAINER_CLASSES = new HashSet<>(Arrays.asList(
+            "UMLProject", "UCDModel", "CCDModel", "SSDModel", "DCDModel", "SDModel", "ADModel"));
+
+    protected Document doc = null;
 
     private List<String> errorStrings = new ArrayList<>();
 
@@ -187,18 +202,25 @@ public class XMLStreamer {
 
         if (o instanceof IXMLCustomStreamable) {
             Element child = addChild(node, id);
-            child.setAttribute(XMLSyntax.CLASS, o.getClass().getSimpleName());
-            child.setAttribute("id", id);
-            String internalID = SystemWideObjectNamePool.getInstance().getNameForObject(o);
-            if (internalID != null) {
-                child.setAttribute(XMLSyntax.INTERNALID, internalID);
-            } else {
-                logger.finer(() -> "Null internalid for " + o.getClass().getName() + " : " + o.toString());
-            }
-            ((IXMLCustomStreamable) o).streamToXML(child, this);
+            streamObjectTo(child, (IXMLCustomStreamable) o);
         }
     }
 
+    /**
+     * Sets the class and internal id of the object on its element and lets the
+     * object stream its content into it.
+     */
+    protected void streamObjectTo(Element child, IXMLCustomStreamable o) {
+        child.setAttribute(XMLSyntax.CLASS, o.getClass().getSimpleName());
+        String internalID = SystemWideObjectNamePool.getInstance().getNameForObject(o);
+        if (internalID != null) {
+            child.setAttribute(XMLSyntax.INTERNALID, internalID);
+        } else {
+            logger.finer(() -> "Null internalid for " + o.getClass().getName() + " : " + o.toString());
+        }
+        o.streamToXML(child, this);
+    }
+
     public void streamObjects(Element parent, Iterator<?> i) {
         i.forEachRemaining(o -> streamObject(parent, "", o));
     }
@@ -211,7 +233,7 @@ public class XMLStreamer {
         return null;
     }
 
-    private IXMLCustomStreamable createAndReadObject(Element child, Object parent) throws NotStreamable {
+    protected IXMLCustomStreamable createAndReadObject(Element child, Object parent) throws NotStreamable {
         IXMLCustomStreamable object = null;
 
         try {
@@ -308,6 +330,13 @@ public class XMLStreamer {
         }
     }
 
+    /**
+     * Releases any resources held by the streamer. The DOM streamer holds none;
+     * streaming subclasses close their underlying reader or writer.
+     */
+    public void close() {
+    }
+
     public void saveToFile(String xml) {
         try {
             Transformer transformer = getTransformer();
@@ -323,6 +352,72 @@ public class XMLStreamer {
         }
     }
 
+    /**
+     * Writes the document to a temporary file next to the given one and moves it
+     * over the file once it has been written completely, so that a failure
+     * leaves the file as it was.
+     *
+     * @param path
+     * @throws IOException if the document cannot be written
+     */
+    public void save(String path) throws IOException {
+        Path target = resolveTarget(path);
+        Path temp = createTempFile(target);
+        try {
+            Transformer transformer = getTransformer();
+
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+            transformer.transform(new DOMSource(doc), new StreamResult(temp.toFile()));
+            replace(temp, target);
+        } catch (TransformerException e) {
+            throw new IOException("Cannot write " + path + ": " + e.getMessage(), e);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @return the file to save to, the one it links to if it is a symbolic link
+     */
+    protected static Path resolveTarget(String path) throws IOException {
+        Path target = Paths.get(path).toAbsolutePath();
+        return Files.exists(target) ? target.toRealPath() : target;
+    }
+
+    /**
+     * Creates an empty temporary file in the directory of the target, with the
+     * permissions of the target if it exists.
+     */
+    protected static Path createTempFile(Path target) throws IOException {
+        Path temp = target.resolveSibling("." + target.getFileName() + "." + Long.toHexString(System.nanoTime())
+                + ".tmp");
+        Files.createFile(temp);
+        if (Files.exists(target)) {
+            try {
+                Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+            } catch (UnsupportedOperationException e) {
+                // not a POSIX file system
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+        }
+        return temp;
+    }
+
+    /**
+     * Moves the completely written temporary file over the target, atomically
+     * where the file system supports it.
+     */
+    protected static void replace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     private DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
         DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
         factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
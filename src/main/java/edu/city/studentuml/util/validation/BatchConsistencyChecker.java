@@ -0,0 +1,293 @@
+package edu.city.studentuml.util.validation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import edu.city.studentuml.util.NotStreamable;
+import edu.city.studentuml.util.ProjectContext;
+import edu.city.studentuml.view.gui.CollectionTreeModel;
+
+/**
+ * Checks the consistency of many project files without the GUI and writes a
+ * JSON report for each of them.
+ * <p>
+ * The files are checked on a fixed number of threads. Every file is loaded
+ * into a {@link ProjectContext} of its own, so the projects are loaded and
+ * their facts generated in parallel too, without touching the project open in
+ * the GUI; the rules are evaluated on one {@link ConsistencyChecker} per
+ * thread.
+ */
+public class BatchConsistencyChecker {
+
+    private static final Logger logger = Logger.getLogger(BatchConsistencyChecker.class.getName());
+
+    /**
+     * The result of checking one project file.
+     */
+    public static class Report {
+        private final File file;
+        private final List<String> loadErrors = new ArrayList<>();
+        private final List<String[]> messages = new ArrayList<>();
+        private int facts = 0;
+        private long loadMillis = 0;
+        private long checkMillis = 0;
+        private String error = null;
+
+        Report(File file) {
+            this.file = file;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return the problems found while loading the file, which was still
+         *         loaded
+         */
+        public List<String> getLoadErrors() {
+            return loadErrors;
+        }
+
+        /**
+         * @return the messages of the rules as severity, rule name and message,
+         *         in the order of the rules
+         */
+        public List<String[]> getMessages() {
+            return messages;
+        }
+
+        /**
+         * @return the number of messages by severity
+         */
+        public Map<String, Integer> getSummary() {
+            Map<String, Integer> summary = new LinkedHashMap<>();
+            messages.forEach(m -> summary.merge(m[0], 1, Integer::sum));
+            return summary;
+        }
+
+        public int getFacts() {
+            return facts;
+        }
+
+        /**
+         * @return why the file could not be loaded or checked, or null
+         */
+        public String getError() {
+            return error;
+        }
+
+        public JSONObject toJSON() {
+            JSONObject json = new JSONObject();
+            json.put("file", file.getPath());
+            json.put("checked", error == null);
+            if (error != null) {
+                json.put("error", error);
+            }
+            json.put("loadErrors", new JSONArray(loadErrors));
+            json.put("facts", facts);
+            json.put("summary", new JSONObject(getSummary()));
+            JSONArray messagesJSON = new JSONArray();
+            for (String[] m : messages) {
+                JSONObject message = new JSONObject();
+                message.put("severity", m[0]);
+                message.put("rule", m[1]);
+                message.put("message", m[2]);
+                messagesJSON.put(message);
+            }
+            json.put("messages", messagesJSON);
+            json.put("loadMillis", loadMillis);
+            json.put("checkMillis", checkMillis);
+            return json;
+        }
+    }
+
+    private final String ruleFile;
+    private final int threads;
+    private final Queue<ConsistencyChecker> checkers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param ruleFile the URL of the rule file
+     * @param threads  the number of files checked at the same time, at least 1
+     */
+    public BatchConsistencyChecker(String ruleFile, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed: " + threads);
+        }
+        this.ruleFile = ruleFile;
+        this.threads = threads;
+    }
+
+    /**
+     * Loads and checks one project file. Can be called from several threads.
+     *
+     * @param file
+     * @return the report, with the error if the file could not be loaded
+     */
+    public Report check(File file) {
+        Report report = new Report(file);
+        ConsistencyChecker checker = checkers.poll();
+        if (checker == null) {
+            checker = new ConsistencyChecker(ruleFile);
+            // the order of the solutions would depend on the projects checked before
+            checker.setIncremental(false);
+        }
+        try {
+            Set<String> facts = loadFacts(file, checker, report);
+            if (facts != null) {
+                long start = System.nanoTime();
+                CollectionTreeModel messages = new CollectionTreeModel();
+                checker.checkFacts(facts, null, new HashSet<>(), messages, new CollectionTreeModel(), () -> false);
+                report.checkMillis = (System.nanoTime() - start) / 1_000_000;
+                addMessages(messages, report.messages);
+            }
+        } catch (RuntimeException e) {
+            report.error = e.toString();
+        } finally {
+            checkers.offer(checker);
+        }
+        return report;
+    }
+
+    private static Set<String> loadFacts(File file, ConsistencyChecker checker, Report report) {
+        long start = System.nanoTime();
+        ProjectContext context = new ProjectContext();
+        Set<String> facts = context.call(() -> {
+            try {
+                report.loadErrors.addAll(context.getProject().loadFromXML(file.getPath()));
+                return checker.generateFacts(context.getNamePool().getObjects());
+            } catch (IOException | NotStreamable | RuntimeException e) {
+                logger.warning(() -> "Cannot load " + file + ": " + e);
+                report.error = "Cannot load: " + e;
+                return null;
+            }
+        });
+        report.loadMillis = (System.nanoTime() - start) / 1_000_000;
+        if (facts != null) {
+            report.facts = facts.size();
+        }
+        return facts;
+    }
+
+    /**
+     * Adds the messages of the tree, whose root holds the severities, each
+     * severity the names of its rules and each rule its messages.
+     */
+    private static void addMessages(CollectionTreeModel tree, List<String[]> messages) {
+        Object root = tree.getRoot();
+        for (int s = 0; s < tree.getChildCount(root); s++) {
+            Object severity = tree.getChild(root, s);
+            for (int r = 0; r < tree.getChildCount(severity); r++) {
+                Object rule = tree.getChild(severity, r);
+                for (int m = 0; m < tree.getChildCount(rule); m++) {
+                    messages.add(new String[] { severity.toString(), rule.toString(),
+                            tree.getChild(rule, m).toString() });
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the files on the threads of this checker and writes the report of
+     * each file to the output directory, named after the file.
+     *
+     * @param files
+     * @param outputDirectory null to not write the reports
+     * @return the reports, in the order of the files
+     * @throws IOException if a report cannot be written
+     */
+    public List<Report> checkAll(List<File> files, File outputDirectory) throws IOException {
+        if (outputDirectory != null) {
+            Files.createDirectories(outputDirectory.toPath());
+        }
+        List<File> reportFiles = reportFiles(files, outputDirectory);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "batch-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Report>> futures = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                File file = files.get(i);
+                File reportFile = reportFiles.get(i);
+                futures.add(executor.submit(() -> {
+                    Report report = check(file);
+                    if (reportFile != null) {
+                        writeReport(report, reportFile);
+                    }
+                    return report;
+                }));
+            }
+
+            List<Report> reports = new ArrayList<>();
+            for (Future<Report> future : futures) {
+                reports.add(future.get());
+            }
+            return reports;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Names the report of every file after it, adding a number to the names
+     * that are taken by an earlier file.
+     */
+    private static List<File> reportFiles(List<File> files, File outputDirectory) {
+        List<File> reportFiles = new ArrayList<>();
+        Set<String> taken = new HashSet<>();
+        for (File file : files) {
+            if (outputDirectory == null) {
+                reportFiles.add(null);
+                continue;
+            }
+            String name = file.getName();
+            if (name.toLowerCase().endsWith(".xml")) {
+                name = name.substring(0, name.length() - 4);
+            }
+            String reportName = name;
+            for (int i = 2; !taken.add(reportName); i++) {
+                reportName = name + "-" + i;
+            }
+            reportFiles.add(new File(outputDirectory, reportName + ".json"));
+        }
+        return reportFiles;
+    }
+
+    public static void writeReport(Report report, File reportFile) throws IOException {
+        try (Writer out = Files.newBufferedWriter(reportFile.toPath(), StandardCharsets.UTF_8)) {
+            out.write(report.toJSON().toString(2));
+            out.write("\n");
+        }
+    }
+}
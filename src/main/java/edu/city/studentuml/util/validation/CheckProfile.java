@@ -0,0 +1,120 @@
+package edu.city.studentuml.util.validation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The time spent on one rule or one fact template by the consistency checks
+ * since the profile was last reset. Profiles are only recorded while the
+ * checker is profiling.
+ * <p>
+ * For a rule the results are the solutions found and the retries are the
+ * calls for further solutions; for a fact template the results are the facts
+ * generated and there are no retries.
+ */
+public class CheckProfile {
+
+    public static final String RULE = "rule";
+    public static final String FACT = "fact";
+
+    private final String kind;
+    private final String name;
+    private long count = 0;
+    private long nanos = 0;
+    private long maxNanos = 0;
+    private long results = 0;
+    private long retries = 0;
+
+    public CheckProfile(String kind, String name) {
+        this.kind = kind;
+        this.name = name;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized void record(long nanos, int results, int retries) {
+        count++;
+        this.nanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        this.results += results;
+        this.retries += retries;
+    }
+
+    public synchronized void reset() {
+        count = 0;
+        nanos = 0;
+        maxNanos = 0;
+        results = 0;
+        retries = 0;
+    }
+
+    /**
+     * @return the number of times the rule was evaluated or the template applied
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getNanos() {
+        return nanos;
+    }
+
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public synchronized long getResults() {
+        return results;
+    }
+
+    public synchronized long getRetries() {
+        return retries;
+    }
+
+    /**
+     * Writes the profiles as comma separated values with a header line; times are
+     * in milliseconds.
+     *
+     * @param profiles
+     * @param out
+     * @throws IOException
+     */
+    public static void writeCSV(List<CheckProfile> profiles, Writer out) throws IOException {
+        out.write("kind,name,count,total_ms,max_ms,mean_ms,results,retries\n");
+        for (CheckProfile p : profiles) {
+            long n;
+            long total;
+            long max;
+            long res;
+            long ret;
+            synchronized (p) {
+                n = p.count;
+                total = p.nanos;
+                max = p.maxNanos;
+                res = p.results;
+                ret = p.retries;
+            }
+            out.write(p.kind + "," + quote(p.name) + "," + n + "," + millis(total) + "," + millis(max) + ","
+                    + millis(n == 0 ? 0 : total / n) + "," + res + "," + ret + "\n");
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String quote(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) {
+            return s;
+        }
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,151 @@
+package edu.city.studentuml.util.validation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.Timer;
+
+import edu.city.studentuml.util.ProjectContext;
+
+/**
+ * Collapses bursts of requested consistency checks into one.
+ * <p>
+ * Every change of the model requests a check; pasting or deleting many
+ * elements requests one per element. A requested check runs once no other
+ * check has been requested for the quiet period, on the event dispatch thread
+ * that owns the model, in the {@link ProjectContext} of the last request. With
+ * a quiet period of 0 every request runs the check at once. Pending checks can be run early with {@link #flush()}, e.g. before
+ * saving, and {@link #checkNow()} runs one even if none is pending.
+ */
+public class ConsistencyCheckScheduler {
+
+    private final Runnable check;
+    private final Timer timer;
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong run = new AtomicLong();
+    private boolean pending = false;
+    private ProjectContext pendingContext = null;
+
+    /**
+     * @param quietMillis the time without requests after which a requested
+     *                    check runs
+     * @param check       the check to run
+     */
+    public ConsistencyCheckScheduler(int quietMillis, Runnable check) {
+        this.check = check;
+        timer = new Timer(quietMillis, e -> runPending());
+        timer.setRepeats(false);
+    }
+
+    public synchronized void setQuietMillis(int quietMillis) {
+        timer.setInitialDelay(quietMillis);
+        if (quietMillis <= 0 && pending) {
+            timer.stop();
+            runCheck(takePending());
+        }
+    }
+
+    public synchronized int getQuietMillis() {
+        return timer.getInitialDelay();
+    }
+
+    /**
+     * Requests a check, which runs after the quiet period unless another one is
+     * requested in the meantime.
+     */
+    public void request() {
+        requested.incrementAndGet();
+        synchronized (this) {
+            if (timer.getInitialDelay() > 0) {
+                pending = true;
+                pendingContext = ProjectContext.current();
+                timer.restart();
+                return;
+            }
+        }
+        runCheck();
+    }
+
+    /**
+     * Runs the pending check, if any, without waiting for the quiet period.
+     *
+     * @return true if a check was pending
+     */
+    public boolean flush() {
+        ProjectContext context;
+        synchronized (this) {
+            if (!pending) {
+                return false;
+            }
+            timer.stop();
+            context = takePending();
+        }
+        runCheck(context);
+        return true;
+    }
+
+    /**
+     * Runs a check at once, replacing the pending one.
+     */
+    public void checkNow() {
+        requested.incrementAndGet();
+        cancel();
+        runCheck();
+    }
+
+    /**
+     * Drops the pending check.
+     */
+    public synchronized void cancel() {
+        timer.stop();
+        takePending();
+    }
+
+    public synchronized boolean isPending() {
+        return pending;
+    }
+
+    /**
+     * @return the number of checks requested
+     */
+    public long getRequestedCount() {
+        return requested.get();
+    }
+
+    /**
+     * @return the number of checks run, which is less than the number requested
+     *         when requests came in bursts
+     */
+    public long getRunCount() {
+        return run.get();
+    }
+
+    private void runPending() {
+        ProjectContext context;
+        synchronized (this) {
+            if (!pending) {
+                return;
+            }
+            context = takePending();
+        }
+        runCheck(context);
+    }
+
+    /**
+     * @return the context the pending check was requested in
+     */
+    private synchronized ProjectContext takePending() {
+        ProjectContext context = pendingContext;
+        pending = false;
+        pendingContext = null;
+        return context;
+    }
+
+    private void runCheck(ProjectContext context) {
+        context.run(this::runCheck);
+    }
+
+    private void runCheck() {
+        run.incrementAndGet();
+        check.run();
+    }
+}
@@ -0,0 +1,132 @@
+package edu.city.studentuml.util.validation;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
+
+import edu.city.studentuml.view.gui.CollectionTreeModel;
+
+/**
+ * Runs consistency checks on a worker thread instead of the event dispatch
+ * thread.
+ * <p>
+ * The facts are generated on the calling thread, which owns the model, and
+ * only the rules are evaluated on the worker. Every new check makes the
+ * previous ones stale: a stale check that has not started is not run, a
+ * running one stops before its next rule, and its results are never
+ * published. The results of the latest check are handed to the publisher on
+ * the event dispatch thread.
+ */
+public class ConsistencyCheckWorker {
+
+    private static final Logger logger = Logger.getLogger(ConsistencyCheckWorker.class.getName());
+
+    /**
+     * The messages and facts of a completed check.
+     */
+    public static class Result {
+        private final Set<String> messageTypes;
+        private final CollectionTreeModel messages;
+        private final CollectionTreeModel facts;
+        private final long millis;
+
+        Result(Set<String> messageTypes, CollectionTreeModel messages, CollectionTreeModel facts, long millis) {
+            this.messageTypes = messageTypes;
+            this.messages = messages;
+            this.facts = facts;
+            this.millis = millis;
+        }
+
+        public Set<String> getMessageTypes() {
+            return messageTypes;
+        }
+
+        public CollectionTreeModel getMessages() {
+            return messages;
+        }
+
+        public CollectionTreeModel getFacts() {
+            return facts;
+        }
+
+        /**
+         * @return the time the check took, from the generation of the facts to the
+         *         last rule
+         */
+        public long getMillis() {
+            return millis;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "consistency-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong latest = new AtomicLong();
+    private Future<?> pending = null;
+
+    /**
+     * Generates the facts of the objects and schedules the rules to be checked
+     * against them, making any previous check stale.
+     *
+     * @param checker
+     * @param objects   the objects to check; must be called on the thread that
+     *                  modifies them
+     * @param publisher called on the event dispatch thread with the results,
+     *                  unless the check has become stale
+     */
+    public synchronized void submit(ConsistencyChecker checker, Set<Object> objects, Consumer<Result> publisher) {
+        long start = System.nanoTime();
+        Set<String> facts = checker.generateFacts(objects);
+
+        long run = latest.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = executor.submit(() -> check(run, start, checker, facts, publisher));
+    }
+
+    /**
+     * Makes the scheduled and running checks stale.
+     */
+    public synchronized void cancel() {
+        latest.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    private void check(long run, long start, ConsistencyChecker checker, Set<String> newFacts,
+            Consumer<Result> publisher) {
+        Set<String> messageTypes = new HashSet<>();
+        CollectionTreeModel messages = new CollectionTreeModel();
+        CollectionTreeModel facts = new CollectionTreeModel();
+
+        try {
+            checker.checkFacts(newFacts, null, messageTypes, messages, facts, () -> latest.get() != run);
+        } catch (RuntimeException e) {
+            logger.severe(() -> "Consistency check failed: " + e);
+        }
+
+        if (latest.get() != run) {
+            return;
+        }
+
+        Result result = new Result(messageTypes, messages, facts, (System.nanoTime() - start) / 1_000_000);
+        SwingUtilities.invokeLater(() -> {
+            if (latest.get() == run) {
+                publisher.accept(result);
+            }
+        });
+    }
+}
@@ -7,14 +7,21 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BooleanSupplier;
 import java.util.logging.Logger;
 
+import edu.city.studentuml.util.validation.prolog.NativePrologAPI;
 import edu.city.studentuml.view.gui.CollectionTreeModel;
 
 public class ConsistencyChecker {
@@ -23,6 +30,105 @@ public class ConsistencyChecker {
 
     public void setPrologAPI(boolean useMockAPI) {
         this.useMockAPI = useMockAPI;
+        assertedFacts = null;
+    }
+
+    /**
+     * The system property that makes new checkers evaluate the rules with
+     * {@link NativePrologAPI} instead of JLog.
+     */
+    public static final String NATIVE_ENGINE_PROPERTY = "studentuml.prolog.native";
+
+    private boolean nativeEngine = Boolean.getBoolean(NATIVE_ENGINE_PROPERTY);
+
+    /**
+     * Selects the engine the rules are evaluated with: {@link NativePrologAPI},
+     * which solves them in Java with indexed facts, or JLog. JLog is the default
+     * unless the system property {@value #NATIVE_ENGINE_PROPERTY} is true.
+     * 
+     * @param nativeEngine
+     */
+    public void setNativeEngine(boolean nativeEngine) {
+        this.nativeEngine = nativeEngine;
+        assertedFacts = null;
+    }
+
+    public boolean isNativeEngine() {
+        return nativeEngine;
+    }
+
+    /**
+     * In incremental mode (the default) one engine is kept across checks and
+     * only the facts that changed since the previous check are retracted and
+     * asserted. Otherwise a new engine is loaded with all the facts on every
+     * check.
+     * 
+     * @param incremental
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+        assertedFacts = null;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Sets the number of engines the rules are evaluated on. Every engine holds
+     * all the facts; with more than one engine the rules are spread over them and
+     * evaluated in parallel, and the messages are still added in the order of the
+     * rules.
+     * 
+     * @param engines at least 1; 1 (the default) evaluates the rules one at a time
+     *                on the calling thread
+     */
+    public synchronized void setEngines(int engines) {
+        if (engines < 1) {
+            throw new IllegalArgumentException("At least one engine is needed: " + engines);
+        }
+        if (engines != this.engines) {
+            this.engines = engines;
+            assertedFacts = null;
+            if (forkJoinPool != null) {
+                forkJoinPool.shutdown();
+                forkJoinPool = null;
+            }
+        }
+    }
+
+    public int getEngines() {
+        return engines;
+    }
+
+    /**
+     * When set, every check records the time spent on each rule, with its
+     * solutions and retries, and on each fact template in their profiles.
+     * 
+     * @param profiling
+     */
+    public void setProfiling(boolean profiling) {
+        this.profiling = profiling;
+        rbsg.setProfiling(profiling);
+    }
+
+    public boolean isProfiling() {
+        return profiling;
+    }
+
+    /**
+     * @return the profiles of the rules, in the order they are checked, followed
+     *         by those of the fact templates
+     */
+    public List<CheckProfile> getProfiles() {
+        List<CheckProfile> profiles = new ArrayList<>();
+        rules.forEach(rule -> profiles.add(rule.getProfile()));
+        factTemplates.values().forEach(templates -> templates.forEach(fact -> profiles.add(fact.getProfile())));
+        return profiles;
+    }
+
+    public void resetProfiles() {
+        getProfiles().forEach(CheckProfile::reset);
     }
 
     private static final String SIMPLIFICATION_STR = "$";
@@ -35,14 +141,37 @@ public class ConsistencyChecker {
     protected RuleBasedEngine rbs = new RuleBasedEngine(makePrologAPI());
     private PrologAPI prologAPI;
 
+    private boolean incremental = true;
+
+    private volatile boolean profiling = false;
+
+    /**
+     * The facts asserted in rbs and in the other engines, or null if the engines
+     * have to be created again before the next check.
+     */
+    private Set<String> assertedFacts = null;
+
+    private int engines = 1;
+
+    /**
+     * All the engines, rbs first, when there is more than one.
+     */
+    private List<RuleBasedEngine> enginePool = new ArrayList<>();
+    private ForkJoinPool forkJoinPool = null;
+
     private PrologAPI makePrologAPI() {
+        this.prologAPI = newPrologAPI();
+        return this.prologAPI;
+    }
 
+    private PrologAPI newPrologAPI() {
         if (useMockAPI) {
-            this.prologAPI = new PrologAPIMock();
+            return new PrologAPIMock();
+        } else if (nativeEngine) {
+            return new NativePrologAPI();
         } else {
-            this.prologAPI = new JLogPrologAPIAdapter();
+            return new JLogPrologAPIAdapter();
         }
-        return this.prologAPI;
     }
 
     protected Map<String, Vector<ConsistencyCheckerFact>> factTemplates = new HashMap<>();
@@ -149,15 +278,28 @@ public class ConsistencyChecker {
     }
 
     /**
-     * Creates new ruleBasedEngine (from prolog) asserts all the facts in to it (the
+     * Brings the facts of the ruleBasedEngine up to date with the objects (the
      * facts are generated from the fact template explained above) and then for
      * every rule that is defined in rules.txt, parsed and stored in the rules
      * vector it executes those rules must not throw exceptions!!
+     * <p>
+     * The facts of all objects are generated on every check, since the objects do
+     * not report their property changes, but only the difference to the facts of
+     * the previous check is retracted from and asserted into the engine.
      */
     public boolean checkState(Set<Object> objects, String executeRule, Set<String> messageTypes,
             CollectionTreeModel messages, CollectionTreeModel facts) {
-        rbs = new RuleBasedEngine(makePrologAPI());
+        return checkFacts(generateFacts(objects), executeRule, messageTypes, messages, facts, () -> false);
+    }
 
+    /**
+     * Generates the facts of the objects from the fact templates. This reads the
+     * objects, so it has to run on the thread that modifies them.
+     * 
+     * @param objects
+     * @return the facts
+     */
+    public Set<String> generateFacts(Set<Object> objects) {
         Vector<String> factsList = new Vector<>();
 
         /*
@@ -165,23 +307,37 @@ public class ConsistencyChecker {
          */
         objects.forEach(o -> rbsg.addRules(o, factsList, factTemplates));
 
-        factsList.forEach(f -> rbs.addClause(f));
+        return new HashSet<>(factsList);
+    }
+
+    /**
+     * The second half of {@link #checkState}: brings the engine up to date with
+     * the facts and runs the rules. Unless a rule is executed (executeRule is not
+     * null) the objects are not accessed, so this can run on a worker thread.
+     * 
+     * @param cancelled polled before every rule; once it returns true the check
+     *                  stops and the messages are incomplete
+     * @return true if the action of a rule was executed
+     */
+    public synchronized boolean checkFacts(Set<String> newFacts, String executeRule, Set<String> messageTypes,
+            CollectionTreeModel messages, CollectionTreeModel facts, BooleanSupplier cancelled) {
+        updateFacts(newFacts);
 
         /*
          * add only the facts in the tree, not the rules
          */
-        rbs.addClauseTableToFacts(facts);
-
-        simplifications.forEach(f -> rbs.addClause("(" + f + ")"));
+        assertedFacts.forEach(facts::add);
 
-        // rbs.addClauseTableToFacts(facts) // was here and was adding rules as well to the tree
+        List<Map<String, Map<String, ?>>> results = engines > 1 ? checkRulesInParallel(cancelled) : null;
 
-        for (Rule rule : rules) {
-
-            logger.finer("RULE: " + rule.getName());
+        for (int i = 0; i < rules.size(); i++) {
+            if (cancelled.getAsBoolean()) {
+                logger.fine("Consistency check cancelled");
+                return false;
+            }
 
-            String res = "all";
-            Map<String, Map<String, ?>> rez = rbs.checkRule(rule.getexpression(), res.equals(rule.getresult()));
+            Rule rule = rules.get(i);
+            Map<String, Map<String, ?>> rez = results != null ? results.get(i) : checkRule(rbs, rule);
 
             if (rez != null) {
                 logger.finer(() -> "Solutions: " + rez.keySet().size());
@@ -208,6 +364,115 @@ public class ConsistencyChecker {
         return false;
     }
 
+    private Map<String, Map<String, ?>> checkRule(RuleBasedEngine engine, Rule rule) {
+        logger.finer(() -> "RULE: " + rule.getName());
+
+        String res = "all";
+        return engine.checkRule(rule.getexpression(), res.equals(rule.getresult()),
+                profiling ? rule.getProfile() : null);
+    }
+
+    /**
+     * Evaluates the rules on all the engines in parallel. Each engine takes the
+     * next rule that has not been taken yet. Rules after a failure rule that has
+     * solutions are not evaluated, since the messages stop there.
+     * 
+     * @return the solutions of every rule by the index of the rule; null for the
+     *         rules without solutions or not evaluated
+     */
+    private List<Map<String, Map<String, ?>>> checkRulesInParallel(BooleanSupplier cancelled) {
+        AtomicReferenceArray<Map<String, Map<String, ?>>> results = new AtomicReferenceArray<>(rules.size());
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger firstFailure = new AtomicInteger(rules.size());
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (RuleBasedEngine engine : enginePool) {
+            tasks.add(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < firstFailure.get() && !cancelled.getAsBoolean()) {
+                    Rule rule = rules.get(i);
+                    Map<String, Map<String, ?>> rez = checkRule(engine, rule);
+                    results.set(i, rez);
+                    if (rez != null && rule.getSeverity().equals("failure")) {
+                        firstFailure.accumulateAndGet(i, Math::min);
+                    }
+                }
+                return null;
+            });
+        }
+        forkJoinPool.invokeAll(tasks);
+
+        List<Map<String, Map<String, ?>>> list = new ArrayList<>(rules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            list.add(results.get(i));
+        }
+        return list;
+    }
+
+    /**
+     * Creates new engines with the simplifications if there are none, then
+     * retracts the facts that are no longer generated and asserts the new ones in
+     * every engine. Facts are asserted in front of the simplifications, as if
+     * they had been added to a new engine before them.
+     */
+    private void updateFacts(Set<String> newFacts) {
+        if (assertedFacts == null || !incremental) {
+            createEngines();
+            assertedFacts = new HashSet<>();
+        }
+
+        List<String> retracted = new ArrayList<>();
+        for (String fact : assertedFacts) {
+            if (!newFacts.contains(fact)) {
+                retracted.add(fact);
+            }
+        }
+
+        List<String> asserted = new ArrayList<>();
+        for (String fact : newFacts) {
+            if (!assertedFacts.contains(fact)) {
+                asserted.add(fact);
+            }
+        }
+
+        if (engines > 1) {
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (RuleBasedEngine engine : enginePool) {
+                tasks.add(() -> {
+                    updateFacts(engine, retracted, asserted);
+                    return null;
+                });
+            }
+            forkJoinPool.invokeAll(tasks);
+        } else {
+            updateFacts(rbs, retracted, asserted);
+        }
+
+        assertedFacts = newFacts;
+
+        logger.finer(() -> "Facts: " + newFacts.size() + ", retracted: " + retracted.size() + ", asserted: "
+                + asserted.size() + ", engines: " + engines);
+    }
+
+    private static void updateFacts(RuleBasedEngine engine, List<String> retracted, List<String> asserted) {
+        retracted.forEach(engine::removeClause);
+        asserted.forEach(engine::addFact);
+    }
+
+    private void createEngines() {
+        rbs = new RuleBasedEngine(makePrologAPI());
+        enginePool = new ArrayList<>();
+        enginePool.add(rbs);
+        for (int i = 1; i < engines; i++) {
+            enginePool.add(new RuleBasedEngine(newPrologAPI()));
+        }
+        enginePool.forEach(engine -> simplifications.forEach(f -> engine.addClause("(" + f + ")")));
+
+        if (engines > 1 && forkJoinPool == null) {
+            forkJoinPool = new ForkJoinPool(engines);
+        }
+    }
+
     public String getAllQueriesString() {
         return prologAPI.getAllQueriesString();
     }
@@ -12,6 +12,7 @@ public class ConsistencyCheckerFact {
     private String className;
     private String functionName;
     private List<String> arguments;
+    private CheckProfile profile;
 
     public String getClassName() {
         return className;
@@ -25,9 +26,18 @@ public class ConsistencyCheckerFact {
         return arguments;
     }
 
+    /**
+     * @return the time spent generating the facts of this template
+     */
+    public CheckProfile getProfile() {
+        return profile;
+    }
+
     public ConsistencyCheckerFact(String className, String functionName, List<String> arguments) {
         this.className = className;
         this.functionName = functionName;
         this.arguments = arguments;
+        this.profile = new CheckProfile(CheckProfile.FACT,
+                className + ": " + functionName + "(" + String.join(",", arguments) + ")");
     }
 }
@@ -30,6 +30,7 @@ public class Rule {
     private String ruleName = "";
     private String action = "";
     private String helpurl = null;
+    private CheckProfile profile;
 
     /**
      * The constructor creates a rule from the List of lines
@@ -39,6 +40,7 @@ public class Rule {
     public Rule(List<String> lines) {
 
         ruleName = getRuleName(removeFirst(lines));
+        profile = new CheckProfile(CheckProfile.RULE, ruleName);
 
         // READ EVERY LINE INSIDE RULE
         for (String line = removeFirst(lines); !line.equals(RULE_CLOSING); line = removeFirst(lines)) {
@@ -96,6 +98,13 @@ public class Rule {
         return ruleName;
     }
 
+    /**
+     * @return the time spent evaluating this rule
+     */
+    public CheckProfile getProfile() {
+        return profile;
+    }
+
     public String getAction() {
         return action;
     }
@@ -22,12 +22,26 @@ public class RuleBasedEngine {
     }
 
     public void addClause(String clause) {
+        addClause("assert", clause);
+    }
+
+    /**
+     * Adds the clause in front of the clauses of its predicate, so that facts
+     * added after the rules are still tried before them.
+     * 
+     * @param fact
+     */
+    public void addFact(String fact) {
+        addClause("asserta", fact);
+    }
+
+    private void addClause(String action, String clause) {
         logger.finer(() -> "Adding clause: " + clause);
 
         if (!clauseTable.containsKey(clause)) {
             try {
 
-                modifyDatabase("assert", clause);
+                modifyDatabase(action, clause);
                 clauseTable.put(clause, true);
             } catch (Exception e) {
                 logger.severe("Exception caught: clause:" + clause);
@@ -36,13 +50,16 @@ public class RuleBasedEngine {
         }
     }
 
-    /*
-     * currently not called
-     */
     public void removeClause(String clause) {
-        modifyDatabase("retract", clause);
-        if (clauseTable.containsKey(clause)) {
-            clauseTable.remove(clause);
+        logger.finer(() -> "Removing clause: " + clause);
+
+        if (clauseTable.remove(clause) != null) {
+            try {
+                modifyDatabase("retract", clause);
+            } catch (Exception e) {
+                logger.severe("Exception caught: clause:" + clause);
+                e.printStackTrace();
+            }
         }
     }
 
@@ -81,7 +98,22 @@ public class RuleBasedEngine {
      * @param allSolutions
      * @return
      */
-    public synchronized Map<String, Map<String, ?>> checkRule(String rule, boolean allSolutions) {
+    public Map<String, Map<String, ?>> checkRule(String rule, boolean allSolutions) {
+        return checkRule(rule, allSolutions, null);
+    }
+
+    /**
+     * Like {@link #checkRule(String, boolean)}, also recording the time taken,
+     * the solutions found and the retries for further solutions in the profile.
+     * 
+     * @param profile null to not record
+     */
+    public synchronized Map<String, Map<String, ?>> checkRule(String rule, boolean allSolutions,
+            CheckProfile profile) {
+        long start = profile != null ? System.nanoTime() : 0;
+        Map<String, Map<String, ?>> results = null;
+        int retries = 0;
+
         if (!rule.substring(rule.length() - 1).equals(".")) {
             rule = rule + ".";
         }
@@ -93,7 +125,7 @@ public class RuleBasedEngine {
                 return null;
             }
 
-            Map<String, Map<String, ?>> results = new HashMap<>();
+            results = new HashMap<>();
 
             int index = 0;
 
@@ -104,6 +136,7 @@ public class RuleBasedEngine {
                     break;
                 }
                 index++;
+                retries++;
                 ht = prolog.retry();
             }
 
@@ -111,7 +144,12 @@ public class RuleBasedEngine {
 
         } catch (Exception E) {
             logger.severe("prolog error -> " + E.getMessage());
+            results = null;
             return null;
+        } finally {
+            if (profile != null) {
+                profile.record(System.nanoTime() - start, results == null ? 0 : results.size(), retries);
+            }
         }
     }
 }
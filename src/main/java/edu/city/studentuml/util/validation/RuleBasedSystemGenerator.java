@@ -1,10 +1,16 @@
 package edu.city.studentuml.util.validation;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import edu.city.studentuml.util.SystemWideObjectNamePool;
@@ -13,6 +19,45 @@ public class RuleBasedSystemGenerator {
 
     private static final Logger logger = Logger.getLogger(RuleBasedSystemGenerator.class.getName());
 
+    /**
+     * The getters of every class, by method name.
+     */
+    private static final ClassValue<Map<String, Getter>> GETTERS = new ClassValue<Map<String, Getter>>() {
+        @Override
+        protected Map<String, Getter> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * The templates the extractors were compiled from.
+     */
+    private Map<String, Vector<ConsistencyCheckerFact>> compiledTemplates = null;
+
+    /**
+     * The compiled templates of each class and its superclasses.
+     */
+    private final Map<Class<?>, List<FactExtractor>> extractors = new HashMap<>();
+
+    private boolean profiling = false;
+
+    /**
+     * When set, the time spent applying each fact template and the facts it
+     * generates are recorded in the profile of the template.
+     * 
+     * @param profiling
+     */
+    public synchronized void setProfiling(boolean profiling) {
+        if (profiling != this.profiling) {
+            this.profiling = profiling;
+            extractors.clear();
+        }
+    }
+
+    public synchronized boolean isProfiling() {
+        return profiling;
+    }
+
     /**
      * 
      * Incrementally poplulates the factList.
@@ -44,9 +89,12 @@ public class RuleBasedSystemGenerator {
      * Afterwards if there is a list of facts for that specific class (in this case, DiagramModel) all the facts
      * are returned in a vector factsforClass...
      * <p>
-     *     in this case the addFromVector method is called for any member of the factsforClass passing the
-     *     object as a instance to that method and using the fact member of (factsforClass) getArguments, as an argument
-     *     to the addFromVector method
+     *     in this case the compileFact method is called for any member of the factsforClass passing the
+     *     class of the object to that method and using the fact member of (factsforClass) getArguments, as an argument
+     *     to the compileFact method
+     * <p>
+     *     The compiled facts of a class are cached, so the superclasses are only walked and the getters only looked
+     *     up the first time an instance of the class is seen; afterwards the compiled facts are applied to the object.
      *
      *
       * 
@@ -55,37 +103,60 @@ public class RuleBasedSystemGenerator {
       * @param template
       */
     public void addRules(Object object, Vector<String> factList, Map<String, Vector<ConsistencyCheckerFact>> template) {
-        logger.finer("Adding rule for: " + object.getClass().getSimpleName() + ":" + SystemWideObjectNamePool.getInstance().getNameForObject(object));
-        addRulesRecursive(object, object.getClass(), factList, template);
+        logger.finer(() -> "Adding rule for: " + object.getClass().getSimpleName() + ":"
+                + SystemWideObjectNamePool.getInstance().getNameForObject(object));
+        for (FactExtractor extractor : extractorsFor(object.getClass(), template)) {
+            extractor.extract(object, factList);
+        }
     }
 
-    private void addRulesRecursive(Object object, Class<?> templateClass, Vector<String> factList, Map<String, Vector<ConsistencyCheckerFact>> template) {
-        logger.finest("Recursive Adding rule for class: " + templateClass.getSimpleName());
-
-        String className = templateClass.getSimpleName();
-        Vector<ConsistencyCheckerFact> factsforClass = template.get(className);
+    /**
+     * Returns the compiled fact templates of the class and of all its
+     * superclasses, compiling them the first time the class is seen.
+     */
+    private synchronized List<FactExtractor> extractorsFor(Class<?> objectClass,
+            Map<String, Vector<ConsistencyCheckerFact>> template) {
+        if (template != compiledTemplates) {
+            extractors.clear();
+            compiledTemplates = template;
+        }
+        return extractors.computeIfAbsent(objectClass, c -> compile(c, template));
+    }
 
-        if (factsforClass == null) {
-            // no fact for this class, check the parents....
-            // TODO : stop executing after inheritance in classes in this package...
-            if (templateClass.getSuperclass() != null) {
-                Class<?> parentClass = templateClass.getSuperclass();
-                addRulesRecursive(object, parentClass, factList, template);
+    private List<FactExtractor> compile(Class<?> objectClass, Map<String, Vector<ConsistencyCheckerFact>> template) {
+        List<FactExtractor> classExtractors = new ArrayList<>();
+        for (Class<?> templateClass = objectClass; templateClass != null; templateClass = templateClass
+                .getSuperclass()) {
+            Vector<ConsistencyCheckerFact> factsforClass = template.get(templateClass.getSimpleName());
+            if (factsforClass != null) {
+                for (ConsistencyCheckerFact fact : factsforClass) {
+                    FactExtractor extractor = compileFact(objectClass, fact.getFunctionName(), fact.getArguments());
+                    classExtractors.add(profiling ? profiled(extractor, fact.getProfile()) : extractor);
+                }
             }
-            return;
         }
+        logger.finest(() -> "Compiled " + classExtractors.size() + " fact templates for class: "
+                + objectClass.getSimpleName());
+        return classExtractors;
+    }
 
-        for (int i = 0; i < factsforClass.size(); i++) {
-            ConsistencyCheckerFact fact = factsforClass.get(i);
-            addFromVector(object, fact.getFunctionName(), factList, fact.getArguments());
-            Class<?> parentClass = templateClass.getSuperclass();
-            addRulesRecursive(object, parentClass, factList, template);
-        }
+    /**
+     * Wraps the extractor to record its time and facts in the profile.
+     */
+    private static FactExtractor profiled(FactExtractor extractor, CheckProfile profile) {
+        return (object, factList) -> {
+            long start = System.nanoTime();
+            int before = factList.size();
+            extractor.extract(object, factList);
+            profile.record(System.nanoTime() - start, factList.size() - before, 0);
+        };
     }
 
     /**
      * The core method for converting fact templates into actual facts for any
-     * objects that might exist in the repository (SystemWIdeObjectPool).
+     * objects that might exist in the repository (SystemWIdeObjectPool). The
+     * template is compiled once per class: the getters are looked up here and
+     * only invoked when the extractor is applied to an instance.
      * <p>
      * For every argument in the arguments vector it does the following:
      * <p>
@@ -117,85 +188,110 @@ public class RuleBasedSystemGenerator {
      * instance object) for example dcddiagram1 (which name is taken from the
      * SystemWide..... later in the add method)
      *
-     * @param object       is an instance from the pool...
+     * @param objectClass  is the class of the instances from the pool the
+     *                     extractor will be applied to
      * @param functionName is the name of the template i.e. belongsTo
-     * @param factList     is the output that will be used by the add() method...
-     *                     i.e. the place where the actual facts will be added,
-     *                     because for one object we might have more than one fact
      * @param arguments    is a list of "string" names from the fact templates i.e.
      *                     belongsTo(a1,a2), a1 is "this" a2 is
      *                     "getGraphicalElements.this"
+     * @return the extractor that adds the facts of an instance to a fact list
      */
-    private void addFromVector(Object object, String functionName, Vector<String> factList, List<String> arguments) {
-        Vector<Object> objects = new Vector<>();
+    private FactExtractor compileFact(Class<?> objectClass, String functionName, List<String> arguments) {
         for (int i = 0; i < arguments.size(); i++) {
             if (arguments.get(i).split("[.]").length == 2) {
+                return compileCollectionFact(objectClass, functionName, arguments, i);
+            }
+        }
 
-                String[] nameArray = arguments.get(i).split("[.]");
-                String vectorName = nameArray[0];
-                String objectName = nameArray[1];
-
-                Vector<?> v = (Vector<?>) getter(object, vectorName);
-
-                if (v != null) {
-                    for (int j = 0; j < v.size(); j++) {
-                        Vector<Object> newArguments = new Vector<>();
-                        for (int z = 0; z < arguments.size(); z++) {
-                            if (z == i) {
-                                newArguments.add(getter(v.get(j), objectName));
-                            } else {
-                                String arg = arguments.get(z);
-                                boolean enclosed = false;
-                                if (arg.startsWith("'") && arg.endsWith("'")) {
-                                    enclosed = true;
-                                    arg = arg.substring(1, arg.length() - 1);
-                                }
-                                if (arg.split("[.]").length == 2) {
-                                    String[] subArray = arg.split("[.]");
-                                    if (subArray[0].equals("this")) {
-                                        String value = (String) getter(v.get(j), subArray[1]);
-                                        if (enclosed) {
-                                            value = "'" + value + "'";
-                                        }
-                                        newArguments.add(value);
-                                    } else {
-                                        logger.severe("not implemented!!!");
-                                    }
-                                } else {
-                                    newArguments.add(getter(object, arguments.get(z)));
-                                }
-                            }
-                        }
-                        add(functionName, factList, newArguments.toArray());
-                    }
-                }
+        Argument[] compiled = new Argument[arguments.size()];
+        for (int i = 0; i < arguments.size(); i++) {
+            compiled[i] = compileArgument(objectClass, arguments.get(i));
+        }
 
-                return;
+        return (object, factList) -> {
+            Object[] objects = new Object[compiled.length];
+            for (int i = 0; i < compiled.length; i++) {
+                objects[i] = compiled[i].value(object, null);
             }
+            add(functionName, factList, objects);
+        };
+    }
 
-            String arg = arguments.get(i);
-            if (arg.startsWith("\"") && arg.endsWith("\"")) {
-                arg = arg.substring(1, arg.length() - 1);
-                objects.add(arg);
+    /**
+     * Compiles a template whose argument at index is compound: one fact is added
+     * for every member of the vector returned by the first part of the argument.
+     */
+    private FactExtractor compileCollectionFact(Class<?> objectClass, String functionName, List<String> arguments,
+            int index) {
+        String[] nameArray = arguments.get(index).split("[.]");
+        Getter vectorGetter = getter(objectClass, nameArray[0]);
+        String objectName = nameArray[1];
+
+        List<Argument> compiled = new ArrayList<>();
+        for (int z = 0; z < arguments.size(); z++) {
+            if (z == index) {
+                compiled.add((object, member) -> getter(member.getClass(), objectName).get(member));
                 continue;
             }
 
+            String arg = arguments.get(z);
             boolean enclosed = false;
             if (arg.startsWith("'") && arg.endsWith("'")) {
                 enclosed = true;
                 arg = arg.substring(1, arg.length() - 1);
             }
-            Object val = getter(object, arg);
-            if (val instanceof String) {
-                String value = (String) getter(object, arg);
-                if (enclosed) {
-                    value = "'" + value + "'";
+            if (arg.split("[.]").length == 2) {
+                String[] subArray = arg.split("[.]");
+                if (subArray[0].equals("this")) {
+                    boolean quote = enclosed;
+                    compiled.add((object, member) -> {
+                        String value = (String) getter(member.getClass(), subArray[1]).get(member);
+                        return quote ? "'" + value + "'" : value;
+                    });
+                } else {
+                    logger.severe("not implemented!!!");
+                }
+            } else {
+                Getter g = getter(objectClass, arguments.get(z));
+                compiled.add((object, member) -> g.get(object));
+            }
+        }
+
+        return (object, factList) -> {
+            Vector<?> v = (Vector<?>) vectorGetter.get(object);
+            if (v != null) {
+                for (int j = 0; j < v.size(); j++) {
+                    Object member = v.get(j);
+                    Object[] objects = new Object[compiled.size()];
+                    for (int i = 0; i < objects.length; i++) {
+                        objects[i] = compiled.get(i).value(object, member);
+                    }
+                    add(functionName, factList, objects);
                 }
-                val = value;
             }
-            objects.add(val);
+        };
+    }
+
+    /**
+     * Compiles a simple argument: a "string" constant, a getter whose value is
+     * enclosed in single quotes if the argument is, or this.
+     */
+    private Argument compileArgument(Class<?> objectClass, String arg) {
+        if (arg.startsWith("\"") && arg.endsWith("\"")) {
+            String constant = arg.substring(1, arg.length() - 1);
+            return (object, member) -> constant;
+        }
+
+        if (arg.startsWith("'") && arg.endsWith("'")) {
+            Getter g = getter(objectClass, arg.substring(1, arg.length() - 1));
+            return (object, member) -> {
+                Object val = g.get(object);
+                return val instanceof String ? "'" + val + "'" : val;
+            };
         }
-        add(functionName, factList, objects.toArray());
+
+        Getter g = getter(objectClass, arg);
+        return (object, member) -> g.get(object);
     }
 
     /**
@@ -222,7 +318,7 @@ public class RuleBasedSystemGenerator {
             if (value == null) {
                 value = SystemWideObjectNamePool.getInstance().getNameForObject(objects[i]);
                 if (value == null) {
-                    value = (String) getter(objects[i], "getName");
+                    value = (String) getter(objects[i].getClass(), "getName").get(objects[i]);
                     if (value == null) {
                         value = objects[i].toString();
                         if (value.contains(".")) {
@@ -257,25 +353,68 @@ public class RuleBasedSystemGenerator {
     }
 
     /**
-     * getter is a wrapper for the rtti usage
+     * Returns the getter for the method of the class, looking it up the first
+     * time.
      * 
-     * @param instance   is an instance of any object that might be called via
-     *                   getter
+     * @param type       the class of the instances the getter will be called on
      * @param methodName is any method name that might exist in the instance except
-     *                   if the methodname is "this" in which case the instance of
-     *                   the object is returned....
-     * @return the result of the method invocation or instance if methodName is "this"
+     *                   if the methodname is "this" in which case the getter
+     *                   returns the instance itself
+     * @return the getter; it returns null if there is no such public method
      */
-    private Object getter(Object instance, String methodName) {
+    private static Getter getter(Class<?> type, String methodName) {
         if (methodName.equals("this")) {
-            return instance;
+            return instance -> instance;
         }
+        return GETTERS.get(type).computeIfAbsent(methodName, name -> findGetter(type, name));
+    }
+
+    private static Getter findGetter(Class<?> type, String methodName) {
+        MethodHandle handle;
         try {
-            Method m = instance.getClass().getMethod(methodName);
-            return m.invoke(instance);
-        } catch (SecurityException | NoSuchMethodException | IllegalArgumentException | IllegalAccessException
-                | InvocationTargetException e) {
-            return null;
+            Method m = type.getMethod(methodName);
+            handle = MethodHandles.lookup().unreflect(m);
+            if (Modifier.isStatic(m.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            handle = handle.asType(MethodType.methodType(Object.class, Object.class));
+        } catch (SecurityException | NoSuchMethodException | IllegalAccessException e) {
+            return instance -> null;
         }
+
+        MethodHandle getter = handle;
+        return instance -> {
+            try {
+                return (Object) getter.invokeExact(instance);
+            } catch (Throwable e) {
+                // as with Method.invoke, which wraps anything the getter throws
+                return null;
+            }
+        };
+    }
+
+    /**
+     * A no argument method of a class.
+     */
+    @FunctionalInterface
+    private interface Getter {
+        Object get(Object instance);
+    }
+
+    /**
+     * An argument of a compiled fact template; member is the member of the vector
+     * for templates with a compound argument, or null.
+     */
+    @FunctionalInterface
+    private interface Argument {
+        Object value(Object object, Object member);
+    }
+
+    /**
+     * A fact template compiled for a class.
+     */
+    @FunctionalInterface
+    private interface FactExtractor {
+        void extract(Object object, Vector<String> factList);
     }
 }
@@ -0,0 +1,73 @@
+package edu.city.studentuml.util.validation.prolog;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import edu.city.studentuml.util.validation.prolog.Term.Atom;
+import edu.city.studentuml.util.validation.prolog.Term.Struct;
+import edu.city.studentuml.util.validation.prolog.Term.Var;
+
+/**
+ * A stored fact or rule. Its variables are numbered so that every call
+ * renames them into a fresh frame.
+ */
+final class Clause {
+
+    final Struct head;
+    final Term body;
+    final int variables;
+
+    private Clause(Struct head, Term body, int variables) {
+        this.head = head;
+        this.body = body;
+        this.variables = variables;
+    }
+
+    /**
+     * @param term a fact or a term Head :- Body
+     * @return the clause, with the variables of the term replaced by numbered
+     *         ones
+     */
+    static Clause of(Term term) {
+        Map<Var, Var> numbered = new IdentityHashMap<>();
+        term = number(term, numbered);
+        Term head = term;
+        Term body = Term.TRUE;
+        if (term instanceof Struct && ((Struct) term).is(":-", 2)) {
+            head = ((Struct) term).args[0];
+            body = ((Struct) term).args[1];
+        }
+        if (head instanceof Atom) {
+            head = new Struct(((Atom) head).name);
+        }
+        if (!(head instanceof Struct)) {
+            throw new PrologException("Cannot assert " + term);
+        }
+        return new Clause((Struct) head, body, numbered.size());
+    }
+
+    private static Term number(Term t, Map<Var, Var> numbered) {
+        t = t.deref();
+        if (t instanceof Var) {
+            return numbered.computeIfAbsent((Var) t, v -> new Var(numbered.size()));
+        }
+        if (t instanceof Struct && !((Struct) t).ground) {
+            Struct s = (Struct) t;
+            Term[] args = new Term[s.args.length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = number(s.args[i], numbered);
+            }
+            return new Struct(s.name, args);
+        }
+        return t;
+    }
+
+    /**
+     * @return the value of the argument at the position if it is an atom or a
+     *         number, otherwise null
+     */
+    Term key(int position) {
+        Term arg = head.args[position];
+        return arg.isAtomic() ? arg : null;
+    }
+}
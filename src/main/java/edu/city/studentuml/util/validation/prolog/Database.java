@@ -0,0 +1,183 @@
+package edu.city.studentuml.util.validation.prolog;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.city.studentuml.util.validation.prolog.Term.Struct;
+
+/**
+ * The clauses of every predicate, in the order they are tried.
+ * <p>
+ * The clauses of a predicate are indexed on each argument the first time a
+ * call has an atom or a number in that argument, as long as every clause has an
+ * atom or a number there. A call with several such arguments uses the first
+ * usable index, so a call to a predicate with many facts only tries the facts
+ * that can match.
+ */
+final class Database {
+
+    /**
+     * A list of clauses that can be added to at both ends in constant time.
+     * The clauses added to the front are kept in reverse order.
+     */
+    static final class ClauseList extends AbstractList<Clause> {
+        private final ArrayList<Clause> front = new ArrayList<>();
+        private final ArrayList<Clause> back = new ArrayList<>();
+
+        @Override
+        public Clause get(int index) {
+            int f = front.size();
+            return index < f ? front.get(f - 1 - index) : back.get(index - f);
+        }
+
+        @Override
+        public int size() {
+            return front.size() + back.size();
+        }
+
+        void add(Clause clause, boolean first) {
+            if (first) {
+                front.add(clause);
+            } else {
+                back.add(clause);
+            }
+        }
+
+        boolean removeClause(Clause clause) {
+            for (int i = front.size() - 1; i >= 0; i--) {
+                if (front.get(i) == clause) {
+                    front.remove(i);
+                    return true;
+                }
+            }
+            for (int i = 0; i < back.size(); i++) {
+                if (back.get(i) == clause) {
+                    back.remove(i);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Predicate {
+        final int arity;
+        final ClauseList clauses = new ClauseList();
+        /**
+         * The number of clauses that have a variable or a compound term at each
+         * argument; an index can only be used while its count is 0.
+         */
+        final int[] unindexable;
+        final List<Map<Term, ClauseList>> indexes;
+
+        Predicate(int arity) {
+            this.arity = arity;
+            unindexable = new int[arity];
+            indexes = new ArrayList<>(Collections.nCopies(arity, null));
+        }
+
+        void add(Clause clause, boolean first) {
+            clauses.add(clause, first);
+            for (int i = 0; i < unindexable.length; i++) {
+                Term key = clause.key(i);
+                if (key == null) {
+                    unindexable[i]++;
+                    indexes.set(i, null);
+                } else if (indexes.get(i) != null) {
+                    indexes.get(i).computeIfAbsent(key, k -> new ClauseList()).add(clause, first);
+                }
+            }
+        }
+
+        void remove(Clause clause) {
+            clauses.removeClause(clause);
+            for (int i = 0; i < unindexable.length; i++) {
+                Term key = clause.key(i);
+                if (key == null) {
+                    unindexable[i]--;
+                } else if (indexes.get(i) != null) {
+                    ClauseList list = indexes.get(i).get(key);
+                    list.removeClause(clause);
+                    if (list.isEmpty()) {
+                        indexes.get(i).remove(key);
+                    }
+                }
+            }
+        }
+
+        List<Clause> candidates(Struct goal) {
+            for (int i = 0; i < unindexable.length; i++) {
+                Term arg = goal.args[i].deref();
+                if (arg.isAtomic() && unindexable[i] == 0) {
+                    List<Clause> list = index(i).get(arg);
+                    return list == null ? Collections.emptyList() : list;
+                }
+            }
+            return clauses;
+        }
+
+        private Map<Term, ClauseList> index(int position) {
+            Map<Term, ClauseList> index = indexes.get(position);
+            if (index == null) {
+                index = new HashMap<>();
+                for (Clause clause : clauses) {
+                    index.computeIfAbsent(clause.key(position), k -> new ClauseList()).add(clause, false);
+                }
+                indexes.set(position, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * The predicates by name; a name rarely has more than one arity.
+     */
+    private final Map<String, List<Predicate>> predicates = new HashMap<>();
+
+    /**
+     * @param clause
+     * @param first  true to add the clause before the other clauses of its
+     *               predicate (asserta), false to add it after them (assertz)
+     */
+    void add(Clause clause, boolean first) {
+        Predicate predicate = predicate(clause.head);
+        if (predicate == null) {
+            predicate = new Predicate(clause.head.args.length);
+            predicates.computeIfAbsent(clause.head.name, k -> new ArrayList<>(1)).add(predicate);
+        }
+        predicate.add(clause, first);
+    }
+
+    void remove(Clause clause) {
+        Predicate predicate = predicate(clause.head);
+        if (predicate != null) {
+            predicate.remove(clause);
+        }
+    }
+
+    /**
+     * @return the clauses that may match the goal, in order, or null if the
+     *         predicate has never had any clauses. The list must not be used after
+     *         the database is modified.
+     */
+    List<Clause> candidates(Struct goal) {
+        Predicate predicate = predicate(goal);
+        return predicate == null ? null : predicate.candidates(goal);
+    }
+
+    private Predicate predicate(Struct term) {
+        List<Predicate> named = predicates.get(term.name);
+        if (named != null) {
+            for (Predicate predicate : named) {
+                if (predicate.arity == term.args.length) {
+                    return predicate;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,107 @@
+package edu.city.studentuml.util.validation.prolog;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Vector;
+
+import edu.city.studentuml.util.validation.PrologAPI;
+import edu.city.studentuml.util.validation.prolog.Term.Atom;
+import edu.city.studentuml.util.validation.prolog.Term.Num;
+import edu.city.studentuml.util.validation.prolog.Term.Struct;
+import edu.city.studentuml.util.validation.prolog.Term.Var;
+
+/**
+ * A {@link PrologAPI} that solves the queries in Java, on the calling thread,
+ * against clauses indexed on their arguments.
+ * <p>
+ * The solutions have the same form as those of JLog: atoms are strings in
+ * single quotes, integers are Integers, lists are Vectors of their elements,
+ * unbound variables are void.class and other compound terms are strings.
+ * Variables starting with an underscore are not part of the solutions.
+ */
+public class NativePrologAPI implements PrologAPI {
+
+    private final Database database = new Database();
+    private boolean failUnknownPredicate = false;
+
+    private Solver solver = null;
+    private Map<String, Var> variables = null;
+
+    private StringBuilder sb = new StringBuilder();
+
+    @Override
+    public void setFailUnknownPredicate(boolean b) {
+        failUnknownPredicate = b;
+    }
+
+    @Override
+    public Map<String, Map<String, ?>> query(String q) {
+        sb.append(q);
+        sb.append("\n");
+        if (solver != null) {
+            solver.reset();
+            solver = null;
+        }
+        variables = new LinkedHashMap<>();
+        Term goal = TermParser.parse(q, variables);
+        solver = new Solver(database, goal, failUnknownPredicate);
+        return solve();
+    }
+
+    @Override
+    public Map<String, Map<String, ?>> retry() {
+        return solver == null ? null : solve();
+    }
+
+    @Override
+    public String getAllQueriesString() {
+        return sb.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Map<String, ?>> solve() {
+        if (!solver.next()) {
+            solver.reset();
+            solver = null;
+            return null;
+        }
+        Map<String, Object> solution = new HashMap<>();
+        for (Map.Entry<String, Var> variable : variables.entrySet()) {
+            if (!variable.getKey().startsWith("_")) {
+                solution.put(variable.getKey(), value(variable.getValue()));
+            }
+        }
+        return (Map<String, Map<String, ?>>) (Map<String, ?>) solution;
+    }
+
+    private static Object value(Term t) {
+        t = t.deref();
+        if (t instanceof Var) {
+            return void.class;
+        }
+        if (Term.NIL.equals(t)) {
+            return new Vector<>();
+        }
+        if (t instanceof Atom) {
+            return "'" + ((Atom) t).name + "'";
+        }
+        if (t instanceof Num) {
+            Num n = (Num) t;
+            if (!n.integer) {
+                return n.doubleValue;
+            }
+            return n.longValue == (int) n.longValue ? Integer.valueOf((int) n.longValue) : Long.valueOf(n.longValue);
+        }
+        Struct s = (Struct) t;
+        if (s.is(Term.LIST_FUNCTOR, 2)) {
+            Vector<Object> elements = new Vector<>();
+            while (t instanceof Struct && ((Struct) t).is(Term.LIST_FUNCTOR, 2)) {
+                elements.add(value(((Struct) t).args[0]));
+                t = ((Struct) t).args[1].deref();
+            }
+            return elements;
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,14 @@
+package edu.city.studentuml.util.validation.prolog;
+
+/**
+ * Thrown for syntax errors, unknown predicates and arithmetic on terms that are
+ * not numbers.
+ */
+public class PrologException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PrologException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,573 @@
+package edu.city.studentuml.util.validation.prolog;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import edu.city.studentuml.util.validation.prolog.Term.Atom;
+import edu.city.studentuml.util.validation.prolog.Term.Num;
+import edu.city.studentuml.util.validation.prolog.Term.Struct;
+import edu.city.studentuml.util.validation.prolog.Term.Var;
+
+/**
+ * Solves a goal against a database by depth first resolution, one solution at
+ * a time.
+ * <p>
+ * The goals still to be solved are a linked list and the alternatives left to
+ * try are a stack of choice points, so neither recursion in the rules nor long
+ * conjunctions use the Java stack. Every goal carries the height the choice
+ * point stack had when its clause was called, which is where a cut in it cuts
+ * back to.
+ * <p>
+ * Besides the control constructs ',', ';', '!', true, fail, not/1, \+/1 and
+ * call/1, the solver has the builtins =, \=, ==, \==, the arithmetic
+ * comparisons, is/2, findall/3, sort/2, assert/1, asserta/1, assertz/1 and
+ * retract/1.
+ */
+final class Solver {
+
+    private static final Term[] NO_VARIABLES = new Term[0];
+
+    private static final class Goal {
+        final Term term;
+        final int cutBarrier;
+        final Goal next;
+
+        Goal(Term term, int cutBarrier, Goal next) {
+            this.term = term;
+            this.cutBarrier = cutBarrier;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Either the right branch of a disjunction or the clauses of a call that are
+     * still to be tried.
+     */
+    private static final class ChoicePoint {
+        final int trailMark;
+        final Goal alternative;
+        final Struct call;
+        final List<Clause> clauses;
+        final Goal continuation;
+        int next = 0;
+
+        ChoicePoint(int trailMark, Goal alternative) {
+            this.trailMark = trailMark;
+            this.alternative = alternative;
+            this.call = null;
+            this.clauses = null;
+            this.continuation = null;
+        }
+
+        ChoicePoint(int trailMark, Struct call, List<Clause> clauses, Goal continuation) {
+            this.trailMark = trailMark;
+            this.alternative = null;
+            this.call = call;
+            this.clauses = clauses;
+            this.continuation = continuation;
+        }
+    }
+
+    private final Database database;
+    private final boolean failUnknownPredicate;
+    private final ArrayList<Var> trail = new ArrayList<>();
+    private final ArrayList<ChoicePoint> choicePoints = new ArrayList<>();
+    private Goal goals;
+    private boolean started = false;
+
+    Solver(Database database, Term goal, boolean failUnknownPredicate) {
+        this.database = database;
+        this.failUnknownPredicate = failUnknownPredicate;
+        this.goals = new Goal(goal, 0, null);
+    }
+
+    /**
+     * Finds the first solution, or the next one after a previous call.
+     *
+     * @return true if a solution was found; the variables of the goal are then
+     *         bound to it
+     */
+    boolean next() {
+        if (started) {
+            if (!backtrack()) {
+                return false;
+            }
+        } else {
+            started = true;
+        }
+        return run();
+    }
+
+    /**
+     * Undoes the bindings of the solver.
+     */
+    void reset() {
+        undo(0);
+        choicePoints.clear();
+    }
+
+    private boolean run() {
+        while (true) {
+            if (goals == null) {
+                return true;
+            }
+            Goal goal = goals;
+            goals = goal.next;
+            if (!step(goal) && !backtrack()) {
+                return false;
+            }
+        }
+    }
+
+    private boolean backtrack() {
+        while (!choicePoints.isEmpty()) {
+            int top = choicePoints.size() - 1;
+            ChoicePoint cp = choicePoints.get(top);
+            undo(cp.trailMark);
+            if (cp.alternative != null) {
+                choicePoints.remove(top);
+                goals = cp.alternative;
+                return true;
+            }
+            if (resume(cp)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean step(Goal goal) {
+        Term term = goal.term.deref();
+        Struct s;
+        if (term instanceof Struct) {
+            s = (Struct) term;
+        } else if (term instanceof Atom) {
+            s = new Struct(((Atom) term).name);
+        } else if (term instanceof Var) {
+            throw new PrologException("Unbound goal");
+        } else {
+            throw new PrologException("Goal is not callable: " + term);
+        }
+
+        Term[] args = s.args;
+        switch (s.name) {
+        case "true":
+            if (args.length == 0) {
+                return true;
+            }
+            break;
+        case "fail":
+        case "false":
+            if (args.length == 0) {
+                return false;
+            }
+            break;
+        case "!":
+            if (args.length == 0) {
+                cut(goal.cutBarrier);
+                return true;
+            }
+            break;
+        case ",":
+            if (args.length == 2) {
+                goals = new Goal(args[0], goal.cutBarrier, new Goal(args[1], goal.cutBarrier, goals));
+                return true;
+            }
+            break;
+        case ";":
+            if (args.length == 2) {
+                choicePoints.add(new ChoicePoint(trail.size(), new Goal(args[1], goal.cutBarrier, goals)));
+                goals = new Goal(args[0], goal.cutBarrier, goals);
+                return true;
+            }
+            break;
+        case "not":
+        case "\\+":
+            if (args.length == 1) {
+                return !succeeds(args[0]);
+            }
+            break;
+        case "call":
+            if (args.length == 1) {
+                goals = new Goal(args[0], choicePoints.size(), goals);
+                return true;
+            }
+            break;
+        case "=":
+            if (args.length == 2) {
+                return unify(args[0], args[1]);
+            }
+            break;
+        case "\\=":
+            if (args.length == 2) {
+                int mark = trail.size();
+                boolean unifies = unify(args[0], args[1]);
+                undo(mark);
+                return !unifies;
+            }
+            break;
+        case "==":
+            if (args.length == 2) {
+                return Term.compare(args[0], args[1]) == 0;
+            }
+            break;
+        case "\\==":
+            if (args.length == 2) {
+                return Term.compare(args[0], args[1]) != 0;
+            }
+            break;
+        case "<":
+            if (args.length == 2) {
+                return compareNumbers(args[0], args[1]) < 0;
+            }
+            break;
+        case ">":
+            if (args.length == 2) {
+                return compareNumbers(args[0], args[1]) > 0;
+            }
+            break;
+        case "=<":
+            if (args.length == 2) {
+                return compareNumbers(args[0], args[1]) <= 0;
+            }
+            break;
+        case ">=":
+            if (args.length == 2) {
+                return compareNumbers(args[0], args[1]) >= 0;
+            }
+            break;
+        case "=:=":
+            if (args.length == 2) {
+                return compareNumbers(args[0], args[1]) == 0;
+            }
+            break;
+        case "=\\=":
+            if (args.length == 2) {
+                return compareNumbers(args[0], args[1]) != 0;
+            }
+            break;
+        case "is":
+            if (args.length == 2) {
+                return unify(args[0], evaluate(args[1]));
+            }
+            break;
+        case "findall":
+            if (args.length == 3) {
+                return findall(args[0], args[1], args[2]);
+            }
+            break;
+        case "sort":
+            if (args.length == 2) {
+                return sort(args[0], args[1]);
+            }
+            break;
+        case "assert":
+        case "assertz":
+            if (args.length == 1) {
+                database.add(Clause.of(args[0]), false);
+                return true;
+            }
+            break;
+        case "asserta":
+            if (args.length == 1) {
+                database.add(Clause.of(args[0]), true);
+                return true;
+            }
+            break;
+        case "retract":
+            if (args.length == 1) {
+                return retract(args[0]);
+            }
+            break;
+        default:
+            break;
+        }
+        return call(s);
+    }
+
+    private boolean call(Struct goal) {
+        List<Clause> clauses = database.candidates(goal);
+        if (clauses == null) {
+            if (failUnknownPredicate) {
+                return false;
+            }
+            throw new PrologException("Unknown predicate " + goal.key());
+        }
+        ChoicePoint cp = new ChoicePoint(trail.size(), goal, clauses, goals);
+        choicePoints.add(cp);
+        return resume(cp);
+    }
+
+    /**
+     * Tries the remaining clauses of the call on top of the choice point stack
+     * until one matches, and removes the choice point when none is left.
+     */
+    private boolean resume(ChoicePoint cp) {
+        int height = choicePoints.size() - 1;
+        while (cp.next < cp.clauses.size()) {
+            Clause clause = cp.clauses.get(cp.next++);
+            Term[] frame = clause.variables == 0 ? NO_VARIABLES : new Term[clause.variables];
+            if (unifyHead(clause.head, cp.call, frame)) {
+                if (cp.next == cp.clauses.size()) {
+                    choicePoints.remove(height);
+                }
+                goals = Term.TRUE.equals(clause.body) ? cp.continuation
+                        : new Goal(instantiate(clause.body, frame), height, cp.continuation);
+                return true;
+            }
+            undo(cp.trailMark);
+        }
+        choicePoints.remove(height);
+        return false;
+    }
+
+    private void cut(int height) {
+        while (choicePoints.size() > height) {
+            choicePoints.remove(choicePoints.size() - 1);
+        }
+    }
+
+    private boolean succeeds(Term goal) {
+        Solver solver = new Solver(database, goal, failUnknownPredicate);
+        boolean succeeds = solver.next();
+        solver.reset();
+        return succeeds;
+    }
+
+    private boolean findall(Term template, Term goal, Term result) {
+        List<Term> solutions = new ArrayList<>();
+        Solver solver = new Solver(database, goal, failUnknownPredicate);
+        while (solver.next()) {
+            solutions.add(copy(template, new IdentityHashMap<>()));
+        }
+        solver.reset();
+        return unify(result, Term.list(solutions));
+    }
+
+    private boolean sort(Term list, Term result) {
+        List<Term> elements = Term.elements(list);
+        if (elements == null) {
+            throw new PrologException("Not a list: " + list.deref());
+        }
+        TreeSet<Term> sorted = new TreeSet<>(Term::compare);
+        for (Term element : elements) {
+            sorted.add(element.deref());
+        }
+        return unify(result, Term.list(new ArrayList<>(sorted)));
+    }
+
+    private boolean retract(Term pattern) {
+        pattern = pattern.deref();
+        Term head = pattern;
+        Term body = Term.TRUE;
+        if (pattern instanceof Struct && ((Struct) pattern).is(":-", 2)) {
+            head = ((Struct) pattern).args[0].deref();
+            body = ((Struct) pattern).args[1];
+        }
+        if (head instanceof Atom) {
+            head = new Struct(((Atom) head).name);
+        }
+        if (!(head instanceof Struct)) {
+            throw new PrologException("Cannot retract " + pattern);
+        }
+        List<Clause> clauses = database.candidates((Struct) head);
+        if (clauses == null) {
+            return false;
+        }
+        for (Clause clause : new ArrayList<>(clauses)) {
+            int mark = trail.size();
+            Term[] frame = clause.variables == 0 ? NO_VARIABLES : new Term[clause.variables];
+            if (unifyHead(clause.head, (Struct) head, frame) && unify(instantiate(clause.body, frame), body)) {
+                database.remove(clause);
+                return true;
+            }
+            undo(mark);
+        }
+        return false;
+    }
+
+    private int compareNumbers(Term a, Term b) {
+        Num x = evaluate(a);
+        Num y = evaluate(b);
+        return x.integer && y.integer ? Long.compare(x.longValue, y.longValue)
+                : Double.compare(x.doubleValue, y.doubleValue);
+    }
+
+    private Num evaluate(Term t) {
+        t = t.deref();
+        if (t instanceof Num) {
+            return (Num) t;
+        }
+        if (t instanceof Struct) {
+            Struct s = (Struct) t;
+            if (s.is("-", 1)) {
+                Num x = evaluate(s.args[0]);
+                return x.integer ? new Num(-x.longValue) : new Num(-x.doubleValue);
+            }
+            if (s.args.length == 2) {
+                Num x = evaluate(s.args[0]);
+                Num y = evaluate(s.args[1]);
+                boolean integer = x.integer && y.integer;
+                switch (s.name) {
+                case "+":
+                    return integer ? new Num(x.longValue + y.longValue) : new Num(x.doubleValue + y.doubleValue);
+                case "-":
+                    return integer ? new Num(x.longValue - y.longValue) : new Num(x.doubleValue - y.doubleValue);
+                case "*":
+                    return integer ? new Num(x.longValue * y.longValue) : new Num(x.doubleValue * y.doubleValue);
+                case "/":
+                    if (integer && y.longValue != 0 && x.longValue % y.longValue == 0) {
+                        return new Num(x.longValue / y.longValue);
+                    }
+                    return new Num(x.doubleValue / y.doubleValue);
+                default:
+                    break;
+                }
+            }
+        }
+        throw new PrologException("Not a number: " + t);
+    }
+
+    private void bind(Var v, Term t) {
+        v.ref = t;
+        trail.add(v);
+    }
+
+    private void undo(int mark) {
+        for (int i = trail.size() - 1; i >= mark; i--) {
+            trail.remove(i).ref = null;
+        }
+    }
+
+    private boolean unify(Term a, Term b) {
+        while (true) {
+            a = a.deref();
+            b = b.deref();
+            if (a == b) {
+                return true;
+            }
+            if (a instanceof Var) {
+                bind((Var) a, b);
+                return true;
+            }
+            if (b instanceof Var) {
+                bind((Var) b, a);
+                return true;
+            }
+            if (a.isAtomic() || b.isAtomic()) {
+                return a.equals(b);
+            }
+            Struct x = (Struct) a;
+            Struct y = (Struct) b;
+            int n = x.args.length;
+            if (n != y.args.length || !x.name.equals(y.name)) {
+                return false;
+            }
+            if (n == 0) {
+                return true;
+            }
+            for (int i = 0; i < n - 1; i++) {
+                if (!unify(x.args[i], y.args[i])) {
+                    return false;
+                }
+            }
+            a = x.args[n - 1];
+            b = y.args[n - 1];
+        }
+    }
+
+    private boolean unifyHead(Struct head, Struct goal, Term[] frame) {
+        for (int i = 0; i < head.args.length; i++) {
+            if (!unifyArgument(head.args[i], goal.args[i], frame)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Unifies a term of a stored clause with a term of the goal without copying
+     * the parts of the clause that only have to be compared.
+     */
+    private boolean unifyArgument(Term clauseTerm, Term term, Term[] frame) {
+        if (clauseTerm instanceof Var) {
+            int index = ((Var) clauseTerm).index;
+            if (frame[index] == null) {
+                frame[index] = term;
+                return true;
+            }
+            return unify(frame[index], term);
+        }
+        term = term.deref();
+        if (term instanceof Var) {
+            bind((Var) term, instantiate(clauseTerm, frame));
+            return true;
+        }
+        if (clauseTerm.isAtomic()) {
+            return clauseTerm.equals(term);
+        }
+        Struct s = (Struct) clauseTerm;
+        if (s.ground) {
+            return unify(s, term);
+        }
+        if (!(term instanceof Struct)) {
+            return false;
+        }
+        Struct t = (Struct) term;
+        if (s.args.length != t.args.length || !s.name.equals(t.name)) {
+            return false;
+        }
+        for (int i = 0; i < s.args.length; i++) {
+            if (!unifyArgument(s.args[i], t.args[i], frame)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return a term of a stored clause with its variables replaced by those of
+     *         the frame, creating the ones not yet in it
+     */
+    private static Term instantiate(Term clauseTerm, Term[] frame) {
+        if (clauseTerm instanceof Var) {
+            int index = ((Var) clauseTerm).index;
+            if (frame[index] == null) {
+                frame[index] = new Var();
+            }
+            return frame[index];
+        }
+        if (clauseTerm instanceof Struct && !((Struct) clauseTerm).ground) {
+            Struct s = (Struct) clauseTerm;
+            Term[] args = new Term[s.args.length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = instantiate(s.args[i], frame);
+            }
+            return new Struct(s.name, args);
+        }
+        return clauseTerm;
+    }
+
+    /**
+     * @return the term with its bindings resolved and its unbound variables
+     *         replaced by new ones
+     */
+    private static Term copy(Term t, Map<Var, Var> variables) {
+        t = t.deref();
+        if (t instanceof Var) {
+            return variables.computeIfAbsent((Var) t, v -> new Var());
+        }
+        if (t instanceof Struct && !((Struct) t).ground) {
+            Struct s = (Struct) t;
+            Term[] args = new Term[s.args.length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = copy(s.args[i], variables);
+            }
+            return new Struct(s.name, args);
+        }
+        return t;
+    }
+}
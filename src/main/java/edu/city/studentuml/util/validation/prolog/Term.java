@@ -0,0 +1,263 @@
+package edu.city.studentuml.util.validation.prolog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Prolog term: an atom, a number, a compound term or a variable.
+ * <p>
+ * Lists are compound terms with the functor '.'/2 ending in the atom '[]'.
+ * Atoms and numbers are compared by value; compound terms and variables by
+ * identity.
+ */
+abstract class Term {
+
+    static final Atom NIL = new Atom("[]");
+    static final Atom TRUE = new Atom("true");
+    static final String LIST_FUNCTOR = ".";
+
+    /**
+     * @return the term the variable chain ending at this term is bound to, or
+     *         the last unbound variable of the chain
+     */
+    Term deref() {
+        return this;
+    }
+
+    /**
+     * @return true for atoms and numbers
+     */
+    boolean isAtomic() {
+        return false;
+    }
+
+    static final class Atom extends Term {
+        final String name;
+
+        Atom(String name) {
+            this.name = name;
+        }
+
+        @Override
+        boolean isAtomic() {
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Atom && ((Atom) o).name.equals(name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    static final class Num extends Term {
+        final boolean integer;
+        final long longValue;
+        final double doubleValue;
+
+        Num(long value) {
+            this.integer = true;
+            this.longValue = value;
+            this.doubleValue = value;
+        }
+
+        Num(double value) {
+            this.integer = false;
+            this.longValue = (long) value;
+            this.doubleValue = value;
+        }
+
+        @Override
+        boolean isAtomic() {
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Num)) {
+                return false;
+            }
+            Num n = (Num) o;
+            return n.integer == integer && (integer ? n.longValue == longValue
+                    : Double.compare(n.doubleValue, doubleValue) == 0);
+        }
+
+        @Override
+        public int hashCode() {
+            return integer ? Long.hashCode(longValue) : Double.hashCode(doubleValue);
+        }
+
+        @Override
+        public String toString() {
+            return integer ? Long.toString(longValue) : Double.toString(doubleValue);
+        }
+    }
+
+    static final class Struct extends Term {
+        final String name;
+        final Term[] args;
+        /**
+         * True if the term contains no variables, so it never has to be copied.
+         */
+        final boolean ground;
+
+        Struct(String name, Term... args) {
+            this.name = name;
+            this.args = args;
+            boolean g = true;
+            for (Term arg : args) {
+                if (!(arg.isAtomic() || arg instanceof Struct && ((Struct) arg).ground)) {
+                    g = false;
+                    break;
+                }
+            }
+            this.ground = g;
+        }
+
+        boolean is(String functor, int arity) {
+            return args.length == arity && name.equals(functor);
+        }
+
+        String key() {
+            return name + "/" + args.length;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            if (is(LIST_FUNCTOR, 2)) {
+                sb.append('[');
+                Term t = this;
+                String separator = "";
+                while (t instanceof Struct && ((Struct) t).is(LIST_FUNCTOR, 2)) {
+                    sb.append(separator).append(((Struct) t).args[0].deref());
+                    separator = ",";
+                    t = ((Struct) t).args[1].deref();
+                }
+                if (!NIL.equals(t)) {
+                    sb.append('|').append(t);
+                }
+                return sb.append(']').toString();
+            }
+            sb.append(name).append('(');
+            for (int i = 0; i < args.length; i++) {
+                sb.append(i == 0 ? "" : ",").append(args[i].deref());
+            }
+            return sb.append(')').toString();
+        }
+    }
+
+    /**
+     * A variable. Variables of stored clauses have an index into the frame of
+     * the call that uses the clause and are never bound; variables created while
+     * solving have the index -1.
+     */
+    static final class Var extends Term {
+        final int index;
+        Term ref = null;
+
+        Var() {
+            this.index = -1;
+        }
+
+        Var(int index) {
+            this.index = index;
+        }
+
+        @Override
+        Term deref() {
+            Term t = this;
+            while (t instanceof Var && ((Var) t).ref != null) {
+                t = ((Var) t).ref;
+            }
+            return t;
+        }
+
+        @Override
+        public String toString() {
+            return "_G" + Integer.toHexString(System.identityHashCode(this));
+        }
+    }
+
+    static Term list(List<Term> elements) {
+        Term list = NIL;
+        for (int i = elements.size() - 1; i >= 0; i--) {
+            list = new Struct(LIST_FUNCTOR, elements.get(i), list);
+        }
+        return list;
+    }
+
+    /**
+     * @return the elements of a proper list, or null if the term is not one
+     */
+    static List<Term> elements(Term list) {
+        List<Term> elements = new ArrayList<>();
+        Term t = list.deref();
+        while (t instanceof Struct && ((Struct) t).is(LIST_FUNCTOR, 2)) {
+            elements.add(((Struct) t).args[0]);
+            t = ((Struct) t).args[1].deref();
+        }
+        return NIL.equals(t) ? elements : null;
+    }
+
+    /**
+     * Compares two terms in the standard order of terms: variables, numbers,
+     * atoms, then compound terms by arity, name and arguments.
+     */
+    static int compare(Term a, Term b) {
+        a = a.deref();
+        b = b.deref();
+        if (a == b) {
+            return 0;
+        }
+        int ra = rank(a);
+        int rb = rank(b);
+        if (ra != rb) {
+            return Integer.compare(ra, rb);
+        }
+        if (a instanceof Var) {
+            return Integer.compare(System.identityHashCode(a), System.identityHashCode(b));
+        }
+        if (a instanceof Num) {
+            Num x = (Num) a;
+            Num y = (Num) b;
+            int c = x.integer && y.integer ? Long.compare(x.longValue, y.longValue)
+                    : Double.compare(x.doubleValue, y.doubleValue);
+            return c != 0 ? c : Boolean.compare(x.integer, y.integer);
+        }
+        if (a instanceof Atom) {
+            return ((Atom) a).name.compareTo(((Atom) b).name);
+        }
+        Struct x = (Struct) a;
+        Struct y = (Struct) b;
+        if (x.args.length != y.args.length) {
+            return Integer.compare(x.args.length, y.args.length);
+        }
+        int c = x.name.compareTo(y.name);
+        for (int i = 0; c == 0 && i < x.args.length; i++) {
+            c = compare(x.args[i], y.args[i]);
+        }
+        return c;
+    }
+
+    private static int rank(Term t) {
+        if (t instanceof Var) {
+            return 0;
+        } else if (t instanceof Num) {
+            return 1;
+        } else if (t instanceof Atom) {
+            return 2;
+        } else {
+            return 3;
+        }
+    }
+}
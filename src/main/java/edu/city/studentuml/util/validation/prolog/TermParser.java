@@ -0,0 +1,365 @@
+package edu.city.studentuml.util.validation.prolog;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.city.studentuml.util.validation.prolog.Term.Atom;
+import edu.city.studentuml.util.validation.prolog.Term.Num;
+import edu.city.studentuml.util.validation.prolog.Term.Struct;
+import edu.city.studentuml.util.validation.prolog.Term.Var;
+
+/**
+ * Parses a single clause or query ending in a full stop, with the standard
+ * operators the consistency rules use.
+ */
+class TermParser {
+
+    private static final String SYMBOL_CHARS = "+-*/\\^<>=~:.?@#&$";
+
+    private static final int XFX = 0;
+    private static final int XFY = 1;
+    private static final int YFX = 2;
+
+    private static final Map<String, int[]> INFIX = new HashMap<>();
+    private static final Map<String, Integer> PREFIX = new HashMap<>();
+
+    static {
+        INFIX.put(":-", new int[] { 1200, XFX });
+        INFIX.put(";", new int[] { 1100, XFY });
+        INFIX.put("->", new int[] { 1050, XFY });
+        INFIX.put(",", new int[] { 1000, XFY });
+        for (String op : new String[] { "=", "\\=", "==", "\\==", "<", ">", "=<", ">=", "=:=", "=\\=", "is" }) {
+            INFIX.put(op, new int[] { 700, XFX });
+        }
+        INFIX.put("+", new int[] { 500, YFX });
+        INFIX.put("-", new int[] { 500, YFX });
+        INFIX.put("*", new int[] { 400, YFX });
+        INFIX.put("/", new int[] { 400, YFX });
+        PREFIX.put(":-", 1200);
+        PREFIX.put("\\+", 900);
+        PREFIX.put("-", 200);
+    }
+
+    private enum Kind {
+        ATOM, QUOTED, VAR, NUMBER, PUNCT, END
+    }
+
+    private static final class Token {
+        final Kind kind;
+        final String text;
+        /**
+         * True if the token follows the previous one without white space, which
+         * tells a functor from an atom followed by a parenthesised term.
+         */
+        final boolean adjacent;
+
+        Token(Kind kind, String text, boolean adjacent) {
+            this.kind = kind;
+            this.text = text;
+            this.adjacent = adjacent;
+        }
+
+        boolean is(String punct) {
+            return (kind == Kind.PUNCT || kind == Kind.ATOM) && text.equals(punct);
+        }
+
+        @Override
+        public String toString() {
+            return kind == Kind.END ? "end of clause" : "'" + text + "'";
+        }
+    }
+
+    private final String text;
+    private int position = 0;
+    private Token token;
+    private final Map<String, Var> variables = new LinkedHashMap<>();
+
+    private TermParser(String text) {
+        this.text = text;
+        next();
+    }
+
+    /**
+     * Parses the text as a single term followed by an optional full stop.
+     *
+     * @param text
+     * @param variables receives the named variables of the term in the order they
+     *                  first appear; may be null
+     * @return the term
+     * @throws PrologException if the text is not a term
+     */
+    static Term parse(String text, Map<String, Var> variables) {
+        TermParser parser = new TermParser(text);
+        Term term = parser.parse(1200);
+        if (parser.token.kind != Kind.END) {
+            throw parser.error("operator expected");
+        }
+        parser.skipWhiteSpace();
+        if (parser.position < text.length()) {
+            throw parser.error("only one clause expected");
+        }
+        if (variables != null) {
+            variables.putAll(parser.variables);
+        }
+        return term;
+    }
+
+    private Term parse(int maxPrecedence) {
+        int[] leftPrecedence = new int[1];
+        Term left = parsePrimary(maxPrecedence, leftPrecedence);
+        while (true) {
+            int[] op = infix();
+            if (op == null || op[0] > maxPrecedence) {
+                return left;
+            }
+            int precedence = op[0];
+            int leftMax = op[1] == YFX ? precedence : precedence - 1;
+            if (leftPrecedence[0] > leftMax) {
+                return left;
+            }
+            String name = token.text;
+            next();
+            Term right = parse(op[1] == XFY ? precedence : precedence - 1);
+            left = new Struct(name, left, right);
+            leftPrecedence[0] = precedence;
+        }
+    }
+
+    private int[] infix() {
+        if (token.kind == Kind.ATOM || token.kind == Kind.PUNCT) {
+            return INFIX.get(token.text);
+        }
+        return null;
+    }
+
+    private Term parsePrimary(int maxPrecedence, int[] precedence) {
+        Token t = token;
+        precedence[0] = 0;
+        switch (t.kind) {
+        case NUMBER:
+            next();
+            return number(t.text);
+        case VAR:
+            next();
+            if (t.text.equals("_")) {
+                return new Var();
+            }
+            return variables.computeIfAbsent(t.text, name -> new Var());
+        case QUOTED:
+            next();
+            return token.is("(") && token.adjacent ? compound(t.text) : new Atom(t.text);
+        case PUNCT:
+            if (t.text.equals("(")) {
+                next();
+                Term term = parse(1200);
+                expect(")");
+                return term;
+            }
+            if (t.text.equals("[")) {
+                next();
+                return list();
+            }
+            if (t.text.equals("{") || t.text.equals(",") || t.text.equals("|")) {
+                throw error("unexpected " + t);
+            }
+            next();
+            return new Atom(t.text);
+        case ATOM:
+            next();
+            if (token.is("(") && token.adjacent) {
+                return compound(t.text);
+            }
+            Integer prefix = PREFIX.get(t.text);
+            if (prefix != null && startsTerm()) {
+                if (t.text.equals("-") && token.kind == Kind.NUMBER && token.adjacent) {
+                    Token n = token;
+                    next();
+                    return number("-" + n.text);
+                }
+                int p = Math.min(prefix, maxPrecedence);
+                Term arg = parse(p);
+                precedence[0] = p;
+                return new Struct(t.text, arg);
+            }
+            return new Atom(t.text);
+        default:
+            throw error("unexpected " + t);
+        }
+    }
+
+    private boolean startsTerm() {
+        switch (token.kind) {
+        case END:
+            return false;
+        case PUNCT:
+            return token.text.equals("(") || token.text.equals("[") || token.text.equals("!");
+        case ATOM:
+            return !INFIX.containsKey(token.text) || PREFIX.containsKey(token.text) || token.adjacent;
+        default:
+            return true;
+        }
+    }
+
+    private Term compound(String name) {
+        expect("(");
+        List<Term> args = new ArrayList<>();
+        args.add(parse(999));
+        while (token.is(",")) {
+            next();
+            args.add(parse(999));
+        }
+        expect(")");
+        return new Struct(name, args.toArray(new Term[0]));
+    }
+
+    private Term list() {
+        if (token.is("]")) {
+            next();
+            return Term.NIL;
+        }
+        List<Term> elements = new ArrayList<>();
+        elements.add(parse(999));
+        while (token.is(",")) {
+            next();
+            elements.add(parse(999));
+        }
+        Term tail = Term.NIL;
+        if (token.is("|")) {
+            next();
+            tail = parse(999);
+        }
+        expect("]");
+        for (int i = elements.size() - 1; i >= 0; i--) {
+            tail = new Struct(Term.LIST_FUNCTOR, elements.get(i), tail);
+        }
+        return tail;
+    }
+
+    private Term number(String s) {
+        try {
+            if (s.indexOf('.') >= 0) {
+                return new Num(Double.parseDouble(s));
+            }
+            return new Num(Long.parseLong(s));
+        } catch (NumberFormatException e) {
+            throw error("invalid number " + s);
+        }
+    }
+
+    private void expect(String punct) {
+        if (!token.is(punct)) {
+            throw error("'" + punct + "' expected but found " + token);
+        }
+        next();
+    }
+
+    private PrologException error(String message) {
+        return new PrologException("Syntax error at " + position + ": " + message + " in " + text);
+    }
+
+    private void skipWhiteSpace() {
+        while (position < text.length()) {
+            char c = text.charAt(position);
+            if (Character.isWhitespace(c)) {
+                position++;
+            } else if (c == '%') {
+                while (position < text.length() && text.charAt(position) != '\n') {
+                    position++;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void next() {
+        int start = position;
+        skipWhiteSpace();
+        boolean adjacent = position == start;
+        if (position >= text.length()) {
+            token = new Token(Kind.END, "", adjacent);
+            return;
+        }
+
+        char c = text.charAt(position);
+        int begin = position;
+        if (Character.isDigit(c)) {
+            position++;
+            while (position < text.length() && Character.isDigit(text.charAt(position))) {
+                position++;
+            }
+            if (position + 1 < text.length() && text.charAt(position) == '.'
+                    && Character.isDigit(text.charAt(position + 1))) {
+                position++;
+                while (position < text.length() && Character.isDigit(text.charAt(position))) {
+                    position++;
+                }
+            }
+            token = new Token(Kind.NUMBER, text.substring(begin, position), adjacent);
+        } else if (Character.isLetter(c) || c == '_') {
+            while (position < text.length()
+                    && (Character.isLetterOrDigit(text.charAt(position)) || text.charAt(position) == '_')) {
+                position++;
+            }
+            String name = text.substring(begin, position);
+            token = new Token(Character.isUpperCase(c) || c == '_' ? Kind.VAR : Kind.ATOM, name, adjacent);
+        } else if (c == '\'') {
+            token = new Token(Kind.QUOTED, quoted(), adjacent);
+        } else if ("()[]{},|".indexOf(c) >= 0) {
+            position++;
+            token = new Token(Kind.PUNCT, String.valueOf(c), adjacent);
+        } else if (c == '!' || c == ';') {
+            position++;
+            token = new Token(Kind.ATOM, String.valueOf(c), adjacent);
+        } else if (SYMBOL_CHARS.indexOf(c) >= 0) {
+            if (c == '.' && (position + 1 == text.length() || Character.isWhitespace(text.charAt(position + 1))
+                    || text.charAt(position + 1) == '%')) {
+                position++;
+                token = new Token(Kind.END, ".", adjacent);
+                return;
+            }
+            while (position < text.length() && SYMBOL_CHARS.indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            token = new Token(Kind.ATOM, text.substring(begin, position), adjacent);
+        } else {
+            throw error("unexpected character '" + c + "'");
+        }
+    }
+
+    private String quoted() {
+        StringBuilder sb = new StringBuilder();
+        position++;
+        while (true) {
+            if (position >= text.length()) {
+                throw error("unterminated quoted atom");
+            }
+            char c = text.charAt(position++);
+            if (c == '\'') {
+                if (position < text.length() && text.charAt(position) == '\'') {
+                    sb.append('\'');
+                    position++;
+                } else {
+                    return sb.toString();
+                }
+            } else if (c == '\\' && position < text.length()) {
+                char e = text.charAt(position++);
+                switch (e) {
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                default:
+                    sb.append(e);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+}
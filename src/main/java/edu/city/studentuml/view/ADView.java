@@ -26,7 +26,7 @@ public class ADView extends DiagramView {
         // FIRST: Draw notes (bottom layer, won't obscure other elements)
         model.getGraphicalElements().stream()
                 .filter(UMLNoteGR.class::isInstance)
-                .forEach(ge -> ge.draw(g));
+                .forEach(ge -> drawElement(ge, g));
 
         // THEN: Draw nodes and edges (top layer)
         for (GraphicalElement element : model.getGraphicalElements()) {
@@ -35,17 +35,17 @@ public class ADView extends DiagramView {
             }
             if (element instanceof NodeComponentGR) {
                 NodeComponentGR comp = (NodeComponentGR) element;
-                comp.draw(g);
+                drawElement(comp, g);
 
-                comp.getIncomingRelations().forEach(link -> link.draw(g));
+                comp.getIncomingRelations().forEach(link -> drawElement(link, g));
 
                 comp.createIterator().forEachRemaining(el -> {
-                    el.draw(g);
-                    el.getIncomingRelations().forEach(link -> link.draw(g));
+                    drawElement(el, g);
+                    el.getIncomingRelations().forEach(link -> drawElement(link, g));
                 });
 
             } else if (!(element instanceof EdgeGR)) { // already drawn
-                element.draw(g);
+                drawElement(element, g);
             }
         }
 
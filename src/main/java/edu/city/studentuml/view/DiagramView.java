@@ -2,22 +2,33 @@ package edu.city.studentuml.view;
 
 import java.awt.BasicStroke;
 import java.awt.Dimension;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import javax.swing.JPanel;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.ChangeListener;
 
 import edu.city.studentuml.controller.SelectionController;
 import edu.city.studentuml.model.graphical.AbstractLinkGR;
+import edu.city.studentuml.model.graphical.DiagramChangeEvent;
 import edu.city.studentuml.model.graphical.DiagramModel;
 import edu.city.studentuml.model.graphical.EndpointType;
 import edu.city.studentuml.model.graphical.GraphicalElement;
@@ -25,6 +36,7 @@ import edu.city.studentuml.model.graphical.LinkGR;
 import edu.city.studentuml.model.graphical.SDMessageGR;
 import edu.city.studentuml.model.graphical.UMLNoteGR;
 import edu.city.studentuml.util.Colors;
+import edu.city.studentuml.util.Settings;
 import edu.city.studentuml.util.Theme;
 
 public abstract class DiagramView extends JPanel implements PropertyChangeListener {
@@ -34,6 +46,24 @@ public abstract class DiagramView extends JPanel implements PropertyChangeListen
     public static final double MAX_SCALE = 10.0; // 1000%;
     public static final double MIN_SCALE = 0.1; // 10%
 
+    /**
+     * The system property that makes views show how many elements they drew in
+     * the last frame.
+     */
+    public static final String PAINT_STATISTICS_PROPERTY = "studentuml.paint.statistics";
+
+    /**
+     * How far outside its paint bounds an element may draw strokes, arrow heads
+     * and labels.
+     */
+    private static final int PAINT_MARGIN = 100;
+
+    /**
+     * How long after the last zoom or scroll step the view is drawn again with
+     * the quality rendering hints.
+     */
+    private static final int SETTLE_MILLIS = 250;
+
     protected DiagramModel model;
     protected transient Line2D dragLine = new Line2D.Double(0, 0, 0, 0);
     protected transient Rectangle2D dragRectangle = new Rectangle2D.Double(0, 0, 0, 0);
@@ -52,6 +82,49 @@ public abstract class DiagramView extends JPanel implements PropertyChangeListen
     private int maxWidth;
     private int maxHeight;
 
+    /**
+     * Some elements compute their size while they are drawn, so every element is
+     * drawn in the first frame after the model or the scale changes; only the
+     * frames after it skip the elements outside the clip. Moving elements does
+     * not change their size, so it keeps skipping them.
+     */
+    private boolean layoutPending = true;
+
+    private boolean showPaintStatistics = Boolean.getBoolean(PAINT_STATISTICS_PROPERTY);
+    /**
+     * The scroll mode of the viewport before the paint statistics were shown, or
+     * null if they are not shown in a viewport.
+     */
+    private Integer scrollModeBeforeStatistics;
+    private int drawnElements = 0;
+    private int totalElements = 0;
+    private Rectangle statisticsBounds = new Rectangle();
+    private int outlinedElements = 0;
+    private long paintMillis = 0;
+
+    /**
+     * The on-screen size in pixels below which elements are drawn as outlines,
+     * without measuring or drawing their text.
+     */
+    private double levelOfDetailSize = Settings.getLevelOfDetailSize();
+
+    /**
+     * The detail size, in diagram coordinates, below which elements are drawn as
+     * outlines; only set while the view paints itself, so that images are drawn
+     * with every detail.
+     */
+    private double minDetailSize = 0;
+
+    /**
+     * Set while the view is being zoomed or scrolled, when it is drawn with the
+     * fast rendering hints.
+     */
+    private boolean interacting = false;
+    private final Timer settleTimer;
+    private final transient ChangeListener viewportListener = e -> viewportChanged();
+    private JViewport viewport;
+    private Point viewPosition;
+
     protected ReentrantLock lock = new ReentrantLock();
 
     protected DiagramView(DiagramModel m) {
@@ -63,6 +136,12 @@ public abstract class DiagramView extends JPanel implements PropertyChangeListen
 
         setDoubleBuffered(true);
 
+        settleTimer = new Timer(SETTLE_MILLIS, e -> {
+            interacting = false;
+            repaint();
+        });
+        settleTimer.setRepeats(false);
+
         // Initialize inline message editor - pass this as parent component
         inlineMessageEditor = new InlineMessageEditor(this, this);
     }
@@ -81,6 +160,8 @@ public abstract class DiagramView extends JPanel implements PropertyChangeListen
         if (this.scale < MIN_SCALE) {
             this.scale = MIN_SCALE;
         }
+        layoutPending = true;
+        startInteraction();
         changeSizeToFitAllElements();
         repaint();
     }
@@ -93,6 +174,72 @@ public abstract class DiagramView extends JPanel implements PropertyChangeListen
         setScale(scale * 0.9);
     }
 
+    /**
+     * Draws the view with the fast rendering hints until it has not been zoomed
+     * or scrolled for a while, and then once more with the quality ones.
+     */
+    private void startInteraction() {
+        interacting = true;
+        settleTimer.restart();
+    }
+
+    /**
+     * @return whether the view is being zoomed or scrolled and is drawn with the
+     *         fast rendering hints
+     */
+    public boolean isInteracting() {
+        return interacting;
+    }
+
+    /**
+     * Sets the on-screen size below which elements are drawn as outlines.
+     * 
+     * @param pixels 0 to always draw the details
+     */
+    public void setLevelOfDetailSize(double pixels) {
+        levelOfDetailSize = pixels;
+        repaint();
+    }
+
+    public double getLevelOfDetailSize() {
+        return levelOfDetailSize;
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        if (viewport != null) {
+            viewPosition = viewport.getViewPosition();
+            viewport.addChangeListener(viewportListener);
+            updateScrollMode();
+        }
+    }
+
+    /**
+     * Starts an interaction when the view is scrolled; zooming starts one in
+     * {@link #setScale(double)}. The viewport also reports resizes of the view, such as those after adding
+     * an element, which are not scrolling.
+     */
+    private void viewportChanged() {
+        Point position = viewport.getViewPosition();
+        if (!position.equals(viewPosition)) {
+            viewPosition = position;
+            startInteraction();
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        if (viewport != null) {
+            viewport.removeChangeListener(viewportListener);
+            restoreScrollMode();
+            viewport = null;
+        }
+        settleTimer.stop();
+        super.removeNotify();
+    }
+
     private int scaleTo(double number) {
         return (int) (number * getScale());
     }
@@ -109,18 +256,118 @@ public abstract class DiagramView extends JPanel implements PropertyChangeListen
         this.dragRectangle = dragRectangle;
     }
 
+    /**
+     * Shows how many of the elements of the diagram were drawn in the last frame
+     * in the top left corner of the view. While shown, scrolling repaints the
+     * whole view instead of copying the part that remains visible.
+     * 
+     * @param show
+     */
+    public void setShowPaintStatistics(boolean show) {
+        showPaintStatistics = show;
+        updateScrollMode();
+        repaint();
+    }
+
+    /**
+     * The statistics are drawn at the top left corner of the visible area, so the
+     * viewport must not copy them along when it scrolls.
+     */
+    private void updateScrollMode() {
+        if (viewport == null) {
+            return;
+        }
+        if (!showPaintStatistics) {
+            restoreScrollMode();
+        } else if (scrollModeBeforeStatistics == null) {
+            scrollModeBeforeStatistics = viewport.getScrollMode();
+            viewport.setScrollMode(JViewport.SIMPLE_SCROLL_MODE);
+        }
+    }
+
+    private void restoreScrollMode() {
+        if (scrollModeBeforeStatistics != null) {
+            viewport.setScrollMode(scrollModeBeforeStatistics);
+            scrollModeBeforeStatistics = null;
+        }
+    }
+
+    public boolean isShowPaintStatistics() {
+        return showPaintStatistics;
+    }
+
+    /**
+     * @return the number of elements drawn by the last call of drawDiagram
+     */
+    public int getDrawnElements() {
+        return drawnElements;
+    }
+
+    /**
+     * @return the number of elements of the diagram at the last call of
+     *         drawDiagram
+     */
+    public int getTotalElements() {
+        return totalElements;
+    }
+
+    /**
+     * @return the number of the drawn elements that were drawn as outlines in the
+     *         last frame
+     */
+    public int getOutlinedElements() {
+        return outlinedElements;
+    }
+
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
 
         Graphics2D g2d = (Graphics2D) g;
 
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        long start = System.nanoTime();
+        if (interacting) {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+        } else {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        }
 
+        AffineTransform viewTransform = g2d.getTransform();
         g2d.scale(scale, scale);
 
-        drawDiagram(g2d);
+        outlinedElements = 0;
+        minDetailSize = levelOfDetailSize / scale;
+        try {
+            drawDiagram(g2d);
+        } finally {
+            minDetailSize = 0;
+        }
+        paintMillis = (System.nanoTime() - start) / 1_000_000;
+
+        if (showPaintStatistics) {
+            g2d.setTransform(viewTransform);
+            drawPaintStatistics(g2d);
+        }
+    }
+
+    private void drawPaintStatistics(Graphics2D g) {
+        String text = "Drawn " + drawnElements + " of " + totalElements + " elements, " + outlinedElements
+                + " as outlines, in " + paintMillis + " ms";
+        FontMetrics metrics = g.getFontMetrics();
+        Rectangle visible = getVisibleRect();
+        int x = visible.x + 5;
+        int y = visible.y + 5;
+
+        statisticsBounds = new Rectangle(x, y, metrics.stringWidth(text) + 10, metrics.getHeight() + 6);
+        g.setPaint(Colors.getBackgroundColor());
+        g.fill(statisticsBounds);
+        g.setPaint(Colors.getOutlineColor());
+        g.setStroke(new BasicStroke(1));
+        g.draw(statisticsBounds);
+        g.drawString(text, x + 5, y + 3 + metrics.getAscent());
     }
 
     @Override
@@ -204,22 +451,52 @@ public abstract class DiagramView extends JPanel implements PropertyChangeListen
         return image;
     }
 
+    /**
+     * Draws the elements that may be visible in the clip of the graphics, or all
+     * of them if it has no clip or the model has changed since the last frame.
+     * While the view paints itself, the elements too small on screen are drawn as
+     * outlines.
+     * 
+     * @param g
+     */
     public void drawDiagram(Graphics2D g) {
         lock.lock();
 
+        boolean layout = layoutPending;
+        Rectangle clip = layout ? null : g.getClipBounds();
+        layoutPending = false;
+        List<GraphicalElement> links = new ArrayList<>();
+        List<GraphicalElement> notes = new ArrayList<>();
+        List<GraphicalElement> others = new ArrayList<>();
+        int total = 0;
+        for (GraphicalElement ge : model.getGraphicalElements()) {
+            total++;
+            if (clip != null && !mayBeVisible(ge, clip)) {
+                continue;
+            }
+            if (ge instanceof LinkGR) {
+                links.add(ge);
+            } else if (ge instanceof UMLNoteGR) {
+                notes.add(ge);
+            } else {
+                others.add(ge);
+            }
+        }
+
         // First draw all the LinkGR elements
-        model.getGraphicalElements().stream()
-                .filter(LinkGR.class::isInstance)
-                .forEach(ge -> ge.draw(g));
+        links.forEach(ge -> drawElement(ge, g));
 
-        model.getGraphicalElements().stream()
-                .filter(UMLNoteGR.class::isInstance)
-                .forEach(ge -> ge.draw(g));
+        notes.forEach(ge -> drawElement(ge, g));
 
         // .. and then everything else
-        model.getGraphicalElements().stream()
-                .filter(ge -> !(ge instanceof LinkGR) && !(ge instanceof UMLNoteGR))
-                .forEach(ge -> ge.draw(g));
+        others.forEach(ge -> drawElement(ge, g));
+
+        drawnElements = links.size() + notes.size() + others.size();
+        totalElements = total;
+        if (layout) {
+            // the elements may have resized themselves to fit their text
+            model.boundsChanged();
+        }
 
         // ... finally draw the dragline and rectangle
         drawLineAndRectangle(g);
@@ -227,6 +504,31 @@ public abstract class DiagramView extends JPanel implements PropertyChangeListen
         lock.unlock();
     }
 
+    /**
+     * Draws the element, or only its outline if it is too small on screen to show
+     * its details. Outlines do not measure text, so the elements drawn as outlines
+     * in the first frame keep the size they had.
+     * 
+     * @param ge
+     * @param g
+     */
+    protected void drawElement(GraphicalElement ge, Graphics2D g) {
+        double detailSize = ge.getDetailSize();
+        // elements that have not been laid out yet are drawn to measure them
+        if (detailSize > 0 && detailSize < minDetailSize) {
+            ge.drawOutline(g);
+            outlinedElements++;
+        } else {
+            ge.draw(g);
+        }
+    }
+
+    private static boolean mayBeVisible(GraphicalElement ge, Rectangle clip) {
+        Rectangle2D bounds = ge.getPaintBounds();
+        return clip.intersects(bounds.getX() - PAINT_MARGIN, bounds.getY() - PAINT_MARGIN,
+                bounds.getWidth() + 2.0 * PAINT_MARGIN, bounds.getHeight() + 2.0 * PAINT_MARGIN);
+    }
+
     /**
      * Resizes the panel to fit the maximum dimensions of all the elements in the
      * diagram.
@@ -331,6 +633,7 @@ public abstract class DiagramView extends JPanel implements PropertyChangeListen
         }
 
         model = m;
+        layoutPending = true;
 
         if (m != null) {
             m.addPropertyChangeListener(this);
@@ -356,20 +659,35 @@ public abstract class DiagramView extends JPanel implements PropertyChangeListen
         return new Dimension(getWidth(), getHeight());
     }
 
+    /**
+     * Repaints the area of the elements that changed, or the whole view if the
+     * event does not say which elements changed. The frame after a change other
+     * than moving elements draws every element.
+     */
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
-        repaint();
+        if (!(evt instanceof DiagramChangeEvent) || layoutPending) {
+            if (!DiagramModel.isLayoutChange(evt)) {
+                layoutPending = true;
+            }
+            repaint();
+            return;
+        }
+
+        Rectangle2D damaged = ((DiagramChangeEvent) evt).getDamagedArea();
+        int x = (int) Math.floor((damaged.getX() - PAINT_MARGIN) * scale);
+        int y = (int) Math.floor((damaged.getY() - PAINT_MARGIN) * scale);
+        int toX = (int) Math.ceil((damaged.getMaxX() + PAINT_MARGIN) * scale);
+        int toY = (int) Math.ceil((damaged.getMaxY() + PAINT_MARGIN) * scale);
+        repaint(new Rectangle(x, y, toX - x, toY - y).intersection(new Rectangle(0, 0, getWidth(), getHeight())));
+        if (showPaintStatistics) {
+            repaint(statisticsBounds);
+        }
     }
 
     public Point2D.Double getMaxPositionOfElements() {
-        double maxX = 0;
-        double maxY = 0;
-        for (GraphicalElement ge : model.getGraphicalElements()) {
-            Rectangle2D bounds = ge.getBounds();
-            maxX = Math.max(maxX, bounds.getMaxX());
-            maxY = Math.max(maxY, bounds.getMaxY());
-        }
-        return new Point2D.Double(maxX + 20, maxY + 20);
+        Point2D.Double extent = model.getExtent();
+        return new Point2D.Double(extent.getX() + 20, extent.getY() + 20);
     }
 
 }
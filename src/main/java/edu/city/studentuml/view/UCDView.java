@@ -23,7 +23,7 @@ public class UCDView extends DiagramView {
         // FIRST: Draw notes (bottom layer, won't obscure other elements)
         model.getGraphicalElements().stream()
                 .filter(UMLNoteGR.class::isInstance)
-                .forEach(ge -> ge.draw(g));
+                .forEach(ge -> drawElement(ge, g));
 
         // THEN: Draw components and links (top layer)
         for (GraphicalElement element : model.getGraphicalElements()) {
@@ -32,17 +32,17 @@ public class UCDView extends DiagramView {
             }
             if (element instanceof UCDComponentGR) {
                 UCDComponentGR comp = (UCDComponentGR) element;
-                comp.draw(g);
+                drawElement(comp, g);
 
-                comp.getIncomingRelations().forEach(link -> link.draw(g));
+                comp.getIncomingRelations().forEach(link -> drawElement(link, g));
 
                 comp.createIterator().forEachRemaining(el -> {
-                    el.draw(g);
-                    el.getIncomingRelations().forEach(link -> link.draw(g));
+                    drawElement(el, g);
+                    el.getIncomingRelations().forEach(link -> drawElement(link, g));
                 });
 
             } else if (!(element instanceof UCLinkGR)) { // links are already drawn
-                element.draw(g);
+                drawElement(element, g);
             }
         }
 
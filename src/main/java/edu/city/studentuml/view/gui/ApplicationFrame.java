@@ -209,7 +209,10 @@ public class ApplicationFrame extends ApplicationGUI {
             // if no file has yet been chosen, prompt via method saveProjectAs
             saveProjectAs();
         } else {
-            umlProject.streamToXML();
+            SystemWideObjectNamePool.getInstance().flushCheck();
+            if (!writeProject()) {
+                return;
+            }
             updateFrameTitle();
 
             Settings.setDefaultPath(umlProjectFilePath);
@@ -240,11 +243,16 @@ public class ApplicationFrame extends ApplicationGUI {
             filePath += XMLFileFilter.EXTENSION;
         }
 
+        String previousFilePath = umlProject.getFilepath();
         umlProject.setFilepath(filePath);
 
         logger.log(Level.FINE, "Saving file as: {0}", filePath);
 
-        umlProject.streamToXML();
+        SystemWideObjectNamePool.getInstance().flushCheck();
+        if (!writeProject()) {
+            umlProject.setFilepath(previousFilePath);
+            return;
+        }
         updateFrameTitle();
 
         addToRecentFiles(filePath);
@@ -252,6 +260,25 @@ public class ApplicationFrame extends ApplicationGUI {
         Settings.setDefaultPath(filePath);
     }
 
+    /**
+     * Writes the project to its file, reporting a failure to the user.
+     * 
+     * @return false if the project could not be written and is still unsaved
+     */
+    private boolean writeProject() {
+        try {
+            umlProject.streamToXML();
+            return true;
+        } catch (IOException e) {
+            logger.warning(() -> "Cannot save " + umlProject.getFilepath() + ": " + e.getMessage());
+            JOptionPane.showMessageDialog(null,
+                    "The project cannot be saved to " + umlProject.getFilepath() + ":\n" + e.getMessage()
+                            + "\n\nThe file was left unchanged.",
+                    "IO Error", JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
+    }
+
     @Override
     public void exportImage() {
         JInternalFrame paneSelectedFrame = desktopPane.getSelectedFrame();
@@ -79,6 +79,8 @@ public abstract class ApplicationGUI extends JPanel implements KeyListener, Prop
 
     private static final Logger logger = Logger.getLogger(ApplicationGUI.class.getName());
 
+    private static final String PROBLEMS_TAB = "Problems";
+
     protected StudentUMLFrame frame = null;
     protected boolean repairMode = false;
     protected UMLProject umlProject = UMLProject.getInstance();
@@ -100,6 +102,7 @@ public abstract class ApplicationGUI extends JPanel implements KeyListener, Prop
     protected JPanel panel;
     protected int ruleEditorTabPlacement = -1;
     protected int factsTreeTabPlacement = -1;
+    private RuleProfilerPanel ruleProfilerPanel = null;
     protected JPopupMenu popupMenu;
     protected JMenuItem popupRepair;
     protected JMenuItem popupHelp;
@@ -137,6 +140,7 @@ public abstract class ApplicationGUI extends JPanel implements KeyListener, Prop
         setRunTimeConsistencyCheckAndShowTabbedPane(Settings.isConsistencyCheckEnabled());
         showFactsTab(Settings.showFacts());
         showRuleEditorTab(Settings.showRules());
+        showRuleProfilerTab(Settings.showRuleProfiler());
 
         consistencyCheckTabbedPane.setSelectedIndex(0);
 
@@ -171,6 +175,9 @@ public abstract class ApplicationGUI extends JPanel implements KeyListener, Prop
 
     private void initialize() {
         initializeRules();
+        SystemWideObjectNamePool.getInstance().setBackgroundChecking(true);
+        SystemWideObjectNamePool.getInstance().setParallelChecking(Settings.isParallelConsistencyCheck());
+        SystemWideObjectNamePool.getInstance().setCheckDelay(Settings.getConsistencyCheckDelay());
         SystemWideObjectNamePool.getInstance().addPropertyChangeListener(this);
         setUserId();
         addKeyListener(this);
@@ -263,7 +270,31 @@ public abstract class ApplicationGUI extends JPanel implements KeyListener, Prop
         panel.setLayout(new BorderLayout());
         panel.add(treeScrollPane);
 
-        consistencyCheckTabbedPane.addTab("Problems", null, panel, null);
+        consistencyCheckTabbedPane.addTab(PROBLEMS_TAB, null, panel, null);
+    }
+
+    /**
+     * Marks the problems tab while a background consistency check runs and shows
+     * the duration of the last check in its tooltip.
+     */
+    private void showConsistencyCheckRunning(boolean running) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> showConsistencyCheckRunning(running));
+            return;
+        }
+        if (consistencyCheckTabbedPane == null) {
+            return;
+        }
+        int index = consistencyCheckTabbedPane.indexOfComponent(panel);
+        if (index < 0) {
+            return;
+        }
+        consistencyCheckTabbedPane.setTitleAt(index, running ? PROBLEMS_TAB + " (checking\u2026)" : PROBLEMS_TAB);
+        SystemWideObjectNamePool pool = SystemWideObjectNamePool.getInstance();
+        long millis = pool.getLastCheckMillis();
+        consistencyCheckTabbedPane.setToolTipTextAt(index, millis < 0 ? null
+                : "Last check took " + millis + " ms (" + pool.getRunCheckCount() + " of "
+                        + pool.getRequestedCheckCount() + " requested checks run)");
     }
 
     private void createFactsAndMessageTree() {
@@ -436,6 +467,10 @@ public abstract class ApplicationGUI extends JPanel implements KeyListener, Prop
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
         Object object = evt.getNewValue();
+        if ("consistencyCheckRunning".equals(evt.getPropertyName())) {
+            showConsistencyCheckRunning((Boolean) object);
+            return;
+        }
         // String objString = "null";
         // if (object != null) {
         //     objString = object.getClass().getSimpleName();
@@ -576,6 +611,10 @@ public abstract class ApplicationGUI extends JPanel implements KeyListener, Prop
         SystemWideObjectNamePool.getInstance().createNewConsistencyCheckerAndReloadRules();
     }
 
+    public void checkConsistencyNow() {
+        SystemWideObjectNamePool.getInstance().checkNow();
+    }
+
     protected boolean isRuntimeChecking() {
         return SystemWideObjectNamePool.getInstance().isRuntimeChecking();
     }
@@ -742,6 +781,11 @@ public abstract class ApplicationGUI extends JPanel implements KeyListener, Prop
         }
     }
 
+    public void setParallelConsistencyCheck(boolean b) {
+        SystemWideObjectNamePool.getInstance().setParallelChecking(b);
+        SystemWideObjectNamePool.getInstance().reload();
+    }
+
     public void setRunTimeConsistencyCheckAndShowTabbedPane(boolean b) {
         setRuntimeChecking(b);
         consistencyCheckTabbedPane.setVisible(b);
@@ -782,6 +826,34 @@ public abstract class ApplicationGUI extends JPanel implements KeyListener, Prop
         }
     }
 
+    /**
+     * Shows the rule profiler tab and profiles the consistency checks while it is
+     * shown.
+     */
+    public void showRuleProfilerTab(boolean selected) {
+        SystemWideObjectNamePool pool = SystemWideObjectNamePool.getInstance();
+        if (selected && ruleProfilerPanel == null) {
+            pool.setProfiling(true);
+            ruleProfilerPanel = new RuleProfilerPanel();
+            pool.addPropertyChangeListener(ruleProfilerPanel);
+            consistencyCheckTabbedPane.addTab("Rule Profiler", ruleProfilerPanel);
+            consistencyCheckTabbedPane.setSelectedComponent(ruleProfilerPanel);
+        } else if (!selected && ruleProfilerPanel != null) {
+            pool.setProfiling(false);
+            pool.removePropertyChangeListener(ruleProfilerPanel);
+            int index = consistencyCheckTabbedPane.indexOfComponent(ruleProfilerPanel);
+            consistencyCheckTabbedPane.remove(index);
+            ruleProfilerPanel = null;
+            // the tabs after it moved
+            if (ruleEditorTabPlacement > index) {
+                ruleEditorTabPlacement--;
+            }
+            if (factsTreeTabPlacement > index) {
+                factsTreeTabPlacement--;
+            }
+        }
+    }
+
     public void simpleMode() {
         currentRuleFile = simpleRulesFile;
         setRuleFile(simpleRulesFile);
@@ -3,14 +3,21 @@ package edu.city.studentuml.view.gui;
 import java.awt.Component;
 import java.awt.GridLayout;
 import java.beans.PropertyVetoException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeEvent;
 import java.util.Vector;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
@@ -53,6 +60,7 @@ import edu.city.studentuml.model.domain.UCDComponent;
 import edu.city.studentuml.model.domain.UMLProject;
 import edu.city.studentuml.model.domain.UseCase;
 import edu.city.studentuml.model.graphical.ADModel;
+import edu.city.studentuml.model.graphical.AbstractSDModel;
 import edu.city.studentuml.model.graphical.CCDModel;
 import edu.city.studentuml.model.graphical.ConceptualClassGR;
 import edu.city.studentuml.model.graphical.DCDModel;
@@ -64,6 +72,7 @@ import edu.city.studentuml.model.graphical.SDModel;
 import edu.city.studentuml.model.graphical.SSDModel;
 import edu.city.studentuml.model.graphical.UCDComponentGR;
 import edu.city.studentuml.model.graphical.UCDModel;
+import edu.city.studentuml.model.repository.CentralRepository;
 import edu.city.studentuml.util.Constants;
 import edu.city.studentuml.util.MyImageIcon;
 import edu.city.studentuml.util.TreeExpansionState;
@@ -72,6 +81,9 @@ public class RepositoryTreeView extends JPanel implements PropertyChangeListener
 
     private static final Logger logger = Logger.getLogger(RepositoryTreeView.class.getName());
 
+    private static final String EXTENDS = "extends";
+    private static final String REALIZES = "realizes";
+
     private DefaultMutableTreeNode datamodelnode;
     private DefaultMutableTreeNode diagrammodelnode;
     private UMLProject umlProject = UMLProject.getInstance();
@@ -106,126 +118,161 @@ public class RepositoryTreeView extends JPanel implements PropertyChangeListener
         updateTree();
     }
 
+    /**
+     * Brings the tree up to date with the project. The nodes of the objects still
+     * in the project are kept, so that their expansion state is kept too, and the
+     * tree is told only about the nodes that were inserted, removed or renamed.
+     */
     public void updateTree() {
-        DefaultMutableTreeNode dnode;
-        RoleClassifier classifier;
-
-        UCDComponent ucdComponent;
-        ConceptualClass concept;
-        NodeComponent nodeComponent;
+        CentralRepository repository = umlProject.getCentralRepository();
 
-        String expState = getExpansionState(0);
-        datamodelnode.removeAllChildren();
-        treeModel.reload();
-        diagrammodelnode.removeAllChildren();
-        treeModel.reload();
+        Map<String, List<Object>> superClasses = new HashMap<>();
+        repository.getGeneralizations().forEach(g -> superClasses
+                .computeIfAbsent(g.getBaseClass().getName(), name -> new ArrayList<>()).add(g.getSuperClass()));
+        Map<String, List<Object>> realizedInterfaces = new HashMap<>();
+        repository.getRealizations().forEach(r -> realizedInterfaces
+                .computeIfAbsent(r.getTheClass().getName(), name -> new ArrayList<>()).add(r.getTheInterface()));
 
         List<DesignClass> classes = new ArrayList<>();
-        classes.addAll(umlProject.getCentralRepository().getClasses());
+        classes.addAll(repository.getClasses());
         classes.sort((c1, c2) -> c1.getName().compareTo(c2.getName()));
 
-        for (DesignClass dc : classes) {
-            DefaultMutableTreeNode designClassNode = addObject(datamodelnode, dc);
-
-            DefaultMutableTreeNode generalizationsNode = addObject(designClassNode, "extends");
-            umlProject.getCentralRepository().getGeneralizations().stream()
-                    .filter(g -> g.getBaseClass().getName().equals(dc.getName()))
-                    .collect(Collectors.toList()).forEach(cg -> addObject(generalizationsNode, cg.getSuperClass()));
-
-            DefaultMutableTreeNode raelizationsNode = addObject(designClassNode, "realizes");
-            umlProject.getCentralRepository().getRealizations().stream()
-                    .filter(g -> g.getTheClass().getName().equals(dc.getName()))
-                    .collect(Collectors.toList()).forEach(cg -> addObject(raelizationsNode, cg.getTheInterface()));
-        }
-
         List<Interface> interfaces = new ArrayList<>();
-        interfaces.addAll(umlProject.getCentralRepository().getInterfaces());
+        interfaces.addAll(repository.getInterfaces());
         interfaces.sort((c1, c2) -> c1.getName().compareTo(c2.getName()));
 
-        interfaces.forEach(designInterface -> addObject(datamodelnode, designInterface));
+        List<Object> dataModel = new ArrayList<>(classes);
+        dataModel.addAll(interfaces);
+        for (RepositoryNode node : updateChildren(datamodelnode, dataModel)) {
+            if (node.getUserObject() instanceof DesignClass) {
+                String name = ((DesignClass) node.getUserObject()).getName();
+                List<RepositoryNode> relationships = updateChildren(node, Arrays.asList(EXTENDS, REALIZES));
+                updateChildren(relationships.get(0), superClasses.getOrDefault(name, Collections.emptyList()));
+                updateChildren(relationships.get(1), realizedInterfaces.getOrDefault(name, Collections.emptyList()));
+            }
+        }
 
         List<DiagramModel> diagramModels = new ArrayList<>();
         diagramModels.addAll(umlProject.getDiagramModels());
         diagramModels.sort((c1, c2) -> c1.getName().compareTo(c2.getName()));
 
-        for (DiagramModel diagram : diagramModels) {
-            dnode = addObject(diagrammodelnode, diagram);
+        for (RepositoryNode dnode : updateChildren(diagrammodelnode, diagramModels)) {
+            updateChildren(dnode, getShownObjects((DiagramModel) dnode.getUserObject()));
+        }
+    }
 
-            if (diagram instanceof UCDModel) {
-                for (GraphicalElement e : ((UCDModel) diagram).getGraphicalElements()) {
-                    if (e instanceof UCDComponentGR) {
-                        ucdComponent = ((UCDComponentGR) e).getComponent();
-                        addUCDComponent(dnode, ucdComponent);
-                    }
-                }
-            }
+    /**
+     * Makes the children of the node show the objects, in their order, reusing
+     * the existing children that show them.
+     * 
+     * @return the children
+     */
+    private List<RepositoryNode> updateChildren(DefaultMutableTreeNode parent, List<?> userObjects) {
+        Map<Object, Deque<RepositoryNode>> existing = new IdentityHashMap<>();
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            RepositoryNode child = (RepositoryNode) parent.getChildAt(i);
+            existing.computeIfAbsent(child.getUserObject(), o -> new ArrayDeque<>()).add(child);
+        }
 
-            if (diagram instanceof SSDModel) {
-                Vector<RoleClassifierGR> roleClassifiers = ((SSDModel) diagram).getRoleClassifiers();
+        List<RepositoryNode> children = new ArrayList<>(userObjects.size());
+        for (Object userObject : userObjects) {
+            Deque<RepositoryNode> nodes = existing.get(userObject);
+            RepositoryNode child = nodes == null ? null : nodes.poll();
+            children.add(child == null ? new RepositoryNode(userObject) : child);
+        }
 
-                if (roleClassifiers != null) {
-                    for (RoleClassifierGR rcGR : roleClassifiers) {
-                        classifier = rcGR.getRoleClassifier();
-                        addObject(dnode, classifier);
-                    }
+        Set<RepositoryNode> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        kept.addAll(children);
+        List<Integer> indices = new ArrayList<>();
+        List<Object> removed = new ArrayList<>();
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            if (!kept.contains(parent.getChildAt(i))) {
+                indices.add(i);
+                removed.add(parent.getChildAt(i));
+            }
+        }
+        if (!removed.isEmpty()) {
+            for (int i = indices.size() - 1; i >= 0; i--) {
+                parent.remove(indices.get(i));
+            }
+            treeModel.nodesWereRemoved(parent, indices.stream().mapToInt(Integer::intValue).toArray(),
+                    removed.toArray());
+        }
+
+        for (int i = 0; i < children.size(); i++) {
+            RepositoryNode child = children.get(i);
+            if (i < parent.getChildCount() && parent.getChildAt(i) == child) {
+                if (child.updateText()) {
+                    treeModel.nodeChanged(child);
                 }
+                continue;
             }
+            // a renamed object moves to its new place in the sorted order
+            if (child.getParent() == parent) {
+                int index = parent.getIndex(child);
+                parent.remove(index);
+                treeModel.nodesWereRemoved(parent, new int[] { index }, new Object[] { child });
+                child.updateText();
+            }
+            parent.insert(child, i);
+            treeModel.nodesWereInserted(parent, new int[] { i });
+        }
+
+        return children;
+    }
 
-            if (diagram instanceof CCDModel) {
-                Vector<ConceptualClassGR> concepts = ((CCDModel) diagram).getConceptualClasses();
+    private static List<Object> getShownObjects(DiagramModel diagram) {
+        List<Object> shown = new ArrayList<>();
 
-                for (ConceptualClassGR conceptGR : concepts) {
-                    concept = conceptGR.getConceptualClass();
-                    addObject(dnode, concept);
+        if (diagram instanceof UCDModel) {
+            for (GraphicalElement e : diagram.getGraphicalElements()) {
+                if (e instanceof UCDComponentGR) {
+                    addUCDComponent(shown, ((UCDComponentGR) e).getComponent());
                 }
-
             }
+        }
 
-            if (diagram instanceof SDModel) {
-                Vector<RoleClassifierGR> roleClassifiers = ((SDModel) diagram).getRoleClassifiers();
+        if (diagram instanceof SSDModel || diagram instanceof SDModel) {
+            Vector<RoleClassifierGR> roleClassifiers = ((AbstractSDModel) diagram).getRoleClassifiers();
 
-                if (roleClassifiers != null) {
-                    for (RoleClassifierGR rcGR : roleClassifiers) {
-                        classifier = rcGR.getRoleClassifier();
-                        addObject(dnode, classifier);
-                    }
+            if (roleClassifiers != null) {
+                for (RoleClassifierGR rcGR : roleClassifiers) {
+                    shown.add(rcGR.getRoleClassifier());
                 }
             }
+        }
 
-            if (diagram instanceof ADModel) {
-                for (GraphicalElement e : ((ADModel) diagram).getGraphicalElements()) {
-                    if (e instanceof NodeComponentGR) {
-                        nodeComponent = ((NodeComponentGR) e).getComponent();
-                        addNodeComponent(dnode, nodeComponent);
-                    }
-                }
+        if (diagram instanceof CCDModel) {
+            for (ConceptualClassGR conceptGR : ((CCDModel) diagram).getConceptualClasses()) {
+                shown.add(conceptGR.getConceptualClass());
             }
         }
 
-        restoreExpansionState(0, expState);
+        if (diagram instanceof ADModel) {
+            for (GraphicalElement e : diagram.getGraphicalElements()) {
+                if (e instanceof NodeComponentGR) {
+                    addNodeComponent(shown, ((NodeComponentGR) e).getComponent());
+                }
+            }
+        }
 
+        return shown;
     }
 
-    private void addNodeComponent(DefaultMutableTreeNode dnode, NodeComponent nodeComponent) {
-        if (nodeComponent instanceof LeafNode) {
-            addObject(dnode, nodeComponent);
-        } else {
-            addObject(dnode, nodeComponent);
+    private static void addNodeComponent(List<Object> shown, NodeComponent nodeComponent) {
+        shown.add(nodeComponent);
+        if (!(nodeComponent instanceof LeafNode)) {
             for (int i = 0; i < nodeComponent.getNumberOfNodeComponents(); i++) {
-                NodeComponent node = nodeComponent.getNodeComponent(i);
-                addNodeComponent(dnode, node);
+                addNodeComponent(shown, nodeComponent.getNodeComponent(i));
             }
         }
     }
 
-    private void addUCDComponent(DefaultMutableTreeNode dnode, UCDComponent ucdComponent) {
-        if (ucdComponent instanceof LeafUCDElement) {
-            addObject(dnode, ucdComponent);
-        } else {
-            addObject(dnode, ucdComponent);
+    private static void addUCDComponent(List<Object> shown, UCDComponent ucdComponent) {
+        shown.add(ucdComponent);
+        if (!(ucdComponent instanceof LeafUCDElement)) {
             for (int i = 0; i < ucdComponent.getNumberOfElements(); i++) {
-                UCDComponent node = ucdComponent.getElement(i);
-                addUCDComponent(dnode, node);
+                addUCDComponent(shown, ucdComponent.getElement(i));
             }
         }
     }
@@ -249,7 +296,7 @@ public class RepositoryTreeView extends JPanel implements PropertyChangeListener
     }
 
     public DefaultMutableTreeNode addObject(DefaultMutableTreeNode parent, Object child, boolean shouldBeVisible) {
-        DefaultMutableTreeNode childNode = new DefaultMutableTreeNode(child);
+        DefaultMutableTreeNode childNode = new RepositoryNode(child);
 
         if (parent == null) {
             parent = rootNode;
@@ -282,6 +329,47 @@ public class RepositoryTreeView extends JPanel implements PropertyChangeListener
         tree.expandRow(2);
     }
 
+    /**
+     * A node that remembers the text of its object, so that the tree measures it
+     * again only when the object is renamed.
+     */
+    private static class RepositoryNode extends DefaultMutableTreeNode {
+
+        private static final long serialVersionUID = 1L;
+
+        private String text;
+
+        RepositoryNode(Object userObject) {
+            super(userObject);
+            text = getText(userObject);
+        }
+
+        boolean updateText() {
+            String newText = getText(getUserObject());
+            if (newText.equals(text)) {
+                return false;
+            }
+            text = newText;
+            return true;
+        }
+
+        private static String getText(Object userObject) {
+            if (userObject instanceof DiagramModel) {
+                return ((DiagramModel) userObject).getName();
+            } else if (userObject instanceof RoleClassifier) {
+                return ((RoleClassifier) userObject).getName() + " : "
+                        + ((RoleClassifier) userObject).getClassifier().getName();
+            } else if (userObject instanceof ConceptualClass) {
+                return ((ConceptualClass) userObject).getName();
+            } else if (userObject instanceof DesignClass) {
+                return ((DesignClass) userObject).getName();
+            } else if (userObject instanceof Interface) {
+                return ((Interface) userObject).getName();
+            }
+            return String.valueOf(userObject);
+        }
+    }
+
     class UMLTreeModelListener implements TreeModelListener {
 
         public void treeNodesChanged(TreeModelEvent e) {
@@ -502,9 +590,9 @@ public class RepositoryTreeView extends JPanel implements PropertyChangeListener
                 nodeText = userObject.toString();
                 setText(nodeText);
                 setToolTipText("Activity Node - " + nodeText);
-            } else if (userObject.equals("extends")) {
+            } else if (userObject.equals(EXTENDS)) {
                 setIcon(createImageIcon("generalization.gif"));
-            } else if (userObject.equals("realizes")) {
+            } else if (userObject.equals(REALIZES)) {
                 setIcon(createImageIcon("realization.gif"));
             } else {
                 setToolTipText(null); // no tool tip
@@ -0,0 +1,176 @@
+package edu.city.studentuml.view.gui;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.AbstractTableModel;
+
+import edu.city.studentuml.util.Settings;
+import edu.city.studentuml.util.SystemWideObjectNamePool;
+import edu.city.studentuml.util.validation.CheckProfile;
+
+/**
+ * Shows the time the consistency checks spent on each rule and fact template,
+ * to find the rules that are slow on large projects. The table is sorted by
+ * total time and can be sorted by any column and exported as CSV. The
+ * profiles are updated after every check.
+ */
+public class RuleProfilerPanel extends JPanel implements PropertyChangeListener {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger logger = Logger.getLogger(RuleProfilerPanel.class.getName());
+
+    private static final String CSV = ".csv";
+
+    static class ProfileTableModel extends AbstractTableModel {
+        private static final long serialVersionUID = 1L;
+        private static final String[] COLUMNS = { "Kind", "Name", "Count", "Total (ms)", "Max (ms)", "Mean (ms)",
+                "Results", "Retries" };
+        private static final Class<?>[] TYPES = { String.class, String.class, Long.class, Double.class,
+                Double.class, Double.class, Long.class, Long.class };
+
+        private List<CheckProfile> profiles = Collections.emptyList();
+
+        void setProfiles(List<CheckProfile> profiles) {
+            this.profiles = profiles;
+            fireTableDataChanged();
+        }
+
+        List<CheckProfile> getProfiles() {
+            return profiles;
+        }
+
+        @Override
+        public int getRowCount() {
+            return profiles.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return TYPES[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            CheckProfile p = profiles.get(row);
+            switch (column) {
+            case 0:
+                return p.getKind();
+            case 1:
+                return p.getName();
+            case 2:
+                return p.getCount();
+            case 3:
+                return p.getNanos() / 1e6;
+            case 4:
+                return p.getMaxNanos() / 1e6;
+            case 5:
+                return p.getCount() == 0 ? 0.0 : p.getNanos() / 1e6 / p.getCount();
+            case 6:
+                return p.getResults();
+            default:
+                return p.getRetries();
+            }
+        }
+    }
+
+    private final ProfileTableModel tableModel = new ProfileTableModel();
+
+    public RuleProfilerPanel() {
+        super(new BorderLayout());
+
+        JTable table = new JTable(tableModel);
+        table.setAutoCreateRowSorter(true);
+        List<RowSorter.SortKey> sortKeys = new ArrayList<>();
+        sortKeys.add(new RowSorter.SortKey(3, SortOrder.DESCENDING));
+        table.getRowSorter().setSortKeys(sortKeys);
+        table.getColumnModel().getColumn(1).setPreferredWidth(300);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton resetButton = new JButton("Reset");
+        resetButton.setToolTipText("Clear the recorded times");
+        resetButton.addActionListener(e -> {
+            SystemWideObjectNamePool.getInstance().resetCheckProfiles();
+            refresh();
+        });
+        buttons.add(resetButton);
+
+        JButton exportButton = new JButton("Export CSV...");
+        exportButton.addActionListener(e -> exportCSV());
+        buttons.add(exportButton);
+        add(buttons, BorderLayout.PAGE_END);
+
+        refresh();
+    }
+
+    /**
+     * Reads the profiles of the current rule file again.
+     */
+    public void refresh() {
+        tableModel.setProfiles(SystemWideObjectNamePool.getInstance().getCheckProfiles());
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if ("objectNamePoolChanged".equals(evt.getPropertyName())) {
+            SwingUtilities.invokeLater(this::refresh);
+        }
+    }
+
+    private void exportCSV() {
+        JFileChooser fileChooser = new JFileChooser();
+        String path = Settings.getDefaultPath();
+        if (path.length() > 0) {
+            fileChooser.setCurrentDirectory(new File(path));
+        }
+        fileChooser.setAcceptAllFileFilterUsed(false);
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("CSV", "csv"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        if (!file.getName().toLowerCase().endsWith(CSV)) {
+            file = new File(file.getAbsolutePath() + CSV);
+        }
+
+        try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            CheckProfile.writeCSV(tableModel.getProfiles(), out);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Cannot export the rule profiles", e);
+            JOptionPane.showMessageDialog(this, e.getMessage(), "Export failed", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+}
@@ -199,6 +199,16 @@ public class MenuBar {
         });
         enableRuntimeConsistencyCheckBoxMenuItem.setSelected(Settings.isConsistencyCheckEnabled());
 
+        JCheckBoxMenuItem parallelConsistencyCheckBoxMenuItem = new JCheckBoxMenuItem();
+        parallelConsistencyCheckBoxMenuItem.setText("Parallel Consistency Checking");
+        parallelConsistencyCheckBoxMenuItem.setToolTipText(
+                "<html><b>Advanced:</b> Evaluates the consistency rules in parallel,<br/> using one rule engine per processor</html>");
+        parallelConsistencyCheckBoxMenuItem.addActionListener(e -> {
+            Settings.setParallelConsistencyCheck(parallelConsistencyCheckBoxMenuItem.isSelected());
+            app.setParallelConsistencyCheck(parallelConsistencyCheckBoxMenuItem.isSelected());
+        });
+        parallelConsistencyCheckBoxMenuItem.setSelected(Settings.isParallelConsistencyCheck());
+
         JCheckBoxMenuItem showRuleEditorCheckBoxMenuItem = new JCheckBoxMenuItem();
         showRuleEditorCheckBoxMenuItem.setText("Show Rule Editor Tab");
         showRuleEditorCheckBoxMenuItem.setToolTipText(
@@ -218,6 +228,16 @@ public class MenuBar {
         });
         showFactsTabCheckBoxMenuItem.setSelected(Settings.showFacts());
 
+        JCheckBoxMenuItem showRuleProfilerCheckBoxMenuItem = new JCheckBoxMenuItem();
+        showRuleProfilerCheckBoxMenuItem.setText("Show Rule Profiler Tab");
+        showRuleProfilerCheckBoxMenuItem.setToolTipText(
+                "<html><b>Advanced:</b> Records and displays the time the consistency checks<br/> spend on each rule and fact template</html>");
+        showRuleProfilerCheckBoxMenuItem.addActionListener(e -> {
+            Settings.setShowRuleProfiler(showRuleProfilerCheckBoxMenuItem.isSelected());
+            app.showRuleProfilerTab(showRuleProfilerCheckBoxMenuItem.isSelected());
+        });
+        showRuleProfilerCheckBoxMenuItem.setSelected(Settings.showRuleProfiler());
+
         JRadioButtonMenuItem simpleModeRadioButtonMenuItem = new JRadioButtonMenuItem("Simple Mode", false);
         simpleModeRadioButtonMenuItem.setToolTipText(
                 "<html>Disables <b>dependency relationship</b> in DCD's and does not<br/> take in consideration <b>object visibility</b> in consistency checks.</html>");
@@ -231,9 +251,11 @@ public class MenuBar {
         if (SHOW_CONSISTENCY_CHECKING_MENU) {
 
             preferencesMenu.add(enableRuntimeConsistencyCheckBoxMenuItem);
+            preferencesMenu.add(parallelConsistencyCheckBoxMenuItem);
 
             preferencesMenu.add(showRuleEditorCheckBoxMenuItem);
             preferencesMenu.add(showFactsTabCheckBoxMenuItem);
+            preferencesMenu.add(showRuleProfilerCheckBoxMenuItem);
             preferencesMenu.add(simpleModeRadioButtonMenuItem);
 
             preferencesMenu.addSeparator();
@@ -348,6 +370,16 @@ public class MenuBar {
         repositoryViewerMenuItem.setToolTipText("Open a window to view and monitor repository changes");
         repositoryViewerMenuItem.addActionListener(e -> app.openRepositoryViewer());
         toolsMenu.add(repositoryViewerMenuItem);
+
+        if (SHOW_CONSISTENCY_CHECKING_MENU) {
+            JMenuItem checkConsistencyMenuItem = new JMenuItem();
+            checkConsistencyMenuItem.setText("Check Consistency Now");
+            checkConsistencyMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F5, 0));
+            checkConsistencyMenuItem.setToolTipText(
+                    "Check the project without waiting for the editing to pause (requires runtime consistency checking)");
+            checkConsistencyMenuItem.addActionListener(e -> app.checkConsistencyNow());
+            toolsMenu.add(checkConsistencyMenuItem);
+        }
     }
 
     private JMenu createHelpMenu() {
@@ -1,9 +1,11 @@
 package edu.city.studentuml;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.awt.Point;
+import java.util.Arrays;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -13,10 +15,12 @@ import edu.city.studentuml.model.domain.CombinedFragment;
 import edu.city.studentuml.model.domain.DesignClass;
 import edu.city.studentuml.model.domain.GenericOperation;
 import edu.city.studentuml.model.domain.InteractionOperator;
+import edu.city.studentuml.model.domain.ReturnMessage;
 import edu.city.studentuml.model.domain.SDObject;
 import edu.city.studentuml.model.domain.UMLProject;
 import edu.city.studentuml.model.graphical.CallMessageGR;
 import edu.city.studentuml.model.graphical.CombinedFragmentGR;
+import edu.city.studentuml.model.graphical.ReturnMessageGR;
 import edu.city.studentuml.model.graphical.SDModel;
 import edu.city.studentuml.model.graphical.SDObjectGR;
 
@@ -341,4 +345,60 @@ public class CombinedFragmentAutoResizeTest {
         assertEquals("Fragment X position should NOT change when objects move",
                 initialFragmentX, fragmentGR.getX());
     }
+
+    @Test
+    public void testReturnMessagesArePairedWithTheirCalls() {
+        CallMessageGR call1 = new CallMessageGR(obj1, obj2,
+                new CallMessage(obj1.getSDObject(), obj2.getSDObject(), new GenericOperation("first")), 100);
+        ReturnMessageGR return1 = new ReturnMessageGR(obj2, obj1,
+                new ReturnMessage(obj2.getSDObject(), obj1.getSDObject(), "r1"), 130);
+        CallMessageGR call2 = new CallMessageGR(obj1, obj2,
+                new CallMessage(obj1.getSDObject(), obj2.getSDObject(), new GenericOperation("second")), 160);
+        CallMessageGR unanswered = new CallMessageGR(obj2, obj3,
+                new CallMessage(obj2.getSDObject(), obj3.getSDObject(), new GenericOperation("third")), 180);
+        ReturnMessageGR return2 = new ReturnMessageGR(obj2, obj1,
+                new ReturnMessage(obj2.getSDObject(), obj1.getSDObject(), "r2"), 200);
+        model.addMessage(call1);
+        model.addMessage(return1);
+        model.addMessage(call2);
+        model.addMessage(unanswered);
+        model.addMessage(return2);
+
+        assertEquals(return1, model.getReturnMessage(call1));
+        assertEquals(return2, model.getReturnMessage(call2));
+        assertNull(model.getReturnMessage(unanswered));
+
+        // moving the first return below the second call pairs both calls with it
+        model.settleGraphicalElement(return1, 0, 170);
+
+        assertEquals(return1, model.getReturnMessage(call1));
+        assertEquals(return1, model.getReturnMessage(call2));
+        assertEquals(Arrays.asList(call2, return1, unanswered), model.getMessagesBetween(160, 180));
+    }
+
+    @Test
+    public void testAutoResize_IncludesNestedFragments() {
+        CallMessageGR msgGR1 = new CallMessageGR(obj1, obj2,
+                new CallMessage(obj1.getSDObject(), obj2.getSDObject(), new GenericOperation("message1")), 200);
+        model.addMessage(msgGR1);
+
+        CombinedFragment inner = new CombinedFragment(InteractionOperator.OPT, "");
+        inner.setHeight(60);
+        CombinedFragmentGR innerGR = new CombinedFragmentGR(inner, new Point(250, 190), 400);
+        model.addGraphicalElement(innerGR);
+        CombinedFragment below = new CombinedFragment(InteractionOperator.OPT, "");
+        below.setHeight(60);
+        model.addGraphicalElement(new CombinedFragmentGR(below, new Point(0, 400), 900));
+
+        CombinedFragment outer = new CombinedFragment(InteractionOperator.LOOP, "");
+        outer.setHeight(100);
+        CombinedFragmentGR outerGR = new CombinedFragmentGR(outer, new Point(0, 180), 300);
+        model.addGraphicalElement(outerGR);
+
+        outerGR.autoResizeToMessages(model, true);
+
+        assertEquals(Arrays.asList(outerGR, innerGR), model.getCombinedFragmentsWithin(180, 280));
+        assertEquals("Fragment should span the nested fragment plus the nested padding", 250 + 400 + 30,
+                outerGR.getX() + outerGR.getWidth());
+    }
 }
@@ -5,6 +5,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Vector;
 
 import org.junit.Before;
@@ -54,7 +55,7 @@ public class TypedCallMessageTest {
     }
 
     @Test
-    public void addMessage() {
+    public void addMessage() throws IOException {
         SDModel currDiagram = new SDModel("sdmodel1", umlProject);
         DesignClass dc1 = new DesignClass("Class1");
         DesignClass dc2 = new DesignClass("Class2");
@@ -6,6 +6,13 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.awt.Point;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Point2D;
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -16,6 +23,8 @@ import edu.city.studentuml.model.domain.UMLProject;
 import edu.city.studentuml.model.graphical.AssociationGR;
 import edu.city.studentuml.model.graphical.ClassGR;
 import edu.city.studentuml.model.graphical.DCDModel;
+import edu.city.studentuml.model.graphical.DiagramChangeEvent;
+import edu.city.studentuml.model.graphical.DiagramModel;
 import edu.city.studentuml.model.graphical.DependencyGR;
 import edu.city.studentuml.model.graphical.GeneralizationGR;
 import edu.city.studentuml.model.graphical.GraphicalElement;
@@ -548,4 +557,41 @@ public class DCDSelectionControllerTest {
                 model.getGraphicalElements().contains(dependencyGR));
     }
 
+    @Test
+    public void draggingALinkEndpointKeepsTheSpatialIndex() {
+        ClassGR a = new ClassGR(new DesignClass("A"), new Point(100, 100));
+        ClassGR b = new ClassGR(new DesignClass("B"), new Point(600, 100));
+        ClassGR c = new ClassGR(new DesignClass("C"), new Point(600, 500));
+        model.addGraphicalElement(a);
+        model.addGraphicalElement(b);
+        model.addGraphicalElement(c);
+        AssociationGR association = h.addAssociation(a, b);
+        List<PropertyChangeEvent> events = new ArrayList<>();
+        model.addPropertyChangeListener(events::add);
+
+        selectionController.addElementToSelection(association);
+        Point2D target = association.getEndPointRoleB();
+        selectionController.myMousePressed(mouseEvent(MouseEvent.MOUSE_PRESSED, target));
+        assertTrue(selectionController.isDraggingEndpoint());
+
+        selectionController.myMouseDragged(mouseEvent(MouseEvent.MOUSE_DRAGGED, new Point2D.Double(620, 300)));
+        int builds = model.getSpatialIndexBuilds();
+        events.clear();
+        for (int y = 310; y < 520; y += 10) {
+            selectionController.myMouseDragged(mouseEvent(MouseEvent.MOUSE_DRAGGED, new Point2D.Double(620, y)));
+        }
+
+        assertEquals("the drag steps do not rebuild the index", builds, model.getSpatialIndexBuilds());
+        assertEquals(21, events.size());
+        assertTrue(events.stream().allMatch(DiagramModel::isLayoutChange));
+        DiagramChangeEvent last = (DiagramChangeEvent) events.get(events.size() - 1);
+        assertTrue("the target is repainted", last.getElements().contains(c));
+        assertTrue(last.getDamagedArea().contains(620, 510));
+    }
+
+    private MouseEvent mouseEvent(int id, Point2D point) {
+        return new MouseEvent(internalFrame.getView(), id, 0, 0, (int) point.getX(), (int) point.getY(), 1, false,
+                MouseEvent.BUTTON1);
+    }
+
 }
@@ -0,0 +1,64 @@
+package edu.city.studentuml.frame;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.UMLProject;
+
+public class StudentUMLCheckTest {
+
+    private File output;
+    private ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() throws IOException {
+        output = Files.createTempDirectory("studentuml_check_").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        for (File report : output.listFiles()) {
+            report.delete();
+        }
+        output.delete();
+        UMLProject.getInstance().clear();
+    }
+
+    @Test
+    public void wrongArgumentsPrintTheUsage() {
+        assertEquals(StudentUMLCheck.USAGE, run());
+        assertEquals(StudentUMLCheck.USAGE, run("-t"));
+        assertEquals(StudentUMLCheck.USAGE, run("-r", "nosuchrules.txt", "diagrams/simple.xml"));
+        assertTrue(err.toString().contains("Usage"));
+    }
+
+    @Test
+    public void filesAreCheckedIntoReports() {
+        assertEquals(StudentUMLCheck.OK, run("-r", "simple", "-t", "2", "-o", output.getPath(),
+                "diagrams/simple.xml", "diagrams/consistency-check.xml"));
+
+        assertTrue(new File(output, "simple.json").isFile());
+        assertTrue(new File(output, "consistency-check.json").isFile());
+        assertTrue(out.toString().contains("consistency-check.xml: "));
+    }
+
+    @Test
+    public void aFileThatCannotBeLoadedFailsTheCheck() {
+        assertEquals(StudentUMLCheck.NOT_CHECKED, run("-o", output.getPath(), "diagrams/missing.xml"));
+    }
+
+    private int run(String... args) {
+        return StudentUMLCheck.run(args, new PrintStream(out), new PrintStream(err));
+    }
+}
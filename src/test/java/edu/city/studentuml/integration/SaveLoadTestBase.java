@@ -78,7 +78,7 @@ public abstract class SaveLoadTestBase {
     /**
      * Saves the current project to the temporary file.
      */
-    protected void saveProject() {
+    protected void saveProject() throws IOException {
         project.streamToXML(tempFile.getAbsolutePath());
     }
 
@@ -0,0 +1,117 @@
+package edu.city.studentuml.model.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.city.studentuml.model.graphical.ActorInstanceGR;
+import edu.city.studentuml.model.graphical.ClassGR;
+import edu.city.studentuml.model.graphical.DCDModel;
+import edu.city.studentuml.model.graphical.GraphicalElement;
+import edu.city.studentuml.model.graphical.SDModel;
+import edu.city.studentuml.model.graphical.SDObjectGR;
+import edu.city.studentuml.model.graphical.SSDModel;
+
+public class UMLProjectReferencesTest {
+
+    private UMLProject project;
+    private DCDModel dcd;
+    private SDModel sd;
+
+    @Before
+    public void setup() {
+        project = UMLProject.getInstance();
+        project.clear();
+        dcd = new DCDModel("dcd", project);
+        sd = new SDModel("sd", project);
+    }
+
+    @Test
+    public void classesAreFoundInEveryDiagramShowingThem() {
+        DesignClass order = new DesignClass("Order");
+        ClassGR classGR = new ClassGR(order, new Point(0, 0));
+        dcd.addGraphicalElement(classGR);
+        SDObjectGR objectGR = new SDObjectGR(new SDObject("o", order), 100);
+        sd.addGraphicalElement(objectGR);
+        new DCDModel("unrelated", project).addGraphicalElement(new ClassGR(new DesignClass("Other"), new Point(0, 0)));
+
+        assertEquals(Arrays.asList(classGR, objectGR), project.getReferencingElements(order));
+        assertEquals(Arrays.asList(dcd, sd), project.getReferencingDiagrams(order));
+        assertTrue(project.isClassReferenced(classGR, order));
+        assertTrue(project.isClassReferenced(objectGR, order));
+
+        sd.removeGraphicalElement(objectGR);
+
+        assertEquals(Arrays.asList(classGR), project.getReferencingElements(order));
+        assertFalse(project.isClassReferenced(classGR, order));
+    }
+
+    @Test
+    public void editingAnObjectsClassIsSeenByTheNextQuery() {
+        DesignClass order = new DesignClass("Order");
+        DesignClass invoice = new DesignClass("Invoice");
+        SDObject object = new SDObject("o", order);
+        SDObjectGR objectGR = new SDObjectGR(object, 100);
+        sd.addGraphicalElement(objectGR);
+        assertEquals(Arrays.asList(objectGR), project.getReferencingElements(order));
+
+        object.setDesignClass(invoice);
+        sd.modelChanged();
+
+        assertTrue(project.getReferencingElements(order).isEmpty());
+        assertEquals(Arrays.asList(objectGR), project.getReferencingElements(invoice));
+    }
+
+    @Test
+    public void editsUpdateTheIndexWithoutRebuildingIt() {
+        DesignClass order = new DesignClass("Order");
+        DesignClass invoice = new DesignClass("Invoice");
+        ClassGR classGR = new ClassGR(order, new Point(0, 0));
+        dcd.addGraphicalElement(classGR);
+        SDObject shared = new SDObject("o", order);
+        SDObjectGR inSD = new SDObjectGR(shared, 100);
+        sd.addGraphicalElement(inSD);
+        assertEquals(Arrays.asList(classGR, inSD), project.getReferencingElements(order));
+        int builds = project.getReferenceIndexBuilds();
+
+        SDModel other = new SDModel("other", project);
+        SDObjectGR inOther = new SDObjectGR(shared, 100);
+        other.addGraphicalElement(inOther);
+        shared.setDesignClass(invoice);
+        sd.modelChanged();
+
+        assertEquals(Arrays.asList(classGR), project.getReferencingElements(order));
+        List<GraphicalElement> showingInvoice = project.getReferencingElements(invoice);
+        assertEquals(2, showingInvoice.size());
+        assertTrue(showingInvoice.containsAll(Arrays.asList(inSD, inOther)));
+
+        project.removeDiagram(other);
+
+        assertEquals(Arrays.asList(sd), project.getReferencingDiagrams(invoice));
+        assertEquals(builds, project.getReferenceIndexBuilds());
+    }
+
+    @Test
+    public void actorsAndSystemsAreOnlyCountedInSequenceDiagrams() {
+        Actor customer = new Actor("Customer");
+        ActorInstanceGR inSD = new ActorInstanceGR(new ActorInstance("c", customer), 100);
+        sd.addGraphicalElement(inSD);
+        SSDModel ssd = new SSDModel("ssd", project);
+        ActorInstanceGR inSSD = new ActorInstanceGR(new ActorInstance("c", customer), 100);
+        ssd.addGraphicalElement(inSSD);
+
+        assertTrue(project.isActorReferenced(inSD, customer));
+
+        ssd.removeGraphicalElement(inSSD);
+
+        assertFalse(project.isActorReferenced(inSD, customer));
+        assertFalse(project.isSystemReferenced(inSD, new System("S")));
+    }
+}
@@ -0,0 +1,84 @@
+package edu.city.studentuml.model.graphical;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.city.studentuml.model.domain.Association;
+import edu.city.studentuml.model.domain.Attribute;
+import edu.city.studentuml.model.domain.DataType;
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.Method;
+import edu.city.studentuml.model.domain.UMLProject;
+
+/**
+ * Compares the time to draw a generated class diagram with and without caching
+ * the text metrics and the sizes of the class boxes. Not run by the test suite;
+ * run it with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=edu.city.studentuml.model.graphical.ClassRenderingBenchmark [-Dexec.args=1000]
+ * </pre>
+ */
+public class ClassRenderingBenchmark {
+
+    private static final int FRAMES = 20;
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) {
+        Logger.getLogger("").setLevel(Level.WARNING);
+        int classes = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        UMLProject project = UMLProject.getInstance();
+        project.clear();
+        DCDModel model = new DCDModel("benchmark", project);
+        ClassGR previous = null;
+        for (int i = 0; i < classes; i++) {
+            DesignClass dc = new DesignClass("Class" + i);
+            dc.setStereotype(i % 5 == 0 ? "entity" : null);
+            for (int a = 0; a < 4; a++) {
+                dc.addAttribute(new Attribute("attribute" + a, DataType.STRING));
+            }
+            for (int m = 0; m < 4; m++) {
+                dc.addMethod(new Method("method" + m));
+            }
+            ClassGR classGR = new ClassGR(dc, new Point((i % 30) * 250, (i / 30) * 250));
+            model.getGraphicalElements().add(classGR);
+            if (previous != null) {
+                model.getGraphicalElements().add(
+                        new AssociationGR(previous, classGR, new Association(previous.getDesignClass(), dc)));
+            }
+            previous = classGR;
+        }
+
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        for (int run = 0; run < RUNS; run++) {
+            TextMetricsCache.setEnabled(false);
+            double uncached = draw(model, image);
+            TextMetricsCache.setEnabled(true);
+            TextMetricsCache.clear();
+            double cached = draw(model, image);
+            long[] hitsAndMisses = TextMetricsCache.getHitsAndMisses();
+            System.out.printf("%d classes: uncached %7.2f ms/frame, cached %6.2f ms/frame"
+                    + " (%d texts laid out, %d found in the cache)%n", classes, uncached, cached, hitsAndMisses[1],
+                    hitsAndMisses[0]);
+        }
+    }
+
+    private static double draw(DiagramModel model, BufferedImage image) {
+        long start = System.nanoTime();
+        for (int frame = 0; frame < FRAMES; frame++) {
+            Graphics2D g = image.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            for (GraphicalElement element : model.getGraphicalElements()) {
+                element.draw(g);
+            }
+            g.dispose();
+        }
+        return (System.nanoTime() - start) / 1e6 / FRAMES;
+    }
+}
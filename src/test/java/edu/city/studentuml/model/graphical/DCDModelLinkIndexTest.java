@@ -0,0 +1,133 @@
+package edu.city.studentuml.model.graphical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.Association;
+import edu.city.studentuml.model.domain.Dependency;
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.Interface;
+import edu.city.studentuml.model.domain.UMLProject;
+import edu.city.studentuml.model.repository.CentralRepository;
+
+public class DCDModelLinkIndexTest {
+
+    private UMLProject project;
+    private DCDModel model;
+    private CentralRepository repository;
+
+    @Before
+    public void setup() {
+        project = UMLProject.getInstance();
+        project.clear();
+        model = new DCDModel("dcd", project);
+        repository = project.getCentralRepository();
+    }
+
+    @Test
+    public void linksAreIndexedByBothEnds() {
+        ClassGR a = addClass("A");
+        ClassGR b = addClass("B");
+        ClassGR c = addClass("C");
+        AssociationGR ab = addAssociation(a, b);
+        DependencyGR ac = addDependency(a, c);
+        AssociationGR reflective = addAssociation(b, b);
+
+        assertEquals(Arrays.asList(ab, ac), model.getLinks(a));
+        assertEquals(Arrays.asList(ab, reflective), model.getLinks(b));
+        assertEquals(Arrays.asList(ac), model.getLinks(c));
+        assertEquals(Arrays.asList(ab), model.getClassGRAssociationGRs(a));
+        assertEquals(Arrays.asList(ac), model.getClassGRDependencyGRs(c));
+
+        model.removeGraphicalElement(ab);
+
+        assertEquals(Arrays.asList(ac), model.getLinks(a));
+        assertEquals(Arrays.asList(reflective), model.getLinks(b));
+    }
+
+    @Test
+    public void reconnectingALinkMovesItInTheIndex() {
+        ClassGR a = addClass("A");
+        ClassGR b = addClass("B");
+        ClassGR c = addClass("C");
+        InterfaceGR i = new InterfaceGR(new Interface("I"), new Point(0, 0));
+        model.addGraphicalElement(i);
+        RealizationGR realization = new RealizationGR(a, i);
+        model.addGraphicalElement(realization);
+
+        assertTrue(realization.reconnectSource(c));
+        RealizationGR reconnected = realization.createWithNewEndpoints(c, i);
+        model.removeGraphicalElement(realization);
+        model.addGraphicalElement(reconnected);
+
+        assertEquals(Collections.emptyList(), model.getLinks(a));
+        assertEquals(Arrays.asList(reconnected), model.getLinks(c));
+        assertEquals(Arrays.asList(reconnected), model.getInterfaceGRRealizationGRs(i));
+        assertTrue(repository.getRealizations().contains(reconnected.getRealization()));
+        assertEquals(Collections.emptyList(), model.getLinks(b));
+    }
+
+    @Test
+    public void removingAClassRemovesOnlyItsLinks() {
+        ClassGR a = addClass("A");
+        ClassGR b = addClass("B");
+        ClassGR c = addClass("C");
+        AssociationGR ab = addAssociation(a, b);
+        DependencyGR ac = addDependency(a, c);
+        AssociationGR bc = addAssociation(b, c);
+        GeneralizationGR generalization = new GeneralizationGR(b, a);
+        model.addGraphicalElement(generalization);
+
+        model.removeGraphicalElement(a);
+
+        assertFalse(model.getGraphicalElements().contains(ab));
+        assertFalse(model.getGraphicalElements().contains(ac));
+        assertFalse(model.getGraphicalElements().contains(generalization));
+        assertTrue(model.getGraphicalElements().contains(bc));
+        assertFalse(repository.getAssociations().contains(ab.getAssociation()));
+        assertFalse(repository.getDependencies().contains(ac.getDependency()));
+        assertEquals(Arrays.asList(bc), model.getLinks(b));
+    }
+
+    @Test
+    public void aRelationshipStaysInTheRepositoryUntilItsLastLinkIsRemoved() {
+        ClassGR a = addClass("A");
+        ClassGR b = addClass("B");
+        AssociationGR association = addAssociation(a, b);
+        AssociationGR pasted = association.clone();
+        model.addGraphicalElement(pasted);
+
+        model.removeGraphicalElement(association);
+        assertTrue(repository.getAssociations().contains(pasted.getAssociation()));
+
+        model.removeGraphicalElement(pasted);
+        assertFalse(repository.getAssociations().contains(pasted.getAssociation()));
+    }
+
+    private ClassGR addClass(String name) {
+        ClassGR classGR = new ClassGR(new DesignClass(name), new Point(0, 0));
+        model.addGraphicalElement(classGR);
+        return classGR;
+    }
+
+    private AssociationGR addAssociation(ClassGR a, ClassGR b) {
+        AssociationGR association = new AssociationGR(a, b,
+                new Association(a.getDesignClass(), b.getDesignClass()));
+        model.addGraphicalElement(association);
+        return association;
+    }
+
+    private DependencyGR addDependency(ClassGR a, ClassGR b) {
+        DependencyGR dependency = new DependencyGR(a, b, new Dependency(a.getDesignClass(), b.getDesignClass()));
+        model.addGraphicalElement(dependency);
+        return dependency;
+    }
+}
@@ -0,0 +1,176 @@
+package edu.city.studentuml.model.graphical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.awt.geom.Rectangle2D;
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.Association;
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.SDObject;
+import edu.city.studentuml.model.domain.UMLProject;
+
+public class DiagramModelChangeTest {
+
+    private UMLProject project;
+    private final List<PropertyChangeEvent> events = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        project = UMLProject.getInstance();
+        project.clear();
+    }
+
+    @Test
+    public void movingAClassReportsItsLinksAndNotes() {
+        DCDModel model = new DCDModel("dcd", project);
+        ClassGR moved = addClass(model, "Moved", 100, 100);
+        ClassGR other = addClass(model, "Other", 400, 100);
+        ClassGR unrelated = addClass(model, "Unrelated", 100, 400);
+        AssociationGR association = new AssociationGR(moved, other,
+                new Association(moved.getDesignClass(), other.getDesignClass()));
+        model.addGraphicalElement(association);
+        UMLNoteGR note = new UMLNoteGR("note", association, new Point(300, 300));
+        model.addGraphicalElement(note);
+        model.addPropertyChangeListener(events::add);
+
+        Rectangle2D before = moved.getPaintBounds();
+        model.moveGraphicalElement(moved, 150, 50);
+
+        DiagramChangeEvent event = (DiagramChangeEvent) events.get(0);
+        assertEquals(DiagramModel.DIAGRAM_CHANGED, event.getPropertyName());
+        assertEquals(new HashSet<>(Arrays.asList(moved, association, note)), new HashSet<>(event.getElements()));
+        assertTrue(event.getOldBounds().contains(before));
+        assertTrue(event.getNewBounds().contains(moved.getPaintBounds()));
+        assertTrue(event.getNewBounds().contains(association.getPaintBounds()));
+        assertFalse(event.getDamagedArea().intersects(unrelated.getBounds()));
+    }
+
+    @Test
+    public void selectingAnElementReportsOnlyThatElement() {
+        DCDModel model = new DCDModel("dcd", project);
+        ClassGR classGR = addClass(model, "Selected", 100, 100);
+        addClass(model, "Other", 400, 100);
+        model.addPropertyChangeListener(events::add);
+
+        model.selectGraphicalElement(classGR);
+        model.clearSelected();
+
+        assertEquals(2, events.size());
+        for (PropertyChangeEvent event : events) {
+            assertEquals(Arrays.asList(classGR), ((DiagramChangeEvent) event).getElements());
+            assertEquals(classGR.getPaintBounds(), ((DiagramChangeEvent) event).getDamagedArea());
+        }
+    }
+
+    @Test
+    public void movingAnObjectRepaintsTheWholeSequenceDiagram() {
+        SDModel model = new SDModel("sd", project);
+        SDObjectGR object = new SDObjectGR(new SDObject("o", new DesignClass("C")), 100);
+        model.addGraphicalElement(object);
+        model.addPropertyChangeListener(events::add);
+
+        model.moveGraphicalElement(object, 300, 0);
+
+        assertFalse(events.isEmpty());
+        assertFalse(events.get(0) instanceof DiagramChangeEvent);
+    }
+
+    @Test
+    public void selectingAllElementsNotifiesOnce() {
+        DCDModel model = new DCDModel("dcd", project);
+        ClassGR a = addClass(model, "A", 100, 100);
+        ClassGR b = addClass(model, "B", 400, 100);
+        model.addPropertyChangeListener(events::add);
+
+        model.selectAll();
+
+        assertEquals(1, events.size());
+        assertEquals(Arrays.asList(a, b), ((DiagramChangeEvent) events.get(0)).getElements());
+        assertEquals(Arrays.asList(a, b), model.getSelectedGraphicalElements());
+        assertTrue(a.isSelected() && b.isSelected());
+    }
+
+    @Test
+    public void aBatchOfChangesNotifiesOnceWithTheMostGeneralEvent() {
+        DCDModel model = new DCDModel("dcd", project);
+        ClassGR a = addClass(model, "A", 100, 100);
+        ClassGR b = addClass(model, "B", 400, 100);
+        model.addPropertyChangeListener(events::add);
+
+        model.beginUpdate();
+        model.moveGraphicalElement(a, 150, 150);
+        model.beginUpdate();
+        model.removeGraphicalElement(b);
+        model.endUpdate();
+        assertTrue("nested batches notify when the outermost ends", events.isEmpty());
+        model.moveGraphicalElement(a, 200, 150);
+        model.endUpdate();
+
+        assertEquals(1, events.size());
+        assertEquals(DiagramModel.ELEMENTS_CHANGED, events.get(0).getPropertyName());
+    }
+
+    @Test
+    public void movesInABatchAreReportedTogether() {
+        DCDModel model = new DCDModel("dcd", project);
+        ClassGR a = addClass(model, "A", 100, 100);
+        ClassGR b = addClass(model, "B", 400, 100);
+        model.addPropertyChangeListener(events::add);
+        Rectangle2D aBefore = a.getPaintBounds();
+
+        model.beginUpdate();
+        model.moveGraphicalElement(a, 150, 150);
+        model.moveGraphicalElement(b, 450, 150);
+        model.endUpdate();
+
+        DiagramChangeEvent event = (DiagramChangeEvent) events.get(0);
+        assertEquals(1, events.size());
+        assertEquals(Arrays.asList(a, b), event.getElements());
+        assertTrue(event.getOldBounds().contains(aBefore));
+        assertTrue(event.getNewBounds().contains(b.getPaintBounds()));
+    }
+
+    @Test
+    public void addingAndRemovingElementsNotifiesOnce() {
+        DCDModel model = new DCDModel("dcd", project);
+        ClassGR a = new ClassGR(new DesignClass("A"), new Point(100, 100));
+        ClassGR b = new ClassGR(new DesignClass("B"), new Point(400, 100));
+        AssociationGR association = new AssociationGR(a, b, new Association(a.getDesignClass(), b.getDesignClass()));
+        model.addPropertyChangeListener(events::add);
+
+        model.addGraphicalElements(Arrays.asList(a, b, association));
+
+        assertEquals(Arrays.asList(a, b, association), model.getGraphicalElements());
+        assertEquals(1, events.size());
+
+        events.clear();
+        model.removeGraphicalElements(Arrays.asList(a));
+
+        assertEquals("the association is removed along with its class", Arrays.asList(b),
+                model.getGraphicalElements());
+        assertEquals(1, events.size());
+
+        events.clear();
+        model.clear();
+
+        assertTrue(model.getGraphicalElements().isEmpty());
+        assertEquals(1, events.size());
+    }
+
+    private ClassGR addClass(DiagramModel model, String name, int x, int y) {
+        ClassGR classGR = new ClassGR(new DesignClass(name), new Point(x, y));
+        model.addGraphicalElement(classGR);
+        return classGR;
+    }
+}
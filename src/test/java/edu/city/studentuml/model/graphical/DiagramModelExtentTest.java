@@ -0,0 +1,106 @@
+package edu.city.studentuml.model.graphical;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Point;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.Association;
+import edu.city.studentuml.model.domain.CallMessage;
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.GenericOperation;
+import edu.city.studentuml.model.domain.SDObject;
+import edu.city.studentuml.model.domain.UMLProject;
+
+public class DiagramModelExtentTest {
+
+    private UMLProject project;
+
+    @Before
+    public void setup() {
+        project = UMLProject.getInstance();
+        project.clear();
+    }
+
+    @Test
+    public void theExtentGrowsWithAddedAndMovedElements() {
+        DCDModel model = new DCDModel("dcd", project);
+        ClassGR a = addClass(model, "A", 100, 100);
+        ClassGR b = addClass(model, "B", 400, 100);
+        model.addGraphicalElement(new AssociationGR(a, b, new Association(a.getDesignClass(), b.getDesignClass())));
+        assertEquals(measure(model), model.getExtent());
+
+        model.moveGraphicalElement(a, 600, 500);
+
+        assertEquals(measure(model), model.getExtent());
+    }
+
+    @Test
+    public void theExtentShrinksWhenTheDraggedElementSettles() {
+        DCDModel model = new DCDModel("dcd", project);
+        addClass(model, "A", 100, 100);
+        ClassGR b = addClass(model, "B", 400, 400);
+        Point2D.Double before = model.getExtent();
+
+        model.moveGraphicalElement(b, 200, 200);
+        assertEquals("the view keeps its size while dragging", before, model.getExtent());
+
+        model.settleGraphicalElement(b, 150, 150);
+        assertEquals(measure(model), model.getExtent());
+    }
+
+    @Test
+    public void removingTheElementAtTheEdgeShrinksTheExtent() {
+        DCDModel model = new DCDModel("dcd", project);
+        addClass(model, "A", 100, 100);
+        ClassGR b = addClass(model, "B", 400, 400);
+        model.getExtent();
+
+        model.removeGraphicalElement(b);
+
+        assertEquals(measure(model), model.getExtent());
+    }
+
+    @Test
+    public void movingMessagesAndObjectsKeepsTheExtentOfASequenceDiagram() {
+        SDModel model = new SDModel("sd", project);
+        SDObjectGR a = new SDObjectGR(new SDObject("a", new DesignClass("A")), 50);
+        SDObjectGR b = new SDObjectGR(new SDObject("b", new DesignClass("B")), 250);
+        model.addGraphicalElement(a);
+        model.addGraphicalElement(b);
+        CallMessageGR call = new CallMessageGR(a, b,
+                new CallMessage(a.getSDObject(), b.getSDObject(), new GenericOperation("m")), 150);
+        model.addGraphicalElement(call);
+        assertEquals(measure(model), model.getExtent());
+
+        model.moveGraphicalElement(call, 0, 700);
+        assertEquals(measure(model), model.getExtent());
+
+        model.moveGraphicalElement(b, 900, 0);
+        assertEquals(measure(model), model.getExtent());
+
+        model.settleGraphicalElement(call, 0, 300);
+        assertEquals(measure(model), model.getExtent());
+    }
+
+    private static ClassGR addClass(DiagramModel model, String name, int x, int y) {
+        ClassGR classGR = new ClassGR(new DesignClass(name), new Point(x, y));
+        model.addGraphicalElement(classGR);
+        return classGR;
+    }
+
+    private static Point2D.Double measure(DiagramModel model) {
+        double maxX = 0;
+        double maxY = 0;
+        for (GraphicalElement e : model.getGraphicalElements()) {
+            Rectangle2D bounds = e.getBounds();
+            maxX = Math.max(maxX, bounds.getMaxX());
+            maxY = Math.max(maxY, bounds.getMaxY());
+        }
+        return new Point2D.Double(maxX, maxY);
+    }
+}
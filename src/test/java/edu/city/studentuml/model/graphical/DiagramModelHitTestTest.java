@@ -0,0 +1,130 @@
+package edu.city.studentuml.model.graphical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Point;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.Association;
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.UMLProject;
+
+public class DiagramModelHitTestTest {
+
+    private DCDModel model;
+
+    @Before
+    public void setup() {
+        UMLProject project = UMLProject.getInstance();
+        project.clear();
+        model = new DCDModel("dcd", project);
+    }
+
+    @Test
+    public void theTopmostElementIsReturned() {
+        ClassGR below = addClass("Below", 100, 100);
+        ClassGR above = addClass("Above", 120, 120);
+
+        assertSame(above, model.getContainingGraphicalElement(130, 130));
+        assertSame(below, model.getContainingGraphicalElement(105, 105));
+        assertNull(model.getContainingGraphicalElement(5000, 5000));
+    }
+
+    @Test
+    public void movedElementsAreFoundAtTheirNewPosition() {
+        ClassGR moved = addClass("Moved", 100, 100);
+        addClass("Other", 1000, 1000);
+        assertSame(moved, model.getContainingGraphicalElement(110, 110));
+
+        model.moveGraphicalElement(moved, 2000, 100);
+        assertNull(model.getContainingGraphicalElement(110, 110));
+        assertSame(moved, model.getContainingGraphicalElement(2010, 110));
+
+        model.removeGraphicalElement(moved);
+        assertNull(model.getContainingGraphicalElement(2010, 110));
+    }
+
+    @Test
+    public void elementsAddedDirectlyToTheListAreFound() {
+        addClass("First", 100, 100);
+        assertNull(model.getContainingGraphicalElement(1010, 1010));
+
+        ClassGR added = new ClassGR(new DesignClass("Added"), new Point(1000, 1000));
+        model.getGraphicalElements().add(added);
+        assertSame(added, model.getContainingGraphicalElement(1010, 1010));
+    }
+
+    @Test
+    public void theLoopOfAReflectiveAssociationIsFound() {
+        ClassGR classGR = addClass("Self", 1000, 1000);
+        AssociationGR loop = new AssociationGR(classGR, classGR,
+                new Association(classGR.getDesignClass(), classGR.getDesignClass()));
+        model.addGraphicalElement(loop);
+
+        int step = loop.getReflectiveStep();
+        Point2D right = new Point2D.Double(loop.getXA() + (AbstractLinkGR.REFLECTIVE_RIGHT + 0.5) * step,
+                loop.getYA() - step);
+        assertSame(loop, model.getContainingGraphicalElement(right));
+    }
+
+    @Test
+    public void sameResultsAsTestingEveryElement() {
+        Random random = new Random(42);
+        List<ClassGR> classes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            classes.add(addClass("C" + i, random.nextInt(1500), random.nextInt(1500)));
+        }
+        for (int i = 0; i < 40; i++) {
+            ClassGR a = classes.get(random.nextInt(classes.size()));
+            ClassGR b = i % 10 == 0 ? a : classes.get(random.nextInt(classes.size()));
+            model.addGraphicalElement(new AssociationGR(a, b, new Association(a.getDesignClass(), b.getDesignClass())));
+        }
+
+        for (int i = 0; i < 300; i++) {
+            Point2D point = new Point2D.Double(random.nextInt(1900) - 200, random.nextInt(1900) - 200);
+            assertSame(point.toString(), containingByScan(point), model.getContainingGraphicalElement(point));
+        }
+        for (int i = 0; i < 30; i++) {
+            int x = random.nextInt(1500);
+            int y = random.nextInt(1500);
+            int toX = x + random.nextInt(750);
+            int toY = y + random.nextInt(750);
+            assertEquals(containedByScan(x, y, toX, toY), model.getContainedGraphicalElements(x, y, toX, toY));
+        }
+    }
+
+    private GraphicalElement containingByScan(Point2D point) {
+        List<GraphicalElement> elements = model.getGraphicalElements();
+        for (int i = elements.size() - 1; i >= 0; i--) {
+            if (elements.get(i).contains(point)) {
+                return elements.get(i);
+            }
+        }
+        return null;
+    }
+
+    private List<GraphicalElement> containedByScan(int x, int y, int toX, int toY) {
+        List<GraphicalElement> contained = new ArrayList<>();
+        List<GraphicalElement> elements = model.getGraphicalElements();
+        for (int i = elements.size() - 1; i >= 0; i--) {
+            if (elements.get(i).containedInArea(x, y, toX, toY)) {
+                contained.add(elements.get(i));
+            }
+        }
+        return contained;
+    }
+
+    private ClassGR addClass(String name, int x, int y) {
+        ClassGR classGR = new ClassGR(new DesignClass(name), new Point(x, y));
+        model.addGraphicalElement(classGR);
+        return classGR;
+    }
+}
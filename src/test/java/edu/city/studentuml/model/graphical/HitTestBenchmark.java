@@ -0,0 +1,134 @@
+package edu.city.studentuml.model.graphical;
+
+import java.awt.Point;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.city.studentuml.model.domain.Association;
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.UMLProject;
+
+/**
+ * Compares hit-testing by scanning every element with the spatial index of
+ * {@link DiagramModel} on generated class diagrams of 100, 1,000 and 10,000
+ * classes, each with an association to its neighbour, and reports the queries
+ * for which both do not find the same elements. Not run by the test suite; run
+ * it with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=edu.city.studentuml.model.graphical.HitTestBenchmark
+ * </pre>
+ */
+public class HitTestBenchmark {
+
+    private static final int QUERIES = 20000;
+    private static final int AREA_QUERIES = 1000;
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) {
+        Logger.getLogger("").setLevel(Level.WARNING);
+        for (int run = 0; run < RUNS; run++) {
+            for (int classes : new int[] { 100, 1000, 10000 }) {
+                benchmark(classes);
+            }
+        }
+    }
+
+    private static void benchmark(int classes) {
+        UMLProject project = UMLProject.getInstance();
+        project.clear();
+        DCDModel model = new DCDModel("benchmark", project);
+        int columns = (int) Math.ceil(Math.sqrt(classes));
+        ClassGR previous = null;
+        for (int i = 0; i < classes; i++) {
+            ClassGR classGR = new ClassGR(new DesignClass("Class" + i),
+                    new Point((i % columns) * 200, (i / columns) * 150));
+            model.getGraphicalElements().add(classGR);
+            if (previous != null) {
+                model.getGraphicalElements().add(new AssociationGR(previous, classGR,
+                        new Association(previous.getDesignClass(), classGR.getDesignClass())));
+            }
+            previous = classGR;
+        }
+        int width = columns * 200;
+        int height = (classes / columns + 1) * 150;
+
+        Random random = new Random(1);
+        Point2D[] points = new Point2D[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            points[i] = new Point2D.Double(random.nextInt(width), random.nextInt(height));
+        }
+
+        GraphicalElement[] scanned = new GraphicalElement[QUERIES];
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            scanned[i] = scan(model.getGraphicalElements(), points[i]);
+        }
+        long scan = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        model.modelChanged();
+        model.getContainingGraphicalElement(points[0]);
+        long build = System.nanoTime() - start;
+
+        GraphicalElement[] found = new GraphicalElement[QUERIES];
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            found[i] = model.getContainingGraphicalElement(points[i]);
+        }
+        long indexed = System.nanoTime() - start;
+
+        int mismatches = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            mismatches += found[i] != scanned[i] ? 1 : 0;
+        }
+
+        int[][] areas = new int[AREA_QUERIES][];
+        for (int i = 0; i < AREA_QUERIES; i++) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            areas[i] = new int[] { x, y, x + random.nextInt(width / 2 + 1), y + random.nextInt(height / 2 + 1) };
+        }
+        List<List<GraphicalElement>> contained = new ArrayList<>();
+        start = System.nanoTime();
+        for (int[] area : areas) {
+            contained.add(model.getContainedGraphicalElements(area[0], area[1], area[2], area[3]));
+        }
+        long area = System.nanoTime() - start;
+
+        for (int i = 0; i < AREA_QUERIES; i++) {
+            int[] a = areas[i];
+            mismatches += contained.get(i).equals(scanArea(model.getGraphicalElements(), a[0], a[1], a[2], a[3]))
+                    ? 0
+                    : 1;
+        }
+
+        System.out.printf("%6d classes: scan %8.0f ns/query, index %6.0f ns/query, build %6.2f ms,"
+                + " rubber band %8.0f ns/query%s%n", classes, (double) scan / QUERIES, (double) indexed / QUERIES,
+                build / 1e6, (double) area / AREA_QUERIES, mismatches == 0 ? "" : " " + mismatches + " MISMATCHES");
+    }
+
+    private static GraphicalElement scan(List<GraphicalElement> elements, Point2D point) {
+        for (int i = elements.size() - 1; i >= 0; i--) {
+            if (elements.get(i).contains(point)) {
+                return elements.get(i);
+            }
+        }
+        return null;
+    }
+
+    private static List<GraphicalElement> scanArea(List<GraphicalElement> elements, int x, int y, int toX, int toY) {
+        List<GraphicalElement> contained = new ArrayList<>();
+        for (int i = elements.size() - 1; i >= 0; i--) {
+            if (elements.get(i).containedInArea(x, y, toX, toY)) {
+                contained.add(elements.get(i));
+            }
+        }
+        return contained;
+    }
+}
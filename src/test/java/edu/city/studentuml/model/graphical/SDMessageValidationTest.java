@@ -0,0 +1,131 @@
+package edu.city.studentuml.model.graphical;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.Actor;
+import edu.city.studentuml.model.domain.ActorInstance;
+import edu.city.studentuml.model.domain.CallMessage;
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.GenericOperation;
+import edu.city.studentuml.model.domain.ReturnMessage;
+import edu.city.studentuml.model.domain.SDObject;
+import edu.city.studentuml.model.domain.UMLProject;
+
+/**
+ * Moving messages validates only the messages from the first one that changed;
+ * the ranks, errors and activations must be the same as those of a diagram
+ * with the messages at the same positions validated from the first message.
+ */
+public class SDMessageValidationTest {
+
+    private static final int OBJECTS = 4;
+
+    private UMLProject project;
+
+    @Before
+    public void setup() {
+        project = UMLProject.getInstance();
+        project.clear();
+    }
+
+    @Test
+    public void movingMessagesGivesTheSameResultAsValidatingAllOfThem() {
+        Random random = new Random(7);
+        int[][] spec = randomMessages(random, 60);
+        SDModel model = new SDModel("moved", project);
+        List<SDMessageGR> messages = addMessages(model, spec);
+
+        for (int move = 0; move < 100; move++) {
+            SDMessageGR message = messages.get(random.nextInt(messages.size()));
+            int y = 80 + random.nextInt(spec.length * 30);
+            if (random.nextBoolean()) {
+                model.moveGraphicalElement(message, 0, y);
+            } else {
+                model.settleGraphicalElement(message, 0, y);
+            }
+            if (move % 10 == 9) {
+                model.removeGraphicalElement(message);
+                messages.remove(message);
+            }
+
+            // in the order of the diagram, which keeps the order of messages at the same y
+            int[][] moved = new int[messages.size()][];
+            for (int i = 0; i < moved.length; i++) {
+                SDMessageGR m = model.getMessages().get(i);
+                moved[i] = new int[] { index(model, m.getSource()), index(model, m.getTarget()),
+                        m instanceof ReturnMessageGR ? 1 : 0, m.getY() };
+            }
+            SDModel validated = new SDModel("validated", project);
+            addMessages(validated, moved);
+            assertSameValidation(validated, model);
+        }
+    }
+
+    private static int[][] randomMessages(Random random, int count) {
+        int[][] spec = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int source = random.nextInt(OBJECTS);
+            int target = random.nextInt(OBJECTS);
+            spec[i] = new int[] { source, target, random.nextInt(3) == 0 ? 1 : 0, 80 + i * 30 };
+        }
+        return spec;
+    }
+
+    private static List<SDMessageGR> addMessages(SDModel model, int[][] spec) {
+        List<RoleClassifierGR> objects = new ArrayList<>();
+        ActorInstanceGR actor = new ActorInstanceGR(new ActorInstance("a", new Actor("A")), 50);
+        model.addRoleClassifier(actor);
+        objects.add(actor);
+        for (int i = 1; i < OBJECTS; i++) {
+            SDObjectGR object = new SDObjectGR(new SDObject("o" + i, new DesignClass("C" + i)), 50 + i * 150);
+            model.addRoleClassifier(object);
+            objects.add(object);
+        }
+
+        List<SDMessageGR> messages = new ArrayList<>();
+        for (int[] m : spec) {
+            RoleClassifierGR source = objects.get(m[0]);
+            RoleClassifierGR target = objects.get(m[1]);
+            SDMessageGR message;
+            if (m[2] == 1) {
+                message = new ReturnMessageGR(source, target,
+                        new ReturnMessage(source.getRoleClassifier(), target.getRoleClassifier(), "r"), m[3]);
+            } else {
+                message = new CallMessageGR(source, target, new CallMessage(source.getRoleClassifier(),
+                        target.getRoleClassifier(), new GenericOperation("m")), m[3]);
+            }
+            model.addMessage(message);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private static int index(SDModel model, RoleClassifierGR rc) {
+        return model.getRoleClassifiers().indexOf(rc);
+    }
+
+    private static void assertSameValidation(SDModel expected, SDModel actual) {
+        assertEquals(expected.getMessages().size(), actual.getMessages().size());
+        for (int i = 0; i < expected.getMessages().size(); i++) {
+            SDMessageGR e = expected.getMessages().get(i);
+            SDMessageGR a = actual.getMessages().get(i);
+            assertEquals(e.getY(), a.getY());
+            assertEquals(e.getMessage().getRank(), a.getMessage().getRank());
+            assertEquals(e.getErrorMsg(), a.getErrorMsg());
+        }
+        for (int r = 0; r < OBJECTS; r++) {
+            RoleClassifierGR e = expected.getRoleClassifiers().get(r);
+            RoleClassifierGR a = actual.getRoleClassifiers().get(r);
+            assertEquals(e.messageYs, a.messageYs);
+            assertEquals(e.activationAt, a.activationAt);
+            assertEquals(e.getEndingY(), a.getEndingY());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package edu.city.studentuml.model.graphical;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.Attribute;
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.Method;
+
+public class TextMetricsCacheTest {
+
+    private Graphics2D g;
+
+    @Before
+    public void setup() {
+        TextMetricsCache.clear();
+        g = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB).createGraphics();
+    }
+
+    @After
+    public void tearDown() {
+        g.dispose();
+        TextMetricsCache.setEnabled(true);
+    }
+
+    @Test
+    public void boundsAreTheSameAsTheLayoutBounds() {
+        FontRenderContext frc = new FontRenderContext(null, true, true);
+        Rectangle2D expected = new TextLayout("getName()", FontRegistry.CLASS_METHOD_FONT, frc).getBounds();
+
+        Rectangle2D first = GraphicsHelper.getTextBounds("getName()", FontRegistry.CLASS_METHOD_FONT, frc);
+        Rectangle2D second = GraphicsHelper.getTextBounds("getName()", FontRegistry.CLASS_METHOD_FONT, frc);
+
+        assertEquals(expected, first);
+        assertEquals(expected, second);
+        assertNotSame("callers get their own copy", first, second);
+        assertEquals(1, TextMetricsCache.getHitsAndMisses()[0]);
+    }
+
+    @Test
+    public void fontsAndContextsAreCachedSeparately() {
+        FontRenderContext frc = new FontRenderContext(null, true, true);
+        FontRenderContext zoomed = new FontRenderContext(AffineTransform.getScaleInstance(2, 2), true, true);
+
+        GraphicsHelper.getTextBounds("Order", FontRegistry.CLASS_NAME_FONT, frc);
+        GraphicsHelper.getTextBounds("Order", FontRegistry.CLASS_ATTRIBUTE_FONT, frc);
+        GraphicsHelper.getTextBounds("Order", FontRegistry.CLASS_NAME_FONT, zoomed);
+
+        assertEquals(3, TextMetricsCache.size());
+        assertEquals(0, TextMetricsCache.getHitsAndMisses()[0]);
+    }
+
+    @Test
+    public void theLeastRecentlyUsedTextsAreEvicted() {
+        FontRenderContext frc = new FontRenderContext(null, true, true);
+        for (int i = 0; i < TextMetricsCache.MAX_ENTRIES + 10; i++) {
+            GraphicsHelper.getTextBounds("text" + i, FontRegistry.NOTE_FONT, frc);
+            GraphicsHelper.getTextBounds("text0", FontRegistry.NOTE_FONT, frc);
+        }
+
+        assertEquals(TextMetricsCache.MAX_ENTRIES, TextMetricsCache.size());
+        long hits = TextMetricsCache.getHitsAndMisses()[0];
+        GraphicsHelper.getTextBounds("text0", FontRegistry.NOTE_FONT, frc);
+        assertEquals("the text used the most stays", hits + 1, TextMetricsCache.getHitsAndMisses()[0]);
+    }
+
+    @Test
+    public void classBoxesAreMeasuredAgainWhenTheirClassChanges() {
+        DesignClass designClass = new DesignClass("A");
+        ClassGR classGR = new ClassGR(designClass, new Point(0, 0));
+        classGR.draw(g);
+        int width = classGR.getWidth();
+        int height = classGR.getHeight();
+
+        long misses = TextMetricsCache.getHitsAndMisses()[1];
+        classGR.draw(g);
+        assertEquals(misses, TextMetricsCache.getHitsAndMisses()[1]);
+
+        designClass.addAttribute(new Attribute("aVeryLongAttributeNameThatWidensTheBox"));
+        designClass.addAttribute(new Attribute("b"));
+        classGR.draw(g);
+        assertTrue(classGR.getWidth() > width);
+        assertTrue(classGR.getHeight() > height);
+
+        int widthWithAttribute = classGR.getWidth();
+        designClass.addMethod(new Method("aMethodWithAMuchLongerNameThanTheAttributeBecauseItKeepsGoingAndGoing"));
+        classGR.draw(g);
+        assertTrue(classGR.getWidth() > widthWithAttribute);
+    }
+}
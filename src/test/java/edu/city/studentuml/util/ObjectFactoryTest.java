@@ -0,0 +1,48 @@
+package edu.city.studentuml.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.UMLProject;
+
+public class ObjectFactoryTest {
+
+    private UMLProject project = UMLProject.getInstance();
+
+    @After
+    public void tearDown() {
+        project.clear();
+    }
+
+    @Test
+    public void unknownClassNameFailsWithItsName() {
+        XMLStreamer streamer = new XMLStreamer();
+        try {
+            ObjectFactory.getInstance().newInstance("DesignClass1", null, streamer.addChild(null, ""), streamer);
+            fail("NotStreamable expected");
+        } catch (NotStreamable e) {
+            assertTrue(e.getMessage().contains("DesignClass1"));
+        }
+    }
+
+    @Test
+    public void loadingCountsInstantiationsPerClass() throws Exception {
+        project.clear();
+        project.loadFromXML("diagrams" + File.separator + "simple.xml");
+
+        ObjectFactory factory = ObjectFactory.getInstance();
+        assertEquals(1, factory.getInstantiationCount("DCDModel"));
+        assertEquals(3, factory.getInstantiationCount("ClassGR"));
+        assertEquals(3, factory.getInstantiationCount("DesignClass"));
+        assertEquals(0, factory.getInstantiationCount("UseCaseGR"));
+
+        factory.resetStatistics();
+        assertEquals(0, factory.getInstantiationCount("ClassGR"));
+    }
+}
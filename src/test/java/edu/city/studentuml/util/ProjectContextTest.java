@@ -0,0 +1,92 @@
+package edu.city.studentuml.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.UMLProject;
+
+public class ProjectContextTest {
+
+    private final List<String> files = Arrays.asList("diagrams/ad.xml", "diagrams/class-relation.xml",
+            "diagrams/comp_uc.xml", "diagrams/consistency-check.xml", "diagrams/objects.xml");
+
+    @After
+    public void tearDown() {
+        UMLProject.getInstance().clear();
+    }
+
+    @Test
+    public void theInstancesAreThoseOfTheCurrentContext() {
+        ProjectContext context = new ProjectContext();
+
+        context.run(() -> {
+            assertSame(context, ProjectContext.current());
+            assertSame(context.getProject(), UMLProject.getInstance());
+            assertSame(context.getNamePool(), SystemWideObjectNamePool.getInstance());
+            assertSame(context.getObjectFactory(), ObjectFactory.getInstance());
+        });
+
+        assertSame(ProjectContext.getDefault(), ProjectContext.current());
+        assertNotSame(context.getProject(), UMLProject.getInstance());
+        assertNotSame(context.getNamePool(), SystemWideObjectNamePool.getInstance());
+    }
+
+    @Test
+    public void loadingInAContextLeavesTheDefaultProjectAlone() {
+        ProjectContext context = new ProjectContext();
+
+        int objects = context.call(() -> load("diagrams/consistency-check.xml"));
+
+        assertTrue(objects > 0);
+        assertEquals(objects, context.getNamePool().getCount());
+        assertEquals(0, SystemWideObjectNamePool.getInstance().getCount());
+        assertTrue(UMLProject.getInstance().getDiagramModels().isEmpty());
+    }
+
+    @Test
+    public void projectsLoadInParallelAsTheyLoadOneByOne() throws Exception {
+        List<Integer> sequential = new ArrayList<>();
+        for (String file : files) {
+            sequential.add(new ProjectContext().call(() -> load(file)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (String file : files) {
+                futures.add(executor.submit(() -> new ProjectContext().call(() -> load(file))));
+            }
+            for (int i = 0; i < files.size(); i++) {
+                assertEquals(files.get(i), sequential.get(i), futures.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Loads the file into the current project.
+     *
+     * @return the number of named objects
+     */
+    private static int load(String file) {
+        try {
+            UMLProject.getInstance().loadFromXML(file);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return SystemWideObjectNamePool.getInstance().getCount();
+    }
+}
@@ -0,0 +1,127 @@
+package edu.city.studentuml.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Test;
+import org.w3c.dom.Element;
+
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.UMLProject;
+import edu.city.studentuml.model.graphical.ClassGR;
+import edu.city.studentuml.model.graphical.DCDModel;
+import edu.city.studentuml.model.graphical.UCDModel;
+
+/**
+ * Checks that the streaming writer produces the same bytes as the DOM writer
+ * and that both leave the file intact when saving fails.
+ */
+public class StreamingXMLWriterTest {
+
+    private UMLProject project = UMLProject.getInstance();
+
+    @After
+    public void tearDown() {
+        System.clearProperty(StreamingXMLWriter.DOM_WRITER_PROPERTY);
+        project.clear();
+    }
+
+    @Test
+    public void streamingSaveMatchesDOMSaveForSampleDiagrams() throws Exception {
+        File[] files = new File("diagrams").listFiles((dir, name) -> name.endsWith(".xml"));
+        assertTrue(files != null && files.length > 0);
+
+        for (File file : files) {
+            project.clear();
+            project.loadFromXML(file.getPath());
+            assertSameOutput(file.getName());
+        }
+    }
+
+    @Test
+    public void streamingSaveEscapesLikeDOMSave() throws IOException {
+        project.clear();
+        DCDModel model = new DCDModel("a<b>&\"c'", project);
+        model.addGraphicalElement(new ClassGR(new DesignClass("x\n\ty\r é€😀"), new Point(1, 2)));
+        new UCDModel("empty", project);
+
+        assertSameOutput("escaping");
+    }
+
+    @Test
+    public void openFallsBackToDOMWhenForced() throws IOException {
+        System.setProperty(StreamingXMLWriter.DOM_WRITER_PROPERTY, "true");
+        File file = File.createTempFile("studentuml_dom_", ".xml");
+        file.deleteOnExit();
+        assertEquals(XMLStreamer.class, StreamingXMLWriter.open(file.getPath()).getClass());
+    }
+
+    @Test
+    public void aFailureWhileStreamingLeavesTheFileIntact() throws IOException {
+        File file = File.createTempFile("studentuml_save_", ".xml");
+        file.deleteOnExit();
+        project.clear();
+        DCDModel model = new DCDModel("dcd", project);
+        for (int i = 0; i < 500; i++) {
+            model.addGraphicalElement(new ClassGR(new DesignClass("C" + i), new Point(i, i)));
+        }
+        project.streamToXML(file.getPath());
+        byte[] saved = Files.readAllBytes(file.toPath());
+
+        model.addGraphicalElement(new ClassGR(new DesignClass("Broken"), new Point(0, 0)) {
+            @Override
+            public void streamToXML(Element node, XMLStreamer streamer) {
+                throw new IllegalStateException("cannot stream");
+            }
+        });
+        for (String dom : new String[] { "false", "true" }) {
+            System.setProperty(StreamingXMLWriter.DOM_WRITER_PROPERTY, dom);
+            try {
+                project.streamToXML(file.getPath());
+                fail("the failure is not reported");
+            } catch (IllegalStateException e) {
+                assertArrayEquals("DOM writer " + dom, saved, Files.readAllBytes(file.toPath()));
+            }
+        }
+        String[] temporary = file.getParentFile().list((dir, name) -> name.startsWith("." + file.getName()));
+        assertEquals(0, temporary.length);
+    }
+
+    @Test
+    public void aProjectThatCannotBeWrittenStaysUnsaved() {
+        project.clear();
+        project.setFilepath(new File("no-such-directory", "project.xml").getAbsolutePath());
+        project.setSaved(false);
+        try {
+            project.streamToXML();
+            fail("the failure is not reported");
+        } catch (IOException e) {
+            assertFalse(project.isSaved());
+        }
+    }
+
+    private void assertSameOutput(String name) throws IOException {
+        File dom = File.createTempFile("studentuml_dom_", ".xml");
+        File stream = File.createTempFile("studentuml_stream_", ".xml");
+        dom.deleteOnExit();
+        stream.deleteOnExit();
+
+        System.setProperty(StreamingXMLWriter.DOM_WRITER_PROPERTY, "true");
+        project.streamToXML(dom.getPath());
+        System.clearProperty(StreamingXMLWriter.DOM_WRITER_PROPERTY);
+        project.streamToXML(stream.getPath());
+
+        assertEquals("Output differs for " + name, new String(Files.readAllBytes(dom.toPath()), "UTF-8"),
+                new String(Files.readAllBytes(stream.toPath()), "UTF-8"));
+        assertArrayEquals(Files.readAllBytes(dom.toPath()), Files.readAllBytes(stream.toPath()));
+    }
+}
@@ -0,0 +1,63 @@
+package edu.city.studentuml.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.DesignClass;
+
+public class SystemWideObjectNamePoolTest {
+
+    private SystemWideObjectNamePool pool = SystemWideObjectNamePool.getInstance();
+
+    @Before
+    public void setUp() {
+        pool.clear();
+        pool.loading();
+    }
+
+    @After
+    public void tearDown() {
+        pool.clear();
+    }
+
+    @Test
+    public void namesAreUniquePerClass() {
+        DesignClass a = new DesignClass("A");
+        DesignClass b = new DesignClass("B");
+        pool.objectAdded(a);
+        pool.objectAdded(b);
+
+        assertEquals("designclass0", pool.getNameForObject(a));
+        assertEquals("designclass1", pool.getNameForObject(b));
+    }
+
+    @Test
+    public void renamedObjectsKeepCountersAhead() {
+        DesignClass loaded = new DesignClass("A");
+        pool.renameObject(loaded, "designclass5");
+
+        DesignClass added = new DesignClass("B");
+        pool.objectAdded(added);
+
+        assertEquals("designclass6", pool.getNameForObject(added));
+        assertEquals(loaded, pool.getObjectByName("designclass5"));
+    }
+
+    @Test
+    public void namesTakenBelowTheCounterAreSkipped() {
+        DesignClass a = new DesignClass("A");
+        pool.objectAdded(a);
+        pool.renameObject(new DesignClass("B"), "designclass1");
+        pool.renameObject(a, "other");
+
+        DesignClass c = new DesignClass("C");
+        pool.objectAdded(c);
+
+        assertNotEquals("designclass1", pool.getNameForObject(c));
+        assertEquals("designclass2", pool.getNameForObject(c));
+    }
+}
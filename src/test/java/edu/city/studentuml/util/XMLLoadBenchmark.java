@@ -0,0 +1,79 @@
+package edu.city.studentuml.util;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.city.studentuml.model.domain.Attribute;
+import edu.city.studentuml.model.domain.DataType;
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.Method;
+import edu.city.studentuml.model.domain.UMLProject;
+import edu.city.studentuml.model.graphical.ClassGR;
+import edu.city.studentuml.model.graphical.DCDModel;
+
+/**
+ * Compares the load time and heap use of the DOM loader and the streaming
+ * loader on a generated project. Not run by the test suite; run it with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=edu.city.studentuml.util.XMLLoadBenchmark [-Dexec.args=10000]
+ * </pre>
+ */
+public class XMLLoadBenchmark {
+
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Logger.getLogger("").setLevel(Level.WARNING);
+        int elements = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+
+        File file = File.createTempFile("studentuml_benchmark_", ".xml");
+        file.deleteOnExit();
+        generateProject(elements, file);
+        System.out.printf("%d classes, %d KB%n", elements, file.length() / 1024);
+
+        for (int i = 0; i < RUNS; i++) {
+            System.out.printf("DOM       %s%n", load(file, true));
+            System.out.printf("streaming %s%n", load(file, false));
+        }
+    }
+
+    private static void generateProject(int elements, File file) throws IOException {
+        UMLProject project = UMLProject.getInstance();
+        project.clear();
+        SystemWideObjectNamePool.getInstance().loading();
+        DCDModel model = new DCDModel("benchmark", project);
+        for (int i = 0; i < elements; i++) {
+            DesignClass dc = new DesignClass("Class" + i);
+            dc.addAttribute(new Attribute("name", DataType.STRING));
+            dc.addMethod(new Method("getName"));
+            model.addGraphicalElement(new ClassGR(dc, new Point((i % 100) * 200, (i / 100) * 150)));
+        }
+        SystemWideObjectNamePool.getInstance().done();
+        project.streamToXML(file.getAbsolutePath());
+        project.clear();
+    }
+
+    private static String load(File file, boolean dom) throws IOException, NotStreamable {
+        System.setProperty(XMLStreamReaderStreamer.DOM_LOADER_PROPERTY, Boolean.toString(dom));
+        UMLProject project = UMLProject.getInstance();
+        project.clear();
+        System.gc();
+
+        Runtime runtime = Runtime.getRuntime();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        project.loadFromXML(file.getAbsolutePath());
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        int count = project.getDiagramModel(0).getGraphicalElements().size();
+        project.clear();
+        return String.format("%6d ms, %5d MB allocated and retained, %d elements", millis,
+                (heapAfter - heapBefore) / (1024 * 1024), count);
+    }
+}
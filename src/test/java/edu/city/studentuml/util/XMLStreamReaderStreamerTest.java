@@ -0,0 +1,73 @@
+package edu.city.studentuml.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.UMLProject;
+
+/**
+ * Checks that the streaming loader builds the same model as the DOM loader for
+ * the sample diagrams.
+ */
+public class XMLStreamReaderStreamerTest {
+
+    private UMLProject project = UMLProject.getInstance();
+
+    @After
+    public void tearDown() {
+        System.clearProperty(XMLStreamReaderStreamer.DOM_LOADER_PROPERTY);
+        project.clear();
+    }
+
+    @Test
+    public void streamingLoadMatchesDOMLoad() throws Exception {
+        File[] files = new File("diagrams").listFiles((dir, name) -> name.endsWith(".xml"));
+        assertTrue(files != null && files.length > 0);
+
+        for (File file : files) {
+            System.setProperty(XMLStreamReaderStreamer.DOM_LOADER_PROPERTY, "true");
+            List<String> domErrors = load(file);
+            String domXML = project.streamToXMLString();
+
+            System.clearProperty(XMLStreamReaderStreamer.DOM_LOADER_PROPERTY);
+            List<String> streamErrors = load(file);
+            String streamXML = project.streamToXMLString();
+
+            assertEquals("Errors differ for " + file, domErrors.size(), streamErrors.size());
+            assertEquals("Model differs for " + file, domXML, streamXML);
+        }
+    }
+
+    @Test
+    public void openFallsBackToDOMWhenForced() throws IOException {
+        System.setProperty(XMLStreamReaderStreamer.DOM_LOADER_PROPERTY, "true");
+        XMLStreamer streamer = XMLStreamReaderStreamer.open("diagrams" + File.separator + "simple.xml");
+        assertEquals(XMLStreamer.class, streamer.getClass());
+        assertTrue(streamer.getNodeById(null, XMLSyntax.PROJECT) != null);
+    }
+
+    @Test
+    public void streamingReadsProjectLazily() throws Exception {
+        XMLStreamer streamer = XMLStreamReaderStreamer.open("diagrams" + File.separator + "simple.xml");
+        try {
+            assertEquals(XMLStreamReaderStreamer.class, streamer.getClass());
+            assertEquals("UMLProject",
+                    streamer.getNodeById(null, XMLSyntax.PROJECT).getAttribute(XMLSyntax.CLASS));
+            assertEquals(0, streamer.getNodeById(null, XMLSyntax.PROJECT).getChildNodes().getLength());
+        } finally {
+            streamer.close();
+        }
+    }
+
+    private List<String> load(File file) throws Exception {
+        project.clear();
+        return project.loadFromXML(file.getPath());
+    }
+}
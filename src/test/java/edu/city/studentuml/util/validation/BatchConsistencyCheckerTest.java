@@ -0,0 +1,84 @@
+package edu.city.studentuml.util.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.UMLProject;
+import edu.city.studentuml.util.Constants;
+
+public class BatchConsistencyCheckerTest {
+
+    private final String rulesFile = this.getClass().getResource(Constants.RULES_ADVANCED).toString();
+    private final List<File> files = Arrays.asList(new File("diagrams", "ad.xml"),
+            new File("diagrams", "class-relation.xml"), new File("diagrams", "comp_uc.xml"),
+            new File("diagrams", "consistency-check.xml"), new File("diagrams", "objects.xml"),
+            new File("diagrams", "missing.xml"));
+
+    @After
+    public void tearDown() {
+        UMLProject.getInstance().clear();
+    }
+
+    @Test
+    public void parallelChecksReportTheSameMessagesAsSequentialOnes() throws IOException {
+        List<BatchConsistencyChecker.Report> sequential = new BatchConsistencyChecker(rulesFile, 1).checkAll(files,
+                null);
+        List<BatchConsistencyChecker.Report> parallel = new BatchConsistencyChecker(rulesFile, 3).checkAll(files,
+                null);
+
+        int messages = 0;
+        for (int i = 0; i < files.size() - 1; i++) {
+            assertNull(parallel.get(i).getError());
+            assertEquals(sequential.get(i).getFacts(), parallel.get(i).getFacts());
+            assertEquals(strings(sequential.get(i).getMessages()), strings(parallel.get(i).getMessages()));
+            messages += parallel.get(i).getMessages().size();
+        }
+        assertTrue(messages > 0);
+        assertNotNull(parallel.get(files.size() - 1).getError());
+    }
+
+    @Test
+    public void aReportIsWrittenForEveryFile() throws IOException {
+        File output = Files.createTempDirectory("studentuml_reports_").toFile();
+        List<File> twice = Arrays.asList(files.get(3), files.get(3), files.get(5));
+
+        new BatchConsistencyChecker(rulesFile, 2).checkAll(twice, output);
+
+        JSONObject first = read(new File(output, "consistency-check.json"));
+        JSONObject second = read(new File(output, "consistency-check-2.json"));
+        assertTrue(first.getBoolean("checked"));
+        assertTrue(first.getJSONArray("messages").length() > 0);
+        assertEquals(first.getJSONArray("messages").toString(), second.getJSONArray("messages").toString());
+        assertFalse(read(new File(output, "missing.json")).getBoolean("checked"));
+
+        for (File report : output.listFiles()) {
+            report.delete();
+        }
+        output.delete();
+    }
+
+    private static JSONObject read(File file) throws IOException {
+        return new JSONObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    private static List<String> strings(List<String[]> messages) {
+        List<String> strings = new ArrayList<>();
+        messages.forEach(m -> strings.add(String.join("|", m)));
+        return strings;
+    }
+}
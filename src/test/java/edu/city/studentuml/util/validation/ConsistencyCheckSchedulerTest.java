@@ -0,0 +1,118 @@
+package edu.city.studentuml.util.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import edu.city.studentuml.util.ProjectContext;
+
+public class ConsistencyCheckSchedulerTest {
+
+    private final AtomicInteger checks = new AtomicInteger();
+
+    @Test
+    public void withoutAQuietPeriodEveryRequestIsChecked() {
+        ConsistencyCheckScheduler scheduler = new ConsistencyCheckScheduler(0, checks::incrementAndGet);
+
+        scheduler.request();
+        scheduler.request();
+
+        assertEquals(2, checks.get());
+        assertEquals(2, scheduler.getRequestedCount());
+        assertEquals(2, scheduler.getRunCount());
+        assertFalse(scheduler.isPending());
+    }
+
+    @Test
+    public void aBurstOfRequestsIsCheckedOnceWhenFlushed() {
+        ConsistencyCheckScheduler scheduler = new ConsistencyCheckScheduler(60_000, checks::incrementAndGet);
+
+        for (int i = 0; i < 50; i++) {
+            scheduler.request();
+        }
+        assertEquals(0, checks.get());
+        assertTrue(scheduler.isPending());
+
+        assertTrue(scheduler.flush());
+        assertFalse(scheduler.flush());
+
+        assertEquals(1, checks.get());
+        assertEquals(50, scheduler.getRequestedCount());
+        assertEquals(1, scheduler.getRunCount());
+    }
+
+    @Test
+    public void aBurstOfRequestsIsCheckedOnceAfterTheQuietPeriod() throws Exception {
+        CountDownLatch checked = new CountDownLatch(1);
+        ConsistencyCheckScheduler scheduler = new ConsistencyCheckScheduler(50, () -> {
+            checks.incrementAndGet();
+            checked.countDown();
+        });
+
+        SwingUtilities.invokeAndWait(() -> {
+            for (int i = 0; i < 20; i++) {
+                scheduler.request();
+            }
+        });
+
+        assertTrue(checked.await(5, TimeUnit.SECONDS));
+        // a second check would have been scheduled by the same timer
+        Thread.sleep(200);
+        SwingUtilities.invokeAndWait(() -> {
+        });
+        assertEquals(1, checks.get());
+        assertEquals(20, scheduler.getRequestedCount());
+        assertEquals(1, scheduler.getRunCount());
+        assertFalse(scheduler.isPending());
+    }
+
+    @Test
+    public void checkNowReplacesThePendingCheck() {
+        ConsistencyCheckScheduler scheduler = new ConsistencyCheckScheduler(60_000, checks::incrementAndGet);
+        scheduler.request();
+
+        scheduler.checkNow();
+
+        assertEquals(1, checks.get());
+        assertFalse(scheduler.isPending());
+        assertEquals(2, scheduler.getRequestedCount());
+        assertEquals(1, scheduler.getRunCount());
+    }
+
+    @Test
+    public void removingTheQuietPeriodRunsThePendingCheck() {
+        ConsistencyCheckScheduler scheduler = new ConsistencyCheckScheduler(60_000, checks::incrementAndGet);
+        scheduler.request();
+
+        scheduler.setQuietMillis(0);
+
+        assertEquals(1, checks.get());
+        assertFalse(scheduler.isPending());
+    }
+
+    @Test
+    public void aDelayedCheckRunsInTheContextItWasRequestedIn() throws Exception {
+        ProjectContext context = new ProjectContext();
+        AtomicReference<ProjectContext> checkedIn = new AtomicReference<>();
+        CountDownLatch checked = new CountDownLatch(1);
+        ConsistencyCheckScheduler scheduler = new ConsistencyCheckScheduler(50, () -> {
+            checkedIn.set(ProjectContext.current());
+            checked.countDown();
+        });
+
+        SwingUtilities.invokeAndWait(() -> context.run(scheduler::request));
+
+        assertTrue(checked.await(5, TimeUnit.SECONDS));
+        assertSame(context, checkedIn.get());
+    }
+}
@@ -0,0 +1,150 @@
+package edu.city.studentuml.util.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.UMLProject;
+import edu.city.studentuml.model.graphical.ClassGR;
+import edu.city.studentuml.model.graphical.DCDModel;
+import edu.city.studentuml.util.Constants;
+import edu.city.studentuml.view.gui.CollectionTreeModel;
+
+public class ConsistencyCheckWorkerTest {
+
+    /**
+     * Holds every check until released.
+     */
+    private static class BlockingChecker extends ConsistencyChecker {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        BlockingChecker(String location) {
+            super(location);
+        }
+
+        @Override
+        public synchronized boolean checkFacts(Set<String> newFacts, String executeRule, Set<String> messageTypes,
+                CollectionTreeModel messages, CollectionTreeModel facts, BooleanSupplier cancelled) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.checkFacts(newFacts, executeRule, messageTypes, messages, facts, cancelled);
+        }
+    }
+
+    private UMLProject project = UMLProject.getInstance();
+    private String rulesFile;
+    private Set<Object> objects = new HashSet<>();
+    private DesignClass dc;
+
+    @Before
+    public void setUp() {
+        project.clear();
+        rulesFile = this.getClass().getResource(Constants.RULES_ADVANCED).toString();
+
+        DCDModel model = new DCDModel("dcd", project);
+        dc = new DesignClass("");
+        ClassGR classGR = new ClassGR(dc, new Point());
+        model.addGraphicalElement(classGR);
+        objects.add(project);
+        objects.add(model);
+        objects.add(dc);
+        objects.add(classGR);
+    }
+
+    @After
+    public void tearDown() {
+        project.clear();
+    }
+
+    @Test
+    public void onlyTheLatestCheckIsPublished() throws Exception {
+        BlockingChecker checker = new BlockingChecker(rulesFile);
+        ConsistencyCheckWorker worker = new ConsistencyCheckWorker();
+        List<ConsistencyCheckWorker.Result> published = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+
+        worker.submit(checker, objects, result -> {
+            published.add(result);
+            done.countDown();
+        });
+        assertTrue(checker.started.await(10, TimeUnit.SECONDS));
+
+        dc.setName("Stale");
+        worker.submit(checker, objects, published::add);
+        dc.setName("Named");
+        worker.submit(checker, objects, result -> {
+            published.add(result);
+            done.countDown();
+        });
+        checker.release.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        SwingUtilities.invokeAndWait(() -> {
+        });
+
+        assertEquals(1, published.size());
+        ConsistencyCheckWorker.Result result = published.get(0);
+        assertTrue(result.getMillis() >= 0);
+        assertFalse(sorted(result.getMessages()).contains("Unnamed class in DCD"));
+
+        CollectionTreeModel facts = new CollectionTreeModel();
+        new ConsistencyChecker(rulesFile).checkState(objects, null, new HashSet<>(), new CollectionTreeModel(),
+                facts);
+        assertEquals(sorted(facts), sorted(result.getFacts()));
+    }
+
+    @Test
+    public void cancelledCheckIsNotPublished() throws Exception {
+        BlockingChecker checker = new BlockingChecker(rulesFile);
+        ConsistencyCheckWorker worker = new ConsistencyCheckWorker();
+        List<ConsistencyCheckWorker.Result> published = Collections.synchronizedList(new ArrayList<>());
+
+        worker.submit(checker, objects, published::add);
+        assertTrue(checker.started.await(10, TimeUnit.SECONDS));
+        worker.cancel();
+        checker.release.countDown();
+
+        /*
+         * a check submitted afterwards runs after the cancelled one
+         */
+        CountDownLatch done = new CountDownLatch(1);
+        worker.submit(checker, objects, result -> done.countDown());
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        SwingUtilities.invokeAndWait(() -> {
+        });
+
+        assertTrue(published.isEmpty());
+    }
+
+    private static List<String> sorted(CollectionTreeModel tree) {
+        List<String> nodes = new ArrayList<>();
+        for (Enumeration<Object> e = tree.elements(); e.hasMoreElements();) {
+            nodes.add(e.nextElement().toString());
+        }
+        Collections.sort(nodes);
+        return nodes;
+    }
+}
@@ -0,0 +1,182 @@
+package edu.city.studentuml.util.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.UMLProject;
+import edu.city.studentuml.model.graphical.ClassGR;
+import edu.city.studentuml.model.graphical.DCDModel;
+import edu.city.studentuml.util.Constants;
+import edu.city.studentuml.util.SystemWideObjectNamePool;
+import edu.city.studentuml.view.gui.CollectionTreeModel;
+
+/**
+ * Checks that the incremental checker, which keeps its engine across checks,
+ * reports the same messages and facts as a checker that starts from a new
+ * engine every time.
+ */
+public class ConsistencyCheckerTest {
+
+    private UMLProject project = UMLProject.getInstance();
+    private ConsistencyChecker incremental;
+    private ConsistencyChecker full;
+
+    private Set<Object> objects = new HashSet<>();
+    private DCDModel model;
+
+    @Before
+    public void setUp() {
+        project.clear();
+        String rulesFile = this.getClass().getResource(Constants.RULES_ADVANCED).toString();
+        incremental = new ConsistencyChecker(rulesFile);
+        full = new ConsistencyChecker(rulesFile);
+        full.setIncremental(false);
+
+        model = new DCDModel("dcd", project);
+        objects.add(project);
+        objects.add(model);
+    }
+
+    @After
+    public void tearDown() {
+        project.clear();
+    }
+
+    @Test
+    public void incrementalCheckFollowsChanges() {
+        DesignClass dc = new DesignClass("");
+        ClassGR classGR = new ClassGR(dc, new Point());
+        model.addGraphicalElement(classGR);
+        objects.add(dc);
+        objects.add(classGR);
+        assertTrue(check().contains("Unnamed class in DCD"));
+
+        dc.setName("Named");
+        assertFalse(check().contains("Unnamed class in DCD"));
+
+        dc.setName("");
+        assertTrue(check().contains("Unnamed class in DCD"));
+
+        model.removeGraphicalElement(classGR);
+        objects.remove(dc);
+        objects.remove(classGR);
+        assertFalse(check().contains("Unnamed class in DCD"));
+    }
+
+    @Test
+    public void parallelCheckMatchesSequentialCheckInRuleOrder() throws Exception {
+        ConsistencyChecker parallel = new ConsistencyChecker(
+                this.getClass().getResource(Constants.RULES_ADVANCED).toString());
+        parallel.setEngines(3);
+        int messageCount = 0;
+
+        for (String name : new String[] { "ad.xml", "class-relation.xml", "comp_uc.xml", "consistency-check.xml",
+                "objects.xml" }) {
+            File file = new File("diagrams", name);
+            project.clear();
+            project.loadFromXML(file.getPath());
+            Set<Object> loaded = SystemWideObjectNamePool.getInstance().getObjects();
+
+            CollectionTreeModel sequentialMessages = new CollectionTreeModel();
+            incremental.checkState(loaded, null, new HashSet<>(), sequentialMessages, new CollectionTreeModel());
+            CollectionTreeModel parallelMessages = new CollectionTreeModel();
+            parallel.checkState(loaded, null, new HashSet<>(), parallelMessages, new CollectionTreeModel());
+
+            assertEquals("Messages differ for " + file, inOrder(sequentialMessages), inOrder(parallelMessages));
+            messageCount += inOrder(parallelMessages).size();
+        }
+        assertTrue(messageCount > 0);
+    }
+
+    @Test
+    public void profilingRecordsRulesAndFactTemplates() throws Exception {
+        DesignClass dc = new DesignClass("");
+        ClassGR classGR = new ClassGR(dc, new Point());
+        model.addGraphicalElement(classGR);
+        objects.add(dc);
+        objects.add(classGR);
+
+        incremental.checkState(objects, null, new HashSet<>(), new CollectionTreeModel(), new CollectionTreeModel());
+        assertTrue(incremental.getProfiles().stream().allMatch(p -> p.getCount() == 0));
+
+        incremental.setProfiling(true);
+        assertTrue(check().contains("Unnamed class in DCD"));
+
+        CheckProfile unnamed = incremental.getRule("Unnamed class in DCD").getProfile();
+        assertEquals(1, unnamed.getCount());
+        assertTrue(unnamed.getResults() > 0);
+        long facts = 0;
+        for (CheckProfile p : incremental.getProfiles()) {
+            if (p.getKind().equals(CheckProfile.FACT)) {
+                facts += p.getResults();
+            }
+        }
+        // the same fact can be generated by more than one template
+        assertTrue(facts >= incremental.generateFacts(objects).size());
+
+        StringWriter csv = new StringWriter();
+        CheckProfile.writeCSV(incremental.getProfiles(), csv);
+        assertTrue(csv.toString().startsWith("kind,name,count,total_ms"));
+        assertTrue(csv.toString().contains("\nrule,Unnamed class in DCD,1,"));
+
+        incremental.resetProfiles();
+        assertEquals(0, unnamed.getCount());
+    }
+
+    /**
+     * Runs both checkers and returns the messages after asserting that they
+     * agree.
+     */
+    private List<String> check() {
+        CollectionTreeModel incrementalMessages = new CollectionTreeModel();
+        CollectionTreeModel incrementalFacts = new CollectionTreeModel();
+        incremental.checkState(objects, null, new HashSet<>(), incrementalMessages, incrementalFacts);
+
+        CollectionTreeModel fullMessages = new CollectionTreeModel();
+        CollectionTreeModel fullFacts = new CollectionTreeModel();
+        full.checkState(objects, null, new HashSet<>(), fullMessages, fullFacts);
+
+        assertEquals(sorted(fullFacts), sorted(incrementalFacts));
+        assertEquals(sorted(fullMessages), sorted(incrementalMessages));
+        return sorted(incrementalMessages);
+    }
+
+    private static List<String> inOrder(CollectionTreeModel tree) {
+        List<String> nodes = new ArrayList<>();
+        addInOrder(tree, tree.getRoot(), nodes);
+        return nodes;
+    }
+
+    private static void addInOrder(CollectionTreeModel tree, Object node, List<String> nodes) {
+        for (int i = 0; i < tree.getChildCount(node); i++) {
+            Object child = tree.getChild(node, i);
+            nodes.add(child.toString());
+            addInOrder(tree, child, nodes);
+        }
+    }
+
+    private static List<String> sorted(CollectionTreeModel tree) {
+        List<String> nodes = new ArrayList<>();
+        for (Enumeration<Object> e = tree.elements(); e.hasMoreElements();) {
+            nodes.add(e.nextElement().toString());
+        }
+        Collections.sort(nodes);
+        return nodes;
+    }
+}
@@ -0,0 +1,91 @@
+package edu.city.studentuml.util.validation;
+
+import java.awt.Point;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.city.studentuml.model.domain.Attribute;
+import edu.city.studentuml.model.domain.DataType;
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.Method;
+import edu.city.studentuml.model.domain.MethodParameter;
+import edu.city.studentuml.model.domain.UMLProject;
+import edu.city.studentuml.model.graphical.ClassGR;
+import edu.city.studentuml.model.graphical.DCDModel;
+import edu.city.studentuml.util.Constants;
+import edu.city.studentuml.util.SystemWideObjectNamePool;
+
+/**
+ * Measures how many facts per second {@link ConsistencyChecker#generateFacts}
+ * generates from the advanced rules for a generated design class diagram. Not
+ * run by the test suite; run it with
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=edu.city.studentuml.util.validation.FactGenerationBenchmark [-Dexec.args=500]
+ * </pre>
+ */
+public class FactGenerationBenchmark {
+
+    private static final int WARMUP_RUNS = 10;
+    private static final int RUNS = 20;
+
+    public static void main(String[] args) {
+        Logger.getLogger("").setLevel(Level.WARNING);
+        int classes = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+
+        Set<Object> objects = generateProject(classes);
+        ConsistencyChecker checker = new ConsistencyChecker(
+                FactGenerationBenchmark.class.getResource(Constants.RULES_ADVANCED).toString());
+
+        int facts = 0;
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            facts = checker.generateFacts(objects).size();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            checker.generateFacts(objects);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d objects, %d facts, %.2f ms per run, %.0f facts/s%n", objects.size(), facts,
+                seconds * 1000 / RUNS, facts * RUNS / seconds);
+        UMLProject.getInstance().clear();
+    }
+
+    private static Set<Object> generateProject(int classes) {
+        UMLProject project = UMLProject.getInstance();
+        project.clear();
+        SystemWideObjectNamePool.getInstance().loading();
+
+        Set<Object> objects = new HashSet<>();
+        DCDModel model = new DCDModel("benchmark", project);
+        objects.add(project);
+        objects.add(model);
+        for (int i = 0; i < classes; i++) {
+            DesignClass dc = new DesignClass("Class" + i);
+            for (int j = 0; j < 2; j++) {
+                Attribute attribute = new Attribute("attribute" + j, DataType.STRING);
+                dc.addAttribute(attribute);
+                objects.add(attribute);
+
+                Method method = new Method("method" + j);
+                MethodParameter parameter = new MethodParameter("parameter", DataType.INTEGER);
+                method.addParameter(parameter);
+                dc.addMethod(method);
+                objects.add(method);
+                objects.add(parameter);
+            }
+            ClassGR classGR = new ClassGR(dc, new Point((i % 100) * 200, (i / 100) * 150));
+            model.addGraphicalElement(classGR);
+            objects.add(dc);
+            objects.add(classGR);
+        }
+
+        SystemWideObjectNamePool.getInstance().done();
+        return objects;
+    }
+}
@@ -0,0 +1,183 @@
+package edu.city.studentuml.util.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.UMLProject;
+import edu.city.studentuml.util.Constants;
+import edu.city.studentuml.util.SystemWideObjectNamePool;
+import edu.city.studentuml.util.validation.prolog.NativePrologAPI;
+import edu.city.studentuml.view.gui.CollectionTreeModel;
+
+/**
+ * Runs every rule of both rule files over the facts of every diagram in
+ * diagrams/ with JLog and with {@link NativePrologAPI}, and checks that they
+ * find the same solutions in the same order and report the same messages.
+ * Diagrams with more than {@link #MAX_OBJECTS} objects are left out, as JLog
+ * takes minutes to check them.
+ */
+public class NativePrologAPIConformanceTest {
+
+    private static final Logger logger = Logger.getLogger(NativePrologAPIConformanceTest.class.getName());
+
+    private static final int MAX_OBJECTS = 500;
+
+    private static Level level;
+
+    private UMLProject project = UMLProject.getInstance();
+
+    @BeforeClass
+    public static void quiet() {
+        level = Logger.getLogger("").getLevel();
+        Logger.getLogger("").setLevel(Level.OFF);
+    }
+
+    @AfterClass
+    public static void restore() {
+        Logger.getLogger("").setLevel(level);
+    }
+
+    @After
+    public void tearDown() {
+        project.clear();
+    }
+
+    @Test
+    public void solutionsMatchJLogOnAllDiagrams() {
+        int diagrams = 0;
+        int solutions = 0;
+        for (File file : diagrams()) {
+            project.clear();
+            try {
+                project.loadFromXML(file.getPath());
+            } catch (Exception e) {
+                logger.info(() -> "Skipping " + file + ": " + e);
+                continue;
+            }
+            Set<Object> objects = SystemWideObjectNamePool.getInstance().getObjects();
+            if (objects.size() > MAX_OBJECTS) {
+                continue;
+            }
+            diagrams++;
+
+            for (String rules : new String[] { Constants.RULES_SIMPLE, Constants.RULES_ADVANCED }) {
+                RulesView checker = new RulesView(this.getClass().getResource(rules).toString());
+                Set<String> facts = checker.generateFacts(objects);
+
+                RuleBasedEngine jlog = checker.load(new JLogPrologAPIAdapter(), facts);
+                RuleBasedEngine nativeEngine = checker.load(new NativePrologAPI(), facts);
+                for (String expression : checker.expressions()) {
+                    List<String> expected = solutions(jlog, expression);
+                    assertEquals(file + " " + rules + ": " + expression, expected, solutions(nativeEngine, expression));
+                    solutions += expected.size();
+                }
+            }
+        }
+        assertTrue(diagrams > 0);
+        assertTrue(solutions > 0);
+    }
+
+    @Test
+    public void messagesMatchJLogOnAllDiagrams() {
+        ConsistencyChecker jlog = new ConsistencyChecker(
+                this.getClass().getResource(Constants.RULES_ADVANCED).toString());
+        ConsistencyChecker nativeEngine = new ConsistencyChecker(
+                this.getClass().getResource(Constants.RULES_ADVANCED).toString());
+        nativeEngine.setNativeEngine(true);
+
+        for (File file : diagrams()) {
+            project.clear();
+            try {
+                project.loadFromXML(file.getPath());
+            } catch (Exception e) {
+                continue;
+            }
+            Set<Object> objects = SystemWideObjectNamePool.getInstance().getObjects();
+            if (objects.size() > MAX_OBJECTS) {
+                continue;
+            }
+
+            CollectionTreeModel expected = new CollectionTreeModel();
+            jlog.checkState(objects, null, new HashSet<>(), expected, new CollectionTreeModel());
+            CollectionTreeModel actual = new CollectionTreeModel();
+            nativeEngine.checkState(objects, null, new HashSet<>(), actual, new CollectionTreeModel());
+
+            assertEquals("Messages differ for " + file, inOrder(expected), inOrder(actual));
+        }
+    }
+
+    /**
+     * Gives the test the simplifications and rule expressions of a rules file.
+     */
+    private static class RulesView extends ConsistencyChecker {
+        RulesView(String location) {
+            super(location);
+        }
+
+        RuleBasedEngine load(PrologAPI api, Set<String> facts) {
+            RuleBasedEngine engine = new RuleBasedEngine(api);
+            simplifications.forEach(f -> engine.addClause("(" + f + ")"));
+            facts.forEach(engine::addFact);
+            return engine;
+        }
+
+        List<String> expressions() {
+            List<String> expressions = new ArrayList<>();
+            rules.forEach(rule -> expressions.add(rule.getexpression()));
+            return expressions;
+        }
+    }
+
+    /**
+     * @return every solution of the expression, in order, with the variables
+     *         sorted by name
+     */
+    private static List<String> solutions(RuleBasedEngine engine, String expression) {
+        List<String> solutions = new ArrayList<>();
+        Map<String, Map<String, ?>> results = engine.checkRule(expression, true);
+        if (results != null) {
+            for (int i = 0; i < results.size(); i++) {
+                Map<String, ?> solution = results.get("solution" + i);
+                solutions.add(new TreeMap<>(solution).toString());
+            }
+        }
+        return solutions;
+    }
+
+    private static List<File> diagrams() {
+        File[] files = new File("diagrams").listFiles((dir, name) -> name.endsWith(".xml"));
+        List<File> diagrams = new ArrayList<>(Arrays.asList(files));
+        diagrams.sort(null);
+        return diagrams;
+    }
+
+    private static List<String> inOrder(CollectionTreeModel tree) {
+        List<String> nodes = new ArrayList<>();
+        addInOrder(tree, tree.getRoot(), nodes);
+        return nodes;
+    }
+
+    private static void addInOrder(CollectionTreeModel tree, Object node, List<String> nodes) {
+        for (int i = 0; i < tree.getChildCount(node); i++) {
+            Object child = tree.getChild(node, i);
+            nodes.add(child.toString());
+            addInOrder(tree, child, nodes);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package edu.city.studentuml.util.validation;
+
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.DataType;
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.Method;
+import edu.city.studentuml.model.domain.MethodParameter;
+import edu.city.studentuml.model.domain.UMLProject;
+import edu.city.studentuml.model.graphical.ClassGR;
+import edu.city.studentuml.model.graphical.DCDModel;
+import edu.city.studentuml.util.Constants;
+import edu.city.studentuml.util.SystemWideObjectNamePool;
+
+public class RuleBasedSystemGeneratorTest {
+
+    private UMLProject project = UMLProject.getInstance();
+    private SystemWideObjectNamePool pool = SystemWideObjectNamePool.getInstance();
+    private ConsistencyChecker checker;
+
+    @Before
+    public void setUp() {
+        project.clear();
+        checker = new ConsistencyChecker(this.getClass().getResource(Constants.RULES_ADVANCED).toString());
+    }
+
+    @After
+    public void tearDown() {
+        project.clear();
+    }
+
+    @Test
+    public void factsAreGeneratedFromTemplatesOfClassAndSuperclasses() {
+        DCDModel model = new DCDModel("dcd", project);
+        DesignClass dc = new DesignClass("Shop");
+        Method method = new Method("buy");
+        MethodParameter parameter = new MethodParameter("amount", DataType.INTEGER);
+        method.addParameter(parameter);
+        dc.addMethod(method);
+        ClassGR classGR = new ClassGR(dc, new Point());
+        model.addGraphicalElement(classGR);
+
+        Set<String> facts = checker
+                .generateFacts(new HashSet<>(Arrays.asList(model, dc, classGR, method, parameter)));
+
+        String m = pool.getNameForObject(model);
+        String c = pool.getNameForObject(dc);
+        String g = pool.getNameForObject(classGR);
+        String me = pool.getNameForObject(method);
+        String p = pool.getNameForObject(parameter);
+
+        assertFact(facts, "diagram(" + m + " , 'dcd' , dcd)");
+        assertFact(facts, "belongsTo(" + m + " , " + g + ")");
+        assertFact(facts, "class(" + c + " , 'Shop')");
+        assertFact(facts, "hasMethod(" + c + " , " + me + " , 'buy')");
+        assertFact(facts, "responsibleFor(" + c + " , " + g + ")");
+        assertFact(facts, "methodParam(" + me + " , " + p + " , 'amount' , 'int')");
+    }
+
+    @Test
+    public void compiledTemplatesAreReusedForEveryInstance() {
+        DesignClass first = new DesignClass("First");
+        DesignClass second = new DesignClass("Second");
+        pool.objectAdded(first);
+        pool.objectAdded(second);
+
+        Set<String> facts = checker.generateFacts(new HashSet<>(Arrays.asList(first, second)));
+
+        assertFact(facts, "class(" + pool.getNameForObject(first) + " , 'First')");
+        assertFact(facts, "class(" + pool.getNameForObject(second) + " , 'Second')");
+    }
+
+    private static void assertFact(Set<String> facts, String fact) {
+        assertTrue(fact + " not in " + facts, facts.contains(fact));
+    }
+}
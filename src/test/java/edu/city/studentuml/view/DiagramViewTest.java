@@ -0,0 +1,213 @@
+package edu.city.studentuml.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.Association;
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.SDObject;
+import edu.city.studentuml.model.domain.UMLProject;
+import edu.city.studentuml.model.domain.UseCase;
+import edu.city.studentuml.model.graphical.AssociationGR;
+import edu.city.studentuml.model.graphical.ClassGR;
+import edu.city.studentuml.model.graphical.DCDModel;
+import edu.city.studentuml.model.graphical.DiagramModel;
+import edu.city.studentuml.model.graphical.SDObjectGR;
+import edu.city.studentuml.model.graphical.SystemGR;
+import edu.city.studentuml.model.graphical.UCDModel;
+import edu.city.studentuml.model.graphical.UseCaseGR;
+import edu.city.studentuml.view.gui.DCDInternalFrame;
+import edu.city.studentuml.view.gui.UCDInternalFrame;
+
+public class DiagramViewTest {
+
+    private DCDModel model;
+    private DiagramView view;
+    private ClassGR topLeft;
+    private ClassGR topRight;
+
+    @Before
+    public void setup() {
+        UMLProject project = UMLProject.getInstance();
+        project.clear();
+        model = new DCDModel("dcd", project);
+        view = new DCDInternalFrame(model, true).getView();
+
+        topLeft = addClass("TopLeft", 10, 10);
+        topRight = addClass("TopRight", 3000, 10);
+        addClass("BottomLeft", 10, 3000);
+        model.addGraphicalElement(new AssociationGR(topLeft, topRight, new Association(
+                topLeft.getDesignClass(), topRight.getDesignClass())));
+    }
+
+    @Test
+    public void elementsOutsideTheClipAreSkippedOnceLaidOut() {
+        BufferedImage image = new BufferedImage(500, 500, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setClip(0, 0, 500, 500);
+
+        view.drawDiagram(g);
+        assertEquals("the first frame lays out every element", 4, view.getDrawnElements());
+
+        view.drawDiagram(g);
+        assertEquals(4, view.getTotalElements());
+        assertEquals("top left class and the association", 2, view.getDrawnElements());
+
+        model.modelChanged();
+        view.drawDiagram(g);
+        assertEquals(4, view.getDrawnElements());
+        g.dispose();
+    }
+
+    @Test
+    public void movingElementsKeepsSkippingThoseOutsideTheClip() {
+        BufferedImage image = new BufferedImage(500, 500, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setClip(0, 0, 500, 500);
+        view.drawDiagram(g);
+
+        view.propertyChange(new PropertyChangeEvent(model, DiagramModel.LAYOUT_CHANGED, null, null));
+        view.drawDiagram(g);
+        assertEquals(2, view.getDrawnElements());
+
+        addClass("Added", 3000, 3000);
+        view.drawDiagram(g);
+        assertEquals("adding an element draws every element", 5, view.getDrawnElements());
+        g.dispose();
+    }
+
+    @Test
+    public void everyElementIsDrawnWithoutClip() {
+        view.drawDiagram(new BufferedImage(500, 500, BufferedImage.TYPE_INT_RGB).createGraphics());
+        BufferedImage image = view.getImage();
+
+        assertEquals(4, view.getDrawnElements());
+        assertTrue(image.getWidth() > 3000 && image.getHeight() > 3000);
+    }
+
+    @Test
+    public void smallElementsAreDrawnAsOutlinesAtLowZoom() {
+        BufferedImage image = new BufferedImage(500, 500, BufferedImage.TYPE_INT_RGB);
+        view.setLevelOfDetailSize(16);
+
+        view.paintComponent(image.createGraphics());
+        assertEquals(4, view.getDrawnElements());
+        assertEquals(0, view.getOutlinedElements());
+
+        view.setScale(DiagramView.MIN_SCALE);
+        view.paintComponent(image.createGraphics());
+        assertEquals(4, view.getDrawnElements());
+        assertEquals(4, view.getOutlinedElements());
+
+        view.setLevelOfDetailSize(0);
+        view.paintComponent(image.createGraphics());
+        assertEquals(0, view.getOutlinedElements());
+    }
+
+    @Test
+    public void nestedUseCasesArePaintedInUseCaseDiagrams() {
+        UCDModel ucdModel = new UCDModel("ucd", UMLProject.getInstance());
+        DiagramView ucdView = new UCDInternalFrame(ucdModel).getView();
+        SystemGR system = new SystemGR(new edu.city.studentuml.model.domain.System("S"), 10, 10);
+        ucdModel.addGraphicalElement(system);
+
+        List<String> calls = new ArrayList<>();
+        UseCaseGR useCase = new UseCaseGR(new UseCase("U"), 50, 50) {
+            @Override
+            public void draw(Graphics2D g) {
+                calls.add("draw");
+                super.draw(g);
+            }
+
+            @Override
+            public void drawOutline(Graphics2D g) {
+                calls.add("outline");
+                super.drawOutline(g);
+            }
+        };
+        system.add(useCase);
+        useCase.setContext(system);
+
+        BufferedImage image = new BufferedImage(500, 500, BufferedImage.TYPE_INT_RGB);
+        ucdView.paintComponent(image.createGraphics());
+        assertEquals(Arrays.asList("draw"), calls);
+
+        calls.clear();
+        ucdView.setLevelOfDetailSize(16);
+        ucdView.setScale(DiagramView.MIN_SCALE);
+        ucdView.paintComponent(image.createGraphics());
+        assertEquals(Arrays.asList("outline"), calls);
+    }
+
+    @Test
+    public void zoomingDrawsWithFastHintsUntilTheViewSettles() throws Exception {
+        view.setScale(0.5);
+        assertTrue(view.isInteracting());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (view.isInteracting() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        SwingUtilities.invokeAndWait(() -> assertFalse(view.isInteracting()));
+    }
+
+    @Test
+    public void onlyScrollingTheViewportStartsAnInteraction() {
+        JViewport viewport = (JViewport) view.getParent();
+        viewport.setSize(500, 500);
+        view.addNotify();
+        assertFalse(view.isInteracting());
+
+        viewport.setViewSize(new Dimension(4000, 4000));
+        assertFalse("resizing the view is not scrolling", view.isInteracting());
+
+        viewport.setViewPosition(new Point(100, 100));
+        assertTrue(view.isInteracting());
+        view.removeNotify();
+    }
+
+    @Test
+    public void hidingThePaintStatisticsRestoresTheScrollMode() {
+        JViewport viewport = (JViewport) view.getParent();
+        viewport.setScrollMode(JViewport.BLIT_SCROLL_MODE);
+        view.addNotify();
+
+        view.setShowPaintStatistics(true);
+        assertEquals(JViewport.SIMPLE_SCROLL_MODE, viewport.getScrollMode());
+
+        view.setShowPaintStatistics(false);
+        assertEquals(JViewport.BLIT_SCROLL_MODE, viewport.getScrollMode());
+        view.removeNotify();
+    }
+
+    @Test
+    public void paintBoundsOfObjectsIncludeTheLifeline() {
+        SDObjectGR object = new SDObjectGR(new SDObject("o", new DesignClass("C")), 100);
+        object.setEndingY(2000);
+
+        assertTrue(object.getPaintBounds().contains(object.getBounds()));
+        assertEquals(2000, object.getPaintBounds().getMaxY(), 0);
+    }
+
+    private ClassGR addClass(String name, int x, int y) {
+        ClassGR classGR = new ClassGR(new DesignClass(name), new Point(x, y));
+        model.addGraphicalElement(classGR);
+        return classGR;
+    }
+}
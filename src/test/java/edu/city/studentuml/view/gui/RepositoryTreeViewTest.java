@@ -0,0 +1,133 @@
+package edu.city.studentuml.view.gui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JTree;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.TreeNode;
+import javax.swing.tree.TreePath;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.city.studentuml.model.domain.DesignClass;
+import edu.city.studentuml.model.domain.SDObject;
+import edu.city.studentuml.model.domain.UMLProject;
+import edu.city.studentuml.model.graphical.ClassGR;
+import edu.city.studentuml.model.graphical.DCDModel;
+import edu.city.studentuml.model.graphical.SDModel;
+import edu.city.studentuml.model.graphical.SDObjectGR;
+
+public class RepositoryTreeViewTest {
+
+    private UMLProject project;
+    private RepositoryTreeView view;
+    private JTree tree;
+    private DCDModel dcd;
+    private final List<String> treeEvents = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        project = UMLProject.getInstance();
+        project.clear();
+        view = new RepositoryTreeView();
+        tree = (JTree) view.getComponent(0);
+        tree.getModel().addTreeModelListener(new TreeModelListener() {
+            @Override
+            public void treeNodesChanged(TreeModelEvent e) {
+                treeEvents.add("changed");
+            }
+
+            @Override
+            public void treeNodesInserted(TreeModelEvent e) {
+                treeEvents.add("inserted");
+            }
+
+            @Override
+            public void treeNodesRemoved(TreeModelEvent e) {
+                treeEvents.add("removed");
+            }
+
+            @Override
+            public void treeStructureChanged(TreeModelEvent e) {
+                treeEvents.add("structureChanged");
+            }
+        });
+        dcd = new DCDModel("dcd", project);
+    }
+
+    @After
+    public void tearDown() {
+        project.removePropertyChangeListener(view);
+    }
+
+    @Test
+    public void movingElementsDoesNotTouchTheTree() {
+        ClassGR classGR = addClass("A");
+        SDModel sd = new SDModel("sd", project);
+        SDObjectGR object = new SDObjectGR(new SDObject("a", classGR.getDesignClass()), 100);
+        sd.addGraphicalElement(object);
+        treeEvents.clear();
+
+        dcd.moveGraphicalElement(classGR, 200, 300);
+        sd.moveGraphicalElement(object, 300, 0);
+
+        assertTrue(treeEvents.isEmpty());
+    }
+
+    @Test
+    public void addingAClassInsertsOnlyItsNodes() {
+        addClass("B");
+        DefaultMutableTreeNode b = (DefaultMutableTreeNode) dataModelNode().getChildAt(0);
+        TreePath bPath = new TreePath(b.getPath());
+        tree.expandPath(bPath);
+        treeEvents.clear();
+
+        addClass("A");
+
+        assertEquals("A", userObjectName(dataModelNode().getChildAt(0)));
+        assertSame(b, dataModelNode().getChildAt(1));
+        assertTrue(tree.isExpanded(bPath));
+        assertFalse(treeEvents.contains("structureChanged"));
+        assertFalse(treeEvents.contains("removed"));
+    }
+
+    @Test
+    public void renamingAClassMovesItsNode() {
+        ClassGR a = addClass("A");
+        addClass("B");
+        TreeNode aNode = dataModelNode().getChildAt(0);
+        treeEvents.clear();
+
+        a.getDesignClass().setName("C");
+        dcd.modelChanged();
+
+        assertEquals("B", userObjectName(dataModelNode().getChildAt(0)));
+        assertSame(aNode, dataModelNode().getChildAt(1));
+        assertEquals(2, dataModelNode().getChildCount());
+    }
+
+    private ClassGR addClass(String name) {
+        ClassGR classGR = new ClassGR(new DesignClass(name), new Point(0, 0));
+        dcd.addGraphicalElement(classGR);
+        return classGR;
+    }
+
+    private DefaultMutableTreeNode dataModelNode() {
+        return (DefaultMutableTreeNode) ((TreeNode) tree.getModel().getRoot()).getChildAt(0);
+    }
+
+    private static String userObjectName(TreeNode node) {
+        return ((DesignClass) ((DefaultMutableTreeNode) node).getUserObject()).getName();
+    }
+}